@@ -0,0 +1,218 @@
+package benchmarks;
+
+import api.ApiServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import model.TaskStorage;
+import model.User;
+
+/**
+ * Measures the throughput and latencies of the HTTP API under concurrent load.
+ *
+ * <p>A number of connections, each on its own virtual thread, send requests in a closed
+ * loop for a fixed time: pages of the task list at random offsets, single tasks, searches
+ * and, for the given share of requests, changes of the subject of a task. The requests per
+ * second and the latency percentiles are printed at the end.</p>
+ *
+ * <p>Without {@code --url}, an {@link ApiServer} is started in this process on a user built
+ * by {@link Fixtures}, and its changes are made on a single writing thread, like the JavaFX
+ * thread of the application. With {@code --url}, a running application is loaded instead,
+ * e.g. one started with {@code mvn javafx:run@api}. Usage, after {@code mvn -f benchmarks/pom.xml package}:</p>
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar benchmarks.ApiLoadGenerator
+ *     [--url http://localhost:8080] [--connections 64] [--seconds 30] [--writes 10]
+ *     [--tasks 100000] [--storage OBJECTS]
+ * </pre>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+public final class ApiLoadGenerator {
+
+    private static final Pattern TASK_ID = Pattern.compile("\"taskId\":(\\d+)");
+    private static final Pattern TOTAL = Pattern.compile("\"total\":(\\d+)");
+
+    private final HttpClient client;
+    private final String url;
+    private final int[] taskIds;
+    private final int total;
+    private final int writePercent;
+
+    private ApiLoadGenerator(HttpClient client, String url, int[] taskIds, int total, int writePercent) {
+        this.client = client;
+        this.url = url;
+        this.taskIds = taskIds;
+        this.total = total;
+        this.writePercent = writePercent;
+    }
+
+    /**
+     * Runs the load.
+     *
+     * @param args the options described in the class documentation
+     * @throws Exception if the server cannot be started or reached
+     */
+    public static void main(String[] args) throws Exception {
+        String url = option(args, "--url", null);
+        int connections = Integer.parseInt(option(args, "--connections", "64"));
+        int seconds = Integer.parseInt(option(args, "--seconds", "30"));
+        int writePercent = Integer.parseInt(option(args, "--writes", "10"));
+
+        ApiServer server = null;
+        ExecutorService writer = null;
+        if (url == null) {
+            int tasks = Integer.parseInt(option(args, "--tasks", "100000"));
+            TaskStorage storage = TaskStorage.valueOf(option(args, "--storage", "OBJECTS"));
+            User user = Fixtures.user(storage, Math.max(1, tasks / 100), tasks);
+            writer = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "writer"));
+            server = ApiServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), () -> user, writer);
+            url = "http://localhost:" + server.getPort();
+            System.out.printf("Serving %d tasks stored as %s at %s%n", user.getTaskCount(), storage, url);
+        }
+
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(threads)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            String firstPage = get(client, url + "/api/tasks?limit=" + ApiServer.MAX_LIMIT);
+            int[] ids = TASK_ID.matcher(firstPage).results().mapToInt(match -> Integer.parseInt(match.group(1))).toArray();
+            if (ids.length == 0) {
+                throw new IllegalStateException("The server has no tasks to load");
+            }
+            Matcher total = TOTAL.matcher(firstPage);
+            total.find();
+            ApiLoadGenerator generator = new ApiLoadGenerator(client, url, ids, Integer.parseInt(total.group(1)), writePercent);
+            generator.run(threads, connections, seconds);
+        } finally {
+            if (server != null) {
+                server.close();
+                writer.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Runs the connections for the given time and prints the results.
+     */
+    private void run(ExecutorService threads, int connections, int seconds) throws Exception {
+        System.out.printf("%d connections for %d s, %d%% writes%n", connections, seconds, writePercent);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            results.add(threads.submit(() -> connection(deadline)));
+        }
+        long[] latencies = new long[0];
+        long errors = 0;
+        for (Future<long[]> result : results) {
+            long[] connection = result.get();
+            // The last element counts the failed requests
+            errors += connection[connection.length - 1];
+            int start = latencies.length;
+            latencies = Arrays.copyOf(latencies, start + connection.length - 1);
+            System.arraycopy(connection, 0, latencies, start, connection.length - 1);
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%d requests, %d failed, %.0f requests/s%n", latencies.length, errors,
+                latencies.length / (double) seconds);
+        if (latencies.length > 0) {
+            System.out.printf("latency p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                    percentile(latencies, 0.5), percentile(latencies, 0.9), percentile(latencies, 0.99),
+                    latencies[latencies.length - 1] / 1e6);
+        }
+    }
+
+    /**
+     * Sends requests in a loop until the deadline.
+     *
+     * @return the latencies of the successful requests in nanoseconds, followed by the number
+     *         of failed requests
+     */
+    private long[] connection(long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] latencies = new long[1024];
+        int count = 0;
+        long errors = 0;
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = request(random);
+            long start = System.nanoTime();
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() >= 400) {
+                    errors++;
+                    continue;
+                }
+            } catch (IOException e) {
+                errors++;
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        long[] result = Arrays.copyOf(latencies, count + 1);
+        result[count] = errors;
+        return result;
+    }
+
+    /**
+     * Picks the next request: a change of a task for the share of writes, otherwise a page,
+     * a task or a search.
+     */
+    private HttpRequest request(ThreadLocalRandom random) {
+        int taskId = taskIds[random.nextInt(taskIds.length)];
+        if (random.nextInt(100) < writePercent) {
+            return HttpRequest.newBuilder(URI.create(url + "/api/tasks/" + taskId))
+                    .PUT(HttpRequest.BodyPublishers.ofString("{\"subject\":\"Subject " + random.nextInt(1000) + "\"}"))
+                    .build();
+        }
+        String path = switch (random.nextInt(3)) {
+            case 0 -> "/api/tasks?limit=50&offset=" + random.nextInt(Math.max(1, total - 50));
+            case 1 -> "/api/tasks/" + taskId;
+            default -> "/api/tasks?limit=50&q=subject%20" + random.nextInt(100);
+        };
+        return HttpRequest.newBuilder(URI.create(url + path)).GET().build();
+    }
+
+    private static String get(HttpClient client, String url) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException(url + " answered " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))] / 1e6;
+    }
+
+    private static String option(String[] args, String name, String missing) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return missing;
+    }
+}
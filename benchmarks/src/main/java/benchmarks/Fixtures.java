@@ -0,0 +1,101 @@
+package benchmarks;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import model.Client;
+import model.Task;
+import model.TaskStorage;
+import model.User;
+
+/**
+ * Builds the users measured by the benchmarks.
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+final class Fixtures {
+
+    // Tasks and clients are added in batches, as an import does
+    private static final int BATCH_SIZE = 10_000;
+
+    // Due dates are spread over this many days from today, so that every status is present
+    static final int DAYS = 60;
+
+    private Fixtures() {
+    }
+
+    /**
+     * Creates a user with the given numbers of clients and tasks, in addition to the
+     * sample data. The tasks are spread evenly over the clients and over the next
+     * {@link #DAYS} days.
+     *
+     * @param storage the way the user stores its tasks
+     * @param clients the number of clients to add
+     * @param tasks the number of tasks to add
+     * @return the new user
+     */
+    static User user(TaskStorage storage, int clients, int tasks) {
+        User user = new User(storage);
+        int[] clientIds = addClients(user, clients);
+        LocalDate today = LocalDate.now(user.getClock());
+        Task[] batch = new Task[Math.min(BATCH_SIZE, tasks)];
+        int filled = 0;
+        for (int i = 0; i < tasks; i++) {
+            batch[filled++] = task(i, clientIds[i % clientIds.length], today);
+            if (filled == batch.length || i == tasks - 1) {
+                user.addTask(filled == batch.length ? batch : Arrays.copyOf(batch, filled));
+                filled = 0;
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Adds clients to a user in batches.
+     *
+     * @param user the user to add the clients to
+     * @param count the number of clients
+     * @return the IDs of the added clients
+     */
+    static int[] addClients(User user, int count) {
+        int[] ids = new int[count];
+        Client[] batch = new Client[Math.min(BATCH_SIZE, count)];
+        int filled = 0;
+        for (int i = 0; i < count; i++) {
+            batch[filled++] = client(i);
+            if (filled == batch.length || i == count - 1) {
+                Client[] added = filled == batch.length ? batch : Arrays.copyOf(batch, filled);
+                user.addClient(added);
+                for (int j = 0; j < added.length; j++) {
+                    ids[i - added.length + 1 + j] = added[j].getClientId();
+                }
+                filled = 0;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Creates a client with a valid phone number.
+     *
+     * @param i the number of the client, used in its names
+     * @return the new client
+     */
+    static Client client(int i) {
+        return new Client("Student " + i, "Parent " + i, "123456789", "Client " + i);
+    }
+
+    /**
+     * Creates a task of a client, due on one of the next {@link #DAYS} days.
+     *
+     * @param i the number of the task, used in its subject and to pick its due date
+     * @param clientId the client of the task
+     * @param today the current date of the user
+     * @return the new task
+     */
+    static Task task(int i, int clientId, LocalDate today) {
+        return new Task("Subject " + i, "Task " + i, clientId, today.plusDays(i % DAYS),
+                LocalTime.of(i % 24, i % 60));
+    }
+}
@@ -0,0 +1,89 @@
+package benchmarks;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+import model.Client;
+import model.Task;
+import model.ValidationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the validation and construction of single clients and tasks, which every add,
+ * edit and import goes through.
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+
+    // Fields rather than constants, so that the compiler cannot fold them into the benchmarks
+    private final Client client = new Client("Student", "Parent", "123456789", "Client");
+    private String validPhoneNumber = "123456789";
+    private String invalidPhoneNumber = "12345";
+    private String subject = "Matematyka";
+    private String description = "Ułamki";
+    private LocalDate date = LocalDate.of(2025, 3, 10);
+    private LocalTime time = LocalTime.of(16, 30);
+
+    /**
+     * Checks a valid phone number.
+     *
+     * @return the client checked
+     * @throws ValidationException never, as the number is valid
+     */
+    @Benchmark
+    public Client checkValidPhoneNumber() throws ValidationException {
+        client.checkPhoneNumber(validPhoneNumber);
+        return client;
+    }
+
+    /**
+     * Checks an invalid phone number, which throws.
+     *
+     * @return the exception thrown
+     */
+    @Benchmark
+    public Object checkInvalidPhoneNumber() {
+        try {
+            client.checkPhoneNumber(invalidPhoneNumber);
+            return null;
+        } catch (ValidationException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Creates a task from the fields of its due date and time.
+     *
+     * @return the new task
+     */
+    @Benchmark
+    public Task newTaskFromFields() {
+        return new Task(subject, description, 1, 2025, 3, 10, 16, 30);
+    }
+
+    /**
+     * Creates a task from its due date and time.
+     *
+     * @return the new task
+     */
+    @Benchmark
+    public Task newTaskFromDateAndTime() {
+        return new Task(subject, description, 1, date, time);
+    }
+}
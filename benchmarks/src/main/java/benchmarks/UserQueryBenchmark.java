@@ -0,0 +1,106 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import model.LiveList;
+import model.Task;
+import model.TaskStatus;
+import model.TaskStorage;
+import model.User;
+import model.ValidationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the lookups of a {@link User} holding {@code size} tasks and a tenth as many
+ * clients: finding a client by ID and filtering the tasks by status, as the task view does
+ * when one of the status buttons is pressed.
+ *
+ * <p>The largest sizes need a large heap; the forks run with {@code -Xmx8g} unless other
+ * JVM options are given with {@code -jvmArgs}.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class UserQueryBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int size;
+
+    @Param({"OBJECTS", "COLUMNS", "OFF_HEAP"})
+    TaskStorage storage;
+
+    @Param({"DUE_SOON", "LONG_TERM"})
+    TaskStatus status;
+
+    private User user;
+    private int[] clientIds;
+    private SplittableRandom random;
+
+    /**
+     * Builds the user once for every combination of parameters.
+     */
+    @Setup
+    public void setUp() {
+        user = Fixtures.user(storage, Math.max(1, size / 10), size);
+        clientIds = user.getClientList().stream().mapToInt(client -> client.getClientId()).toArray();
+        random = new SplittableRandom(42);
+    }
+
+    /**
+     * Finds a client chosen at random.
+     *
+     * @return the client
+     * @throws ValidationException never, as the client exists
+     */
+    @Benchmark
+    public Object getClientById() throws ValidationException {
+        return user.getClientById(clientIds[random.nextInt(clientIds.length)]);
+    }
+
+    /**
+     * Visits the tasks with one status.
+     *
+     * @param blackhole consumes the tasks
+     */
+    @Benchmark
+    public void getTasksByStatus(Blackhole blackhole) {
+        for (Task task : user.getTasksByStatus(status)) {
+            blackhole.consume(task);
+        }
+    }
+
+    /**
+     * Builds the live list of the tasks with one status, as shown by the task view when it is
+     * filtered by status, and reads its first rows.
+     *
+     * @param blackhole consumes the rows shown
+     */
+    @Benchmark
+    public void getLiveTasksByStatus(Blackhole blackhole) {
+        LiveList<Task> tasks = user.getLiveTasksByStatus(status);
+        try {
+            for (int i = 0; i < Math.min(30, tasks.size()); i++) {
+                blackhole.consume(tasks.get(i));
+            }
+        } finally {
+            tasks.dispose();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package benchmarks;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import model.Client;
+import model.Task;
+import model.TaskStorage;
+import model.User;
+import model.ValidationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures adding and removing tasks and clients of a {@link User} holding {@code size}
+ * tasks and a tenth as many clients.
+ *
+ * <p>Each iteration runs one batch of {@value #BATCH} calls, and the user is brought back to
+ * its size between iterations, so that the measured size does not drift however long the
+ * benchmark runs. The scores are the times of whole batches.</p>
+ *
+ * <p>The largest sizes need a large heap; the forks run with {@code -Xmx8g} unless other
+ * JVM options are given with {@code -jvmArgs}.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 50, batchSize = UserUpdateBenchmark.BATCH)
+@Measurement(iterations = 100, batchSize = UserUpdateBenchmark.BATCH)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class UserUpdateBenchmark {
+
+    /**
+     * The number of calls in one iteration.
+     */
+    static final int BATCH = 100;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int size;
+
+    @Param({"OBJECTS", "COLUMNS", "OFF_HEAP"})
+    TaskStorage storage;
+
+    private User user;
+    private int clientId;
+    private LocalDate today;
+
+    // Tasks and clients prepared for the current iteration to remove, and how many it removed
+    private final int[] taskIds = new int[BATCH];
+    private final int[] clientIds = new int[BATCH];
+    private int tasksRemoved;
+    private int clientsRemoved;
+
+    // Tasks and clients added by the current iteration, and how many
+    private final int[] addedTaskIds = new int[BATCH];
+    private final int[] addedClientIds = new int[BATCH];
+    private int tasksAdded;
+    private int clientsAdded;
+
+    /**
+     * Builds the user once for every combination of parameters.
+     */
+    @Setup(Level.Trial)
+    public void setUpUser() {
+        user = Fixtures.user(storage, Math.max(1, size / 10), size);
+        clientId = user.getClientList().get(0).getClientId();
+        today = LocalDate.now(user.getClock());
+    }
+
+    /**
+     * Adds the tasks and clients the next iteration may remove, each client with one task.
+     */
+    @Setup(Level.Iteration)
+    public void setUpBatch() {
+        tasksRemoved = 0;
+        clientsRemoved = 0;
+        tasksAdded = 0;
+        clientsAdded = 0;
+        for (int i = 0; i < BATCH; i++) {
+            Task task = Fixtures.task(i, clientId, today);
+            user.addTask(task);
+            taskIds[i] = task.getTaskId();
+            Client client = Fixtures.client(i);
+            user.addClient(client);
+            clientIds[i] = client.getClientId();
+            user.addTask(Fixtures.task(i, client.getClientId(), today));
+        }
+    }
+
+    /**
+     * Removes what the iteration added and what was prepared for it and left, bringing the
+     * user back to its size.
+     *
+     * @throws ValidationException never, as only existing tasks and clients are removed
+     */
+    @TearDown(Level.Iteration)
+    public void tearDownBatch() throws ValidationException {
+        for (int i = tasksRemoved; i < BATCH; i++) {
+            user.removeTask(taskIds[i]);
+        }
+        for (int i = clientsRemoved; i < BATCH; i++) {
+            user.removeClient(clientIds[i]);
+        }
+        for (int i = 0; i < tasksAdded; i++) {
+            user.removeTask(addedTaskIds[i]);
+        }
+        for (int i = 0; i < clientsAdded; i++) {
+            user.removeClient(addedClientIds[i]);
+        }
+    }
+
+    /**
+     * Adds a task. The tasks added are removed again after the iteration.
+     */
+    @Benchmark
+    public void addTask() {
+        Task task = Fixtures.task(tasksAdded, clientId, today);
+        user.addTask(task);
+        addedTaskIds[tasksAdded++] = task.getTaskId();
+    }
+
+    /**
+     * Adds a client. The clients added are removed again after the iteration.
+     */
+    @Benchmark
+    public void addClient() {
+        Client client = Fixtures.client(clientsAdded);
+        user.addClient(client);
+        addedClientIds[clientsAdded++] = client.getClientId();
+    }
+
+    /**
+     * Removes a task prepared for the iteration.
+     *
+     * @throws ValidationException never, as the task exists
+     */
+    @Benchmark
+    public void removeTask() throws ValidationException {
+        user.removeTask(taskIds[tasksRemoved++]);
+    }
+
+    /**
+     * Removes a client prepared for the iteration, together with its task.
+     *
+     * @throws ValidationException never, as the client exists
+     */
+    @Benchmark
+    public void removeClient() throws ValidationException {
+        user.removeClient(clientIds[clientsRemoved++]);
+    }
+}
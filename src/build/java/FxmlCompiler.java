@@ -0,0 +1,531 @@
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.ProcessingInstruction;
+
+/**
+ * Build-time compiler turning the FXML views of the application into Java code.
+ *
+ * <p>For every {@code Name.fxml} file it generates a {@code NameBuilder} class in the package of
+ * the view's controller. The builder creates the scene graph with plain constructor and setter
+ * calls, assigns the {@code fx:id} nodes directly to the controller's fields, binds the
+ * {@code #handler} attributes to the controller's methods and finally calls the controller's
+ * {@code initialize} method, which is what {@code FXMLLoader} does through XML parsing and
+ * reflection at run time. A {@code CompiledViews} class gives access to all generated builders
+ * by view name.</p>
+ *
+ * <p>The generated code accesses the controller directly, so controllers must implement
+ * {@code Initializable} and their {@code @FXML} fields and handlers must not be private.
+ * Handlers take the event as their only parameter. The JavaFX classes named in the FXML
+ * files are inspected through reflection, so they must be on the class path of the
+ * compiler. Supported FXML: object elements with a public no-argument constructor or a
+ * {@code @NamedArg} constructor, property attributes of primitive, {@code String} and enum
+ * types, static properties such as {@code AnchorPane.topAnchor}, list and object property
+ * elements, default properties and {@code fx:id}, {@code fx:controller} and event handler
+ * attributes. Anything else stops the build with an error.</p>
+ *
+ * <p>Usage, run by Maven in the {@code generate-sources} phase:</p>
+ * <pre>
+ * java -cp &lt;classpath&gt; FxmlCompiler.java &lt;fxml directory&gt; &lt;resource path&gt; &lt;output directory&gt;
+ * </pre>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+public class FxmlCompiler {
+
+    private static final String FX_NAMESPACE = "http://javafx.com/fxml/1";
+    private static final String REGISTRY = "CompiledViews";
+
+    private final List<String> imports = new ArrayList<>();
+    private final TreeSet<String> usedTypes = new TreeSet<>();
+    private final StringBuilder body = new StringBuilder();
+    private int nodeCount;
+
+    /**
+     * Compiles every FXML file of a directory.
+     *
+     * @param args the FXML directory, the resource path of that directory and the output directory
+     * @throws Exception if a file cannot be read, written or compiled
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 3) {
+            throw new IllegalArgumentException("Usage: FxmlCompiler <fxml directory> <resource path> <output directory>");
+        }
+        Path sources = Path.of(args[0]);
+        String resourcePath = args[1].endsWith("/") ? args[1] : args[1] + "/";
+        Path output = Path.of(args[2]);
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(sources)) {
+            files = list.filter(file -> file.toString().endsWith(".fxml")).sorted().toList();
+        }
+        Map<String, String> controllers = new LinkedHashMap<>();
+        String controllerPackage = null;
+        for (Path file : files) {
+            String view = file.getFileName().toString().replace(".fxml", "");
+            FxmlCompiler compiler = new FxmlCompiler();
+            String controller = compiler.controllerOf(file);
+            String packageName = packageOf(controller);
+            if (controllerPackage != null && !controllerPackage.equals(packageName)) {
+                throw new IllegalStateException("All controllers must be in one package: " + controller);
+            }
+            controllerPackage = packageName;
+            controllers.put(view, simpleName(controller));
+            write(output, packageName, view + "Builder", compiler.compile(file, view, resourcePath + view + ".fxml"));
+        }
+        if (controllerPackage != null) {
+            write(output, controllerPackage, REGISTRY, registry(controllerPackage, controllers));
+        }
+    }
+
+    /**
+     * Reads the fully qualified controller class name of an FXML file.
+     */
+    private String controllerOf(Path file) throws Exception {
+        String controller = parse(file).getDocumentElement().getAttributeNS(FX_NAMESPACE, "controller");
+        if (controller.isEmpty()) {
+            throw new IllegalStateException(file + ": the root element has no fx:controller");
+        }
+        return controller;
+    }
+
+    /**
+     * Generates the builder class of one FXML file.
+     */
+    private String compile(Path file, String view, String resource) throws Exception {
+        Document document = parse(file);
+        for (Node node = document.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof ProcessingInstruction instruction && instruction.getTarget().equals("import")) {
+                imports.add(instruction.getData().trim());
+            }
+        }
+        Element root = document.getDocumentElement();
+        String controller = root.getAttributeNS(FX_NAMESPACE, "controller");
+        String rootType = simpleName(resolve(root.getTagName()).getName());
+        String rootNode = object(root, file);
+
+        StringBuilder source = new StringBuilder();
+        source.append("// Generated by FxmlCompiler from ").append(file.getFileName()).append(". Do not edit.\n");
+        source.append("package ").append(packageOf(controller)).append(";\n\n");
+        for (String type : usedTypes) {
+            source.append("import ").append(type).append(";\n");
+        }
+        source.append("\n/**\n * Builds the scene graph of {@code ").append(file.getFileName())
+                .append("} without {@code FXMLLoader}.\n */\n");
+        source.append("final class ").append(view).append("Builder {\n\n");
+        source.append("    private ").append(view).append("Builder() {\n    }\n\n");
+        source.append("    /**\n     * Creates the nodes of the view, wires them to the controller and initializes it.\n");
+        source.append("     *\n     * @param controller the controller of the view\n");
+        source.append("     * @return the root node of the view\n     */\n");
+        source.append("    static ").append(rootType).append(" build(").append(simpleName(controller))
+                .append(" controller) {\n");
+        source.append(body);
+        source.append("        controller.initialize(").append(REGISTRY).append(".class.getResource(\"")
+                .append(resource).append("\"), null);\n");
+        source.append("        return ").append(rootNode).append(";\n");
+        source.append("    }\n}\n");
+        return source.toString();
+    }
+
+    /**
+     * Emits the code creating an object element and returns the expression referring to it.
+     */
+    private String object(Element element, Path file) throws Exception {
+        Class<?> type = resolve(element.getTagName());
+        String typeName = use(type);
+        String fxId = element.getAttributeNS(FX_NAMESPACE, "id");
+        Map<String, String> attributes = attributes(element);
+
+        String node;
+        if (hasDefaultConstructor(type)) {
+            boolean generic = type.getTypeParameters().length > 0;
+            if (!fxId.isEmpty() && generic) {
+                node = "controller." + fxId; // The diamond takes the type arguments of the field
+                line(node + " = new " + typeName + "<>();");
+            } else {
+                node = "n" + nodeCount++;
+                line(typeName + " " + node + " = new " + typeName + "();");
+            }
+            if (!fxId.isEmpty() && !attributes.containsKey("id") && findSetter(type, "id") != null) {
+                line(node + ".setId(" + literal(String.class, fxId, file) + ");");
+            }
+            for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+                property(node, type, attribute.getKey(), attribute.getValue(), file);
+            }
+            List<Element> defaultValues = new ArrayList<>();
+            for (Element child : children(element)) {
+                if (Character.isUpperCase(child.getTagName().charAt(0))) {
+                    defaultValues.add(child);
+                } else {
+                    propertyElement(node, type, child.getTagName(), children(child), file);
+                }
+            }
+            if (!defaultValues.isEmpty()) {
+                propertyElement(node, type, defaultProperty(type, file), defaultValues, file);
+            }
+        } else {
+            if (!children(element).isEmpty()) {
+                throw new IllegalStateException(file + ": child elements of " + typeName + " are not supported");
+            }
+            node = "n" + nodeCount++;
+            line(typeName + " " + node + " = new " + typeName + "(" + constructorArguments(type, attributes, file) + ");");
+        }
+        if (!fxId.isEmpty() && !node.startsWith("controller.")) {
+            line("controller." + fxId + " = " + node + ";");
+        }
+        return node;
+    }
+
+    /**
+     * Emits the code setting a property given as an attribute.
+     */
+    private void property(String node, Class<?> type, String name, String value, Path file) throws Exception {
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) {
+            Class<?> owner = resolve(name.substring(0, dot));
+            String setter = "set" + capitalize(name.substring(dot + 1));
+            for (Method method : owner.getMethods()) {
+                if (method.getName().equals(setter) && Modifier.isStatic(method.getModifiers())
+                        && method.getParameterCount() == 2) {
+                    line(use(owner) + "." + setter + "(" + node + ", "
+                            + literal(method.getParameterTypes()[1], value, file) + ");");
+                    return;
+                }
+            }
+            throw new IllegalStateException(file + ": unknown static property " + name);
+        }
+        Method setter = findSetter(type, name);
+        if (setter == null) {
+            throw new IllegalStateException(file + ": " + type.getSimpleName() + " has no property " + name);
+        }
+        if (value.startsWith("#")) {
+            line(node + "." + setter.getName() + "(event -> " + REGISTRY + ".handle(() -> controller."
+                    + value.substring(1) + "(event)));");
+        } else {
+            line(node + "." + setter.getName() + "(" + literal(setter.getParameterTypes()[0], value, file) + ");");
+        }
+    }
+
+    /**
+     * Emits the code setting a property given as an element, either a list or a single object.
+     */
+    private void propertyElement(String node, Class<?> type, String name, List<Element> values, Path file)
+            throws Exception {
+        Method getter = findGetter(type, name);
+        if (getter != null && List.class.isAssignableFrom(getter.getReturnType())) {
+            List<String> items = new ArrayList<>();
+            for (Element value : values) {
+                items.add(object(value, file));
+            }
+            line(node + "." + getter.getName() + "().addAll(" + String.join(", ", items) + ");");
+            return;
+        }
+        Method setter = findSetter(type, name);
+        if (setter == null || values.size() != 1) {
+            throw new IllegalStateException(file + ": unsupported property element " + name);
+        }
+        String value = object(values.get(0), file);
+        line(node + "." + setter.getName() + "(" + value + ");");
+    }
+
+    /**
+     * Builds the argument list of the {@code @NamedArg} constructor matching the attributes.
+     */
+    private String constructorArguments(Class<?> type, Map<String, String> attributes, Path file) throws Exception {
+        Constructor<?> best = null;
+        for (Constructor<?> constructor : type.getConstructors()) {
+            boolean matches = true;
+            int named = 0;
+            for (Parameter parameter : constructor.getParameters()) {
+                String[] arg = namedArg(parameter);
+                if (arg == null || (!attributes.containsKey(arg[0]) && arg[1].isEmpty())) {
+                    matches = false;
+                    break;
+                }
+                named += attributes.containsKey(arg[0]) ? 1 : 0;
+            }
+            if (matches && named == attributes.size()
+                    && (best == null || constructor.getParameterCount() < best.getParameterCount())) {
+                best = constructor;
+            }
+        }
+        if (best == null) {
+            throw new IllegalStateException(file + ": no constructor of " + type.getSimpleName()
+                    + " takes " + attributes.keySet());
+        }
+        List<String> arguments = new ArrayList<>();
+        for (Parameter parameter : best.getParameters()) {
+            String[] arg = namedArg(parameter);
+            String value = attributes.containsKey(arg[0]) ? attributes.get(arg[0]) : arg[1];
+            arguments.add(literal(parameter.getType(), value, file));
+        }
+        return String.join(", ", arguments);
+    }
+
+    /**
+     * Returns the name and default value of a {@code @NamedArg} parameter, or {@code null}.
+     */
+    private static String[] namedArg(Parameter parameter) throws Exception {
+        for (Annotation annotation : parameter.getAnnotations()) {
+            if (annotation.annotationType().getName().equals("javafx.beans.NamedArg")) {
+                Class<?> annotationType = annotation.annotationType();
+                return new String[] {
+                    (String) annotationType.getMethod("value").invoke(annotation),
+                    (String) annotationType.getMethod("defaultValue").invoke(annotation)
+                };
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the name of the default property of a class, declared by {@code @DefaultProperty}.
+     */
+    private static String defaultProperty(Class<?> type, Path file) throws Exception {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Annotation annotation : c.getDeclaredAnnotations()) {
+                if (annotation.annotationType().getName().equals("javafx.beans.DefaultProperty")) {
+                    return (String) annotation.annotationType().getMethod("value").invoke(annotation);
+                }
+            }
+        }
+        throw new IllegalStateException(file + ": " + type.getSimpleName() + " has no default property");
+    }
+
+    /**
+     * Converts an attribute value to a Java literal of the given type.
+     */
+    private String literal(Class<?> type, String value, Path file) {
+        if (value.startsWith("$") || value.startsWith("%") || value.startsWith("@")) {
+            throw new IllegalStateException(file + ": expressions, resources and locations are not supported: " + value);
+        }
+        if (value.startsWith("\\")) {
+            value = value.substring(1); // Escaped leading character
+        }
+        if (type == String.class || type == Object.class) {
+            StringBuilder literal = new StringBuilder("\"");
+            for (char c : value.toCharArray()) {
+                switch (c) {
+                    case '"' -> literal.append("\\\"");
+                    case '\\' -> literal.append("\\\\");
+                    case '\n' -> literal.append("\\n");
+                    default -> literal.append(c);
+                }
+            }
+            return literal.append('"').toString();
+        } else if (type == double.class || type == Double.class) {
+            return Double.toString(Double.parseDouble(value));
+        } else if (type == float.class || type == Float.class) {
+            return Float.parseFloat(value) + "f";
+        } else if (type == int.class || type == Integer.class) {
+            return Integer.toString(Integer.parseInt(value));
+        } else if (type == long.class || type == Long.class) {
+            return Long.parseLong(value) + "L";
+        } else if (type == boolean.class || type == Boolean.class) {
+            return Boolean.toString(Boolean.parseBoolean(value));
+        } else if (type.isEnum()) {
+            return use(type) + "." + value.toUpperCase();
+        }
+        throw new IllegalStateException(file + ": cannot convert \"" + value + "\" to " + type.getName());
+    }
+
+    /**
+     * Resolves an element name using the imports of the FXML file.
+     */
+    private Class<?> resolve(String name) throws ClassNotFoundException {
+        ClassLoader loader = FxmlCompiler.class.getClassLoader();
+        for (String imported : imports) {
+            if (imported.endsWith("." + name)) {
+                return Class.forName(imported, false, loader);
+            }
+        }
+        for (String imported : imports) {
+            if (imported.endsWith(".*")) {
+                try {
+                    return Class.forName(imported.substring(0, imported.length() - 1) + name, false, loader);
+                } catch (ClassNotFoundException e) {
+                    // Try the next package
+                }
+            }
+        }
+        return Class.forName(name.contains(".") ? name : "java.lang." + name, false, loader);
+    }
+
+    private static Method findSetter(Class<?> type, String property) {
+        String name = "set" + capitalize(property);
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == 1
+                    && !Modifier.isStatic(method.getModifiers())) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private static Method findGetter(Class<?> type, String property) {
+        try {
+            return type.getMethod("get" + capitalize(property));
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static boolean hasDefaultConstructor(Class<?> type) {
+        try {
+            type.getConstructor();
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static Map<String, String> attributes(Element element) {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        NamedNodeMap map = element.getAttributes();
+        for (int i = 0; i < map.getLength(); i++) {
+            Attr attribute = (Attr) map.item(i);
+            if (attribute.getNamespaceURI() == null && !attribute.getName().startsWith("xmlns")) {
+                attributes.put(attribute.getName(), attribute.getValue());
+            }
+        }
+        return attributes;
+    }
+
+    private static List<Element> children(Element element) {
+        List<Element> children = new ArrayList<>();
+        for (Node node = element.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element child) {
+                children.add(child);
+            }
+        }
+        return children;
+    }
+
+    private String use(Class<?> type) {
+        usedTypes.add(type.getName());
+        return type.getSimpleName();
+    }
+
+    private void line(String code) {
+        body.append("        ").append(code).append('\n');
+    }
+
+    private static Document parse(Path file) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(file.toFile());
+    }
+
+    /**
+     * Generates the class giving access to the builders by view name.
+     */
+    private static String registry(String packageName, Map<String, String> controllers) {
+        StringBuilder source = new StringBuilder();
+        source.append("// Generated by FxmlCompiler. Do not edit.\n");
+        source.append("package ").append(packageName).append(";\n\n");
+        source.append("import javafx.scene.Parent;\n\n");
+        source.append("/**\n * Views compiled from their FXML files at build time.\n");
+        source.append(" * Each view is built by plain Java code instead of {@code FXMLLoader}.\n */\n");
+        source.append("public final class ").append(REGISTRY).append(" {\n\n");
+        source.append("    private ").append(REGISTRY).append("() {\n    }\n\n");
+
+        source.append("    /**\n     * Tells whether a view was compiled.\n     *\n");
+        source.append("     * @param view the name of the FXML file (without extension)\n");
+        source.append("     * @return {@code true} if the view can be built by {@link #build(String, Object)}\n     */\n");
+        source.append("    public static boolean contains(String view) {\n");
+        source.append("        return switch (view) {\n");
+        source.append("            case ").append(quotedKeys(controllers)).append(" -> true;\n");
+        source.append("            default -> false;\n        };\n    }\n\n");
+
+        source.append("    /**\n     * Returns the controller class of a compiled view.\n     *\n");
+        source.append("     * @param view the name of the FXML file (without extension)\n");
+        source.append("     * @return the class named by the {@code fx:controller} attribute of the view\n");
+        source.append("     * @throws IllegalArgumentException if the view was not compiled\n     */\n");
+        source.append("    public static Class<?> controllerType(String view) {\n");
+        source.append("        return switch (view) {\n");
+        for (Map.Entry<String, String> entry : controllers.entrySet()) {
+            source.append("            case \"").append(entry.getKey()).append("\" -> ").append(entry.getValue())
+                    .append(".class;\n");
+        }
+        source.append("            default -> throw new IllegalArgumentException(\"No compiled view: \" + view);\n");
+        source.append("        };\n    }\n\n");
+
+        source.append("    /**\n     * Builds a compiled view for a controller.\n     *\n");
+        source.append("     * @param view the name of the FXML file (without extension)\n");
+        source.append("     * @param controller the controller, an instance of {@link #controllerType(String)}\n");
+        source.append("     * @return the root node of the view\n");
+        source.append("     * @throws IllegalArgumentException if the view was not compiled\n     */\n");
+        source.append("    public static Parent build(String view, Object controller) {\n");
+        source.append("        return switch (view) {\n");
+        for (Map.Entry<String, String> entry : controllers.entrySet()) {
+            source.append("            case \"").append(entry.getKey()).append("\" -> ").append(entry.getKey())
+                    .append("Builder.build((").append(entry.getValue()).append(") controller);\n");
+        }
+        source.append("            default -> throw new IllegalArgumentException(\"No compiled view: \" + view);\n");
+        source.append("        };\n    }\n\n");
+
+        source.append("    /**\n     * An event handler method of a controller, which may throw checked exceptions.\n     */\n");
+        source.append("    interface Handler {\n        void handle() throws Exception;\n    }\n\n");
+        source.append("    /**\n     * Calls an event handler method, rethrowing checked exceptions unchecked\n");
+        source.append("     * as {@code FXMLLoader} does.\n     */\n");
+        source.append("    static void handle(Handler handler) {\n");
+        source.append("        try {\n            handler.handle();\n");
+        source.append("        } catch (RuntimeException e) {\n            throw e;\n");
+        source.append("        } catch (Exception e) {\n            throw new RuntimeException(e);\n        }\n");
+        source.append("    }\n}\n");
+        return source.toString();
+    }
+
+    private static String quotedKeys(Map<String, String> controllers) {
+        List<String> keys = new ArrayList<>();
+        for (String key : controllers.keySet()) {
+            keys.add("\"" + key + "\"");
+        }
+        return String.join(", ", keys);
+    }
+
+    /**
+     * Writes a generated class, leaving the file untouched if its content did not change
+     * so that the compiler does not consider it modified.
+     */
+    private static void write(Path output, String packageName, String className, String source) throws IOException {
+        Path file = output.resolve(packageName.replace('.', '/')).resolve(className + ".java");
+        Files.createDirectories(file.getParent());
+        if (Files.exists(file) && Files.readString(file, StandardCharsets.UTF_8).equals(source)) {
+            return;
+        }
+        Files.writeString(file, source, StandardCharsets.UTF_8);
+    }
+
+    private static String packageOf(String className) {
+        int dot = className.lastIndexOf('.');
+        return dot < 0 ? "" : className.substring(0, dot);
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+}
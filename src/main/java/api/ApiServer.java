@@ -0,0 +1,657 @@
+package api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import metrics.Metrics;
+import metrics.Operation;
+import model.Client;
+import model.Task;
+import model.TaskStatus;
+import model.User;
+import model.ValidationException;
+
+/**
+ * An HTTP server giving local scripts and tools access to the tasks and clients of a
+ * {@link User} as JSON, built on the JDK's {@code com.sun.net.httpserver}.
+ *
+ * <p>Resources, under {@code /api}:</p>
+ * <ul>
+ *   <li>{@code GET /api/tasks} lists tasks by ID, or with the {@code q} (words to search
+ *       for), {@code status}, {@code from} and {@code to} (days, both inclusive) and
+ *       {@code clientId} filters, which can be combined;</li>
+ *   <li>{@code GET /api/clients} lists clients by ID, or those matching {@code q};</li>
+ *   <li>{@code POST} to a list adds a task or client and answers {@code 201 Created} with it;</li>
+ *   <li>{@code GET}, {@code PUT} and {@code DELETE} on {@code /api/tasks/<id>} and
+ *       {@code /api/clients/<id>} read, change and remove one task or client. {@code PUT}
+ *       changes only the fields given; removing a client removes its tasks too.</li>
+ * </ul>
+ * <p>Lists are paged with {@code offset} (by default 0) and {@code limit} (by default
+ * {@value #DEFAULT_LIMIT}, at most {@value #MAX_LIMIT}) and answered as
+ * {@code {"offset":0,"limit":100,"total":1234,"items":[...]}}. Tasks are written as
+ * {@code {"taskId":1,"subject":"...","description":"...","clientId":1,"date":"2025-03-10",
+ * "time":"16:30","status":"DUE_SOON"}} and clients as {@code {"clientId":1,"studentName":"...",
+ * "parentName":"...","phoneNumber":"123456789","description":"..."}}; the same fields, except
+ * the IDs and the status, are accepted in request bodies. Invalid requests are answered with
+ * {@code 400}, unknown tasks and clients with {@code 404}, both with {@code {"error":"..."}}.</p>
+ *
+ * <p>Every request runs on its own virtual thread. Lists and lookups read the user directly
+ * from that thread. Changes are run on the writing executor given when the server is started:
+ * {@code Platform::runLater} while the GUI is open, since a user with live lists must only
+ * change on the JavaFX thread, so changes made through the API appear in the open views like
+ * any other, and are saved and can be undone; a direct executor for a user without live
+ * lists. The request waits until its change was made and answers with the task or client as
+ * it was then. A change that has not started within {@value #WRITE_TIMEOUT_SECONDS} seconds is
+ * not made and is answered with {@code 503}; a change already started is always waited for. Changes given in one {@code PUT} are checked before any of them is made.</p>
+ *
+ * <p>The server has no authentication and is meant to listen on the loopback address only.
+ * Requests are timed as {@link Operation#API_REQUEST}.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+public final class ApiServer implements Closeable {
+
+    /** Number of items in a page when no {@code limit} is given. */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /** Largest number of items in a page. */
+    public static final int MAX_LIMIT = 1000;
+
+    /** Largest request body accepted, in bytes. */
+    public static final int MAX_BODY_BYTES = 64 * 1024;
+
+    /** Time a request waits for its change to start before answering {@code 503}. */
+    public static final int WRITE_TIMEOUT_SECONDS = 30;
+
+    private static final Set<String> TASK_FIELDS = Set.of("subject", "description", "clientId", "date", "time");
+    private static final Set<String> CLIENT_FIELDS = Set.of("studentName", "parentName", "phoneNumber", "description");
+
+    static {
+        // Without TCP_NODELAY, small answers on kept-alive connections wait ~40 ms for the
+        // delayed acknowledgment of the previous one; read once, when the first server is created
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService requests;
+    private final Supplier<User> users;
+    private final Executor writer;
+
+    /**
+     * A request that cannot be served, answered with an HTTP status and an error message.
+     */
+    private static final class ApiException extends Exception {
+
+        private final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * A change of the user, run on the writing executor.
+     */
+    @FunctionalInterface
+    private interface Change<T> {
+        T apply(User user) throws ValidationException, ApiException;
+    }
+
+    /**
+     * An answer to a request: its status and JSON body, or no body if {@code null}.
+     */
+    private record Response(int status, String body) {
+    }
+
+    private ApiServer(HttpServer server, Supplier<User> users, Executor writer) {
+        this.server = server;
+        this.requests = Executors.newVirtualThreadPerTaskExecutor();
+        this.users = users;
+        this.writer = writer;
+        server.setExecutor(requests);
+        server.createContext("/api/", this::handle);
+    }
+
+    /**
+     * Starts a server.
+     *
+     * @param address the address to listen on, usually on the loopback interface; port 0
+     *        picks a free port
+     * @param users returns the user served, looked up for every request, so that the server
+     *        can follow the workspace shown in the GUI
+     * @param writer the executor on which changes of the user are made, e.g.
+     *        {@code Platform::runLater}, or {@code Runnable::run} to make them on the request thread
+     * @return the running server
+     * @throws IOException if the address cannot be bound
+     */
+    public static ApiServer start(InetSocketAddress address, Supplier<User> users, Executor writer) throws IOException {
+        ApiServer api = new ApiServer(HttpServer.create(address, 0), users, writer);
+        api.server.start();
+        return api;
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests and stops the server. Requests waiting for their change are
+     * not awaited.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        requests.shutdown();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = Metrics.start();
+        try (exchange) {
+            Response response;
+            try {
+                response = route(exchange);
+            } catch (ApiException e) {
+                response = error(e.status, e.getMessage());
+            } catch (ValidationException | IllegalArgumentException e) {
+                response = error(400, e.getMessage());
+            } catch (RuntimeException e) {
+                response = error(500, "Internal error: " + e);
+            }
+            if (response.body() == null) {
+                exchange.sendResponseHeaders(response.status(), -1);
+            } else {
+                byte[] body = response.body().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                exchange.sendResponseHeaders(response.status(), body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        } finally {
+            Operation.API_REQUEST.record(start);
+        }
+    }
+
+    private Response route(HttpExchange exchange) throws ApiException, ValidationException, IOException {
+        String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+        String method = exchange.getRequestMethod();
+        if (path.length > 2 || !(path[0].equals("tasks") || path[0].equals("clients"))) {
+            throw new ApiException(404, "No such resource: " + exchange.getRequestURI().getPath());
+        }
+        boolean tasks = path[0].equals("tasks");
+        if (path.length == 1) {
+            switch (method) {
+                case "GET":
+                    Map<String, String> query = query(exchange);
+                    return new Response(200, tasks ? listTasks(query) : listClients(query));
+                case "POST":
+                    Map<String, Object> fields = body(exchange, tasks ? TASK_FIELDS : CLIENT_FIELDS);
+                    return new Response(201, tasks ? addTask(fields) : addClient(fields));
+                default:
+                    exchange.getResponseHeaders().set("Allow", "GET, POST");
+                    throw new ApiException(405, "Method not allowed: " + method);
+            }
+        }
+        int id;
+        try {
+            id = Integer.parseInt(path[1]);
+        } catch (NumberFormatException e) {
+            throw new ApiException(404, "No such resource: " + exchange.getRequestURI().getPath());
+        }
+        switch (method) {
+            case "GET":
+                User user = users.get();
+                return new Response(200, tasks ? json(task(user, id)) : json(client(user, id)));
+            case "PUT":
+                Map<String, Object> fields = body(exchange, tasks ? TASK_FIELDS : CLIENT_FIELDS);
+                return new Response(200, tasks ? updateTask(id, fields) : updateClient(id, fields));
+            case "DELETE":
+                write(changed -> {
+                    if (tasks) {
+                        task(changed, id);
+                        changed.removeTask(id);
+                    } else {
+                        client(changed, id);
+                        changed.removeClient(id);
+                    }
+                    return null;
+                });
+                return new Response(204, null);
+            default:
+                exchange.getResponseHeaders().set("Allow", "GET, PUT, DELETE");
+                throw new ApiException(405, "Method not allowed: " + method);
+        }
+    }
+
+    /**
+     * Lists a page of tasks, all of them or those matching the filters of the query.
+     */
+    private String listTasks(Map<String, String> query) throws ApiException {
+        int offset = integer(query, "offset", 0);
+        int limit = Math.min(integer(query, "limit", DEFAULT_LIMIT), MAX_LIMIT);
+        User user = users.get();
+        String words = query.get("q");
+        TaskStatus status = status(query);
+        LocalDate from = date(query, "from");
+        LocalDate to = date(query, "to");
+        if ((from == null) != (to == null)) {
+            throw new ApiException(400, "Both from and to must be given");
+        }
+        Integer clientId = query.containsKey("clientId") ? integer(query, "clientId", 0) : null;
+
+        if (words == null && status == null && from == null && clientId == null) {
+            // Only the page is looked up, not every task
+            int[] ids = user.getTaskIds();
+            List<Task> page = new ArrayList<>();
+            for (int i = offset; i < ids.length && page.size() < limit; i++) {
+                try {
+                    page.add(user.getTaskById(ids[i]));
+                } catch (ValidationException e) {
+                    // Removed since the IDs were read
+                }
+            }
+            return page(offset, limit, ids.length, page, ApiServer::json);
+        }
+
+        // Read from the most selective index given, then apply the other filters
+        List<Task> selected;
+        Predicate<Task> filter = task -> true;
+        if (clientId != null) {
+            selected = user.getTasksForClient(clientId);
+        } else if (words != null) {
+            selected = user.searchTasks(words);
+        } else if (from != null) {
+            selected = user.getTasksBetween(from, to);
+        } else {
+            selected = List.copyOf(user.getTasksByStatus(status));
+        }
+        if (words != null && clientId != null) {
+            Set<Integer> found = new HashSet<>();
+            user.searchTasks(words).forEach(task -> found.add(task.getTaskId()));
+            filter = filter.and(task -> found.contains(task.getTaskId()));
+        }
+        if (status != null) {
+            filter = filter.and(task -> task.getStatus() == status);
+        }
+        if (from != null) {
+            filter = filter.and(task -> !task.getDate().isBefore(from) && !task.getDate().isAfter(to));
+        }
+        List<Task> tasks = selected.stream().filter(filter).toList();
+        return page(offset, limit, tasks.size(), slice(tasks, offset, limit), ApiServer::json);
+    }
+
+    /**
+     * Lists a page of clients, all of them or those matching the words of the query.
+     */
+    private String listClients(Map<String, String> query) throws ApiException {
+        int offset = integer(query, "offset", 0);
+        int limit = Math.min(integer(query, "limit", DEFAULT_LIMIT), MAX_LIMIT);
+        User user = users.get();
+        List<Client> clients = query.containsKey("q") ? user.searchClients(query.get("q")) : user.getClientList();
+        return page(offset, limit, clients.size(), slice(clients, offset, limit), ApiServer::json);
+    }
+
+    /**
+     * Returns the items of a page. The offset is clamped before the limit is added to it, so
+     * an offset near {@code Integer.MAX_VALUE} gives an empty page rather than overflowing.
+     */
+    private static <T> List<T> slice(List<T> items, int offset, int limit) {
+        int from = Math.min(offset, items.size());
+        return items.subList(from, from + Math.min(items.size() - from, limit));
+    }
+
+    private String addTask(Map<String, Object> fields) throws ApiException, ValidationException {
+        Task task = new Task(null, null, 0, LocalDate.EPOCH, LocalTime.MIDNIGHT);
+        checkTask(task, fields, true);
+        return write(user -> {
+            client(user, task.getClientId(), 400);
+            user.addTask(task);
+            return json(task);
+        });
+    }
+
+    private String addClient(Map<String, Object> fields) throws ApiException, ValidationException {
+        Client client = new Client(null, null, null, null);
+        checkClient(client, fields, true);
+        return write(user -> {
+            user.addClient(client);
+            return json(client);
+        });
+    }
+
+    private String updateTask(int id, Map<String, Object> fields) throws ApiException, ValidationException {
+        Task checked = new Task(null, null, 0, LocalDate.EPOCH, LocalTime.MIDNIGHT);
+        checkTask(checked, fields, false);
+        return write(user -> {
+            Task task = task(user, id);
+            if (fields.containsKey("clientId")) {
+                client(user, checked.getClientId(), 400);
+            }
+            // Every value was checked, so none of the setters below fails; the fields
+            // change together, as one change of the user
+            task.edit(copy -> {
+                if (fields.containsKey("subject")) {
+                    copy.setSubject(checked.getSubject());
+                }
+                if (fields.containsKey("description")) {
+                    copy.setDescription(checked.getDescription());
+                }
+                if (fields.containsKey("clientId")) {
+                    copy.setClientId(checked.getClientId());
+                }
+                if (fields.containsKey("date")) {
+                    copy.setDate(checked.getDate());
+                }
+                if (fields.containsKey("time")) {
+                    copy.setTime(checked.getTime());
+                }
+            });
+            return json(task);
+        });
+    }
+
+    private String updateClient(int id, Map<String, Object> fields) throws ApiException, ValidationException {
+        Client checked = new Client(null, null, null, null);
+        checkClient(checked, fields, false);
+        return write(user -> {
+            Client client = client(user, id);
+            client.edit(copy -> {
+                if (fields.containsKey("studentName")) {
+                    copy.setStudentName(checked.getStudentName());
+                }
+                if (fields.containsKey("parentName")) {
+                    copy.setParentName(checked.getParentName());
+                }
+                if (fields.containsKey("phoneNumber")) {
+                    copy.setPhoneNumber(checked.getPhoneNumber());
+                }
+                if (fields.containsKey("description")) {
+                    copy.setDescription(checked.getDescription());
+                }
+            });
+            return json(client);
+        });
+    }
+
+    /**
+     * Sets the given fields of a task not belonging to a user, checking them with its setters.
+     */
+    private static void checkTask(Task task, Map<String, Object> fields, boolean required)
+            throws ApiException, ValidationException {
+        if (required) {
+            require(fields, "subject", "clientId", "date", "time");
+        }
+        if (fields.containsKey("subject")) {
+            task.setSubject(string(fields, "subject"));
+        }
+        if (fields.containsKey("description")) {
+            task.setDescription(string(fields, "description"));
+        }
+        if (fields.containsKey("clientId")) {
+            if (!(fields.get("clientId") instanceof Long clientId) || clientId != clientId.intValue()) {
+                throw new ApiException(400, "clientId must be an integer");
+            }
+            task.setClientId(clientId.intValue());
+        }
+        if (fields.containsKey("date")) {
+            task.setDateS(string(fields, "date"));
+        }
+        if (fields.containsKey("time")) {
+            task.setTimeS(string(fields, "time"));
+        }
+    }
+
+    /**
+     * Sets the given fields of a client not belonging to a user, checking them with its setters.
+     */
+    private static void checkClient(Client client, Map<String, Object> fields, boolean required)
+            throws ApiException, ValidationException {
+        if (required) {
+            require(fields, "studentName", "parentName");
+        }
+        if (fields.containsKey("studentName")) {
+            client.setStudentName(string(fields, "studentName"));
+        }
+        if (fields.containsKey("parentName")) {
+            client.setParentName(string(fields, "parentName"));
+        }
+        if (fields.containsKey("phoneNumber")) {
+            String phone = string(fields, "phoneNumber");
+            client.setPhoneNumber(phone == null || phone.isEmpty() ? null : phone);
+        }
+        if (fields.containsKey("description")) {
+            client.setDescription(string(fields, "description"));
+        }
+    }
+
+    /**
+     * Makes a change on the writing executor and waits for its result.
+     */
+    private <T> T write(Change<T> change) throws ApiException, ValidationException {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        // Claimed by whichever comes first: the change starting, or the request giving up
+        AtomicBoolean claimed = new AtomicBoolean();
+        writer.execute(() -> {
+            if (!claimed.compareAndSet(false, true)) {
+                return; // Timed out before it could run
+            }
+            try {
+                result.complete(change.apply(users.get()));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        try {
+            try {
+                return result.get(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                if (claimed.compareAndSet(false, true)) {
+                    throw new ApiException(503, "The change could not be made in time; the application may be busy");
+                }
+                // Already running: it will be made, so answer with its result rather than 503
+                return result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(503, claimed.compareAndSet(false, true)
+                    ? "Interrupted before the change was made" : "Interrupted; the change may have been made");
+        } catch (ExecutionException e) {
+            switch (e.getCause()) {
+                case ApiException cause -> throw cause;
+                case ValidationException cause -> throw cause;
+                case RuntimeException cause -> throw cause;
+                case Error cause -> throw cause;
+                default -> throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    private static Task task(User user, int id) throws ApiException {
+        try {
+            return user.getTaskById(id);
+        } catch (ValidationException e) {
+            throw new ApiException(404, e.getMessage());
+        }
+    }
+
+    private static Client client(User user, int id) throws ApiException {
+        return client(user, id, 404);
+    }
+
+    private static Client client(User user, int id, int status) throws ApiException {
+        try {
+            return user.getClientById(id);
+        } catch (ValidationException e) {
+            throw new ApiException(status, e.getMessage());
+        }
+    }
+
+    private static String json(Task task) {
+        StringBuilder out = new StringBuilder("{");
+        Json.member(out, "taskId", task.getTaskId());
+        Json.member(out, "subject", task.getSubject());
+        Json.member(out, "description", task.getDescription());
+        Json.member(out, "clientId", task.getClientId());
+        Json.member(out, "date", task.getDateS());
+        Json.member(out, "time", task.getTimeS());
+        Json.member(out, "status", task.getStatus().name());
+        return out.append('}').toString();
+    }
+
+    private static String json(Client client) {
+        StringBuilder out = new StringBuilder("{");
+        Json.member(out, "clientId", client.getClientId());
+        Json.member(out, "studentName", client.getStudentName());
+        Json.member(out, "parentName", client.getParentName());
+        Json.member(out, "phoneNumber", client.getPhoneNumber());
+        Json.member(out, "description", client.getDescription());
+        return out.append('}').toString();
+    }
+
+    private static <T> String page(int offset, int limit, int total, List<T> items,
+            Function<T, String> json) {
+        StringBuilder out = new StringBuilder("{");
+        Json.member(out, "offset", offset);
+        Json.member(out, "limit", limit);
+        Json.member(out, "total", total);
+        out.append(",\"items\":[");
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(json.apply(items.get(i)));
+        }
+        return out.append("]}").toString();
+    }
+
+    private static Response error(int status, String message) {
+        StringBuilder out = new StringBuilder("{");
+        Json.member(out, "error", message);
+        return new Response(status, out.append('}').toString());
+    }
+
+    /**
+     * Reads the JSON object of a request body, rejecting fields other than the given ones.
+     */
+    private static Map<String, Object> body(HttpExchange exchange, Set<String> allowed)
+            throws ApiException, IOException {
+        byte[] bytes;
+        try (InputStream in = exchange.getRequestBody()) {
+            bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        if (bytes.length > MAX_BODY_BYTES) {
+            throw new ApiException(413, "The body is larger than " + MAX_BODY_BYTES + " bytes");
+        }
+        Map<String, Object> fields = Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+        for (String name : fields.keySet()) {
+            if (!allowed.contains(name)) {
+                throw new ApiException(400, "Unknown or read-only field: " + name);
+            }
+        }
+        return fields;
+    }
+
+    private static void require(Map<String, Object> fields, String... names) throws ApiException {
+        for (String name : names) {
+            if (!fields.containsKey(name)) {
+                throw new ApiException(400, "Missing field: " + name);
+            }
+        }
+    }
+
+    private static String string(Map<String, Object> fields, String name) throws ApiException {
+        Object value = fields.get(name);
+        if (value != null && !(value instanceof String)) {
+            throw new ApiException(400, name + " must be a string");
+        }
+        return (String) value;
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                int equals = parameter.indexOf('=');
+                if (equals > 0) {
+                    parameters.put(URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8),
+                            URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    private static int integer(Map<String, String> query, String name, int missing) throws ApiException {
+        String value = query.get(name);
+        if (value == null) {
+            return missing;
+        }
+        try {
+            int number = Integer.parseInt(value);
+            if (number < 0) {
+                throw new NumberFormatException();
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, name + " must be a non-negative integer: " + value);
+        }
+    }
+
+    private static TaskStatus status(Map<String, String> query) throws ApiException {
+        String value = query.get("status");
+        if (value == null) {
+            return null;
+        }
+        for (TaskStatus status : TaskStatus.values()) {
+            if (status.name().equalsIgnoreCase(value)) {
+                return status;
+            }
+        }
+        throw new ApiException(400, "status must be one of " + List.of(TaskStatus.values()) + ": " + value);
+    }
+
+    private static LocalDate date(Map<String, String> query, String name) throws ApiException {
+        String value = query.get(name);
+        try {
+            return value == null ? null : LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new ApiException(400, name + " must be a date as yyyy-MM-dd: " + value);
+        }
+    }
+}
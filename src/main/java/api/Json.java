@@ -0,0 +1,222 @@
+package api;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The small subset of JSON used by the HTTP API: flat objects of strings, numbers,
+ * booleans and nulls are read, and values are written into a {@link StringBuilder}.
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+final class Json {
+
+    private final String text;
+    private int position;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parses a JSON object whose values are strings, numbers, booleans or nulls.
+     * Integral numbers are returned as {@link Long}, others as {@link Double}.
+     *
+     * @param text the JSON text
+     * @return the members of the object, in their order
+     * @throws IllegalArgumentException if the text is not such an object
+     */
+    static Map<String, Object> parseObject(String text) {
+        Json json = new Json(text);
+        Map<String, Object> members = new LinkedHashMap<>();
+        json.expect('{');
+        if (!json.skip('}')) {
+            do {
+                String name = json.string();
+                json.expect(':');
+                if (members.put(name, json.value()) != null) {
+                    throw new IllegalArgumentException("Duplicate member: " + name);
+                }
+            } while (json.skip(','));
+            json.expect('}');
+        }
+        json.whitespace();
+        if (json.position != text.length()) {
+            throw json.error("Unexpected text after the object");
+        }
+        return members;
+    }
+
+    /**
+     * Appends a member with a string value, preceded by a comma unless it is the first
+     * member of the object.
+     *
+     * @param out the JSON being written, ending with '{' or a previous member
+     * @param name the name of the member
+     * @param value the value, written as {@code null} if null
+     */
+    static void member(StringBuilder out, String name, String value) {
+        name(out, name);
+        string(out, value);
+    }
+
+    /**
+     * Appends a member with a number value.
+     *
+     * @param out the JSON being written, ending with '{' or a previous member
+     * @param name the name of the member
+     * @param value the value
+     */
+    static void member(StringBuilder out, String name, long value) {
+        name(out, name);
+        out.append(value);
+    }
+
+    private static void name(StringBuilder out, String name) {
+        if (out.charAt(out.length() - 1) != '{') {
+            out.append(',');
+        }
+        string(out, name);
+        out.append(':');
+    }
+
+    /**
+     * Appends a string value, escaping it as needed.
+     *
+     * @param out the JSON being written
+     * @param value the value, written as {@code null} if null
+     */
+    static void string(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    private Object value() {
+        whitespace();
+        if (position == text.length()) {
+            throw error("Missing value");
+        }
+        char c = text.charAt(position);
+        if (c == '"') {
+            return string();
+        }
+        if (c == '{' || c == '[') {
+            throw error("Nested objects and arrays are not supported");
+        }
+        for (String literal : new String[] {"null", "true", "false"}) {
+            if (text.startsWith(literal, position)) {
+                position += literal.length();
+                return literal.equals("null") ? null : Boolean.valueOf(literal);
+            }
+        }
+        return number();
+    }
+
+    private Object number() {
+        int start = position;
+        boolean integral = true;
+        while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+            integral &= Character.isDigit(text.charAt(position)) || (position == start && text.charAt(position) == '-');
+            position++;
+        }
+        String number = text.substring(start, position);
+        try {
+            return integral ? (Object) Long.valueOf(number) : (Object) Double.valueOf(number);
+        } catch (NumberFormatException e) {
+            position = start;
+            throw error("Invalid value");
+        }
+    }
+
+    private String string() {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            if (position == text.length()) {
+                throw error("Unterminated string");
+            }
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c < 0x20) {
+                throw error("Control character in string");
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (position == text.length()) {
+                throw error("Unterminated string");
+            }
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+                case '"', '\\', '/' -> value.append(escaped);
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'u' -> {
+                    if (position + 4 > text.length()) {
+                        throw error("Invalid escape");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid escape");
+                    }
+                    position += 4;
+                }
+                default -> throw error("Invalid escape");
+            }
+        }
+    }
+
+    private void expect(char c) {
+        if (!skip(c)) {
+            throw error("Expected '" + c + "'");
+        }
+    }
+
+    private boolean skip(char c) {
+        whitespace();
+        if (position < text.length() && text.charAt(position) == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void whitespace() {
+        while (position < text.length() && " \t\r\n".indexOf(text.charAt(position)) >= 0) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position + " of the JSON body");
+    }
+}
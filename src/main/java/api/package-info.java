@@ -0,0 +1,21 @@
+/**
+ * The {@code api} package serves the tasks and clients of a {@code model.User} over HTTP,
+ * so that scripts and other local tools can read and change them without the GUI.
+ *
+ * <p>
+ * The server runs each request on a virtual thread and reads the user directly. Changes
+ * are handed to the thread allowed to change the user, the JavaFX application thread
+ * while the GUI is open, and the request waits for them.
+ * </p>
+ *
+ * <p>
+ * Key classes in this package include:
+ * </p>
+ * <ul>
+ *   <li>{@link ApiServer} - The HTTP server and its JSON resources.</li>
+ * </ul>
+ *
+ * @version 1.0
+ * @author Błażej Sztefka
+ */
+package api;
@@ -1,40 +1,129 @@
 package com.mycompany.taskmanager_gui;
 
+import api.ApiServer;
 import controller.AddClientViewController;
 import controller.AddTaskViewController;
 import controller.ClientViewController;
+import controller.CompiledViews;
+import controller.MainViewController;
+import controller.ReminderAlerts;
+import controller.RefreshableView;
+import controller.ReplicationAlerts;
+import controller.StorageAlerts;
 import controller.TaskViewController;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import metrics.Metrics;
+import metrics.NavigationEvent;
+import metrics.Operation;
+import metrics.ViewLoadEvent;
+import model.ReminderScheduler;
+import model.Replicator;
 import model.User;
+import model.UserStore;
+import model.ValidationException;
+import model.Workspace;
+import model.Workspaces;
 
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 /**
  * Main application class for the Task Manager GUI.
  * This class is responsible for initializing and launching the JavaFX application,
  * setting up the main scene, and managing view transitions.
  * 
- * <p>Uses {@link User} as the primary data model shared across views.</p>
+ * <p>Uses {@link User} as the primary data model shared across views. Each tutor works in
+ * a named {@link Workspace} with its own user, loaded from and saved to its own
+ * {@link UserStore} under the directory given by the {@code taskmanager.data} system
+ * property (by default {@code ~/.taskmanager}). The {@code taskmanager.workspace} property
+ * names the workspace shown first (by default {@value Workspaces#DEFAULT}). Up to
+ * {@code taskmanager.workspaces} workspaces (by default {@value Workspaces#DEFAULT_RESIDENT})
+ * are kept loaded together with their views, so switching back to one of them is instant;
+ * the least recently used one is saved and dropped when another one is loaded. While a
+ * workspace is loaded after being shown, its tasks are reminded of in an alert
+ * {@code taskmanager.reminder.minutes} minutes before they are due (see
+ * {@link ReminderScheduler}).</p>
  * 
  * <p>Controllers managed in this application:</p>
  * <ul>
+ *   <li>{@link MainViewController} - Manages navigation and CSV imports.</li>
  *   <li>{@link ClientViewController} - Manages the client list view.</li>
  *   <li>{@link TaskViewController} - Manages the task list view.</li>
  *   <li>{@link AddClientViewController} - Manages adding a new client.</li>
  *   <li>{@link AddTaskViewController} - Manages adding a new task.</li>
  * </ul>
  * 
- * @version 1.0
+ * <p>Each view is loaded from its FXML file once, the first time it is shown. The view and its
+ * controller are then kept for its workspace, and showing the view again only lets a
+ * {@link RefreshableView} controller bring its data up to date.</p>
+ * 
+ * <p>Views are built by the Java code generated from their FXML files at build time
+ * (see {@link CompiledViews}). Setting the {@code taskmanager.fxml} system property to
+ * {@code loader} loads them with {@link FXMLLoader} at run time instead.</p>
+ * 
+ * <p>With the {@code taskmanager.api.port} system property set, an {@link ApiServer} serves
+ * the tasks and clients of the current workspace over HTTP on that port of the loopback
+ * address, and makes their changes on the JavaFX thread. With {@code taskmanager.headless}
+ * set to {@code true}, the application only runs the server, on port
+ * {@value #DEFAULT_API_PORT} unless another is given, without showing any window.</p>
+ * 
+ * <p>With the {@code taskmanager.replication.node} system property set to 1 or 2, the
+ * workspace shown first is kept in step with the same workspace of another running instance
+ * with the other number, through a {@link Replicator}. Instance 1 listens on port
+ * {@value #DEFAULT_REPLICATION_PORT} of the loopback address and instance 2 on the next one,
+ * each connecting to the other's; the {@code taskmanager.replication.port} and
+ * {@code taskmanager.replication.peer} properties give other ports. Replication stops if that
+ * workspace is unloaded to make room for others.</p>
+ * 
+ * <p>Loading and switching views are timed as {@link Operation}s, and the metrics are
+ * published over JMX (see {@link Metrics}). They are also recorded as Flight Recorder
+ * {@link ViewLoadEvent}s and {@link NavigationEvent}s.</p>
+ * 
+ * @version 1.8
  * @author Błażej Sztefka
  */
 public class App extends Application {
 
+    /** The port of the HTTP API in headless mode when none is given. */
+    public static final int DEFAULT_API_PORT = 8080;
+
+    /** The port instance 1 listens on for replicated changes when none is given. */
+    public static final int DEFAULT_REPLICATION_PORT = 7401;
+
     private static Scene scene;
-    private static User user;
+    private static Workspaces workspaces;
+    // Also read by the HTTP API from its request threads
+    private static volatile Workspace workspace;
+    private static Integer apiPort;
+    private static ApiServer api;
+    private static Replicator replicator;
+    private static Workspace replicated;
+    // Loaded views of each resident workspace, and those of the current one
+    private static final Map<String, Map<String, View>> workspaceViews = new HashMap<>();
+    private static Map<String, View> views;
+    private static String currentView;
+    private static final boolean useFXMLLoader = "loader".equals(System.getProperty("taskmanager.fxml"));
+
+    /**
+     * A loaded view together with its controller.
+     *
+     * @param root the root node of the view
+     * @param controller the controller of the view
+     */
+    private record View(Parent root, Object controller) {
+    }
 
     /**
      * Starts the JavaFX application, setting the main view to "MainView.fxml".
@@ -44,60 +133,290 @@ public class App extends Application {
      */
     @Override
     public void start(Stage stage) throws IOException {
-        scene = new Scene(loadFXML("MainView"), 640, 480);
+        try {
+            useWorkspace(System.getProperty("taskmanager.workspace", Workspaces.DEFAULT));
+        } catch (ValidationException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        scene = new Scene(view("MainView"), 640, 480);
+        currentView = "MainView";
         stage.setScene(scene);
         stage.show();
+        if (apiPort != null) {
+            // Requests follow the workspace shown, and their changes are made on the JavaFX thread
+            api = ApiServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), apiPort),
+                    () -> workspace.getUser(), Platform::runLater);
+        }
+        replicate(Platform::runLater, problem -> Platform.runLater(() -> ReplicationAlerts.show(problem)));
+    }
+
+    /**
+     * Closes the loaded workspaces when the application exits, writing a final snapshot of each.
+     * 
+     * @throws IOException if a snapshot cannot be written
+     */
+    @Override
+    public void stop() throws IOException {
+        if (api != null) {
+            api.close();
+        }
+        if (replicator != null) {
+            replicator.close();
+        }
+        workspaces.close();
+    }
+
+    /**
+     * Starts replicating the current workspace if the {@code taskmanager.replication.node}
+     * property is set.
+     * 
+     * @param writer the executor on which the changes of the peer are made
+     * @param problems receives the problems of the replication, on the replication threads or the writer
+     * @throws IOException if the replication port cannot be bound
+     */
+    private static void replicate(Executor writer, Consumer<String> problems) throws IOException {
+        Integer node = Integer.getInteger("taskmanager.replication.node");
+        if (node == null) {
+            return;
+        }
+        int port = Integer.getInteger("taskmanager.replication.port", DEFAULT_REPLICATION_PORT + node - 1);
+        int peer = Integer.getInteger("taskmanager.replication.peer", DEFAULT_REPLICATION_PORT + Replicator.NODES - node);
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        replicated = workspace;
+        replicator = Replicator.start(workspace.getUser(), node, new InetSocketAddress(loopback, port),
+                new InetSocketAddress(loopback, peer), writer, problems);
+    }
+
+    /**
+     * Stops replicating a workspace that is being unloaded, whose changes are no longer saved.
+     */
+    private static void evicted(Workspace evicted) {
+        workspaceViews.remove(evicted.getName());
+        if (evicted == replicated) {
+            replicator.close();
+            replicator = null;
+            replicated = null;
+            ReplicationAlerts.show("Replication stopped: workspace " + evicted.getName() + " was unloaded");
+        }
+    }
+
+    /**
+     * Switches to another workspace, loading it if it is not resident, and shows the
+     * current view of that workspace.
+     * 
+     * @param name the name of the workspace, matched ignoring case
+     * @throws ValidationException if the name is not a valid workspace name
+     * @throws IOException if the workspace cannot be loaded or its view cannot be shown
+     */
+    public static void switchWorkspace(String name) throws ValidationException, IOException {
+        long start = Metrics.start();
+        try {
+            useWorkspace(name);
+        } finally {
+            Operation.WORKSPACE_SWITCH.record(start);
+        }
+        setRoot(currentView);
+    }
+
+    /**
+     * Returns the name of the current workspace.
+     * 
+     * @return the workspace name
+     */
+    public static String getWorkspaceName() {
+        return workspace.getName();
+    }
+
+    /**
+     * Returns the names of all stored workspaces, the default one first.
+     * 
+     * @return the workspace names
+     * @throws IOException if the workspaces cannot be listed
+     */
+    public static List<String> getWorkspaceNames() throws IOException {
+        return workspaces.names();
+    }
+
+    /**
+     * Makes a workspace the current one, so that views are created for its user.
+     */
+    private static void useWorkspace(String name) throws ValidationException, IOException {
+        workspace = workspaces.get(name);
+        workspace.getUser().getHistory(); // Record changes from now on, imports included, so they can be undone
+        workspace.getReminderScheduler().start(Platform::runLater, ReminderAlerts::show);
+        views = workspaceViews.computeIfAbsent(workspace.getName(), loaded -> new HashMap<>());
     }
 
     /**
      * Changes the root view of the application scene.
      * 
-     * @param fxml the name of the FXML file (without extension) to load
+     * @param fxml the name of the FXML file (without extension) of the view to show
      * @throws IOException if loading the specified FXML file fails
      */
     public static void setRoot(String fxml) throws IOException {
-        scene.setRoot(loadFXML(fxml));
+        long start = Metrics.start();
+        NavigationEvent event = new NavigationEvent();
+        event.begin();
+        boolean firstShow = !views.containsKey(fxml);
+        try {
+            scene.setRoot(view(fxml));
+        } finally {
+            Operation.VIEW_SWITCH.record(start);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.from = currentView;
+            event.to = fxml;
+            event.firstShow = firstShow;
+            event.commit();
+        }
+        currentView = fxml;
     }
 
     /**
-     * Loads an FXML file and sets the appropriate controller.
-     * The controller is selected based on the class type, allowing
-     * the {@link User} model to be passed to controllers that require it.
+     * Returns the root node of a view, loading the view on first use. A view shown
+     * again is taken from the cache and its controller is told to refresh its data.
+     * 
+     * @param fxml the name of the FXML file (without extension) of the view
+     * @return the root node of the view
+     * @throws IOException if loading the FXML file fails
+     */
+    private static Parent view(String fxml) throws IOException {
+        View view = views.get(fxml);
+        if (view == null) {
+            long start = Metrics.start();
+            ViewLoadEvent event = new ViewLoadEvent();
+            event.begin();
+            boolean compiled = !useFXMLLoader && CompiledViews.contains(fxml);
+            try {
+                view = compiled ? buildView(fxml) : loadFXML(fxml);
+            } finally {
+                Operation.VIEW_LOAD.record(start);
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.view = fxml;
+                event.compiled = compiled;
+                event.commit();
+            }
+            views.put(fxml, view);
+        } else if (view.controller() instanceof RefreshableView refreshable) {
+            refreshable.viewShown();
+        }
+        return view.root();
+    }
+
+    /**
+     * Builds a view with the code generated from its FXML file, using the same
+     * controllers as {@link #loadFXML(String)}.
+     * 
+     * @param fxml the name of the FXML file (without extension) the view was compiled from
+     * @return the built view and its controller
+     */
+    private static View buildView(String fxml) {
+        Object controller = createController(CompiledViews.controllerType(fxml));
+        return new View(CompiledViews.build(fxml, controller), controller);
+    }
+
+    /**
+     * Loads an FXML file with {@link FXMLLoader} and sets the appropriate controller.
      * 
      * @param fxml the name of the FXML file (without extension) to load
-     * @return the root node of the loaded FXML
+     * @return the loaded view and its controller
      * @throws IOException if loading the FXML file fails
      */
-    private static Parent loadFXML(String fxml) throws IOException {
+    private static View loadFXML(String fxml) throws IOException {
         FXMLLoader fxmlLoader = new FXMLLoader(App.class.getResource(fxml + ".fxml"));
-        fxmlLoader.setControllerFactory(controllerClass -> {
-            if (controllerClass == ClientViewController.class) {
-                return new ClientViewController(user);
-            } else if (controllerClass == TaskViewController.class) {
-                return new TaskViewController(user);
-            } else if (controllerClass == AddClientViewController.class) {
-                return new AddClientViewController(user);
-            } else if (controllerClass == AddTaskViewController.class) {
-                return new AddTaskViewController(user);
-            } else {
-                try {
-                    return controllerClass.getDeclaredConstructor().newInstance();
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
+        fxmlLoader.setControllerFactory(App::createController);
+        Parent root = fxmlLoader.load();
+        return new View(root, fxmlLoader.getController());
+    }
+
+    /**
+     * Creates the controller of a view.
+     * The controller is selected based on the class type, allowing
+     * the {@link User} model to be passed to controllers that require it.
+     * 
+     * @param controllerClass the controller class named by the view
+     * @return the new controller
+     */
+    private static Object createController(Class<?> controllerClass) {
+        User user = workspace.getUser();
+        if (controllerClass == MainViewController.class) {
+            return new MainViewController(user);
+        } else if (controllerClass == ClientViewController.class) {
+            return new ClientViewController(user);
+        } else if (controllerClass == TaskViewController.class) {
+            return new TaskViewController(user);
+        } else if (controllerClass == AddClientViewController.class) {
+            return new AddClientViewController(user);
+        } else if (controllerClass == AddTaskViewController.class) {
+            return new AddTaskViewController(user);
+        } else {
+            try {
+                return controllerClass.getDeclaredConstructor().newInstance();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
             }
-        });
-        return fxmlLoader.load();
+        }
     }
 
     /**
      * The main entry point for launching the application.
-     * Initializes the {@link User} model before starting the application.
+     * Sets up the workspaces before starting the application; the first workspace is
+     * loaded when the application starts. In headless mode, only the HTTP API is started.
      * 
      * @param args the command line arguments
+     * @throws IOException if the workspace cannot be loaded or the server cannot be started
+     *         in headless mode
      */
-    public static void main(String[] args) {
-        user = new User(); // Initialize the User model
+    public static void main(String[] args) throws IOException {
+        Path dataDirectory = Path.of(System.getProperty("taskmanager.data",
+                Path.of(System.getProperty("user.home"), ".taskmanager").toString()));
+        int resident = Integer.getInteger("taskmanager.workspaces", Workspaces.DEFAULT_RESIDENT);
+        apiPort = Integer.getInteger("taskmanager.api.port");
+        if (Boolean.getBoolean("taskmanager.headless")) {
+            serve(dataDirectory, resident, apiPort != null ? apiPort : DEFAULT_API_PORT);
+            return;
+        }
+        // Task statuses of each loaded workspace are refreshed every midnight on the JavaFX thread
+        workspaces = new Workspaces(dataDirectory, resident, Platform::runLater);
+        // The views of an evicted workspace are dropped with it, and their listeners with its user
+        workspaces.addEvictionListener(App::evicted);
+        workspaces.addFailureListener((failed, failure) -> Platform.runLater(() -> StorageAlerts.show(failed.getName(), failure)));
+        Metrics.register(); // Readable with JConsole as com.mycompany.taskmanager_gui:type=Metrics
         launch();
     }
+
+    /**
+     * Serves one workspace over HTTP without the GUI until the process is stopped.
+     * Without live lists, the user is changed directly on the request threads, and on the
+     * receiving threads of the replicator if the workspace is replicated.
+     */
+    private static void serve(Path dataDirectory, int resident, int port) throws IOException {
+        workspaces = new Workspaces(dataDirectory, resident, Runnable::run);
+        workspaces.addFailureListener((failed, failure) -> System.err.println(
+                "Failed to store a change of workspace " + failed.getName() + ": " + failure.getMessage()));
+        try {
+            workspace = workspaces.get(System.getProperty("taskmanager.workspace", Workspaces.DEFAULT));
+        } catch (ValidationException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        User user = workspace.getUser();
+        api = ApiServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), () -> user, Runnable::run);
+        replicate(Runnable::run, problem -> System.err.println("Replication: " + problem)); // No GUI to show them
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            api.close();
+            if (replicator != null) {
+                replicator.close();
+            }
+            try {
+                workspaces.close();
+            } catch (IOException e) {
+                System.err.println("Failed to save the workspace: " + e.getMessage());
+            }
+        }, "shutdown"));
+        Metrics.register();
+        System.out.println("Serving workspace " + workspace.getName() + " on http://localhost:" + api.getPort() + "/api/");
+    }
 }
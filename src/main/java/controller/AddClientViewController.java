@@ -17,6 +17,7 @@ import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.control.Tooltip;
 import javafx.scene.input.KeyCode;
+import metrics.AlertEvent;
 import model.Client;
 import model.User;
 import model.ValidationException;
@@ -29,20 +30,20 @@ import model.ValidationException;
  * @version 1.0
  * @author Błażej Sztefka
  */
-public class AddClientViewController implements Initializable {
+public class AddClientViewController implements Initializable, RefreshableView {
 
     @FXML
-    private TextField newParentName;
+    TextField newParentName;
     @FXML
-    private TextArea newDescription;
+    TextArea newDescription;
     @FXML
-    private TextField newClientName;
+    TextField newClientName;
     @FXML
-    private TextField newPhoneNumber;
+    TextField newPhoneNumber;
     @FXML
-    private Button addNewClientButton;
+    Button addNewClientButton;
     @FXML
-    private Button backToClientTableButton;
+    Button backToClientTableButton;
 
     private final User user;
 
@@ -75,6 +76,17 @@ public class AddClientViewController implements Initializable {
         setUpKeyboardNavigation();
     }
 
+    /**
+     * Clears the form left filled in by the previous use of the view.
+     */
+    @Override
+    public void viewShown() {
+        newClientName.clear();
+        newParentName.clear();
+        newPhoneNumber.clear();
+        newDescription.clear();
+    }
+
     /**
      * Sets up custom keyboard navigation to handle TAB and ENTER key events.
      * Manages focus between fields and triggers client addition with ENTER key.
@@ -143,7 +155,7 @@ public class AddClientViewController implements Initializable {
      * @throws IOException if an error occurs when loading the next view
      */
     @FXML
-    private void addNewClient(ActionEvent event) throws IOException {
+    void addNewClient(ActionEvent event) throws IOException {
         // Retrieve and validate client name
         String clientName = newClientName.getText();
         if (clientName == null || clientName.trim().isEmpty()) {
@@ -198,7 +210,10 @@ public class AddClientViewController implements Initializable {
         alert.setTitle(title);
         alert.setHeaderText(null);
         alert.setContentText(content);
+        AlertEvent event = new AlertEvent(title, content);
+        event.begin();
         alert.showAndWait();
+        event.commit();
     }
 
     /**
@@ -208,7 +223,7 @@ public class AddClientViewController implements Initializable {
      * @throws IOException if an error occurs when loading the client table view
      */
     @FXML
-    private void backToClientTable(ActionEvent event) throws IOException {
+    void backToClientTable(ActionEvent event) throws IOException {
         App.setRoot("ClientView");
     }
 }
@@ -11,7 +11,6 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.util.List;
 import java.util.ResourceBundle;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -25,33 +24,39 @@ import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
 import javafx.util.StringConverter;
+import metrics.AlertEvent;
 import model.Client;
+import model.Recurrence;
 import model.Task;
 import model.User;
 
 /**
  * Controller class for the Add Task View.
  * Manages the creation of tasks, form validation, and navigation back to the task table view.
+ * A task repeats if a recurrence rule is written in the Repeats field, e.g. "weekly" or
+ * "every 2 weeks until 2025-06-30" (see {@link Recurrence#parse(String)}).
  * 
- * @version 1.0
+ * @version 1.1
  * @author Błażej Sztefka
  */
-public class AddTaskViewController implements Initializable {
+public class AddTaskViewController implements Initializable, RefreshableView {
 
     @FXML
-    private TextArea newDescription;
+    TextArea newDescription;
     @FXML
-    private TextField newSubject;
+    TextField newSubject;
     @FXML
-    private TextField newTime;
+    TextField newTime;
     @FXML
-    private Button addNewTaskButton;
+    Button addNewTaskButton;
     @FXML
-    private Button backToTaskTableButton;
+    Button backToTaskTableButton;
     @FXML
-    private DatePicker newDate;
+    DatePicker newDate;
     @FXML
-    private ComboBox<Client> newIdClient;
+    ComboBox<Client> newIdClient;
+    @FXML
+    TextField newRecurrence;
 
     private final User user;
 
@@ -100,6 +105,15 @@ public class AddTaskViewController implements Initializable {
         });
 
         newTime.setOnKeyPressed(event -> {
+            if (event.getCode() == KeyCode.TAB) {
+                event.consume();
+                newRecurrence.requestFocus();
+            } else if (event.getCode() == KeyCode.ENTER) {
+                addNewTaskButton.fire();
+            }
+        });
+
+        newRecurrence.setOnKeyPressed(event -> {
             if (event.getCode() == KeyCode.TAB) {
                 event.consume();
                 newDescription.requestFocus();
@@ -146,15 +160,11 @@ public class AddTaskViewController implements Initializable {
     }
 
     /**
-     * Populates the client ComboBox with clients from the user object.
+     * Populates the client ComboBox with the live list of clients of the user object.
      * Formats the display of client ID and name.
      */
     private void populateClientComboBox() {
-        List<Client> clients = user.getClientList(); 
-
-        for (Client client : clients) {           //petla foreach
-            newIdClient.getItems().add(client);
-        }
+        newIdClient.setItems(user.getLiveClients()); // Follows added and removed clients
 
         newIdClient.setCellFactory(param -> new ListCell<Client>() {
             @Override
@@ -181,6 +191,19 @@ public class AddTaskViewController implements Initializable {
         });
     }
 
+    /**
+     * Clears the form left filled in by the previous use of the view.
+     */
+    @Override
+    public void viewShown() {
+        newSubject.clear();
+        newDescription.clear();
+        newTime.clear();
+        newRecurrence.clear();
+        newDate.setValue(null);
+        newIdClient.setValue(null);
+    }
+
     /**
      * Displays an alert dialog with a specified title and message content.
      * 
@@ -192,7 +215,10 @@ public class AddTaskViewController implements Initializable {
         alert.setTitle(title);
         alert.setHeaderText(null);
         alert.setContentText(content);
+        AlertEvent event = new AlertEvent(title, content);
+        event.begin();
         alert.showAndWait();
+        event.commit();
     }
 
     /**
@@ -203,7 +229,7 @@ public class AddTaskViewController implements Initializable {
      * @throws IOException if an error occurs when loading the next view
      */
     @FXML
-    private void addNewTask(ActionEvent event) throws IOException {
+    void addNewTask(ActionEvent event) throws IOException {
         String taskSubject = newSubject.getText();
         if (taskSubject == null || taskSubject.trim().isEmpty()) {
             showAlert("Validation Error", "Subject cannot be empty.");
@@ -234,7 +260,20 @@ public class AddTaskViewController implements Initializable {
             return;
         }
 
+        String recurrenceText = newRecurrence.getText();
+        Recurrence recurrence = null;
+        if (recurrenceText != null && !recurrenceText.isBlank()) {
+            try {
+                recurrence = Recurrence.parse(recurrenceText);
+            } catch (IllegalArgumentException e) {
+                showAlert("Validation Error",
+                        "Repeats must be e.g. \"daily\", \"weekly\", \"every 2 weeks until 2025-06-30\" or \"daily, 10 times\".");
+                return;
+            }
+        }
+
         Task newTask = new Task(taskSubject, description, selectedClient.getClientId(), selectedDate, time);
+        newTask.setRecurrence(recurrence);
         user.addTask(newTask);
 
         App.setRoot("TaskView");
@@ -247,7 +286,7 @@ public class AddTaskViewController implements Initializable {
      * @throws IOException if an error occurs when loading the task table view
      */
     @FXML
-    private void backToTaskTable(ActionEvent event) throws IOException {
+    void backToTaskTable(ActionEvent event) throws IOException {
         App.setRoot("TaskView");
     }
 }
@@ -4,8 +4,6 @@ import com.mycompany.taskmanager_gui.App;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ResourceBundle;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.fxml.FXML;
@@ -14,10 +12,12 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
 import javafx.scene.control.Tooltip;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.control.cell.TextFieldTableCell;
+import metrics.AlertEvent;
 import model.Client;
+import model.LiveList;
 import model.User;
 import model.ValidationException;
 
@@ -25,33 +25,50 @@ import model.ValidationException;
  * Controller for ClientView. Manages the UI and logic for displaying,
  * adding, editing, and removing clients.
  * 
- * @version 1.1 - Enhanced validation and tooltip functionality
+ * <p>The table shows a {@link LiveList} of the user directly, so changes of the clients
+ * appear as they happen and only the cells of a changed client are drawn again.</p>
+ * 
+ * <p>The tasks of the selected client can be exported to a CSV or iCalendar file.</p>
+ * 
+ * <p>Edits and removals, including the tasks removed with a client, can be undone and
+ * redone.</p>
+ * 
+ * @version 1.5 - Undoes and redoes changes
  * @author Błażej Sztefka
  */
 public class ClientViewController implements Initializable {
 
     @FXML
-    private Button addButton;
+    Button addButton;
+    @FXML
+    Button removeButton;
+    @FXML
+    Button backButton;
+    @FXML
+    Button exportTasksButton;
     @FXML
-    private Button removeButton;
+    Button undoButton;
     @FXML
-    private Button backButton;
+    Button redoButton;
 
     @FXML
-    private TableView<Client> table;
+    TextField searchField;
+
+    @FXML
+    TableView<Client> table;
     @FXML
-    private TableColumn<Client, Integer> clientId;
+    TableColumn<Client, Integer> clientId;
     @FXML
-    private TableColumn<Client, String> studentName;
+    TableColumn<Client, String> studentName;
     @FXML
-    private TableColumn<Client, String> parentName;
+    TableColumn<Client, String> parentName;
     @FXML
-    private TableColumn<Client, String> phoneNumber;
+    TableColumn<Client, String> phoneNumber;
     @FXML
-    private TableColumn<Client, String> description;
+    TableColumn<Client, String> description;
 
-    private final ObservableList<Client> data;
     private final User user;
+    private final LiveList<Client> allClients;
 
     /**
      * Constructor for ClientViewController.
@@ -60,7 +77,7 @@ public class ClientViewController implements Initializable {
      */
     public ClientViewController(User user) {
         this.user = user;
-        this.data = FXCollections.observableArrayList(user.getClientList());
+        this.allClients = user.getLiveClients();
     }
 
     /**
@@ -75,6 +92,23 @@ public class ClientViewController implements Initializable {
         setupTooltips();
         bindTableColumns();
         setupTableEditingHandlers();
+        HistoryButtons.bind(user.getHistory(), undoButton, redoButton);
+
+        // Search the client index as the user types
+        searchField.textProperty().addListener((observable, oldText, newText) -> searchClients(newText));
+    }
+
+    /**
+     * Shows the clients matching the search text, or all clients if the search text is blank.
+     * 
+     * @param text the words to search for
+     */
+    private void searchClients(String text) {
+        LiveList<Client> clients = text == null || text.isBlank() ? allClients : user.searchLiveClients(text);
+        if (table.getItems() instanceof LiveList<Client> shown && shown != clients) {
+            shown.dispose(); // No effect on the shared list of all clients
+        }
+        table.setItems(clients);
     }
 
     /**
@@ -84,18 +118,20 @@ public class ClientViewController implements Initializable {
         addButton.setTooltip(new Tooltip("Add a new client"));
         removeButton.setTooltip(new Tooltip("Remove the selected client"));
         backButton.setTooltip(new Tooltip("Return to the main menu"));
+        searchField.setTooltip(new Tooltip("Words or beginnings of words, e.g. \"ola kowal\""));
     }
 
     /**
-     * Binds table columns to Client properties and initializes the table with data.
+     * Binds table columns to the fields of each client and shows the live list of all clients.
+     * Each cell is redrawn only when its field of its client changes.
      */
     private void bindTableColumns() {
-        table.setItems(data);
-        clientId.setCellValueFactory(new PropertyValueFactory<>("clientId"));
-        studentName.setCellValueFactory(new PropertyValueFactory<>("studentName"));
-        parentName.setCellValueFactory(new PropertyValueFactory<>("parentName"));
-        phoneNumber.setCellValueFactory(new PropertyValueFactory<>("phoneNumber"));
-        description.setCellValueFactory(new PropertyValueFactory<>("description"));
+        table.setItems(allClients);
+        clientId.setCellValueFactory(cell -> allClients.valueOf(cell.getValue(), Client::getClientId));
+        studentName.setCellValueFactory(cell -> allClients.valueOf(cell.getValue(), Client::getStudentName));
+        parentName.setCellValueFactory(cell -> allClients.valueOf(cell.getValue(), Client::getParentName));
+        phoneNumber.setCellValueFactory(cell -> allClients.valueOf(cell.getValue(), Client::getPhoneNumber));
+        description.setCellValueFactory(cell -> allClients.valueOf(cell.getValue(), Client::getDescription));
         
         // Set the table as editable and configure cell factories for in-line editing.
         table.setEditable(true);
@@ -126,7 +162,7 @@ public class ClientViewController implements Initializable {
             t.getRowValue().setStudentName(newValue);
         }catch(ValidationException e){
             showAlert("Validation Error", e.getMessage());
-            t.getTableView().refresh();
+            allClients.refresh(t.getRowValue()); // Show the unchanged value again
         }
         
     }
@@ -142,7 +178,7 @@ public class ClientViewController implements Initializable {
             t.getRowValue().setParentName(newValue);
         }catch(ValidationException e){
             showAlert("Validation Error", e.getMessage());
-            t.getTableView().refresh();
+            allClients.refresh(t.getRowValue()); // Show the unchanged value again
         }
     }
 
@@ -156,7 +192,7 @@ public class ClientViewController implements Initializable {
             t.getRowValue().setPhoneNumber(t.getNewValue());
         } catch (ValidationException e) {
             showAlert("Validation Error", e.getMessage());
-            t.getTableView().refresh();
+            allClients.refresh(t.getRowValue()); // Show the unchanged value again
         }
     }
 
@@ -180,7 +216,10 @@ public class ClientViewController implements Initializable {
         alert.setTitle(title);
         alert.setHeaderText(null);
         alert.setContentText(content);
+        AlertEvent event = new AlertEvent(title, content);
+        event.begin();
         alert.showAndWait();
+        event.commit();
     }
 
     /**
@@ -190,7 +229,7 @@ public class ClientViewController implements Initializable {
      * @throws IOException if an error occurs while loading the view
      */
     @FXML
-    private void addClient(ActionEvent event) throws IOException {
+    void addClient(ActionEvent event) throws IOException {
         App.setRoot("AddClientView");
     }
 
@@ -200,19 +239,34 @@ public class ClientViewController implements Initializable {
      * @param event the action event triggering the removal
      */
     @FXML
-    private void removeClient(ActionEvent event) {
+    void removeClient(ActionEvent event) {
         Client selectedClient = table.getSelectionModel().getSelectedItem();
-        int index = table.getSelectionModel().getSelectedIndex();
-        if (selectedClient != null && index >= 0) {
+        if (selectedClient != null) {
             try {
-                this.user.removeClient(index + 1);
-                data.remove(index);
+                this.user.removeClient(selectedClient.getClientId()); // The live list removes the row
             } catch (ValidationException e) {
                 showAlert("Error", "No student selected for removal.");
             }
         }
     }
 
+    /**
+     * Exports the tasks of the selected client to a file chosen by the user.
+     * 
+     * @param event the action event triggering the export
+     */
+    @FXML
+    void exportClientTasks(ActionEvent event) {
+        Client selectedClient = table.getSelectionModel().getSelectedItem();
+        if (selectedClient == null) {
+            showAlert("Error", "No student selected for export.");
+            return;
+        }
+        int selectedId = selectedClient.getClientId();
+        TaskExports.start(table.getScene().getWindow(), "tasks-" + selectedClient.getStudentName(),
+                () -> user.getTasksForClient(selectedId));
+    }
+
     /**
      * Returns to the main menu view.
      * 
@@ -220,7 +274,7 @@ public class ClientViewController implements Initializable {
      * @throws IOException if an error occurs while switching views
      */
     @FXML
-    private void backToMenu(ActionEvent event) throws IOException {
+    void backToMenu(ActionEvent event) throws IOException {
         App.setRoot("MainView");
     }
 }
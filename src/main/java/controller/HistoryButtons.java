@@ -0,0 +1,96 @@
+package controller;
+
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.Tooltip;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
+import metrics.AlertEvent;
+import model.History;
+
+/**
+ * Connects the Undo and Redo buttons of the views to the {@link History} of the user.
+ *
+ * @version 1.0
+ * @author Błażej Sztefka
+ */
+final class HistoryButtons {
+
+    private static final KeyCombination UNDO_KEYS = new KeyCodeCombination(KeyCode.Z, KeyCombination.SHORTCUT_DOWN);
+    private static final KeyCombination REDO_KEYS = new KeyCodeCombination(KeyCode.Y, KeyCombination.SHORTCUT_DOWN);
+
+    private HistoryButtons() {
+    }
+
+    /**
+     * Makes the buttons undo and redo the changes of the history, and enables each button
+     * only while there is a change for it. While the buttons are shown, Ctrl+Z and Ctrl+Y
+     * press them. The views are kept loaded, so the buttons stay bound for the whole session.
+     *
+     * @param history the history of the user
+     * @param undo the Undo button
+     * @param redo the Redo button
+     */
+    static void bind(History history, Button undo, Button redo) {
+        undo.setTooltip(new Tooltip("Undo the last change (Ctrl+Z)"));
+        redo.setTooltip(new Tooltip("Redo the last undone change (Ctrl+Y)"));
+        undo.setOnAction(event -> apply(history, true));
+        redo.setOnAction(event -> apply(history, false));
+
+        // A disabled button ignores fire(), so the keys do nothing when there is no change
+        Runnable undoKeys = undo::fire;
+        Runnable redoKeys = redo::fire;
+        undo.sceneProperty().addListener((observable, oldScene, newScene) -> {
+            if (oldScene != null) {
+                // Only if another view has not put its own keys already
+                oldScene.getAccelerators().remove(UNDO_KEYS, undoKeys);
+                oldScene.getAccelerators().remove(REDO_KEYS, redoKeys);
+            }
+            if (newScene != null) {
+                newScene.getAccelerators().put(UNDO_KEYS, undoKeys);
+                newScene.getAccelerators().put(REDO_KEYS, redoKeys);
+            }
+        });
+
+        Runnable update = () -> {
+            undo.setDisable(!history.canUndo());
+            redo.setDisable(!history.canRedo());
+        };
+        update.run();
+        history.addListener(() -> {
+            if (Platform.isFxApplicationThread()) {
+                update.run();
+            } else {
+                Platform.runLater(update);
+            }
+        });
+    }
+
+    /**
+     * Undoes or redoes the last change, reporting in an alert a change that could not be
+     * reverted because the data changed in between.
+     *
+     * @param history the history of the user
+     * @param undo {@code true} to undo, {@code false} to redo
+     */
+    private static void apply(History history, boolean undo) {
+        try {
+            if (undo) {
+                history.undo();
+            } else {
+                history.redo();
+            }
+        } catch (IllegalStateException e) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("History Error");
+            alert.setHeaderText(null);
+            alert.setContentText(e.getMessage());
+            AlertEvent event = new AlertEvent(alert.getTitle(), e.getMessage());
+            event.begin();
+            alert.showAndWait();
+            event.commit();
+        }
+    }
+}
@@ -5,36 +5,135 @@
 package controller;
 
 import com.mycompany.taskmanager_gui.App;
+import java.io.File;
 import java.io.IOException;
+import java.net.URL;
+import java.util.ResourceBundle;
+import java.util.stream.Collectors;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.TextArea;
 import javafx.scene.control.Tooltip;
+import javafx.stage.FileChooser;
+import metrics.AlertEvent;
+import model.User;
+import model.ValidationException;
+import transfer.CsvImportTask;
+import transfer.ImportResult;
 
 /**
  * MainViewController handles navigation to client and task tables, 
  * and provides an option to exit the application.
  * 
- * @version 1.1
+ * <p>It also imports clients or tasks from a CSV file. The import runs in the
+ * background while a progress bar and a cancel button are shown, and the rejected
+ * rows are listed when it completes.</p>
+ * 
+ * <p>The workspace shown is selected here: choosing another workspace, or typing the name
+ * of a new one, switches all views to it. Switching is disabled while an import runs.</p>
+ * 
+ * @version 1.3
  * @author Błażej Sztefka
  */
-public class MainViewController {
+public class MainViewController implements Initializable, RefreshableView {
+
+    @FXML
+    Button clientButton;
+
+    @FXML
+    Button taskButton;
+
+    @FXML
+    Button exitButton;
 
     @FXML
-    private Button clientButton;
+    Button importButton;
 
     @FXML
-    private Button taskButton;
+    Label importStatus;
 
     @FXML
-    private Button exitButton;
+    ProgressBar importProgress;
+
+    @FXML
+    Button cancelImportButton;
+
+    @FXML
+    ComboBox<String> workspaceBox;
+
+    private final User user;
+    private CsvImportTask importTask;
+
+    /**
+     * Constructor to initialize the controller with a specific user instance.
+     * 
+     * @param user the user receiving imported clients and tasks
+     */
+    public MainViewController(User user) {
+        this.user = user;
+    }
 
     /**
      * Initializes the main view controller, setting up tooltips for each button.
+     * 
+     * @param url the location used to resolve relative paths
+     * @param rb the resources used to localize the root object
      */
-    @FXML
-    public void initialize() {
+    @Override
+    public void initialize(URL url, ResourceBundle rb) {
         setupTooltips();
+        showWorkspaces();
+    }
+
+    /**
+     * Lists the workspaces again when the view is shown, as they may have been created
+     * from the main view of another workspace.
+     */
+    @Override
+    public void viewShown() {
+        showWorkspaces();
+    }
+
+    /**
+     * Lists the stored workspaces and selects the current one.
+     */
+    private void showWorkspaces() {
+        try {
+            workspaceBox.getItems().setAll(App.getWorkspaceNames());
+        } catch (IOException e) {
+            workspaceBox.getItems().setAll(App.getWorkspaceName());
+        }
+        workspaceBox.setValue(App.getWorkspaceName()); // Not a switch, as it is the current one
+    }
+
+    /**
+     * Switches to the selected or typed workspace, creating it if it does not exist.
+     * 
+     * @param event the action event triggering the switch
+     */
+    @FXML
+    void switchWorkspace(ActionEvent event) {
+        String name = workspaceBox.getValue();
+        if (name == null || name.isBlank() || name.strip().equals(App.getWorkspaceName())) {
+            return;
+        }
+        try {
+            App.switchWorkspace(name.strip());
+        } catch (ValidationException e) {
+            showAlert(Alert.AlertType.ERROR, "Validation Error", e.getMessage());
+        } catch (IOException e) {
+            showAlert(Alert.AlertType.ERROR, "Workspace Error", "Failed to open workspace: " + e.getMessage());
+        }
+        if (!App.getWorkspaceName().equalsIgnoreCase(name.strip())) {
+            workspaceBox.setValue(App.getWorkspaceName()); // Still in this workspace
+        }
     }
 
     /**
@@ -49,6 +148,108 @@ public class MainViewController {
         
         Tooltip exitToolTip = new Tooltip("Exit the application");
         exitButton.setTooltip(exitToolTip);
+
+        importButton.setTooltip(new Tooltip("Import clients or tasks from a CSV file"));
+        cancelImportButton.setTooltip(new Tooltip("Stop the import"));
+        workspaceBox.setTooltip(new Tooltip("Select a workspace, or type a name to create one"));
+    }
+
+    /**
+     * Asks for a CSV file and imports it in the background, showing its progress.
+     * 
+     * @param event the action event triggering the import
+     */
+    @FXML
+    void importCsv(ActionEvent event) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import clients or tasks");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+        File file = chooser.showOpenDialog(importButton.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        CsvImportTask task = new CsvImportTask(user, file.toPath());
+        importProgress.progressProperty().bind(task.progressProperty());
+        importStatus.textProperty().bind(task.messageProperty());
+        task.setOnSucceeded(e -> importFinished(task.getMessage(), task.getValue()));
+        task.setOnFailed(e -> {
+            importFinished("Import failed", null);
+            showAlert(Alert.AlertType.ERROR, "Import Error", task.getException().getMessage());
+        });
+        task.setOnCancelled(e -> importFinished("Import cancelled", null));
+        importTask = task;
+        setImporting(true);
+
+        Thread thread = new Thread(task, "csv-import");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Cancels the running import. Rows already imported are kept.
+     * 
+     * @param event the action event triggering the cancellation
+     */
+    @FXML
+    void cancelImport(ActionEvent event) {
+        if (importTask != null) {
+            importTask.cancel();
+        }
+    }
+
+    /**
+     * Hides the progress of a finished import and reports its rejected rows.
+     * 
+     * @param message the message left shown about the import
+     * @param result the result of the import, or {@code null} if it failed or was cancelled
+     */
+    private void importFinished(String message, ImportResult result) {
+        importProgress.progressProperty().unbind();
+        importStatus.textProperty().unbind();
+        importStatus.setText(message);
+        importTask = null;
+        setImporting(false);
+        importStatus.setVisible(true);
+        if (result != null && result.rejected() > 0) {
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.setTitle("Import Completed");
+            alert.setHeaderText(result.imported() + " rows imported, " + result.rejected() + " rows rejected.");
+            TextArea errors = new TextArea(result.errors().stream()
+                    .map(Object::toString).collect(Collectors.joining("\n")));
+            errors.setEditable(false);
+            alert.getDialogPane().setContent(errors);
+            alert.showAndWait();
+        }
+    }
+
+    /**
+     * Shows or hides the progress of an import and disables starting another one.
+     */
+    private void setImporting(boolean importing) {
+        importButton.setDisable(importing);
+        workspaceBox.setDisable(importing); // The import writes to the user of this workspace
+        importStatus.setVisible(importing);
+        importProgress.setVisible(importing);
+        cancelImportButton.setVisible(importing);
+    }
+
+    /**
+     * Displays an alert dialog with a specified title and message content.
+     * 
+     * @param type the type of the alert dialog
+     * @param title the title of the alert dialog
+     * @param content the message content of the alert dialog
+     */
+    private void showAlert(Alert.AlertType type, String title, String content) {
+        Alert alert = new Alert(type);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(content);
+        AlertEvent event = new AlertEvent(title, content);
+        event.begin();
+        alert.showAndWait();
+        event.commit();
     }
 
     /**
@@ -58,7 +259,7 @@ public class MainViewController {
      * @throws IOException if the ClientView cannot be loaded
      */
     @FXML
-    private void swichToClientList(ActionEvent event) throws IOException {
+    void swichToClientList(ActionEvent event) throws IOException {
         App.setRoot("ClientView");
     }
 
@@ -69,17 +270,18 @@ public class MainViewController {
      * @throws IOException if the TaskView cannot be loaded
      */
     @FXML
-    private void swichToTaskList(ActionEvent event) throws IOException {
+    void swichToTaskList(ActionEvent event) throws IOException {
         App.setRoot("TaskView");
     }
 
     /**
      * Exits the application when exitButton is clicked.
+     * The application is stopped through {@link Platform#exit()} so that the data store is closed.
      * 
      * @param event the action event triggering the exit
      */
     @FXML
-    private void Exit(ActionEvent event) {
-        System.exit(0);
+    void Exit(ActionEvent event) {
+        Platform.exit();
     }
 }
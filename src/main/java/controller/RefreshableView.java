@@ -0,0 +1,20 @@
+package controller;
+
+/**
+ * Implemented by controllers whose views stay loaded while other views are shown.
+ *
+ * <p>{@link com.mycompany.taskmanager_gui.App} keeps every loaded view and its controller
+ * and calls {@link #viewShown()} each time the view becomes the root of the scene again,
+ * so the controller can bring its data up to date without rebuilding the view.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+public interface RefreshableView {
+
+    /**
+     * Called when the view is shown again after another view was shown.
+     * Not called when the view is shown for the first time, right after it is loaded.
+     */
+    void viewShown();
+}
@@ -0,0 +1,82 @@
+package controller;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import javafx.scene.control.Alert;
+import javafx.stage.Modality;
+import metrics.AlertEvent;
+import model.ReminderScheduler;
+import model.Task;
+
+/**
+ * Shows the reminders of a {@link ReminderScheduler} in a single non-modal alert.
+ *
+ * <p>Reminders arriving while the alert is still open are added to it rather than opening
+ * another one, and only the first {@value #MAX_LISTED} tasks are listed, so many tasks due
+ * at the same time make one short alert.</p>
+ *
+ * @version 1.0
+ * @author Błażej Sztefka
+ */
+public final class ReminderAlerts {
+
+    private static final int MAX_LISTED = 10;
+    private static final String TITLE = "Upcoming tasks";
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm");
+
+    private static Alert alert;
+    private static final StringBuilder listed = new StringBuilder();
+    private static int shown;
+    private static int more;
+
+    private ReminderAlerts() {
+    }
+
+    /**
+     * Reminds of tasks, in the alert already open if there is one. Must be called on the
+     * JavaFX thread.
+     *
+     * @param tasks the tasks to remind of
+     */
+    public static void show(List<Task> tasks) {
+        if (alert == null) {
+            alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle(TITLE);
+            alert.setHeaderText("Tasks due soon");
+            alert.initModality(Modality.NONE);
+            listed.setLength(0);
+            shown = 0;
+            more = 0;
+            AlertEvent event = new AlertEvent(TITLE, "");
+            event.begin();
+            alert.setOnHidden(hidden -> {
+                event.message = alert.getContentText();
+                event.commit();
+                alert = null;
+            });
+            append(tasks);
+            alert.show();
+        } else {
+            append(tasks);
+        }
+    }
+
+    /**
+     * Adds tasks to the text of the open alert, summing up those beyond the listed ones.
+     */
+    private static void append(List<Task> tasks) {
+        for (Task task : tasks) {
+            if (shown < MAX_LISTED) {
+                if (!listed.isEmpty()) {
+                    listed.append('\n');
+                }
+                listed.append(task.getTime().format(TIME)).append("  ")
+                        .append(task.getSubject()).append(" (client ").append(task.getClientId()).append(')');
+                shown++;
+            } else {
+                more++;
+            }
+        }
+        alert.setContentText(more > 0 ? listed + "\nand " + more + " more" : listed.toString());
+    }
+}
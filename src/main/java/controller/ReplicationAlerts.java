@@ -0,0 +1,68 @@
+package controller;
+
+import javafx.scene.control.Alert;
+import javafx.stage.Modality;
+import metrics.AlertEvent;
+import model.Replicator;
+
+/**
+ * Shows the problems reported by a {@link Replicator} in a single non-modal alert.
+ *
+ * <p>Problems arriving while the alert is still open are added to it rather than opening
+ * another one, and a problem already listed is not listed again, so a peer retrying every
+ * second makes one short alert.</p>
+ *
+ * @version 1.0
+ * @author Błażej Sztefka
+ */
+public final class ReplicationAlerts {
+
+    private static final String TITLE = "Replication";
+
+    private static Alert alert;
+    private static final StringBuilder listed = new StringBuilder();
+
+    private ReplicationAlerts() {
+    }
+
+    /**
+     * Reports a problem of the replication, in the alert already open if there is one. Must
+     * be called on the JavaFX thread.
+     *
+     * @param problem the description of the problem
+     */
+    public static void show(String problem) {
+        if (alert == null) {
+            alert = new Alert(Alert.AlertType.WARNING);
+            alert.setTitle(TITLE);
+            alert.setHeaderText("Replication with the other instance");
+            alert.initModality(Modality.NONE);
+            listed.setLength(0);
+            AlertEvent event = new AlertEvent(TITLE, "");
+            event.begin();
+            alert.setOnHidden(hidden -> {
+                event.message = alert.getContentText();
+                event.commit();
+                alert = null;
+            });
+            append(problem);
+            alert.show();
+        } else {
+            append(problem);
+        }
+    }
+
+    /**
+     * Adds a problem to the text of the open alert unless it is already listed.
+     */
+    private static void append(String problem) {
+        if (listed.indexOf(problem) >= 0) {
+            return;
+        }
+        if (!listed.isEmpty()) {
+            listed.append('\n');
+        }
+        listed.append(problem);
+        alert.setContentText(listed.toString());
+    }
+}
@@ -0,0 +1,43 @@
+package controller;
+
+import java.io.IOException;
+import javafx.scene.control.Alert;
+import javafx.stage.Modality;
+import metrics.AlertEvent;
+import model.UserStore;
+
+/**
+ * Shows the failures of a {@link UserStore} to store the changes of a workspace, in a
+ * non-modal alert, so the user knows the changes are not saved as they are made.
+ *
+ * @version 1.0
+ * @author Błażej Sztefka
+ */
+public final class StorageAlerts {
+
+    private static final String TITLE = "Storage";
+
+    private StorageAlerts() {
+    }
+
+    /**
+     * Reports that the changes of a workspace could not be stored. Must be called on the
+     * JavaFX thread.
+     *
+     * @param workspace the name of the workspace
+     * @param failure the failure of its store
+     */
+    public static void show(String workspace, IOException failure) {
+        String content = failure.getMessage()
+                + "\nThe changes are kept and saved when the workspace is closed or the application exits.";
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle(TITLE);
+        alert.setHeaderText("Changes of workspace " + workspace + " could not be stored");
+        alert.setContentText(content);
+        alert.initModality(Modality.NONE);
+        AlertEvent event = new AlertEvent(TITLE, content);
+        event.begin();
+        alert.setOnHidden(hidden -> event.commit());
+        alert.show();
+    }
+}
@@ -0,0 +1,60 @@
+package controller;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.function.Supplier;
+import javafx.scene.control.Alert;
+import javafx.stage.FileChooser;
+import javafx.stage.Window;
+import model.Task;
+import transfer.TaskExport;
+import transfer.TaskExportTask;
+
+/**
+ * Starts exports of tasks from the views, asking for the file and its format.
+ *
+ * @version 1.0
+ * @author Błażej Sztefka
+ */
+final class TaskExports {
+
+    private TaskExports() {
+    }
+
+    /**
+     * Asks for a CSV or iCalendar file and starts exporting tasks to it in the background.
+     * A failed export is reported in an alert.
+     *
+     * @param owner the window owning the file dialog
+     * @param name the suggested file name, without extension
+     * @param tasks selects the tasks to export, called on the background thread
+     * @return the running export, or {@code null} if no file was chosen
+     */
+    static TaskExportTask start(Window owner, String name, Supplier<Collection<Task>> tasks) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export tasks");
+        FileChooser.ExtensionFilter csv = new FileChooser.ExtensionFilter("CSV files", "*.csv");
+        FileChooser.ExtensionFilter ics = new FileChooser.ExtensionFilter("iCalendar files", "*.ics");
+        chooser.getExtensionFilters().addAll(csv, ics);
+        chooser.setInitialFileName(name + ".csv");
+        File file = chooser.showSaveDialog(owner);
+        if (file == null) {
+            return null;
+        }
+        boolean calendar = chooser.getSelectedExtensionFilter() == ics || file.getName().endsWith(".ics");
+        TaskExportTask export = new TaskExportTask(tasks, calendar ? TaskExport.Format.ICS : TaskExport.Format.CSV,
+                file.toPath());
+        export.setOnFailed(event -> {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Export Error");
+            alert.setHeaderText(null);
+            alert.setContentText("Failed to export tasks: " + export.getException().getMessage());
+            alert.showAndWait();
+        });
+
+        Thread thread = new Thread(export, "task-export");
+        thread.setDaemon(true);
+        thread.start();
+        return export;
+    }
+}
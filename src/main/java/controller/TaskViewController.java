@@ -3,73 +3,118 @@ package controller;
 import com.mycompany.taskmanager_gui.App;
 import java.io.IOException;
 import java.net.URL;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.util.List;
+import java.util.Collection;
 import java.util.ResourceBundle;
-import java.util.stream.Collectors;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import java.util.function.Supplier;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
-import javafx.scene.control.TableCell;
+import javafx.scene.control.DatePicker;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
 import javafx.scene.control.Tooltip;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.control.cell.TextFieldTableCell;
 import javafx.util.converter.IntegerStringConverter;
+import metrics.AlertEvent;
+import model.LiveList;
 import model.Task;
 import model.TaskStatus;
 import model.User;
 import model.ValidationException;
+import transfer.TaskExport;
+import transfer.TaskExportTask;
 
 /**
  * TaskViewController class manages the user interface for viewing, editing,
  * adding, and removing tasks.
  * It connects with the Task model and displays the task details in a TableView.
  * 
- * @version 1.1
+ * <p>The table shows a {@link LiveList} of the user directly, so tasks added, removed
+ * or changed anywhere appear in the table as they happen, and only the cells of a
+ * changed task are drawn again.</p>
+ * 
+ * <p>The tasks shown, all of them or a filtered subset, can be exported to a CSV or
+ * iCalendar file in the background.</p>
+ * 
+ * <p>Inline edits and removals can be undone and redone.</p>
+ * 
+ * <p>A repeating task shows its next occurrence when filtered by status, and a row for each
+ * of its occurrences in a date range. Editing or removing an occurrence changes the whole
+ * series; moving
+ * an occurrence to another day moves every occurrence by as many days.</p>
+ * 
+ * @version 1.6
  * @author Błażej Sztefka
  */
 public class TaskViewController implements Initializable {
 
     @FXML
-    private Button addTaskButton;
+    Button addTaskButton;
 
     @FXML
-    private Button removeTaskButton;
+    Button removeTaskButton;
 
     @FXML
-    private Button backButton;
+    Button backButton;
 
     @FXML
-    private TableView<Task> table;
+    Button undoButton;
     @FXML
-    private TableColumn<Task, Integer> taskId;
+    Button redoButton;
+
+    @FXML
+    TableView<Task> table;
     @FXML
-    private TableColumn<Task, String> subject;
+    TableColumn<Task, Integer> taskId;
     @FXML
-    private TableColumn<Task, String> description;
+    TableColumn<Task, String> subject;
     @FXML
-    private TableColumn<Task, Integer> clientId;
+    TableColumn<Task, String> description;
     @FXML
-    private TableColumn<Task, String> date;
+    TableColumn<Task, Integer> clientId;
     @FXML
-    private TableColumn<Task, String> time;
+    TableColumn<Task, String> date;
+    @FXML
+    TableColumn<Task, String> time;
     
     @FXML
-    private Button showDueSoonButton;
+    Button showDueSoonButton;
+    @FXML
+    Button showDueThisWeekButton;
+    @FXML
+    Button showLongTermButton;
+
+    @FXML
+    TextField searchField;
+
+    @FXML
+    DatePicker fromDate;
+    @FXML
+    DatePicker toDate;
+    @FXML
+    Button showRangeButton;
+    @FXML
+    Button showAllButton;
+
     @FXML
-    private Button showDueThisWeekButton;
+    Button exportButton;
     @FXML
-    private Button showLongTermButton;
+    ProgressBar exportProgress;
 
-    private final ObservableList<Task> data;
     private final User user;
+    private final LiveList<Task> allTasks;
+
+    // Selects the tasks shown in the table again, off the JavaFX thread, for an export
+    private Supplier<Collection<Task>> shownTasks;
+    private TaskExportTask export;
 
     /**
      * Constructor initializes the controller with the given user.
@@ -77,7 +122,8 @@ public class TaskViewController implements Initializable {
      */
     public TaskViewController(User user) {
         this.user = user;
-        this.data = FXCollections.observableArrayList(user.getTaskList());
+        this.allTasks = user.getLiveTasks();
+        this.shownTasks = () -> TaskExport.allTasks(user);
     }
 
     /**
@@ -95,17 +141,25 @@ public class TaskViewController implements Initializable {
         addTaskButton.setTooltip(new Tooltip("Add new task"));
         removeTaskButton.setTooltip(new Tooltip("Remove selected task"));
         backButton.setTooltip(new Tooltip("Back to menu"));
+        showRangeButton.setTooltip(new Tooltip("Show tasks due between the selected days"));
+        showAllButton.setTooltip(new Tooltip("Show all tasks"));
+        searchField.setTooltip(new Tooltip("Words or beginnings of words, e.g. \"mat zad\""));
+        exportButton.setTooltip(new Tooltip("Export the tasks shown to a CSV or iCalendar file"));
+        HistoryButtons.bind(user.getHistory(), undoButton, redoButton);
 
-        // Set up the TableView with the data from the user's task list
-        table.setItems(data);
+        // Search the task index as the user types
+        searchField.textProperty().addListener((observable, oldText, newText) -> searchTasks(newText));
 
-        // Define how to populate each column with data
-        taskId.setCellValueFactory(new PropertyValueFactory<>("taskId"));
-        subject.setCellValueFactory(new PropertyValueFactory<>("subject"));
-        description.setCellValueFactory(new PropertyValueFactory<>("description"));
-        clientId.setCellValueFactory(new PropertyValueFactory<>("clientId"));
-        date.setCellValueFactory(new PropertyValueFactory<>("dateS"));
-        time.setCellValueFactory(new PropertyValueFactory<>("timeS"));
+        // Show the live list of all tasks of the user
+        table.setItems(allTasks);
+
+        // Each cell observes one field of its row and is redrawn only when that field changes
+        taskId.setCellValueFactory(cell -> shown().valueOf(cell.getValue(), Task::getTaskId));
+        subject.setCellValueFactory(cell -> shown().valueOf(cell.getValue(), Task::getSubject));
+        description.setCellValueFactory(cell -> shown().valueOf(cell.getValue(), Task::getDescription));
+        clientId.setCellValueFactory(cell -> shown().valueOf(cell.getValue(), Task::getClientId));
+        date.setCellValueFactory(cell -> shown().valueOf(cell.getValue(), Task::getDateS));
+        time.setCellValueFactory(cell -> shown().valueOf(cell.getValue(), Task::getTimeS));
 
         // Enable inline editing for each column
         table.setEditable(true);
@@ -119,10 +173,10 @@ public class TaskViewController implements Initializable {
         subject.setOnEditCommit(event -> {
             String newValue = event.getNewValue();
             try{
-                event.getRowValue().setSubject(newValue); // Update model with new value
+                series(event.getRowValue()).setSubject(newValue); // Update model with new value
             }catch(ValidationException e){
                 showAlert("Validation Error", e.getMessage());
-                event.getTableView().refresh();
+                shown().refresh(event.getRowValue()); // Show the unchanged value again
             }
             
         });
@@ -130,18 +184,19 @@ public class TaskViewController implements Initializable {
         // Editing behavior for Description column with validation
         description.setOnEditCommit(event -> {
             String newValue = event.getNewValue();
-            event.getRowValue().setDescription(newValue);
+            series(event.getRowValue()).setDescription(newValue);
           
         });
 
         // Editing behavior for Client ID column with validation
         clientId.setOnEditCommit(event -> {
             int newValue = event.getNewValue();
-            if (newValue > user.getClientList().size() || newValue < 0) {
+            try {
+                user.getClientById(newValue); // Validate that the client exists
+                series(event.getRowValue()).setClientId(newValue);
+            } catch (ValidationException e) {
                 showAlert("Validation Error", "Invalid client ID.");
-                event.getTableView().refresh();
-            } else {
-                event.getRowValue().setClientId(newValue);
+                shown().refresh(event.getRowValue()); // Show the unchanged value again
             }
         });
 
@@ -150,10 +205,13 @@ public class TaskViewController implements Initializable {
             String newValue = event.getNewValue();
             try {
                 DateTimeFormatter.ofPattern("yyyy-MM-dd").parse(newValue); // Validate date format
-                event.getRowValue().setDateS(newValue);
+                Task row = event.getRowValue();
+                Task task = series(row);
+                // An occurrence moves its series by as many days as it was moved
+                task.setDate(task.getDate().plusDays(ChronoUnit.DAYS.between(row.getDate(), LocalDate.parse(newValue))));
             } catch (DateTimeParseException e) {
                 showAlert("Validation Error", "Invalid date format. Correct format is YYYY-MM-DD.");
-                event.getTableView().refresh();
+                shown().refresh(event.getRowValue()); // Show the unchanged value again
             }
         });
 
@@ -162,10 +220,10 @@ public class TaskViewController implements Initializable {
             String newValue = event.getNewValue();
             try {
                 DateTimeFormatter.ofPattern("HH:mm").parse(newValue); // Validate time format
-                event.getRowValue().setTimeS(newValue);
+                series(event.getRowValue()).setTimeS(newValue);
             } catch (DateTimeParseException e) {
                 showAlert("Validation Error", "Invalid time format. Correct format is HH:mm.");
-                event.getTableView().refresh();
+                shown().refresh(event.getRowValue()); // Show the unchanged value again
             }
         });
     }
@@ -176,14 +234,126 @@ public class TaskViewController implements Initializable {
     */
    private void displayFilteredTasks(TaskStatus status) {
        
-       List<Task> filteredTasks = user.getTaskList().stream()
-               .filter(task -> task.getStatus() == status) 
-               .collect(Collectors.toList()); 
-
-       data.clear(); 
-       data.addAll(filteredTasks); 
+       showTasks(user.getLiveTasksByStatus(status)); // Read from the status index
+       shownTasks = () -> user.getTasksByStatus(status);
    }
 
+    /**
+     * Shows the tasks matching the search text, or all tasks if the search text is blank.
+     * 
+     * @param text The words to search for.
+     */
+    private void searchTasks(String text) {
+        if (text == null || text.isBlank()) {
+            showAll(null);
+        } else {
+            showTasks(user.searchLiveTasks(text));
+            shownTasks = () -> user.searchTasks(text);
+        }
+    }
+
+    /**
+     * Shows the tasks due between the days selected in the from/to date pickers,
+     * read from the due date index of the user.
+     * 
+     * @param event The event triggered by clicking the Show range button.
+     */
+    @FXML
+    void showRange(ActionEvent event) {
+        LocalDate from = fromDate.getValue();
+        LocalDate to = toDate.getValue();
+        if (from == null || to == null) {
+            showAlert("Validation Error", "Select both the first and the last day.");
+            return;
+        }
+        if (to.isBefore(from)) {
+            showAlert("Validation Error", "The last day cannot be before the first day.");
+            return;
+        }
+        showTasks(user.getLiveTasksBetween(from, to)); // Ordered by due date and time
+        shownTasks = () -> user.getTasksBetween(from, to);
+    }
+
+    /**
+     * Shows all tasks of the user again after filtering.
+     * 
+     * @param event The event triggered by clicking the Show all button.
+     */
+    @FXML
+    void showAll(ActionEvent event) {
+        showTasks(allTasks);
+        shownTasks = () -> TaskExport.allTasks(user);
+    }
+
+    /**
+     * Exports the tasks shown in the table to a file chosen by the user, or cancels
+     * the running export.
+     * 
+     * @param event The event triggered by clicking the Export button.
+     */
+    @FXML
+    void exportTasks(ActionEvent event) {
+        if (export != null) {
+            export.cancel();
+            return;
+        }
+        TaskExportTask started = TaskExports.start(table.getScene().getWindow(), "tasks", shownTasks);
+        if (started == null) {
+            return;
+        }
+        export = started;
+        exportProgress.progressProperty().bind(started.progressProperty());
+        exportProgress.setVisible(true);
+        exportButton.setText("Cancel");
+        started.runningProperty().addListener((observable, wasRunning, running) -> {
+            if (!running) {
+                exportProgress.progressProperty().unbind();
+                exportProgress.setVisible(false);
+                exportButton.setText("Export");
+                export = null;
+            }
+        });
+    }
+
+    /**
+     * Shows a live list of tasks in the table, disposing the filtered list shown before.
+     * 
+     * @param tasks The tasks to show.
+     */
+    private void showTasks(LiveList<Task> tasks) {
+        if (table.getItems() instanceof LiveList<Task> shown && shown != tasks) {
+            shown.dispose(); // No effect on the shared list of all tasks
+        }
+        table.setItems(tasks);
+    }
+
+    /**
+     * Returns the live list shown in the table.
+     * 
+     * @return The list of all tasks or the filtered list shown instead.
+     */
+    private LiveList<Task> shown() {
+        return (LiveList<Task>) table.getItems();
+    }
+
+    /**
+     * Returns the task edited through a row: the row itself, or the repeating task
+     * an occurrence belongs to.
+     * 
+     * @param row The task or occurrence shown in the row.
+     * @return The task to change.
+     */
+    private Task series(Task row) {
+        if (!row.isOccurrence()) {
+            return row;
+        }
+        try {
+            return user.getTaskById(row.getTaskId());
+        } catch (ValidationException e) {
+            return row; // Removed meanwhile, so the edit only changes the row left on screen
+        }
+    }
+
     /**
      * Shows an alert dialog with the specified title and content.
      * @param title The title of the alert dialog.
@@ -194,7 +364,10 @@ public class TaskViewController implements Initializable {
         alert.setTitle(title);
         alert.setHeaderText(null);
         alert.setContentText(content);
+        AlertEvent event = new AlertEvent(title, content);
+        event.begin();
         alert.showAndWait();
+        event.commit();
     }
 
     /**
@@ -202,7 +375,7 @@ public class TaskViewController implements Initializable {
      * @param event The event triggered by clicking the Add Task button.
      */
     @FXML
-    private void addTask(ActionEvent event) throws IOException {
+    void addTask(ActionEvent event) throws IOException {
         App.setRoot("AddTaskView");
     }
 
@@ -212,14 +385,12 @@ public class TaskViewController implements Initializable {
      * @param event The event triggered by clicking the Remove Task button.
      */
     @FXML
-    private void removeTask(ActionEvent event) {
+    void removeTask(ActionEvent event) {
         Task selectedTask = table.getSelectionModel().getSelectedItem();
-        int index = table.getSelectionModel().getSelectedIndex();
 
-        if (selectedTask != null && index >= 0) {
+        if (selectedTask != null) {
             try {
-                user.removeTask(index + 1); // Remove task from model (1-based index)
-                data.remove(index);         // Remove task from view (0-based index)
+                user.removeTask(selectedTask.getTaskId()); // The live list removes the row
             } catch (ValidationException e) {
                 showAlert("Validation Error", "Failed to remove task: " + e.getMessage());
             }
@@ -234,7 +405,7 @@ public class TaskViewController implements Initializable {
      * @throws IOException if the main view fails to load.
      */
     @FXML
-    private void backToMenu(ActionEvent event) throws IOException {
+    void backToMenu(ActionEvent event) throws IOException {
         App.setRoot("MainView");
     }
 }
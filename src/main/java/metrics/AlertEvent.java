@@ -0,0 +1,43 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for an alert dialog, lasting as long as the dialog blocked the
+ * code that showed it.
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+@Name("taskmanager.Alert")
+@Label("Alert")
+@Category({"Task Manager", "User Interface"})
+@Description("Alert dialog waiting for the user")
+@StackTrace(false)
+public final class AlertEvent extends Event {
+
+    @Label("Title")
+    @Description("Title of the alert")
+    public String title;
+
+    @Label("Message")
+    @Description("Text of the alert")
+    public String message;
+
+    /**
+     * Creates an event for an alert, to be started with {@link #begin()} before the alert is
+     * shown and committed when it is closed.
+     *
+     * @param title the title of the alert
+     * @param message the text of the alert
+     */
+    public AlertEvent(String title, String message) {
+        this.title = title;
+        this.message = message;
+    }
+}
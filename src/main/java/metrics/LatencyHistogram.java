@@ -0,0 +1,113 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts latencies in buckets of powers of two nanoseconds.
+ *
+ * <p>Recording adds to striped counters, so threads recording at the same time do not
+ * contend and nothing is allocated once the stripes exist. Percentiles are read as the
+ * upper bound of the bucket they fall in, so they are accurate to within a factor of two.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+final class LatencyHistogram {
+
+    // Bucket i counts latencies below 2^i ns and at least 2^(i-1) ns; the last one all longer
+    private static final int BUCKETS = 40;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0; // nanoTime is monotonic, but be safe with a start time of 0
+        }
+        buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos))].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Returns the number of latencies recorded.
+     *
+     * @return the count
+     */
+    long count() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the sum of the latencies recorded.
+     *
+     * @return the total in nanoseconds
+     */
+    long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * Returns the longest latency recorded.
+     *
+     * @return the maximum in nanoseconds, or 0 if none was recorded
+     */
+    long maxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Returns an upper bound of the latency below which a fraction of the latencies fall.
+     *
+     * @param fraction the fraction, from 0 to 1
+     * @return the upper bound of the bucket of the percentile in nanoseconds, capped at the
+     *         maximum; 0 if nothing was recorded
+     */
+    long percentileNanos(double fraction) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min((1L << i) - 1, maxNanos());
+            }
+        }
+        return maxNanos();
+    }
+
+    /**
+     * Clears the recorded latencies. Latencies recorded meanwhile may be partly kept.
+     */
+    void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+}
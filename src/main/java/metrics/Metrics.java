@@ -0,0 +1,117 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Switches the metrics of the application on or off and publishes them over JMX.
+ *
+ * <p>Metrics are on unless the {@code taskmanager.metrics} system property is
+ * {@code false}. The switch is a constant, so when metrics are off the JIT compiler drops
+ * the recording code altogether. A timed operation is recorded as:</p>
+ *
+ * <pre>{@code
+ * long start = Metrics.start();
+ * try {
+ *     ...
+ * } finally {
+ *     Operation.TASK_ADD.record(start);
+ * }
+ * }</pre>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+public final class Metrics {
+
+    /**
+     * Whether metrics are recorded, from the {@code taskmanager.metrics} system property.
+     */
+    public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("taskmanager.metrics"));
+
+    /**
+     * The name of the MXBean publishing the metrics.
+     */
+    public static final String OBJECT_NAME = "com.mycompany.taskmanager_gui:type=Metrics";
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the start time of an operation, to be passed to {@link Operation#record(long)}.
+     *
+     * @return the current value of {@link System#nanoTime()}, or 0 if metrics are off
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Registers the metrics MXBean with the platform MBean server, unless metrics are off or
+     * it is already registered.
+     *
+     * @throws IllegalStateException if the MXBean cannot be registered
+     */
+    public static void register() {
+        if (!ENABLED) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(new MXBean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Registered before
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register the metrics MXBean", e);
+        }
+    }
+
+    /**
+     * Clears all recorded measurements.
+     */
+    public static void reset() {
+        for (Operation operation : Operation.values()) {
+            operation.reset();
+        }
+        for (ValidationFailure failure : ValidationFailure.values()) {
+            failure.reset();
+        }
+    }
+
+    /**
+     * Publishes the current measurements, computed when they are read.
+     */
+    private static final class MXBean implements MetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return ENABLED;
+        }
+
+        @Override
+        public List<OperationStats> getOperations() {
+            return Stream.of(Operation.values()).map(Operation::getStats).toList();
+        }
+
+        @Override
+        public Map<String, Long> getValidationFailures() {
+            Map<String, Long> failures = new LinkedHashMap<>();
+            for (ValidationFailure failure : ValidationFailure.values()) {
+                failures.put(failure.name(), failure.getCount());
+            }
+            return failures;
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The management interface of the metrics, registered as {@value Metrics#OBJECT_NAME}.
+ * Counts only grow until reset, so JMX tools can chart them as rates.
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+public interface MetricsMXBean {
+
+    /**
+     * Returns whether metrics are recorded.
+     *
+     * @return {@code false} if metrics were switched off at startup
+     */
+    boolean isEnabled();
+
+    /**
+     * Returns the latency statistics of every timed operation.
+     *
+     * @return the statistics, one per {@link Operation}
+     */
+    List<OperationStats> getOperations();
+
+    /**
+     * Returns the number of validation failures of each kind.
+     *
+     * @return the counts by {@link ValidationFailure} name
+     */
+    Map<String, Long> getValidationFailures();
+
+    /**
+     * Clears all recorded measurements.
+     */
+    void reset();
+}
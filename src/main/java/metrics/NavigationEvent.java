@@ -0,0 +1,35 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for a switch of the scene from one view to another, lasting as
+ * long as the switch, including loading the new view the first time.
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+@Name("taskmanager.Navigation")
+@Label("Navigation")
+@Category({"Task Manager", "User Interface"})
+@Description("Switch of the scene to another view")
+@StackTrace(false)
+public final class NavigationEvent extends Event {
+
+    @Label("From")
+    @Description("View shown before the switch")
+    public String from;
+
+    @Label("To")
+    @Description("View shown after the switch")
+    public String to;
+
+    @Label("First Show")
+    @Description("Whether the view was loaded by this switch")
+    public boolean firstShow;
+}
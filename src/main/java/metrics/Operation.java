@@ -0,0 +1,82 @@
+package metrics;
+
+/**
+ * The timed operations of the application. Each operation keeps a histogram of its
+ * latencies, including the time spent waiting for locks.
+ *
+ * @author Błażej Sztefka
+ * @version 1.3
+ */
+public enum Operation {
+    /** Adding tasks to a user, one call for any number of tasks. */
+    TASK_ADD,
+    /** Removing a task from a user. */
+    TASK_REMOVE,
+    /** Changing a field of a task of a user. */
+    TASK_UPDATE,
+    /** Adding clients to a user, one call for any number of clients. */
+    CLIENT_ADD,
+    /** Removing a client and its tasks from a user. */
+    CLIENT_REMOVE,
+    /** Changing a field of a client of a user. */
+    CLIENT_UPDATE,
+    /** Selecting the tasks with one status. */
+    FILTER_BY_STATUS,
+    /** Selecting the tasks due within a range. */
+    FILTER_BY_DATE,
+    /** Searching the tasks for words. */
+    SEARCH_TASKS,
+    /** Searching the clients for words. */
+    SEARCH_CLIENTS,
+    /** Loading or building a view the first time it is shown. */
+    VIEW_LOAD,
+    /** Switching the scene to another view, including loading it the first time. */
+    VIEW_SWITCH,
+    /** Switching to another workspace, including loading it if it is not resident. */
+    WORKSPACE_SWITCH,
+    /** Handling a request to the HTTP API, including waiting for its change to be made. */
+    API_REQUEST,
+    /** Applying a batch of changes received from a replicating instance. */
+    REPLICATION_APPLY;
+
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * Records one run of this operation, if metrics are on.
+     *
+     * @param start the start time returned by {@link Metrics#start()}
+     */
+    public void record(long start) {
+        if (Metrics.ENABLED) {
+            latencies.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns the number of runs of this operation recorded.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return latencies.count();
+    }
+
+    /**
+     * Returns the statistics of the latencies of this operation.
+     *
+     * @return the statistics computed from the runs recorded so far
+     */
+    public OperationStats getStats() {
+        long count = latencies.count();
+        return new OperationStats(name(), count,
+                count == 0 ? 0 : latencies.totalNanos() / count / 1000.0,
+                latencies.percentileNanos(0.5) / 1000.0,
+                latencies.percentileNanos(0.9) / 1000.0,
+                latencies.percentileNanos(0.99) / 1000.0,
+                latencies.maxNanos() / 1000.0);
+    }
+
+    void reset() {
+        latencies.reset();
+    }
+}
@@ -0,0 +1,21 @@
+package metrics;
+
+import lombok.Value;
+
+/**
+ * The latency statistics of one {@link Operation}, as published by the
+ * {@link MetricsMXBean}. Percentiles are accurate to within a factor of two.
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+@Value
+public class OperationStats {
+    String name;
+    long count;
+    double meanMicros;
+    double p50Micros;
+    double p90Micros;
+    double p99Micros;
+    double maxMicros;
+}
@@ -0,0 +1,52 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for tasks or clients added to or removed from a user, lasting
+ * from the call until the change was made and reported, including the wait for the lock.
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+@Name("taskmanager.UserChange")
+@Label("User Change")
+@Category({"Task Manager", "Model"})
+@Description("Tasks or clients added to or removed from a user")
+@StackTrace(false)
+public final class UserChangeEvent extends Event {
+
+    @Label("Operation")
+    @Description("The change made")
+    public String operation;
+
+    @Label("Tasks")
+    @Description("Number of tasks added or removed")
+    public int tasks;
+
+    @Label("Clients")
+    @Description("Number of clients added or removed")
+    public int clients;
+
+    /**
+     * Ends the event and commits it with its counts, if it is recorded.
+     *
+     * @param operation the change made
+     * @param tasks the number of tasks added or removed
+     * @param clients the number of clients added or removed
+     */
+    public void commit(Operation operation, int tasks, int clients) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation.name();
+            this.tasks = tasks;
+            this.clients = clients;
+            commit();
+        }
+    }
+}
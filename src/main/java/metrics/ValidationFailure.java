@@ -0,0 +1,45 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counted kinds of validation failures, one for each factory method of
+ * {@code model.ValidationException} and one for the others.
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+public enum ValidationFailure {
+    /** A client ID that does not exist. */
+    CLIENT_NOT_FOUND,
+    /** A task ID that does not exist. */
+    TASK_NOT_FOUND,
+    /** A phone number that is not 9 digits long. */
+    INVALID_PHONE_NUMBER,
+    /** Any other invalid value, such as an empty name or subject. */
+    OTHER;
+
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Counts one failure of this kind, if metrics are on.
+     */
+    public void increment() {
+        if (Metrics.ENABLED) {
+            count.increment();
+        }
+    }
+
+    /**
+     * Returns the number of failures of this kind counted.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    void reset() {
+        count.reset();
+    }
+}
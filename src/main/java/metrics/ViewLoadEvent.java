@@ -0,0 +1,31 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for the loading of a view the first time it is shown, lasting
+ * as long as the view takes to build.
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+@Name("taskmanager.ViewLoad")
+@Label("View Load")
+@Category({"Task Manager", "User Interface"})
+@Description("Loading of a view from its FXML file or its compiled builder")
+@StackTrace(false)
+public final class ViewLoadEvent extends Event {
+
+    @Label("View")
+    @Description("Name of the FXML file of the view, without extension")
+    public String view;
+
+    @Label("Compiled")
+    @Description("Whether the view was built by code generated at build time rather than by FXMLLoader")
+    public boolean compiled;
+}
@@ -0,0 +1,34 @@
+/**
+ * The {@code metrics} package counts and times what the application does, so that slow
+ * operations can be found in a running application.
+ *
+ * <p>
+ * Measurements are kept in memory and published as a platform MXBean named
+ * {@value Metrics#OBJECT_NAME}, which JConsole or VisualVM can read from a local process.
+ * Recording a measurement allocates nothing; with the {@code taskmanager.metrics} system
+ * property set to {@code false}, the recording code is removed by the JIT compiler.
+ * </p>
+ *
+ * <p>
+ * Views, navigation, changes of users and alerts are also emitted as Java Flight Recorder
+ * events, so that a recording lines them up with garbage collections and other JVM events.
+ * The settings in {@code src/main/jfr/taskmanager.jfc} record them together with the JVM
+ * events that explain stalls of the user interface.
+ * </p>
+ *
+ * <p>
+ * Key classes in this package include:
+ * </p>
+ * <ul>
+ *   <li>{@link Metrics} - Switches the metrics on or off and publishes them.</li>
+ *   <li>{@link Operation} - The timed operations, each with a latency histogram.</li>
+ *   <li>{@link ValidationFailure} - The counted kinds of validation failures.</li>
+ *   <li>{@link MetricsMXBean} - The management interface read by JMX tools.</li>
+ *   <li>{@link ViewLoadEvent}, {@link NavigationEvent}, {@link UserChangeEvent} and
+ *       {@link AlertEvent} - The Flight Recorder events.</li>
+ * </ul>
+ *
+ * @version 1.1
+ * @author Błażej Sztefka
+ */
+package metrics;
@@ -0,0 +1,36 @@
+package model;
+
+/**
+ * Records the changes of a {@link User} in its own form, such as undoable commands or
+ * replicated deltas, where the {@link UserListener} events alone are not enough.
+ *
+ * <p>Recorders are registered with {@link User#addRecorder(ChangeRecorder)} and called on
+ * the changing thread while the write lock is held, in addition to the events they receive
+ * as listeners.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+interface ChangeRecorder {
+
+    /**
+     * Called before a field of a task of the user is changed, so that the fields before the
+     * change can be compared with those reported by {@link UserListener#taskUpdated(Task)}.
+     *
+     * @param task the task about to be changed
+     */
+    void beforeUpdate(Task task);
+
+    /**
+     * Called before a field of a client of the user is changed.
+     *
+     * @param client the client about to be changed
+     */
+    void beforeUpdate(Client client);
+
+    /**
+     * Called when the outermost write lock is released, so that everything done while it
+     * was held can be recorded as one change.
+     */
+    void changeEnded();
+}
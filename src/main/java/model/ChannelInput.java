@@ -0,0 +1,204 @@
+package model;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * {@link DataInput} reading a file channel through a single heap buffer, and computing the
+ * CRC32 of the bytes it reads up to a given length on the way.
+ *
+ * <p>Unlike a {@code DataInputStream} over a {@code BufferedInputStream}, a number is read
+ * straight from the buffer without a call per byte, and a string is decoded in place by
+ * {@link #readUtf8(int)} without copying its bytes first. {@link UserStore} reads snapshots
+ * with it, so the file is read once and checked as it is parsed.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+final class ChannelInput implements DataInput {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final CRC32 crc = new CRC32();
+    // Bytes of the file covered by the checksum, and the number of them read so far
+    private final long checkedLength;
+    private long read;
+
+    /**
+     * Creates an input reading a channel from its current position.
+     *
+     * @param channel the channel to read
+     * @param bufferSize the size of the buffer, the longest string decoded in place
+     * @param checkedLength the number of bytes from the current position covered by the checksum
+     */
+    ChannelInput(FileChannel channel, int bufferSize, long checkedLength) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize).limit(0);
+        this.checkedLength = checkedLength;
+    }
+
+    /**
+     * Returns the CRC32 of the bytes read so far that are covered by the checksum.
+     *
+     * @return the checksum value
+     */
+    long checksum() {
+        return crc.getValue();
+    }
+
+    /**
+     * Returns the number of bytes consumed so far.
+     *
+     * @return the position relative to where reading started
+     */
+    long position() {
+        return read - buffer.remaining();
+    }
+
+    /**
+     * Reads a string of UTF-8 bytes.
+     *
+     * @param length the number of bytes
+     * @return the string
+     * @throws IOException if the channel cannot be read or ends before the string
+     */
+    String readUtf8(int length) throws IOException {
+        if (length > buffer.capacity()) {
+            if (length > channel.size() - channel.position() + buffer.remaining()) {
+                throw new EOFException(); // A damaged length, rather than a string to allocate
+            }
+            byte[] utf8 = new byte[length];
+            readFully(utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+        require(length);
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * Makes at least the given number of bytes available in the buffer.
+     */
+    private void require(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            int start = buffer.position();
+            int count = channel.read(buffer);
+            if (count < 0) {
+                throw new EOFException();
+            }
+            int checked = (int) Math.max(0, Math.min(count, checkedLength - read));
+            crc.update(buffer.array(), start, checked);
+            read += count;
+        }
+        buffer.flip();
+    }
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+        readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            require(1);
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            off += count;
+            len -= count;
+        }
+    }
+
+    @Override
+    public int skipBytes(int n) throws IOException {
+        int skipped = 0;
+        while (skipped < n) {
+            require(1);
+            int count = Math.min(n - skipped, buffer.remaining());
+            buffer.position(buffer.position() + count);
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        require(Byte.BYTES);
+        return buffer.get();
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return readByte() & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        require(Short.BYTES);
+        return buffer.getShort();
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        require(Character.BYTES);
+        return buffer.getChar();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        require(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        require(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    /**
+     * Not supported: the files read with this input hold no lines.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public String readLine() {
+        throw new UnsupportedOperationException("readLine");
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+}
@@ -1,7 +1,10 @@
 package model;
 
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.ToString;
 
 /**
@@ -13,7 +16,7 @@ import lombok.ToString;
  * setting and retrieving client details.</p>
  * 
  * @author Błażej Sztefka
- * @version 1.1
+ * @version 1.2
  */
 @Data
 @EqualsAndHashCode
@@ -24,6 +27,13 @@ public class Client {
     String parentName;  // The name of the parent
     String phoneNumber; // The phone number of the client
     String description; // Additional description about the client (optional)
+
+    // User this client belongs to, notified about every setter commit
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.PACKAGE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private User owner;
     
     /**
      * Constructs a new Client with the provided student name, parent name, phone number,
@@ -50,12 +60,12 @@ public class Client {
     */
    public void setParentName(String newName) throws ValidationException {
        if (newName == null || newName.trim().isEmpty()) {
-           throw new ValidationException("cant be null");
+           throw new ValidationException("Parent name cannot be null or empty");
        }
        if (!Character.isUpperCase(newName.charAt(0))) {
-           throw new ValidationException("Parent name upper case");
+           throw new ValidationException("Parent name must start with an uppercase letter");
        } else {
-           parentName = newName;
+           update(() -> parentName = newName);
        }
    }
 
@@ -68,12 +78,12 @@ public class Client {
     */
    public void setStudentName(String newName) throws ValidationException {
        if (newName == null || newName.isEmpty()) {
-           throw new ValidationException("Parent name cannot be null or empty");
+           throw new ValidationException("Student name cannot be null or empty");
        }
        if (!Character.isUpperCase(newName.charAt(0))) {
-           throw new ValidationException("Parent name must start with an uppercase letter");
+           throw new ValidationException("Student name must start with an uppercase letter");
        }
-       studentName = newName;
+       update(() -> studentName = newName);
    }
 
 
@@ -90,7 +100,16 @@ public class Client {
      */
     public void setPhoneNumber(String phoneNumber) throws ValidationException {
         checkPhoneNumber(phoneNumber); // Validate phone number
-        this.phoneNumber = phoneNumber; // Set phone number if valid
+        update(() -> this.phoneNumber = phoneNumber); // Set phone number if valid
+    }
+
+    /**
+     * Sets the description of the client.
+     * 
+     * @param description The new description of the client.
+     */
+    public void setDescription(String description) {
+        update(() -> this.description = description);
     }
 
     /**
@@ -104,5 +123,62 @@ public class Client {
             throw ValidationException.invalidPhoneNumber(phoneNumber);
         }
     }
-    
+
+    /**
+     * Changes several fields of this client as a single change. The edit calls the setters
+     * of a detached copy of this client; once it completes, the fields of the copy are set on
+     * this client together, so that a user records them as one change, undone in one step.
+     * 
+     * @param edit The setters to call on the copy.
+     * @throws ValidationException if a setter rejects its value; this client is then unchanged.
+     */
+    public void edit(Edit<Client> edit) throws ValidationException {
+        if (owner != null) {
+            owner.editClient(this, edit);
+        } else {
+            Client copy = copyFields();
+            edit.apply(copy);
+            copyFrom(copy);
+        }
+    }
+
+    /**
+     * Copies the editable fields of another client into this one. Callers changing a client
+     * that belongs to a user must do so through {@link User#updateClient}.
+     * Used when changes are replayed from storage.
+     * 
+     * @param other The client to copy the fields from.
+     */
+    void copyFrom(Client other) {
+        this.studentName = other.studentName;
+        this.parentName = other.parentName;
+        this.phoneNumber = other.phoneNumber;
+        this.description = other.description;
+    }
+
+    /**
+     * Returns a detached copy of the fields of this client.
+     * 
+     * @return The copy, with the same client ID.
+     */
+    Client copyFields() {
+        Client copy = new Client(studentName, parentName, phoneNumber, description);
+        copy.clientId = clientId;
+        return copy;
+    }
+
+    /**
+     * Applies a change to the fields of this client. If the client belongs to a user,
+     * the change is made through {@link User#updateClient}, which keeps the user's
+     * indexes in sync and notifies its listeners.
+     * 
+     * @param change The assignments to perform.
+     */
+    private void update(Runnable change) {
+        if (owner != null) {
+            owner.updateClient(this, change);
+        } else {
+            change.run();
+        }
+    }
 }
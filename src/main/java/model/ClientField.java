@@ -0,0 +1,40 @@
+package model;
+
+/**
+ * The editable fields of a {@link Client}, each of which is undone and replicated on its own.
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+enum ClientField {
+    STUDENT_NAME, PARENT_NAME, PHONE_NUMBER, DESCRIPTION;
+
+    /**
+     * Returns the value of this field of a client.
+     *
+     * @param client the client to read
+     * @return the value of this field
+     */
+    String get(Client client) {
+        return switch (this) {
+            case STUDENT_NAME -> client.getStudentName();
+            case PARENT_NAME -> client.getParentName();
+            case PHONE_NUMBER -> client.getPhoneNumber();
+            case DESCRIPTION -> client.getDescription();
+        };
+    }
+
+    /**
+     * Returns a detached copy of the fields of a client with this field set to a value.
+     *
+     * @param client the client to copy
+     * @param value the new value
+     * @return the copy, to be applied with {@link Client#copyFrom(Client)}
+     */
+    Client with(Client client, String value) {
+        return new Client(this == STUDENT_NAME ? value : client.getStudentName(),
+                this == PARENT_NAME ? value : client.getParentName(),
+                this == PHONE_NUMBER ? value : client.getPhoneNumber(),
+                this == DESCRIPTION ? value : client.getDescription());
+    }
+}
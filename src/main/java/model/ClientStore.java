@@ -0,0 +1,82 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Storage of the clients of a {@link User}.
+ *
+ * <p>A store either keeps the client objects themselves ({@link ObjectClientStore}) or keeps
+ * their fields in its own representation and returns views of them
+ * ({@link OffHeapClientTable}), in the same way as a {@link TaskStore}.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+interface ClientStore {
+
+    /**
+     * Returns the number of stored clients.
+     *
+     * @return the client count
+     */
+    int size();
+
+    /**
+     * Tells whether a client with the given ID is stored.
+     *
+     * @param clientId the client ID
+     * @return {@code true} if the client is stored
+     */
+    boolean contains(int clientId);
+
+    /**
+     * Returns a stored client.
+     *
+     * @param clientId the client ID
+     * @return the client, or {@code null} if no client has the ID
+     */
+    Client get(int clientId);
+
+    /**
+     * Stores a client whose ID is already set.
+     *
+     * @param client the client to store
+     */
+    void add(Client client);
+
+    /**
+     * Removes a client.
+     *
+     * @param clientId the client ID
+     * @return the removed client, or {@code null} if no client has the ID
+     */
+    Client remove(int clientId);
+
+    /**
+     * Brings a stored client up to date with the stored fields before a change.
+     *
+     * @param client the client about to change
+     */
+    void beforeUpdate(Client client);
+
+    /**
+     * Stores the changed fields of a client.
+     *
+     * @param client the changed client
+     */
+    void afterUpdate(Client client);
+
+    /**
+     * Returns the IDs of the stored clients in the order they were added.
+     *
+     * @return the client IDs
+     */
+    int[] ids();
+
+    /**
+     * Returns the stored clients in the order they were added.
+     *
+     * @return a new list of the clients
+     */
+    List<Client> list();
+}
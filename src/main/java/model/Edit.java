@@ -0,0 +1,31 @@
+package model;
+
+/**
+ * Sets several fields of a task or client, applied with {@link Task#edit(Edit)} or
+ * {@link Client#edit(Edit)} as a single change.
+ *
+ * <p>The edit calls the setters of a detached copy of the task or client, so a setter
+ * rejecting its value leaves the original unchanged.</p>
+ *
+ * <pre>
+ * task.edit(copy -&gt; {
+ *     copy.setSubject("Fizyka");
+ *     copy.setDate(LocalDate.of(2030, 1, 15));
+ * });
+ * </pre>
+ *
+ * @param <T> the type of the edited entity
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface Edit<T> {
+
+    /**
+     * Sets the fields to change on a detached copy.
+     *
+     * @param copy the copy of the task or client, not belonging to any user
+     * @throws ValidationException if a setter rejects its value
+     */
+    void apply(T copy) throws ValidationException;
+}
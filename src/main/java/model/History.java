@@ -0,0 +1,590 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The undo and redo history of the changes made to a {@link User}.
+ *
+ * <p>Every change of the user, such as adding tasks, removing a client or editing a field,
+ * is recorded as one command, which {@link #undo()} reverts and {@link #redo()} makes again.
+ * A command holds small deltas rather than copies of the user: the IDs of the tasks and
+ * clients it added, the old value of the one field it edited, or the tasks and clients it
+ * removed, which are no longer referenced by the user. Removing a client records the client
+ * together with the tasks removed with it, so undoing it restores them all with their IDs,
+ * in time proportional to their number.</p>
+ *
+ * <p>Commands are kept in a ring buffer of at most {@value #CAPACITY} commands holding at
+ * most {@value #MAX_ENTITIES} tasks and clients; the oldest commands are dropped to stay
+ * within both limits. A new change drops the commands that could be redone.</p>
+ *
+ * <p>The history of a user is created by {@link User#getHistory()} and records the changes
+ * made from then on. It is changed under the write lock of its user, so it can be used from
+ * any thread that may change the user. Its listeners are called when commands are recorded,
+ * undone or redone, on the changing thread.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+public final class History {
+
+    /**
+     * The maximum number of commands kept.
+     */
+    public static final int CAPACITY = 100;
+
+    /**
+     * The maximum number of tasks and clients referenced by the commands kept.
+     */
+    public static final int MAX_ENTITIES = 1_000_000;
+
+    private final User user;
+
+    // Commands from the oldest at ring[first]; the first `undoable` can be undone, the rest redone
+    private final Command[] ring = new Command[CAPACITY];
+    private int first;
+    private int count;
+    private int undoable;
+    private long entities;
+
+    // Deltas of the change in progress, recorded as one command when the write lock is released
+    private final List<Delta> pending = new ArrayList<>();
+
+    // Whether a command is being undone or redone, whose changes are not recorded
+    private boolean applying;
+
+    // Fields of the task or client about to be edited, compared with them after the edit
+    private Task taskBefore;
+    private Client clientBefore;
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates the history of a user and starts recording its changes.
+     *
+     * @param user the user whose changes are recorded
+     */
+    History(User user) {
+        this.user = user;
+        Recorder recorder = new Recorder();
+        user.addListener(recorder);
+        user.addRecorder(recorder);
+    }
+
+    /**
+     * Returns whether there is a change to undo.
+     *
+     * @return {@code true} if {@link #undo()} would revert a change
+     */
+    public boolean canUndo() {
+        boolean locked = user.lockForWriting();
+        try {
+            return undoable > 0;
+        } finally {
+            user.unlockForWriting(locked);
+        }
+    }
+
+    /**
+     * Returns whether there is an undone change to make again.
+     *
+     * @return {@code true} if {@link #redo()} would make a change again
+     */
+    public boolean canRedo() {
+        boolean locked = user.lockForWriting();
+        try {
+            return undoable < count;
+        } finally {
+            user.unlockForWriting(locked);
+        }
+    }
+
+    /**
+     * Reverts the last change that was not undone.
+     *
+     * @return {@code false} if there was no change to undo
+     * @throws IllegalStateException if the user no longer matches the recorded change; the
+     *         history is then cleared
+     */
+    public boolean undo() {
+        boolean locked = user.lockForWriting();
+        try {
+            if (undoable == 0) {
+                return false;
+            }
+            int slot = slot(undoable - 1);
+            ring[slot] = revert(ring[slot]);
+            undoable--;
+        } finally {
+            user.unlockForWriting(locked);
+        }
+        listeners.forEach(Runnable::run);
+        return true;
+    }
+
+    /**
+     * Makes again the last change that was undone.
+     *
+     * @return {@code false} if there was no change to redo
+     * @throws IllegalStateException if the user no longer matches the recorded change; the
+     *         history is then cleared
+     */
+    public boolean redo() {
+        boolean locked = user.lockForWriting();
+        try {
+            if (undoable == count) {
+                return false;
+            }
+            int slot = slot(undoable);
+            ring[slot] = revert(ring[slot]);
+            undoable++;
+        } finally {
+            user.unlockForWriting(locked);
+        }
+        listeners.forEach(Runnable::run);
+        return true;
+    }
+
+    /**
+     * Forgets all recorded changes.
+     */
+    public void clear() {
+        boolean locked = user.lockForWriting();
+        try {
+            Arrays.fill(ring, null);
+            first = 0;
+            count = 0;
+            undoable = 0;
+            entities = 0;
+        } finally {
+            user.unlockForWriting(locked);
+        }
+        listeners.forEach(Runnable::run);
+    }
+
+    /**
+     * Registers a listener called whenever a change is recorded, undone or redone, or the
+     * history is cleared.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener registered with {@link #addListener(Runnable)}.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Adds a command after the commands that can be undone, dropping the ones that could be
+     * redone and the oldest ones over the limits.
+     */
+    private void push(Command command) {
+        while (count > undoable) {
+            dropLast();
+        }
+        if (command.entities() > MAX_ENTITIES) {
+            // Too large to keep: earlier commands could no longer be undone in order
+            while (count > 0) {
+                dropFirst();
+            }
+            return;
+        }
+        if (count == CAPACITY) {
+            dropFirst();
+        }
+        ring[slot(count)] = command;
+        count++;
+        undoable++;
+        entities += command.entities();
+        while (entities > MAX_ENTITIES) {
+            dropFirst();
+        }
+    }
+
+    private void dropFirst() {
+        entities -= ring[first].entities();
+        ring[first] = null;
+        first = (first + 1) % CAPACITY;
+        count--;
+        undoable--;
+    }
+
+    private void dropLast() {
+        int slot = slot(count - 1);
+        entities -= ring[slot].entities();
+        ring[slot] = null;
+        count--;
+    }
+
+    private int slot(int index) {
+        return (first + index) % CAPACITY;
+    }
+
+    /**
+     * Reverts the deltas of a command, last first, without recording the changes.
+     *
+     * @return the command reverting the reverted command
+     */
+    private Command revert(Command command) {
+        Delta[] deltas = command.deltas();
+        Delta[] inverse = new Delta[deltas.length];
+        applying = true;
+        try {
+            for (int i = deltas.length - 1; i >= 0; i--) {
+                inverse[deltas.length - 1 - i] = deltas[i].revert(user);
+            }
+        } catch (ValidationException e) {
+            applying = false;
+            clear();
+            throw new IllegalStateException("The user no longer matches the history: " + e.getMessage(), e);
+        } finally {
+            applying = false;
+        }
+        Command reverted = new Command(inverse);
+        entities += reverted.entities() - command.entities();
+        return reverted;
+    }
+
+    /**
+     * One change of the user, made of the deltas recorded while the write lock was held.
+     *
+     * @param deltas the deltas in the order they were made
+     */
+    private record Command(Delta[] deltas) {
+
+        /**
+         * Returns the number of tasks and clients the command refers to.
+         */
+        long entities() {
+            long total = 0;
+            for (Delta delta : deltas) {
+                total += delta.entities();
+            }
+            return total;
+        }
+    }
+
+    /**
+     * A reversible change of the user.
+     */
+    private sealed interface Delta {
+
+        /**
+         * Reverts this change.
+         *
+         * @param user the user to change
+         * @return the delta reverting the revert
+         * @throws ValidationException if the user does not match the change
+         */
+        Delta revert(User user) throws ValidationException;
+
+        /**
+         * Returns the number of tasks and clients this delta refers to.
+         */
+        int entities();
+
+        /**
+         * Returns this delta in its final form, once no more is added to it.
+         */
+        default Delta complete() {
+            return this;
+        }
+    }
+
+    /**
+     * Tasks added, by ID; reverting removes them again.
+     */
+    private record TasksAdded(int[] ids) implements Delta {
+
+        @Override
+        public Delta revert(User user) throws ValidationException {
+            Task[] removed = new Task[ids.length];
+            for (int i = ids.length - 1; i >= 0; i--) {
+                removed[i] = user.getTaskById(ids[i]);
+                user.removeTask(ids[i]);
+            }
+            return new TasksRemoved(removed);
+        }
+
+        @Override
+        public int entities() {
+            return ids.length;
+        }
+    }
+
+    /**
+     * Tasks removed; reverting puts them back with their IDs.
+     */
+    private record TasksRemoved(Task[] tasks) implements Delta {
+
+        @Override
+        public Delta revert(User user) throws ValidationException {
+            int[] ids = new int[tasks.length];
+            for (int i = 0; i < tasks.length; i++) {
+                user.restoreTask(tasks[i]);
+                ids[i] = tasks[i].getTaskId();
+            }
+            return new TasksAdded(ids);
+        }
+
+        @Override
+        public int entities() {
+            return tasks.length;
+        }
+    }
+
+    /**
+     * Clients added, by ID; reverting removes them again, with any tasks they have.
+     */
+    private record ClientsAdded(int[] ids) implements Delta {
+
+        @Override
+        public Delta revert(User user) throws ValidationException {
+            Client[] removed = new Client[ids.length];
+            List<Task> tasks = new ArrayList<>();
+            for (int i = ids.length - 1; i >= 0; i--) {
+                removed[i] = user.getClientById(ids[i]);
+                tasks.addAll(user.getTasksForClient(ids[i]));
+                user.removeClient(ids[i]);
+            }
+            return new ClientsRemoved(removed, tasks.toArray(Task[]::new));
+        }
+
+        @Override
+        public int entities() {
+            return ids.length;
+        }
+    }
+
+    /**
+     * Clients removed together with their tasks; reverting puts them all back with their IDs.
+     */
+    private record ClientsRemoved(Client[] clients, Task[] tasks) implements Delta {
+
+        @Override
+        public Delta revert(User user) throws ValidationException {
+            int[] ids = new int[clients.length];
+            for (int i = 0; i < clients.length; i++) {
+                user.restoreClient(clients[i]);
+                ids[i] = clients[i].getClientId();
+            }
+            for (Task task : tasks) {
+                user.restoreTask(task);
+            }
+            return new ClientsAdded(ids);
+        }
+
+        @Override
+        public int entities() {
+            return clients.length + tasks.length;
+        }
+    }
+
+    /**
+     * IDs of tasks or clients being added by the change in progress.
+     */
+    private static final class AddedIds implements Delta {
+
+        private final boolean tasks;
+        private int[] ids = new int[4];
+        private int size;
+
+        AddedIds(boolean tasks) {
+            this.tasks = tasks;
+        }
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        @Override
+        public Delta complete() {
+            int[] added = Arrays.copyOf(ids, size);
+            return tasks ? new TasksAdded(added) : new ClientsAdded(added);
+        }
+
+        @Override
+        public Delta revert(User user) {
+            throw new IllegalStateException("Incomplete delta");
+        }
+
+        @Override
+        public int entities() {
+            return size;
+        }
+    }
+
+    /**
+     * A field of a task edited, with its value before the edit.
+     */
+    private record TaskEdit(int id, TaskField field, Object value) implements Delta {
+
+        @Override
+        public Delta revert(User user) throws ValidationException {
+            Task task = user.getTaskById(id);
+            Object current = field.get(task);
+            Task target = field.with(task, value);
+            user.updateTask(task, () -> task.copyFrom(target));
+            return new TaskEdit(id, field, current);
+        }
+
+        @Override
+        public int entities() {
+            return 1;
+        }
+    }
+
+    /**
+     * A field of a client edited, with its value before the edit.
+     */
+    private record ClientEdit(int id, ClientField field, String value) implements Delta {
+
+        @Override
+        public Delta revert(User user) throws ValidationException {
+            Client client = user.getClientById(id);
+            String current = field.get(client);
+            Client target = field.with(client, value);
+            user.updateClient(client, () -> client.copyFrom(target));
+            return new ClientEdit(id, field, current);
+        }
+
+        @Override
+        public int entities() {
+            return 1;
+        }
+    }
+
+    /**
+     * Listener turning the changes of the user into the deltas of the change in progress, and
+     * the deltas of each change into a command.
+     */
+    private final class Recorder implements UserListener, ChangeRecorder {
+
+        /**
+         * Remembers the fields of a task about to be changed. Called by the user under its
+         * write lock.
+         *
+         * @param task the task to be changed
+         */
+        @Override
+        public void beforeUpdate(Task task) {
+            if (!applying) {
+                taskBefore = task.copyFields();
+            }
+        }
+
+        /**
+         * Remembers the fields of a client about to be changed. Called by the user under its
+         * write lock.
+         *
+         * @param client the client to be changed
+         */
+        @Override
+        public void beforeUpdate(Client client) {
+            if (!applying) {
+                clientBefore = new Client(client.getStudentName(), client.getParentName(),
+                        client.getPhoneNumber(), client.getDescription());
+                clientBefore.setClientId(client.getClientId());
+            }
+        }
+
+        /**
+         * Records the deltas of the change that just ended as one command. Called by the user
+         * when it releases its write lock.
+         */
+        @Override
+        public void changeEnded() {
+            taskBefore = null;
+            clientBefore = null;
+            if (pending.isEmpty()) {
+                return;
+            }
+            Command command = new Command(pending.stream().map(Delta::complete).toArray(Delta[]::new));
+            pending.clear();
+            push(command);
+            listeners.forEach(Runnable::run);
+        }
+
+        @Override
+        public void taskAdded(Task task) {
+            if (!applying) {
+                added(true).add(task.getTaskId());
+            }
+        }
+
+        @Override
+        public void clientAdded(Client client) {
+            if (!applying) {
+                added(false).add(client.getClientId());
+            }
+        }
+
+        @Override
+        public void taskRemoved(Task task) {
+            if (!applying) {
+                pending.add(new TasksRemoved(new Task[] {task}));
+            }
+        }
+
+        @Override
+        public void clientRemoved(Client client) {
+            if (!applying) {
+                pending.add(new ClientsRemoved(new Client[] {client}, user.removedClientTasks().toArray(Task[]::new)));
+            }
+        }
+
+        @Override
+        public void taskUpdated(Task task) {
+            Task before = taskBefore;
+            if (applying || before == null || before.getTaskId() != task.getTaskId()) {
+                return;
+            }
+            for (TaskField field : TaskField.values()) {
+                Object old = field.get(before);
+                if (!Objects.equals(old, field.get(task))) {
+                    pending.add(new TaskEdit(task.getTaskId(), field, old));
+                }
+            }
+        }
+
+        @Override
+        public void clientUpdated(Client client) {
+            Client before = clientBefore;
+            if (applying || before == null || before.getClientId() != client.getClientId()) {
+                return;
+            }
+            for (ClientField field : ClientField.values()) {
+                String old = field.get(before);
+                if (!Objects.equals(old, field.get(client))) {
+                    pending.add(new ClientEdit(client.getClientId(), field, old));
+                }
+            }
+        }
+
+        /**
+         * Returns the IDs being added by the change in progress, continuing the last delta if
+         * it adds the same kind of entity.
+         */
+        private AddedIds added(boolean tasks) {
+            if (!pending.isEmpty() && pending.get(pending.size() - 1) instanceof AddedIds ids && ids.tasks == tasks) {
+                return ids;
+            }
+            AddedIds ids = new AddedIds(tasks);
+            pending.add(ids);
+            return ids;
+        }
+    }
+}
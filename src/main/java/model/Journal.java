@@ -0,0 +1,347 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal of the changes made to a {@link User}.
+ *
+ * <p>Each record has the layout {@code [int length][byte type][long seq][payload][int crc]},
+ * where {@code length} covers the type, sequence number and payload, and the CRC32 is
+ * computed over the same bytes. A record that was only partly written when the
+ * application stopped is detected on {@link #replay} and cut off.</p>
+ *
+ * <p>Each record is handed to the operating system by a single write when it is appended,
+ * so it survives the application stopping at any point. Records are forced to the storage
+ * device only when the journal is reset or closed; a power failure may lose the records
+ * appended since.</p>
+ *
+ * <p>The static {@code write}/{@code read} methods encode tasks and clients and are shared
+ * with the snapshot format of {@link UserStore}.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.3
+ */
+final class Journal implements Closeable {
+
+    static final byte ADD_CLIENT = 2;
+    static final byte REMOVE_TASK = 3;
+    static final byte REMOVE_CLIENT = 4;
+    static final byte UPDATE_CLIENT = 6;
+    static final byte ADD_TASK = 7;
+    static final byte UPDATE_TASK = 8;
+
+    // Task records written before tasks could repeat, without the recurrence; still replayed
+    static final byte ADD_TASK_WITHOUT_RECURRENCE = 1;
+    static final byte UPDATE_TASK_WITHOUT_RECURRENCE = 5;
+
+    private static final int HEADER_SIZE = Integer.BYTES;
+    private static final int TRAILER_SIZE = Integer.BYTES;
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private final CRC32 crc = new CRC32();
+    private long records;
+
+    /**
+     * Receives the records read by {@link #replay}.
+     */
+    interface RecordHandler {
+
+        /**
+         * Handles a single journal record.
+         *
+         * @param type the record type
+         * @param seq the sequence number of the record
+         * @param in the payload of the record
+         * @throws IOException if the payload cannot be read
+         * @throws ValidationException if the record does not match the current state
+         */
+        void handle(byte type, long seq, DataInput in) throws IOException, ValidationException;
+    }
+
+    /**
+     * Receives the payload of a record being appended.
+     */
+    interface PayloadWriter {
+
+        /**
+         * Writes the payload of a record.
+         *
+         * @param out the output to write the payload to
+         * @throws IOException if writing fails
+         */
+        void write(DataOutput out) throws IOException;
+    }
+
+    private Journal(FileChannel channel, long records) {
+        this.channel = channel;
+        this.records = records;
+    }
+
+    /**
+     * Creates an empty journal file for appending, replacing the file if it exists.
+     *
+     * @param file the journal file
+     * @return the empty journal
+     * @throws IOException if the file cannot be written
+     */
+    static Journal create(Path file) throws IOException {
+        return new Journal(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 0);
+    }
+
+    /**
+     * Reads all complete records of the journal file and opens it for appending.
+     * A damaged or incomplete tail is truncated.
+     *
+     * @param file the journal file, created if it does not exist
+     * @param handler the handler receiving every complete record
+     * @return the journal positioned after the last complete record
+     * @throws IOException if the file cannot be read or written
+     * @throws ValidationException if a record cannot be applied
+     */
+    static Journal replay(Path file, RecordHandler handler) throws IOException, ValidationException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long validEnd = 0;
+        long count = 0;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        CRC32 check = new CRC32();
+        while (true) {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            if (length < 1 + Long.BYTES || length > MAX_RECORD_SIZE) {
+                break;
+            }
+            byte[] record = new byte[length];
+            int crc;
+            try {
+                in.readFully(record);
+                crc = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            check.reset();
+            check.update(record);
+            if ((int) check.getValue() != crc) {
+                break;
+            }
+            ByteBuffer header = ByteBuffer.wrap(record, 0, 1 + Long.BYTES);
+            byte type = header.get();
+            long seq = header.getLong();
+            try {
+                handler.handle(type, seq, new DataInputStream(
+                        new ByteArrayInputStream(record, 1 + Long.BYTES, length - 1 - Long.BYTES)));
+            } catch (IOException | ValidationException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+            validEnd += HEADER_SIZE + length + TRAILER_SIZE;
+            count++;
+        }
+        channel.truncate(validEnd);
+        channel.position(validEnd);
+        return new Journal(channel, count);
+    }
+
+    /**
+     * Appends a record to the journal. The record is handed to the operating system
+     * before this method returns.
+     *
+     * @param type the record type
+     * @param seq the sequence number of the record
+     * @param payload writes the payload of the record
+     * @throws IOException if writing fails
+     */
+    void append(byte type, long seq, PayloadWriter payload) throws IOException {
+        bytes.reset();
+        out.writeInt(0); // length placeholder
+        out.writeByte(type);
+        out.writeLong(seq);
+        payload.write(out);
+        out.writeInt(0); // crc placeholder
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        int length = buffer.limit() - HEADER_SIZE - TRAILER_SIZE;
+        crc.reset();
+        crc.update(buffer.array(), HEADER_SIZE, length);
+        buffer.putInt(0, length);
+        buffer.putInt(HEADER_SIZE + length, (int) crc.getValue());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        records++;
+    }
+
+    /**
+     * Returns the number of records in the journal.
+     *
+     * @return the record count
+     */
+    long size() {
+        return records;
+    }
+
+    /**
+     * Discards all records, typically after they were written to a snapshot.
+     *
+     * @throws IOException if the file cannot be truncated
+     */
+    void reset() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        records = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.force(true);
+        channel.close();
+    }
+
+    /**
+     * Closes a journal that failed, without forcing its records to the storage device.
+     */
+    void abandon() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // The records are already given up
+        }
+    }
+
+    /**
+     * Writes all fields of a task.
+     *
+     * @param out the output to write to
+     * @param task the task to write
+     * @throws IOException if writing fails
+     */
+    static void writeTask(DataOutput out, Task task) throws IOException {
+        out.writeInt(task.getTaskId());
+        out.writeInt(task.getClientId());
+        out.writeInt((int) task.dueDay());
+        out.writeInt((int) Math.floorMod(task.dueMinutes(), Task.MINUTES_PER_DAY) * 60);
+        writeString(out, task.getSubject());
+        writeString(out, task.getDescription());
+        out.writeInt(task.recurrence());
+    }
+
+    /**
+     * Reads a task written by {@link #writeTask}. The stored task ID is set on the result.
+     *
+     * @param in the input to read from
+     * @return the task
+     * @throws IOException if reading fails
+     */
+    static Task readTask(DataInput in) throws IOException {
+        return readTask(in, true);
+    }
+
+    /**
+     * Reads a task written by {@link #writeTask}, or by an earlier version without the
+     * recurrence. The stored task ID is set on the result.
+     *
+     * @param in the input to read from
+     * @param withRecurrence whether the recurrence was written
+     * @return the task
+     * @throws IOException if reading fails
+     */
+    static Task readTask(DataInput in, boolean withRecurrence) throws IOException {
+        int taskId = in.readInt();
+        int clientId = in.readInt();
+        long dueMinutes = in.readInt() * Task.MINUTES_PER_DAY + in.readInt() / 60;
+        String subject = readString(in);
+        String description = readString(in);
+        Task task = new Task(taskId, subject, description, clientId, dueMinutes);
+        return withRecurrence ? task.withRecurrence(in.readInt()) : task;
+    }
+
+    /**
+     * Writes all fields of a client.
+     *
+     * @param out the output to write to
+     * @param client the client to write
+     * @throws IOException if writing fails
+     */
+    static void writeClient(DataOutput out, Client client) throws IOException {
+        out.writeInt(client.getClientId());
+        writeString(out, client.getStudentName());
+        writeString(out, client.getParentName());
+        writeString(out, client.getPhoneNumber());
+        writeString(out, client.getDescription());
+    }
+
+    /**
+     * Reads a client written by {@link #writeClient}. The stored client ID is set on the result.
+     *
+     * @param in the input to read from
+     * @return the client
+     * @throws IOException if reading fails
+     */
+    static Client readClient(DataInput in) throws IOException {
+        int clientId = in.readInt();
+        Client client = new Client(readString(in), readString(in), readString(in), readString(in));
+        client.setClientId(clientId);
+        return client;
+    }
+
+    /**
+     * Writes a nullable string as its UTF-8 length followed by its bytes.
+     *
+     * @param out the output to write to
+     * @param value the string, may be {@code null}
+     * @throws IOException if writing fails
+     */
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString}.
+     *
+     * @param in the input to read from
+     * @return the string, may be {@code null}
+     * @throws IOException if reading fails
+     */
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (in instanceof ChannelInput channel) {
+            return channel.readUtf8(length); // Decoded in the buffer of the input
+        }
+        byte[] utf8 = new byte[length];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,416 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.ObservableListBase;
+
+/**
+ * Read-only observable list of tasks or clients of a {@link User} that follows the changes
+ * of the user as they happen.
+ *
+ * <p>Lists are obtained from the user, for example {@link User#getLiveTasks()} or
+ * {@link User#getLiveTasksByStatus(TaskStatus)}. A list keeps its items sorted and contains
+ * the items of the user accepted by its filter: an added item is inserted at its position,
+ * a removed item is removed, and a changed item is moved, inserted or removed when its
+ * position or membership changes. Only these additions and removals are reported to list
+ * listeners, so a table showing the list never rebuilds its rows for a change of a field.</p>
+ *
+ * <p>Changes of fields are reported per value: {@link #valueOf(Object, Function)} returns an
+ * observable value of one field of one item, meant to be returned by the cell value factory
+ * of a table column. It is invalidated only when that field of that item changes, so only
+ * the affected cells are drawn again. The values are watched only while they have listeners,
+ * so cells scrolled out of view cost nothing.</p>
+ *
+ * <p>The list holds only the IDs of its items and looks an item up in the user whenever it
+ * is asked for it. With the columnar {@link TaskStorage#COLUMNS} storage a list of a million
+ * tasks therefore takes four megabytes, and only the tasks of the visible rows are built.
+ * The same task may be returned as different but equal objects, so items are told apart
+ * by their ID.</p>
+ *
+ * <p>Filtered lists should be {@link #dispose() disposed} when they are no longer shown.</p>
+ *
+ * @param <T> the type of the items, {@link Task} or {@link Client}
+ * @author Błażej Sztefka
+ * @version 1.1
+ */
+public final class LiveList<T> extends ObservableListBase<T> implements RandomAccess {
+
+    private final ToIntFunction<? super T> idOf;
+    private final IntFunction<? extends T> lookup;
+    // Order of the items, or null if they are ordered by ID
+    private final Comparator<? super T> order;
+    private final Predicate<? super T> filter;
+    // IDs of the items of the list, or null if the list holds every item of the user
+    private final BitSet members;
+    // IDs of the items in list order
+    private int[] ids;
+    private int size;
+    // Values of fields of items currently observed by cells, by item ID
+    private final Map<Integer, List<LiveValue<?>>> watched = new HashMap<>();
+    private Runnable disposer;
+
+    /**
+     * Creates a list of the items with the given IDs. The user registers the list as its listener.
+     *
+     * @param initial the IDs of the items accepted by the filter, sorted by {@code order}
+     * @param filter the test deciding which items belong to the list,
+     *        or {@code null} if every item of the user belongs to it
+     * @param order the order of the items, or {@code null} to order them by ID
+     * @param idOf the ID of an item
+     * @param lookup the current item with an ID, or {@code null} if the user has none
+     */
+    LiveList(int[] initial, Predicate<? super T> filter, Comparator<? super T> order,
+            ToIntFunction<? super T> idOf, IntFunction<? extends T> lookup) {
+        this.ids = initial;
+        this.size = initial.length;
+        this.order = order;
+        this.filter = filter;
+        this.idOf = idOf;
+        this.lookup = lookup;
+        if (order == null) {
+            Arrays.sort(ids);
+        }
+        if (filter == null) {
+            this.members = null;
+        } else {
+            this.members = new BitSet();
+            for (int id : initial) {
+                members.set(id);
+            }
+        }
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        return lookup.apply(ids[index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns an observable value of one field of an item. The value is invalidated
+     * whenever the user reports a change of the item that changes the field.
+     *
+     * @param <V> the type of the field
+     * @param item the item
+     * @param field the getter of the field
+     * @return the observable value of the field
+     */
+    public <V> ObservableValue<V> valueOf(T item, Function<? super T, ? extends V> field) {
+        return new LiveValue<>(item, field);
+    }
+
+    /**
+     * Invalidates the observed values of an item even though the item did not change,
+     * for example to show its current values again after an edit of a cell was rejected.
+     *
+     * @param item the item whose values are shown again
+     */
+    public void refresh(T item) {
+        notifyValues(idOf.applyAsInt(item), true);
+    }
+
+    /**
+     * Stops following the changes of the user. Has no effect on the lists shared by
+     * the user, such as {@link User#getLiveTasks()}.
+     */
+    public void dispose() {
+        if (disposer != null) {
+            disposer.run();
+            disposer = null;
+        }
+    }
+
+    /**
+     * Sets the action unregistering this list from the user, run by {@link #dispose()}.
+     */
+    void setDisposer(Runnable disposer) {
+        this.disposer = disposer;
+    }
+
+    /**
+     * Inserts an item added to the user, if the filter accepts it.
+     */
+    void added(T item) {
+        int id = idOf.applyAsInt(item);
+        if (filter != null) {
+            if (!filter.test(item) || members.get(id)) {
+                return;
+            }
+            members.set(id);
+        }
+        int index = insertionPoint(item);
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(16, size + (size >> 1)));
+        }
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = id;
+        size++;
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    /**
+     * Removes an item removed from the user.
+     */
+    void removed(T item) {
+        int id = idOf.applyAsInt(item);
+        if (members != null) {
+            if (!members.get(id)) {
+                return;
+            }
+            members.clear(id);
+        }
+        int index = locate(id, item);
+        if (index >= 0) {
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            beginChange();
+            nextRemove(index, item);
+            endChange();
+        }
+    }
+
+    /**
+     * Removes the given items, for example the tasks removed together with their client,
+     * reporting a single change. Items that are not in the list are ignored.
+     */
+    void removedAll(Collection<? extends T> removed) {
+        Map<Integer, T> byId = new HashMap<>();
+        for (T item : removed) {
+            byId.put(idOf.applyAsInt(item), item);
+        }
+        int kept = 0;
+        boolean changing = false;
+        for (int i = 0; i < size; i++) {
+            T item = byId.get(ids[i]);
+            if (item != null) {
+                if (!changing) {
+                    beginChange();
+                    changing = true;
+                }
+                nextRemove(kept, item);
+                if (members != null) {
+                    members.clear(ids[i]);
+                }
+            } else {
+                ids[kept++] = ids[i];
+            }
+        }
+        if (changing) {
+            size = kept;
+            endChange();
+        }
+    }
+
+    /**
+     * Brings the list up to date with a changed item: the item is inserted or removed
+     * if the filter now decides otherwise, moved if its position changed, and its
+     * observed values are notified.
+     */
+    void updated(T item) {
+        int id = idOf.applyAsInt(item);
+        boolean member = members == null || members.get(id);
+        boolean accepted = filter == null || filter.test(item);
+        if (member && !accepted) {
+            removed(item);
+        } else if (!member && accepted) {
+            added(item);
+        } else if (member && order != null) {
+            int index = locate(id, item);
+            if (index >= 0 && !inPlace(index, item)) {
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                size--;
+                int target = insertionPoint(item);
+                System.arraycopy(ids, target, ids, target + 1, size - target);
+                ids[target] = id;
+                size++;
+                beginChange();
+                nextRemove(index, item);
+                nextAdd(target, target + 1);
+                endChange();
+            }
+        }
+        notifyValues(id, false);
+    }
+
+    /**
+     * Compares an item with the item at an index of the list.
+     */
+    private int compare(T item, int index) {
+        if (order == null) {
+            return Integer.compare(idOf.applyAsInt(item), ids[index]);
+        }
+        return order.compare(item, lookup.apply(ids[index]));
+    }
+
+    /**
+     * Finds the index of the item with an ID.
+     */
+    private int locate(int id, T item) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (ids[middle] == id) {
+                return middle;
+            }
+            int comparison = compare(item, middle);
+            if (comparison < 0) {
+                high = middle - 1;
+            } else {
+                low = middle + 1;
+            }
+        }
+        // The sort key of the item changed since it was placed: look it up by ID
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index at which an item not in the list has to be inserted.
+     */
+    private int insertionPoint(T item) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(item, middle) < 0) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Tells whether the item at an index is still ordered with respect to its neighbours.
+     */
+    private boolean inPlace(int index, T item) {
+        return (index == 0 || compare(item, index - 1) >= 0)
+                && (index == size - 1 || compare(item, index + 1) <= 0);
+    }
+
+    private void notifyValues(int id, boolean always) {
+        List<LiveValue<?>> values = watched.get(id);
+        if (values != null) {
+            for (LiveValue<?> value : List.copyOf(values)) {
+                value.itemChanged(always);
+            }
+        }
+    }
+
+    /**
+     * Observable value of one field of one item, registered with the list while it has listeners.
+     */
+    private final class LiveValue<V> implements ObservableValue<V> {
+
+        private final int id;
+        private final Function<? super T, ? extends V> field;
+        private final List<InvalidationListener> invalidationListeners = new ArrayList<>(1);
+        private final List<ChangeListener<? super V>> changeListeners = new ArrayList<>(0);
+        private V value;
+
+        LiveValue(T item, Function<? super T, ? extends V> field) {
+            this.id = idOf.applyAsInt(item);
+            this.field = field;
+            this.value = field.apply(item);
+        }
+
+        @Override
+        public V getValue() {
+            T item = lookup.apply(id);
+            if (item != null) {
+                value = field.apply(item); // A removed item keeps showing its last value
+            }
+            return value;
+        }
+
+        /**
+         * Notifies the listeners if the field changed, or always if requested.
+         */
+        void itemChanged(boolean always) {
+            T item = lookup.apply(id);
+            if (item == null) {
+                return;
+            }
+            V old = value;
+            V current = field.apply(item);
+            if (!always && Objects.equals(old, current)) {
+                return;
+            }
+            value = current;
+            for (InvalidationListener listener : List.copyOf(invalidationListeners)) {
+                listener.invalidated(this);
+            }
+            for (ChangeListener<? super V> listener : List.copyOf(changeListeners)) {
+                listener.changed(this, old, current);
+            }
+        }
+
+        @Override
+        public void addListener(InvalidationListener listener) {
+            watch();
+            invalidationListeners.add(listener);
+        }
+
+        @Override
+        public void removeListener(InvalidationListener listener) {
+            invalidationListeners.remove(listener);
+            unwatchIfUnused();
+        }
+
+        @Override
+        public void addListener(ChangeListener<? super V> listener) {
+            watch();
+            changeListeners.add(listener);
+        }
+
+        @Override
+        public void removeListener(ChangeListener<? super V> listener) {
+            changeListeners.remove(listener);
+            unwatchIfUnused();
+        }
+
+        private void watch() {
+            if (invalidationListeners.isEmpty() && changeListeners.isEmpty()) {
+                getValue();
+                watched.computeIfAbsent(id, key -> new ArrayList<>(2)).add(this);
+            }
+        }
+
+        private void unwatchIfUnused() {
+            if (invalidationListeners.isEmpty() && changeListeners.isEmpty()) {
+                List<LiveValue<?>> values = watched.get(id);
+                if (values != null && values.remove(this) && values.isEmpty()) {
+                    watched.remove(id);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Client store keeping the {@link Client} objects themselves, by ID in insertion order.
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+final class ObjectClientStore implements ClientStore {
+
+    private final Map<Integer, Client> clients = new LinkedHashMap<>();
+
+    @Override
+    public int size() {
+        return clients.size();
+    }
+
+    @Override
+    public boolean contains(int clientId) {
+        return clients.containsKey(clientId);
+    }
+
+    @Override
+    public Client get(int clientId) {
+        return clients.get(clientId);
+    }
+
+    @Override
+    public void add(Client client) {
+        clients.put(client.getClientId(), client);
+    }
+
+    @Override
+    public Client remove(int clientId) {
+        return clients.remove(clientId);
+    }
+
+    @Override
+    public void beforeUpdate(Client client) {
+    }
+
+    @Override
+    public void afterUpdate(Client client) {
+    }
+
+    @Override
+    public int[] ids() {
+        int[] ids = new int[clients.size()];
+        int i = 0;
+        for (int id : clients.keySet()) {
+            ids[i++] = id;
+        }
+        return ids;
+    }
+
+    @Override
+    public List<Client> list() {
+        return new ArrayList<>(clients.values());
+    }
+}
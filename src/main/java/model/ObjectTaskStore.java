@@ -0,0 +1,169 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Task store keeping the {@link Task} objects themselves, with hash and tree indexes for
+ * the lookups by client, status and due date. Every lookup only visits the tasks it returns.
+ *
+ * @author Błażej Sztefka
+ * @version 1.1
+ */
+final class ObjectTaskStore implements TaskStore {
+
+    // Tasks by task ID in insertion order
+    private Map<Integer, Task> tasks = new LinkedHashMap<>();
+
+    // Tasks of each client, by client ID and then by task ID
+    private final Map<Integer, Map<Integer, Task>> tasksByClient = new HashMap<>();
+
+    // Tasks grouped by status, by task ID; updated whenever a date change moves a task
+    private final Map<TaskStatus, Map<Integer, Task>> tasksByStatus = new EnumMap<>(TaskStatus.class);
+
+    // Tasks sorted by due date-time in epoch minutes, then by task ID
+    private final NavigableMap<Long, Map<Integer, Task>> tasksByDue = new TreeMap<>();
+
+    ObjectTaskStore() {
+        for (TaskStatus status : TaskStatus.values()) {
+            tasksByStatus.put(status, new LinkedHashMap<>());
+        }
+    }
+
+    @Override
+    public int size() {
+        return tasks.size();
+    }
+
+    @Override
+    public boolean contains(int taskId) {
+        return tasks.containsKey(taskId);
+    }
+
+    @Override
+    public Task get(int taskId) {
+        return tasks.get(taskId);
+    }
+
+    @Override
+    public void add(Task task) {
+        Integer taskId = task.getTaskId(); // Boxed once for all the maps keyed by it
+        tasks.put(taskId, task);
+        index(task, taskId);
+    }
+
+    @Override
+    public Task remove(int taskId) {
+        Task removed = tasks.remove(taskId);
+        if (removed != null) {
+            unindex(removed);
+        }
+        return removed;
+    }
+
+    @Override
+    public List<Task> removeClientTasks(int clientId) {
+        Map<Integer, Task> clientTasks = tasksByClient.remove(clientId);
+        if (clientTasks == null) {
+            return new ArrayList<>();
+        }
+        List<Task> removed = new ArrayList<>(clientTasks.values());
+        for (Task task : removed) {
+            tasks.remove(task.getTaskId());
+            unindex(task);
+        }
+        return removed;
+    }
+
+    @Override
+    public void ensureCapacity(int count) {
+        if (tasks.isEmpty()) {
+            tasks = new LinkedHashMap<>((int) (count / 0.75f) + 1); // Only the map of all tasks is sized by count
+        }
+    }
+
+    @Override
+    public void beforeUpdate(Task task) {
+        unindex(task);
+    }
+
+    @Override
+    public void afterUpdate(Task task) {
+        index(task, task.getTaskId());
+    }
+
+    @Override
+    public int[] ids() {
+        int[] ids = new int[tasks.size()];
+        int i = 0;
+        for (int id : tasks.keySet()) {
+            ids[i++] = id;
+        }
+        return ids;
+    }
+
+    @Override
+    public List<Task> list() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public List<Task> byClient(int clientId) {
+        Map<Integer, Task> clientTasks = tasksByClient.get(clientId);
+        return clientTasks == null ? new ArrayList<>() : new ArrayList<>(clientTasks.values());
+    }
+
+    @Override
+    public Collection<Task> byStatus(TaskStatus status) {
+        return Collections.unmodifiableCollection(tasksByStatus.get(status).values());
+    }
+
+    @Override
+    public List<Task> between(long fromMinutes, long toMinutes) {
+        List<Task> result = new ArrayList<>();
+        for (Map<Integer, Task> sameTime : tasksByDue.subMap(fromMinutes, true, toMinutes, false).values()) {
+            result.addAll(sameTime.values());
+        }
+        return result;
+    }
+
+    /**
+     * Adds a task to the secondary indexes under its boxed ID.
+     */
+    private void index(Task task, Integer taskId) {
+        tasksByClient.computeIfAbsent(task.getClientId(), id -> new LinkedHashMap<>())
+                .put(taskId, task);
+        tasksByStatus.get(task.getStatus()).put(taskId, task);
+        tasksByDue.computeIfAbsent(task.dueMinutes(), minutes -> new TreeMap<>())
+                .put(taskId, task);
+    }
+
+    /**
+     * Removes a task from the secondary indexes, using its current field values.
+     */
+    private void unindex(Task task) {
+        Map<Integer, Task> clientTasks = tasksByClient.get(task.getClientId());
+        if (clientTasks != null) {
+            clientTasks.remove(task.getTaskId());
+            if (clientTasks.isEmpty()) {
+                tasksByClient.remove(task.getClientId());
+            }
+        }
+        tasksByStatus.get(task.getStatus()).remove(task.getTaskId());
+        Map<Integer, Task> sameTime = tasksByDue.get(task.dueMinutes());
+        if (sameTime != null) {
+            sameTime.remove(task.getTaskId());
+            if (sameTime.isEmpty()) {
+                tasksByDue.remove(task.dueMinutes());
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * The rows of a {@link LiveList} of the occurrences of tasks due in a range, as returned by
+ * {@link User#getLiveTasksBetween(java.time.LocalDate, java.time.LocalDate)}.
+ *
+ * <p>A repeating task may have several occurrences in the range, so the rows are not
+ * identified by task ID but by keys handed out here, each standing for a task ID and the due
+ * date-time of one occurrence. The list only holds the keys; an occurrence is created when
+ * its row is asked for, so a range spanning years takes about twenty bytes per row. A row of a task
+ * that does not repeat shows the task itself. The keys of removed rows are handed out again,
+ * so a list kept open while tasks come and go does not grow.</p>
+ *
+ * <p>As a listener of the user, this translates the changes of tasks into changes of their
+ * rows. A change that keeps the number of occurrences in the range keeps their rows and moves
+ * them, so the cells showing them are only drawn again; otherwise the rows of the task are
+ * replaced.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.1
+ */
+final class OccurrenceRows implements UserListener {
+
+    private static final Comparator<Task> DUE_ORDER =
+            Comparator.comparingLong(Task::dueMinutes).thenComparingInt(Task::getTaskId);
+    private static final int[] NO_ROWS = {};
+
+    private final User user;
+    private final IntFunction<Task> tasks;
+    private final long fromMinutes;
+    private final long toMinutes;
+    private final LiveList<Task> list;
+
+    // Task ID and due date-time of each row key
+    private int[] taskOfRow = new int[16];
+    private long[] dueOfRow = new long[16];
+    private int rows;
+
+    // Keys of removed rows, handed out before new ones
+    private int[] freeRows = new int[16];
+    private int free;
+
+    // Keys of the rows of each task in the list, in due order
+    private final Map<Integer, int[]> rowsOfTask = new HashMap<>();
+
+    /**
+     * Creates the rows of the occurrences of the given tasks due in a range.
+     *
+     * @param user the user whose changes are followed
+     * @param tasks the current task with an ID, or {@code null} if the user has none
+     * @param candidates the tasks that may have occurrences in the range
+     * @param fromMinutes the start of the range in epoch minutes, inclusive
+     * @param toMinutes the end of the range in epoch minutes, exclusive
+     */
+    OccurrenceRows(User user, IntFunction<Task> tasks, Iterable<Task> candidates, long fromMinutes, long toMinutes) {
+        this.user = user;
+        this.tasks = tasks;
+        this.fromMinutes = fromMinutes;
+        this.toMinutes = toMinutes;
+        List<Task> occurrences = new ArrayList<>();
+        for (Task task : candidates) {
+            task.occurrences(fromMinutes, toMinutes).forEachRemaining(occurrences::add);
+        }
+        occurrences.sort(DUE_ORDER);
+        int[] initial = new int[occurrences.size()];
+        Map<Integer, List<Integer>> keys = new HashMap<>();
+        for (int i = 0; i < initial.length; i++) {
+            Task occurrence = occurrences.get(i);
+            initial[i] = newRow(occurrence.getTaskId(), occurrence.dueMinutes());
+            keys.computeIfAbsent(occurrence.getTaskId(), id -> new ArrayList<>(1)).add(initial[i]);
+        }
+        keys.forEach((taskId, rowKeys) -> rowsOfTask.put(taskId,
+                rowKeys.stream().mapToInt(Integer::intValue).toArray()));
+        list = new LiveList<>(initial, task -> task.dueMinutes() >= fromMinutes && task.dueMinutes() < toMinutes,
+                DUE_ORDER, this::rowOf, this::item);
+    }
+
+    /**
+     * Returns the list of the rows.
+     *
+     * @return the live list
+     */
+    LiveList<Task> list() {
+        return list;
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        addRows(task);
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        removeRows(List.of(task));
+    }
+
+    @Override
+    public void clientRemoved(Client client) {
+        removeRows(user.removedClientTasks());
+    }
+
+    @Override
+    public void taskUpdated(Task task) {
+        int[] old = rowsOfTask.getOrDefault(task.getTaskId(), NO_ROWS);
+        List<Long> dues = dues(task);
+        if (old.length != dues.size()) {
+            removeRows(List.of(task));
+            addRows(task);
+            return;
+        }
+        for (int i = 0; i < old.length; i++) {
+            dueOfRow[old[i]] = dues.get(i);
+            list.updated(item(old[i]));
+        }
+    }
+
+    /**
+     * Adds the rows of the occurrences of a task due in the range.
+     */
+    private void addRows(Task task) {
+        List<Long> dues = dues(task);
+        if (dues.isEmpty()) {
+            return;
+        }
+        int[] keys = new int[dues.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = newRow(task.getTaskId(), dues.get(i));
+        }
+        rowsOfTask.put(task.getTaskId(), keys);
+        for (int key : keys) {
+            list.added(item(key));
+        }
+    }
+
+    /**
+     * Removes the rows of tasks in a single change.
+     */
+    private void removeRows(List<Task> removed) {
+        List<Task> items = new ArrayList<>();
+        for (Task task : removed) {
+            for (int key : rowsOfTask.getOrDefault(task.getTaskId(), NO_ROWS)) {
+                items.add(task.occurrence(dueOfRow[key], 0)); // Only its ID and due date-time are used
+            }
+        }
+        if (!items.isEmpty()) {
+            list.removedAll(items);
+        }
+        for (Task task : removed) {
+            for (int key : rowsOfTask.getOrDefault(task.getTaskId(), NO_ROWS)) {
+                releaseRow(key);
+            }
+            rowsOfTask.remove(task.getTaskId());
+        }
+    }
+
+    /**
+     * Returns the due date-times of the occurrences of a task in the range.
+     */
+    private List<Long> dues(Task task) {
+        List<Long> dues = new ArrayList<>();
+        for (Iterator<Task> occurrences = task.occurrences(fromMinutes, toMinutes); occurrences.hasNext(); ) {
+            dues.add(occurrences.next().dueMinutes());
+        }
+        return dues;
+    }
+
+    /**
+     * Hands out the key of a new row, reusing the key of a removed row if there is one.
+     */
+    private int newRow(int taskId, long due) {
+        int key;
+        if (free > 0) {
+            key = freeRows[--free];
+        } else {
+            if (rows == taskOfRow.length) {
+                taskOfRow = Arrays.copyOf(taskOfRow, rows * 2);
+                dueOfRow = Arrays.copyOf(dueOfRow, rows * 2);
+            }
+            key = rows++;
+        }
+        taskOfRow[key] = taskId;
+        dueOfRow[key] = due;
+        return key;
+    }
+
+    /**
+     * Takes back the key of a row removed from the list.
+     */
+    private void releaseRow(int key) {
+        if (free == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, free * 2);
+        }
+        freeRows[free++] = key;
+    }
+
+    /**
+     * Returns the key of the row of an occurrence, or -1 if its task has no rows.
+     */
+    private int rowOf(Task occurrence) {
+        int[] keys = rowsOfTask.get(occurrence.getTaskId());
+        if (keys == null) {
+            return -1;
+        }
+        for (int key : keys) {
+            if (dueOfRow[key] == occurrence.dueMinutes()) {
+                return key;
+            }
+        }
+        return keys[0]; // A task that does not repeat, whose due date-time changed
+    }
+
+    /**
+     * Returns the occurrence shown in a row, or {@code null} if its task was removed.
+     */
+    private Task item(int key) {
+        Task task = tasks.apply(taskOfRow[key]);
+        return task == null ? null : task.occurrenceAt(dueOfRow[key]);
+    }
+}
@@ -0,0 +1,123 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Client store keeping the clients in off-heap {@link OffHeapRecords} and returning views
+ * of them built on demand. A client takes a 40-byte record plus its strings in UTF-8:
+ * <pre>
+ * 0  id            int     16 parent name   string handle
+ * 4  live          byte    24 phone number  string handle
+ * 8  student name  string handle   32 description  string handle
+ * </pre>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+final class OffHeapClientTable implements ClientStore {
+
+    private static final int STUDENT_NAME = OffHeapRecords.FIELDS;
+    private static final int PARENT_NAME = 16;
+    private static final int PHONE_NUMBER = 24;
+    private static final int DESCRIPTION = 32;
+    private static final int WIDTH = 40;
+
+    private final User owner;
+    private final OffHeapRecords records =
+            new OffHeapRecords(WIDTH, STUDENT_NAME, PARENT_NAME, PHONE_NUMBER, DESCRIPTION);
+
+    /**
+     * Creates an empty table whose views are owned by the given user.
+     *
+     * @param owner the user the clients belong to
+     */
+    OffHeapClientTable(User owner) {
+        this.owner = owner;
+    }
+
+    @Override
+    public int size() {
+        return records.size();
+    }
+
+    @Override
+    public boolean contains(int clientId) {
+        return records.rowOf(clientId) >= 0;
+    }
+
+    @Override
+    public Client get(int clientId) {
+        int row = records.rowOf(clientId);
+        return row < 0 ? null : view(row);
+    }
+
+    @Override
+    public void add(Client client) {
+        write(records.add(client.getClientId()), client);
+    }
+
+    @Override
+    public Client remove(int clientId) {
+        int row = records.rowOf(clientId);
+        if (row < 0) {
+            return null;
+        }
+        Client removed = view(row);
+        records.delete(row);
+        records.compactIfSparse();
+        return removed;
+    }
+
+    @Override
+    public void beforeUpdate(Client client) {
+        client.copyFrom(view(records.rowOf(client.getClientId()))); // The view may be out of date
+    }
+
+    @Override
+    public void afterUpdate(Client client) {
+        write(records.rowOf(client.getClientId()), client);
+        records.compactIfSparse();
+    }
+
+    @Override
+    public int[] ids() {
+        int[] result = new int[records.size()];
+        int length = 0;
+        for (int row = 0; row < records.rows(); row++) {
+            if (records.isLive(row)) {
+                result[length++] = records.id(row);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Client> list() {
+        List<Client> result = new ArrayList<>(records.size());
+        for (int row = 0; row < records.rows(); row++) {
+            if (records.isLive(row)) {
+                result.add(view(row));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds a view of a record, owned by the user of this table.
+     */
+    private Client view(int row) {
+        Client client = new Client(records.getString(row, STUDENT_NAME), records.getString(row, PARENT_NAME),
+                records.getString(row, PHONE_NUMBER), records.getString(row, DESCRIPTION));
+        client.setClientId(records.id(row));
+        client.setOwner(owner);
+        return client;
+    }
+
+    private void write(int row, Client client) {
+        records.putString(row, STUDENT_NAME, client.getStudentName());
+        records.putString(row, PARENT_NAME, client.getParentName());
+        records.putString(row, PHONE_NUMBER, client.getPhoneNumber());
+        records.putString(row, DESCRIPTION, client.getDescription());
+    }
+}
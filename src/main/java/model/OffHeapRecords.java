@@ -0,0 +1,253 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Fixed-width records kept in off-heap memory, one per entity, with their strings in a
+ * {@link StringArena}.
+ *
+ * <p>Every record starts with the ID of its entity and a flag telling whether it is live;
+ * the fields of the entity follow from offset {@link #FIELDS}. A string field holds the
+ * arena handle of the string. The only on-heap structure is the array mapping IDs to
+ * record numbers, so the heap taken by the records does not grow with their contents.</p>
+ *
+ * <p>Records are kept in insertion order. A removed record is only marked as deleted;
+ * {@link #compactIfSparse()} moves the live records together once half of them are
+ * deleted. The tables using the records call it after removing, so that removals made
+ * while scanning do not move the records being scanned.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+final class OffHeapRecords {
+
+    /** Offset of the first field of a record. */
+    static final int FIELDS = 8;
+
+    private static final int ID = 0;
+    private static final int LIVE = 4;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int width;
+    private final int[] stringFields;
+
+    private ByteBuffer records;
+    private StringArena strings = new StringArena(0);
+
+    // Record of each ID plus one, or 0 if no entity has the ID
+    private int[] rowOfId = new int[INITIAL_CAPACITY];
+
+    // Number of used records, including deleted ones, and of live records
+    private int rows;
+    private int size;
+
+    /**
+     * Creates an empty set of records.
+     *
+     * @param width the width of a record in bytes, including the first {@link #FIELDS} bytes
+     * @param stringFields the offsets of the string fields
+     */
+    OffHeapRecords(int width, int... stringFields) {
+        this.width = width;
+        this.stringFields = stringFields;
+        this.records = ByteBuffer.allocateDirect(INITIAL_CAPACITY * width);
+    }
+
+    /**
+     * Returns the number of live records.
+     *
+     * @return the record count
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of used records, including deleted ones. Scans visit the
+     * records from 0 to this number and skip those that are not {@link #isLive(int) live}.
+     *
+     * @return the used record count
+     */
+    int rows() {
+        return rows;
+    }
+
+    /**
+     * Tells whether a record holds an entity.
+     *
+     * @param row the record number
+     * @return {@code true} unless the record was deleted
+     */
+    boolean isLive(int row) {
+        return records.get(row * width + LIVE) != 0;
+    }
+
+    /**
+     * Returns the record of an entity.
+     *
+     * @param id the ID of the entity
+     * @return the record number, or -1 if no entity has the ID
+     */
+    int rowOf(int id) {
+        return id >= 0 && id < rowOfId.length ? rowOfId[id] - 1 : -1;
+    }
+
+    /**
+     * Returns the ID of the entity of a record.
+     *
+     * @param row the record number
+     * @return the ID
+     */
+    int id(int row) {
+        return records.getInt(row * width + ID);
+    }
+
+    /**
+     * Appends a live record with all numbers zero and all strings {@code null}.
+     *
+     * @param id the ID of the entity
+     * @return the record number
+     */
+    int add(int id) {
+        if ((long) (rows + 1) * width > records.capacity()) {
+            grow();
+        }
+        int row = rows++;
+        int base = row * width;
+        for (int offset = 0; offset < width; offset += Long.BYTES) {
+            records.putLong(base + offset, 0);
+        }
+        records.putInt(base + ID, id);
+        records.put(base + LIVE, (byte) 1);
+        for (int field : stringFields) {
+            records.putLong(base + field, StringArena.NULL);
+        }
+        if (id >= rowOfId.length) {
+            rowOfId = Arrays.copyOf(rowOfId, Math.max(id + 1, rowOfId.length * 2));
+        }
+        rowOfId[id] = row + 1;
+        size++;
+        return row;
+    }
+
+    /**
+     * Marks a record as deleted and frees its strings.
+     *
+     * @param row the record number
+     */
+    void delete(int row) {
+        int base = row * width;
+        for (int field : stringFields) {
+            strings.free(records.getLong(base + field));
+        }
+        records.put(base + LIVE, (byte) 0);
+        rowOfId[id(row)] = 0;
+        size--;
+    }
+
+    byte getByte(int row, int field) {
+        return records.get(row * width + field);
+    }
+
+    void putByte(int row, int field, byte value) {
+        records.put(row * width + field, value);
+    }
+
+    int getInt(int row, int field) {
+        return records.getInt(row * width + field);
+    }
+
+    void putInt(int row, int field, int value) {
+        records.putInt(row * width + field, value);
+    }
+
+    long getLong(int row, int field) {
+        return records.getLong(row * width + field);
+    }
+
+    void putLong(int row, int field, long value) {
+        records.putLong(row * width + field, value);
+    }
+
+    String getString(int row, int field) {
+        return strings.get(records.getLong(row * width + field));
+    }
+
+    /**
+     * Stores a string field, freeing the previous string unless it is unchanged.
+     */
+    void putString(int row, int field, String value) {
+        int position = row * width + field;
+        long previous = records.getLong(position);
+        if (previous != StringArena.NULL && value != null && value.equals(strings.get(previous))) {
+            return;
+        }
+        strings.free(previous);
+        records.putLong(position, strings.put(value));
+    }
+
+    /**
+     * Moves the live records over the deleted ones once at least half of the records are
+     * deleted, and copies the live strings into a new arena once most of the arena is garbage.
+     */
+    void compactIfSparse() {
+        if (rows >= INITIAL_CAPACITY && size <= rows / 2) {
+            int kept = 0;
+            for (int row = 0; row < rows; row++) {
+                if (!isLive(row)) {
+                    continue;
+                }
+                if (kept != row) {
+                    records.put(kept * width, records, row * width, width);
+                }
+                rowOfId[id(kept)] = kept + 1;
+                kept++;
+            }
+            rows = kept;
+        }
+        if (strings.isSparse()) {
+            StringArena compacted = new StringArena((int) Math.min(Integer.MAX_VALUE, strings.liveBytes() * 3 / 2));
+            for (int row = 0; row < rows; row++) {
+                if (!isLive(row)) {
+                    continue;
+                }
+                for (int field : stringFields) {
+                    int position = row * width + field;
+                    records.putLong(position, compacted.copy(strings, records.getLong(position)));
+                }
+            }
+            strings = compacted;
+        }
+    }
+
+    /**
+     * Makes room for a number of records in total, so that adding them does not grow the
+     * records step by step.
+     *
+     * @param count the number of records about to be held
+     */
+    void ensureCapacity(int count) {
+        long capacity = (long) count * width;
+        if (capacity > records.capacity() && capacity <= Integer.MAX_VALUE) {
+            resize((int) capacity);
+        }
+    }
+
+    private void grow() {
+        long capacity = (long) records.capacity() * 2;
+        if (capacity > Integer.MAX_VALUE) {
+            capacity = (long) (Integer.MAX_VALUE / width) * width;
+            if ((long) (rows + 1) * width > capacity) {
+                throw new IllegalStateException("Off-heap records are full");
+            }
+        }
+        resize((int) capacity);
+    }
+
+    private void resize(int capacity) {
+        ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+        grown.put(0, records, 0, rows * width);
+        records = grown;
+    }
+}
@@ -0,0 +1,237 @@
+package model;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Task store keeping the tasks in off-heap {@link OffHeapRecords}, so that neither the
+ * tasks nor their strings are seen by the garbage collector.
+ *
+ * <p>Like {@link TaskTable}, it returns views of the records built on demand and answers
+ * the lookups by client, status and due date by scanning the records.
+ * A task takes a 40-byte record plus its subject and description in UTF-8:</p>
+ * <pre>
+ * 0  id        int     8  client ID   int     24 subject      string handle
+ * 4  live      byte    12 recurrence  int     32 description  string handle
+ * 5  status    byte    16 due         long
+ * </pre>
+ *
+ * @author Błażej Sztefka
+ * @version 1.1
+ */
+final class OffHeapTaskTable implements TaskStore {
+
+    private static final int STATUS = 5;
+    private static final int CLIENT = OffHeapRecords.FIELDS;
+    private static final int RECURRENCE = 12;
+    private static final int DUE = 16;
+    private static final int SUBJECT = 24;
+    private static final int DESCRIPTION = 32;
+    private static final int WIDTH = 40;
+
+    private static final Comparator<Task> DUE_ORDER =
+            Comparator.comparingLong(Task::dueMinutes).thenComparingInt(Task::getTaskId);
+
+    private final User owner;
+    private final OffHeapRecords records = new OffHeapRecords(WIDTH, SUBJECT, DESCRIPTION);
+    private final int[] statusCounts = new int[TaskStatus.values().length];
+
+    /**
+     * Creates an empty table whose views are owned by the given user.
+     *
+     * @param owner the user the tasks belong to
+     */
+    OffHeapTaskTable(User owner) {
+        this.owner = owner;
+    }
+
+    @Override
+    public int size() {
+        return records.size();
+    }
+
+    @Override
+    public boolean contains(int taskId) {
+        return records.rowOf(taskId) >= 0;
+    }
+
+    @Override
+    public Task get(int taskId) {
+        int row = records.rowOf(taskId);
+        return row < 0 ? null : view(row);
+    }
+
+    @Override
+    public void add(Task task) {
+        int row = records.add(task.getTaskId());
+        statusCounts[0]++; // A new record has status 0 until it is written
+        write(row, task);
+    }
+
+    @Override
+    public Task remove(int taskId) {
+        int row = records.rowOf(taskId);
+        if (row < 0) {
+            return null;
+        }
+        Task removed = view(row);
+        delete(row);
+        records.compactIfSparse();
+        return removed;
+    }
+
+    @Override
+    public List<Task> removeClientTasks(int clientId) {
+        List<Task> removed = new ArrayList<>();
+        for (int row = 0; row < records.rows(); row++) {
+            if (records.getInt(row, CLIENT) == clientId && records.isLive(row)) {
+                removed.add(view(row));
+                delete(row);
+            }
+        }
+        records.compactIfSparse();
+        return removed;
+    }
+
+    @Override
+    public void ensureCapacity(int count) {
+        records.ensureCapacity(count);
+    }
+
+    @Override
+    public void beforeUpdate(Task task) {
+        task.copyFrom(view(records.rowOf(task.getTaskId()))); // The view may be out of date
+    }
+
+    @Override
+    public void afterUpdate(Task task) {
+        write(records.rowOf(task.getTaskId()), task);
+        records.compactIfSparse();
+    }
+
+    @Override
+    public int[] ids() {
+        int[] result = new int[records.size()];
+        int length = 0;
+        for (int row = 0; row < records.rows(); row++) {
+            if (records.isLive(row)) {
+                result[length++] = records.id(row);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> list() {
+        List<Task> result = new ArrayList<>(records.size());
+        for (int row = 0; row < records.rows(); row++) {
+            if (records.isLive(row)) {
+                result.add(view(row));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> byClient(int clientId) {
+        List<Task> result = new ArrayList<>();
+        for (int row = 0; row < records.rows(); row++) {
+            if (records.getInt(row, CLIENT) == clientId && records.isLive(row)) {
+                result.add(view(row));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<Task> byStatus(TaskStatus status) {
+        byte ordinal = (byte) status.ordinal();
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Task> iterator() {
+                return new Iterator<>() {
+                    private int row = next(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return row < records.rows();
+                    }
+
+                    @Override
+                    public Task next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Task task = view(row);
+                        row = next(row + 1);
+                        return task;
+                    }
+
+                    private int next(int from) {
+                        int found = from;
+                        while (found < records.rows()
+                                && (records.getByte(found, STATUS) != ordinal || !records.isLive(found))) {
+                            found++;
+                        }
+                        return found;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return statusCounts[ordinal];
+            }
+        };
+    }
+
+    @Override
+    public List<Task> between(long fromMinutes, long toMinutes) {
+        List<Task> result = new ArrayList<>();
+        for (int row = 0; row < records.rows(); row++) {
+            long due = records.getLong(row, DUE);
+            if (due >= fromMinutes && due < toMinutes && records.isLive(row)) {
+                result.add(view(row));
+            }
+        }
+        result.sort(DUE_ORDER);
+        return result;
+    }
+
+    /**
+     * Builds a view of a record, owned by the user of this table.
+     */
+    private Task view(int row) {
+        Task task = new Task(records.id(row), records.getString(row, SUBJECT),
+                records.getString(row, DESCRIPTION), records.getInt(row, CLIENT),
+                records.getLong(row, DUE), records.getByte(row, STATUS))
+                .withRecurrence(records.getInt(row, RECURRENCE));
+        task.setOwner(owner);
+        return task;
+    }
+
+    /**
+     * Stores the fields of a task in a live record, keeping the status counts in sync.
+     */
+    private void write(int row, Task task) {
+        byte status = (byte) task.getStatus().ordinal();
+        statusCounts[records.getByte(row, STATUS)]--;
+        statusCounts[status]++;
+        records.putByte(row, STATUS, status);
+        records.putInt(row, CLIENT, task.getClientId());
+        records.putLong(row, DUE, task.dueMinutes());
+        records.putInt(row, RECURRENCE, task.recurrence());
+        records.putString(row, SUBJECT, task.getSubject());
+        records.putString(row, DESCRIPTION, task.getDescription());
+    }
+
+    private void delete(int row) {
+        statusCounts[records.getByte(row, STATUS)]--;
+        records.delete(row);
+    }
+}
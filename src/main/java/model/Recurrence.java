@@ -0,0 +1,249 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A rule repeating a {@link Task} every given number of days or weeks, forever, until a
+ * date or a given number of times.
+ *
+ * <p>The first occurrence is the task itself; the following ones are due at the same time
+ * of day, {@link #stepDays()} days apart. A count includes the first occurrence, and the
+ * last occurrence of a rule with an end date is the last one due on or before that date.
+ * Occurrences are not stored: they are computed when they are asked for, see
+ * {@link Task#occurrences(LocalDate, LocalDate)}.</p>
+ *
+ * <p>A rule is written as text the way {@link #toString()} returns it and
+ * {@link #parse(String)} reads it back, for example {@code "weekly"},
+ * {@code "every 2 weeks until 2025-06-30"} or {@code "daily, 10 times"}.</p>
+ *
+ * <p>Tasks keep their rule packed into an {@code int} (see {@link #pack()}), so a rule
+ * takes no object per task and fits the primitive columns of the task stores.</p>
+ *
+ * @param frequency the unit of the interval
+ * @param interval the number of days or weeks between two occurrences
+ * @param until the last day an occurrence may be due on, or {@code null}
+ * @param count the number of occurrences, or 0 if not limited by a count
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+public record Recurrence(Frequency frequency, int interval, LocalDate until, int count) {
+
+    /**
+     * The unit of the interval of a rule.
+     */
+    public enum Frequency {
+        DAILY(1), WEEKLY(7);
+
+        private final int days;
+
+        Frequency(int days) {
+            this.days = days;
+        }
+    }
+
+    /** Largest number of days or weeks between two occurrences. */
+    public static final int MAX_INTERVAL = 255;
+
+    /** Largest number of occurrences of a rule limited by a count. */
+    public static final int MAX_COUNT = (1 << 21) - 1;
+
+    // Packed layout: end kind in bits 0-1, weekly in bit 2, interval in bits 3-10, end in bits 11-31
+    private static final int FOREVER = 1;
+    private static final int UNTIL = 2;
+    private static final int COUNT = 3;
+    private static final int WEEKLY_BIT = 1 << 2;
+    private static final int INTERVAL_SHIFT = 3;
+    private static final int END_SHIFT = 11;
+
+    private static final Pattern TEXT = Pattern.compile(
+            "(daily|weekly|every (\\d+) (days?|weeks?))(?:,? until (\\S+)|,? (\\d+) times?)?");
+
+    /**
+     * Creates a rule.
+     *
+     * @throws IllegalArgumentException if the frequency is missing, the interval is not between
+     *         1 and {@value #MAX_INTERVAL}, the count is negative or above {@value #MAX_COUNT},
+     *         both an end date and a count are given, or the end date is before 1970
+     */
+    public Recurrence {
+        if (frequency == null) {
+            throw new IllegalArgumentException("Missing recurrence frequency");
+        }
+        if (interval < 1 || interval > MAX_INTERVAL) {
+            throw new IllegalArgumentException("Recurrence interval must be between 1 and " + MAX_INTERVAL);
+        }
+        if (count < 0 || count > MAX_COUNT) {
+            throw new IllegalArgumentException("Recurrence count must be between 1 and " + MAX_COUNT);
+        }
+        if (until != null && count > 0) {
+            throw new IllegalArgumentException("A recurrence ends either on a date or after a count");
+        }
+        if (until != null && (until.toEpochDay() < 0 || until.toEpochDay() > MAX_COUNT)) {
+            throw new IllegalArgumentException("Recurrence end date out of range: " + until);
+        }
+    }
+
+    /**
+     * Returns a rule repeating every day, forever.
+     *
+     * @return the rule
+     */
+    public static Recurrence daily() {
+        return new Recurrence(Frequency.DAILY, 1, null, 0);
+    }
+
+    /**
+     * Returns a rule repeating every week, forever.
+     *
+     * @return the rule
+     */
+    public static Recurrence weekly() {
+        return everyWeeks(1);
+    }
+
+    /**
+     * Returns a rule repeating every given number of weeks, forever.
+     *
+     * @param weeks the number of weeks between two occurrences
+     * @return the rule
+     */
+    public static Recurrence everyWeeks(int weeks) {
+        return new Recurrence(Frequency.WEEKLY, weeks, null, 0);
+    }
+
+    /**
+     * Returns a copy of this rule ending on a date.
+     *
+     * @param date the last day an occurrence may be due on
+     * @return the rule
+     */
+    public Recurrence until(LocalDate date) {
+        return new Recurrence(frequency, interval, date, 0);
+    }
+
+    /**
+     * Returns a copy of this rule ending after a number of occurrences.
+     *
+     * @param occurrences the number of occurrences, the first one included
+     * @return the rule
+     */
+    public Recurrence times(int occurrences) {
+        if (occurrences < 1) {
+            throw new IllegalArgumentException("Recurrence count must be between 1 and " + MAX_COUNT);
+        }
+        return new Recurrence(frequency, interval, null, occurrences);
+    }
+
+    /**
+     * Returns the number of days between two occurrences.
+     *
+     * @return the step in days
+     */
+    public int stepDays() {
+        return frequency.days * interval;
+    }
+
+    /**
+     * Packs this rule into an {@code int}, which is never 0.
+     *
+     * @return the packed rule
+     */
+    int pack() {
+        int kind = until != null ? UNTIL : count > 0 ? COUNT : FOREVER;
+        int end = until != null ? (int) until.toEpochDay() : count;
+        return kind | (frequency == Frequency.WEEKLY ? WEEKLY_BIT : 0)
+                | interval << INTERVAL_SHIFT | end << END_SHIFT;
+    }
+
+    /**
+     * Unpacks a rule packed by {@link #pack()}.
+     *
+     * @param packed the packed rule, or 0
+     * @return the rule, or {@code null} if {@code packed} is 0
+     */
+    static Recurrence unpack(int packed) {
+        if (packed == 0) {
+            return null;
+        }
+        int kind = packed & 3;
+        int end = packed >>> END_SHIFT;
+        return new Recurrence((packed & WEEKLY_BIT) != 0 ? Frequency.WEEKLY : Frequency.DAILY,
+                packed >>> INTERVAL_SHIFT & MAX_INTERVAL,
+                kind == UNTIL ? LocalDate.ofEpochDay(end) : null, kind == COUNT ? end : 0);
+    }
+
+    /**
+     * Returns the number of days between two occurrences of a packed rule.
+     *
+     * @param packed the packed rule, not 0
+     * @return the step in days
+     */
+    static int stepDays(int packed) {
+        return ((packed & WEEKLY_BIT) != 0 ? 7 : 1) * (packed >>> INTERVAL_SHIFT & MAX_INTERVAL);
+    }
+
+    /**
+     * Returns the index of the last occurrence of a packed rule, the first one being 0.
+     *
+     * @param packed the packed rule, not 0
+     * @param firstDay the due date of the first occurrence in epoch days
+     * @return the last index, {@link Long#MAX_VALUE} if the rule repeats forever
+     */
+    static long lastIndex(int packed, long firstDay) {
+        int end = packed >>> END_SHIFT;
+        return switch (packed & 3) {
+            case UNTIL -> Math.max(0, Math.floorDiv(end - firstDay, stepDays(packed)));
+            case COUNT -> end - 1;
+            default -> Long.MAX_VALUE;
+        };
+    }
+
+    /**
+     * Reads a rule written like {@link #toString()} returns it. Case is ignored.
+     *
+     * @param text the rule, for example {@code "every 2 weeks until 2025-06-30"}
+     * @return the rule
+     * @throws IllegalArgumentException if the text is not a valid rule
+     */
+    public static Recurrence parse(String text) {
+        Matcher matcher = TEXT.matcher(text.strip().toLowerCase(Locale.ROOT));
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid recurrence: " + text);
+        }
+        try {
+            Recurrence rule;
+            if (matcher.group(2) == null) {
+                rule = matcher.group(1).equals("daily") ? daily() : weekly();
+            } else {
+                rule = new Recurrence(matcher.group(3).startsWith("day") ? Frequency.DAILY : Frequency.WEEKLY,
+                        Integer.parseInt(matcher.group(2)), null, 0);
+            }
+            if (matcher.group(4) != null) {
+                return rule.until(LocalDate.parse(matcher.group(4), Task.DATE_FORMATTER));
+            }
+            return matcher.group(5) != null ? rule.times(Integer.parseInt(matcher.group(5))) : rule;
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid recurrence: " + text);
+        }
+    }
+
+    /**
+     * Returns the rule as text, for example {@code "every 2 weeks until 2025-06-30"}.
+     *
+     * @return the rule as read by {@link #parse(String)}
+     */
+    @Override
+    public String toString() {
+        String unit = frequency == Frequency.DAILY ? "day" : "week";
+        String text = interval == 1 ? (frequency == Frequency.DAILY ? "daily" : "weekly")
+                : "every " + interval + " " + unit + "s";
+        if (until != null) {
+            return text + " until " + until.format(Task.DATE_FORMATTER);
+        }
+        return count > 0 ? text + ", " + count + (count == 1 ? " time" : " times") : text;
+    }
+}
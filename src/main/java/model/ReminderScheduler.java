@@ -0,0 +1,279 @@
+package model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Reminds of the tasks of a {@link User} a given time before they are due.
+ *
+ * <p>The reminder of every task due in the future is kept in a {@link TimingWheel} at the
+ * minute it falls due, so that scheduling a task, cancelling its reminder and moving it when
+ * its date or time changes take constant time, and each {@link #tick()} only visits the
+ * reminders falling due since the previous one rather than every task. A task added or moved
+ * to within the lead time of its due time is reminded of on the next tick; a task whose due
+ * time has passed is not.</p>
+ *
+ * <p>A repeating task has a single reminder in the wheel, for its next occurrence. When it
+ * falls due, the occurrence is reminded of and the reminder of the following one is scheduled,
+ * so a task repeating forever takes no more room than one that does not repeat.</p>
+ *
+ * <p>The current time comes from the user's clock (see {@link User#setClock}), which lets tests
+ * move time forward and call {@link #tick()} directly. {@link #start(Executor, Consumer)} runs
+ * the ticks every minute on a background thread and hands the reminders to the executor, in
+ * one batch per tick. A batch that has not been handed over yet when the next one falls due
+ * is merged with it, so the executor, e.g. the JavaFX thread, gets at most one batch at a
+ * time however many reminders fall due together.</p>
+ *
+ * <p>The lead time is given by the {@code taskmanager.reminder.minutes} system property, by
+ * default {@value #DEFAULT_LEAD_MINUTES} minutes. The scheduler's state is guarded by the write
+ * lock of the user, which also serializes the listener calls.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.1
+ */
+public final class ReminderScheduler {
+
+    /** Minutes before its due time a task is reminded of when no other lead time is set. */
+    public static final int DEFAULT_LEAD_MINUTES = 15;
+
+    private final User user;
+    private final long leadMinutes;
+    private final TimingWheel wheel;
+    private final Recorder recorder = new Recorder();
+    // Due time of the occurrence each repeating task is reminded of
+    private final Map<Integer, Long> occurrenceDues = new HashMap<>();
+    // Due time and recurrence of the task about to be changed, compared with them after the change
+    private long dueBefore;
+    private int recurrenceBefore;
+
+    // Reminders not handed to the executor yet, guarded by the list itself
+    private final List<Task> undelivered = new ArrayList<>();
+    private ScheduledExecutorService timer;
+
+    /**
+     * Creates a scheduler for the tasks of a user and registers it as a listener of the user,
+     * so that added, moved and removed tasks are followed.
+     *
+     * @param user the user whose tasks are reminded of
+     * @param lead the time before its due time a task is reminded of
+     */
+    public ReminderScheduler(User user, Duration lead) {
+        this.user = user;
+        this.leadMinutes = lead.toMinutes();
+        boolean locked = user.lockForWriting();
+        try {
+            wheel = new TimingWheel(currentMinute());
+            for (Task task : user.getTaskList()) {
+                schedule(task);
+            }
+            user.addListener(recorder);
+            user.addRecorder(recorder);
+        } finally {
+            user.unlockForWriting(locked);
+        }
+    }
+
+    /**
+     * Returns the lead time selected by the {@code taskmanager.reminder.minutes} system property.
+     *
+     * @return the lead time, {@value #DEFAULT_LEAD_MINUTES} minutes if the property is not set
+     */
+    public static Duration configuredLead() {
+        return Duration.ofMinutes(Integer.getInteger("taskmanager.reminder.minutes", DEFAULT_LEAD_MINUTES));
+    }
+
+    /**
+     * Returns the tasks whose reminder fell due since the previous tick according to the
+     * user's clock, ordered by due time.
+     *
+     * @return the tasks to remind of, empty if there are none
+     */
+    public List<Task> tick() {
+        boolean locked = user.lockForWriting();
+        try {
+            List<Task> due = new ArrayList<>();
+            List<Integer> ids = new ArrayList<>();
+            wheel.advance(currentMinute(), ids::add);
+            for (int taskId : ids) {
+                Long occurrenceDue = occurrenceDues.remove(taskId);
+                Task task;
+                try {
+                    task = user.getTaskById(taskId);
+                } catch (ValidationException e) {
+                    continue; // Removed together with its client
+                }
+                if (occurrenceDue == null) {
+                    due.add(task);
+                } else {
+                    due.add(task.occurrenceAt(occurrenceDue));
+                    schedule(task, task.nextDueMinutes(Math.max(occurrenceDue, wheel.now())));
+                }
+            }
+            due.sort(Comparator.comparingLong(Task::dueMinutes).thenComparingInt(Task::getTaskId));
+            return due;
+        } finally {
+            user.unlockForWriting(locked);
+        }
+    }
+
+    /**
+     * Runs {@link #tick()} at the start of every minute, and once immediately, and hands the
+     * tasks to remind of to the given consumer on the given executor.
+     *
+     * @param executor the executor running the consumer, e.g. {@code Platform::runLater}
+     * @param reminders receives the tasks to remind of, never an empty list
+     */
+    public synchronized void start(Executor executor, Consumer<List<Task>> reminders) {
+        if (timer != null) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reminder-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long untilNextMinute = 60_000 - user.getClock().millis() % 60_000;
+        timer.execute(() -> deliver(tick(), executor, reminders));
+        timer.scheduleAtFixedRate(() -> deliver(tick(), executor, reminders),
+                untilNextMinute, 60_000, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the ticks started by {@link #start(Executor, Consumer)}.
+     */
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+    }
+
+    /**
+     * Returns the number of reminders scheduled.
+     *
+     * @return the count
+     */
+    int pending() {
+        boolean locked = user.lockForWriting();
+        try {
+            return wheel.size();
+        } finally {
+            user.unlockForWriting(locked);
+        }
+    }
+
+    /**
+     * Hands reminders to the executor, merging them with those not handed over yet.
+     */
+    private void deliver(List<Task> due, Executor executor, Consumer<List<Task>> reminders) {
+        if (due.isEmpty()) {
+            return;
+        }
+        synchronized (undelivered) {
+            boolean queued = !undelivered.isEmpty();
+            undelivered.addAll(due);
+            if (queued) {
+                return; // Delivered with the batch already waiting for the executor
+            }
+        }
+        executor.execute(() -> {
+            List<Task> batch;
+            synchronized (undelivered) {
+                batch = List.copyOf(undelivered);
+                undelivered.clear();
+            }
+            reminders.accept(batch);
+        });
+    }
+
+    /**
+     * Schedules the reminder of a task, or of its next occurrence, if it is still to come.
+     */
+    private void schedule(Task task) {
+        schedule(task, task.nextDueMinutes(wheel.now()));
+    }
+
+    /**
+     * Schedules the reminder of a task or of its occurrence due at a time.
+     */
+    private void schedule(Task task, long due) {
+        if (due != Task.NO_OCCURRENCE) {
+            wheel.schedule(task.getTaskId(), due - leadMinutes);
+        } else {
+            wheel.cancel(task.getTaskId());
+        }
+        if (task.isRecurring() && due != Task.NO_OCCURRENCE) {
+            occurrenceDues.put(task.getTaskId(), due);
+        } else {
+            occurrenceDues.remove(task.getTaskId());
+        }
+    }
+
+    /**
+     * Cancels the reminder of a task.
+     */
+    private void cancel(Task task) {
+        wheel.cancel(task.getTaskId());
+        occurrenceDues.remove(task.getTaskId());
+    }
+
+    /**
+     * Returns the current minute of the user's clock, counted like the due times of tasks.
+     */
+    private long currentMinute() {
+        LocalDateTime now = LocalDateTime.now(user.getClock());
+        return now.toLocalDate().toEpochDay() * Task.MINUTES_PER_DAY + now.getHour() * 60L + now.getMinute();
+    }
+
+    /**
+     * Listener rescheduling the reminders of the tasks added, moved and removed.
+     */
+    private final class Recorder implements UserListener, ChangeRecorder {
+
+        @Override
+        public void taskAdded(Task task) {
+            schedule(task);
+        }
+
+        @Override
+        public void beforeUpdate(Task task) {
+            dueBefore = task.dueMinutes();
+            recurrenceBefore = task.recurrence();
+        }
+
+        @Override
+        public void taskUpdated(Task task) {
+            if (task.dueMinutes() != dueBefore || task.recurrence() != recurrenceBefore) {
+                schedule(task);
+            }
+        }
+
+        @Override
+        public void taskRemoved(Task task) {
+            cancel(task);
+        }
+
+        @Override
+        public void clientRemoved(Client client) {
+            user.removedClientTasks().forEach(ReminderScheduler.this::cancel);
+        }
+
+        @Override
+        public void beforeUpdate(Client client) {
+        }
+
+        @Override
+        public void changeEnded() {
+        }
+    }
+}
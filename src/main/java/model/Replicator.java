@@ -0,0 +1,911 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import metrics.Metrics;
+import metrics.Operation;
+
+/**
+ * Keeps a {@link User} in step with the same user in another running instance, by streaming
+ * the changes made on each side to the other over TCP.
+ *
+ * <p>Both instances start from the same tasks and clients, e.g. copies of the same data, and
+ * are numbered 1 and 2. Each records the changes made to its user as small deltas: a task or
+ * client added, one removed, or one field of one edited. The deltas get increasing sequence
+ * numbers and are sent to the peer in batches of up to {@value #MAX_BATCH}; the peer applies
+ * each batch as one change and acknowledges the sequence number it reached. Deltas are kept
+ * until they are acknowledged, so after a lost connection, or when the peer starts later, the
+ * peer catches up from its last acknowledged position. Deltas it receives again, for instance
+ * after being restarted, are recognized and skipped.</p>
+ *
+ * <p>To keep concurrent changes from conflicting:</p>
+ * <ul>
+ *   <li>instance 1 assigns odd and instance 2 even IDs to new tasks and clients;</li>
+ *   <li>each field edit carries a timestamp from a hybrid logical clock, and when both sides
+ *       edit the same field, the later edit wins on both, instance 2 breaking ties;</li>
+ *   <li>changes of tasks and clients that the peer removed meanwhile are dropped, and so are
+ *       tasks added to a client the peer removed meanwhile, as if removed with the client;
+ *       a task moved to such a client is removed. The last {@value #MAX_REMOVED_CLIENTS}
+ *       removed clients are remembered for this.</li>
+ * </ul>
+ *
+ * <p>The timestamp of the last edit of each field is kept only until a later change of the
+ * peer arrives, after which no change of the peer can lose to it.</p>
+ *
+ * <p>Each instance listens on its own port for the peer's changes and connects to the peer's
+ * port to send its own, retrying every {@value #RETRY_MILLIS} ms while the peer is away. Changes
+ * received are made on the writing executor given, {@code Platform::runLater} for a user
+ * shown by the GUI, so they appear in the open views, are saved and can be undone like local
+ * changes. At most {@value #MAX_BACKLOG} unacknowledged deltas are kept; older ones are
+ * dropped, and a peer that falls further behind has to be given a fresh copy of the data.
+ * The connection is not authenticated and is meant for the loopback address or a trusted
+ * network. Batches applied are timed as {@link Operation#REPLICATION_APPLY}.</p>
+ *
+ * <p>Problems the replicator goes on after are reported to the problem handler given: a peer
+ * configured with the same instance number, changes dropped before the peer caught up, a
+ * port that stops accepting connections, and changes of the peer that cannot be applied.
+ * Such a change, for example one naming a field this version does not know, is skipped
+ * rather than refused, since the peer would otherwise send it again forever.</p>
+ *
+ * <pre>
+ * Replicator replicator = Replicator.start(user, 1, new InetSocketAddress(loopback, 7401),
+ *         new InetSocketAddress(loopback, 7402), Platform::runLater, problem -&gt; log(problem));
+ * ...
+ * replicator.close();
+ * </pre>
+ *
+ * @author Błażej Sztefka
+ * @version 1.2
+ */
+public final class Replicator implements Closeable {
+
+    /** Number of instances replicating each other. */
+    public static final int NODES = 2;
+
+    /** Largest number of deltas sent in one batch. */
+    public static final int MAX_BATCH = 1024;
+
+    /** Largest number of deltas kept until the peer acknowledges them. */
+    public static final int MAX_BACKLOG = 1_000_000;
+
+    /** Time between attempts to connect to the peer, in milliseconds. */
+    public static final int RETRY_MILLIS = 1000;
+
+    /** Largest number of removed clients remembered, so that late tasks of theirs are dropped. */
+    static final int MAX_REMOVED_CLIENTS = 10_000;
+
+    // Size of the field timestamps below which they are not pruned
+    private static final int MIN_PRUNED_VERSIONS = 1024;
+
+    /** Time after which an empty batch is sent to check the connection, in milliseconds. */
+    static final int HEARTBEAT_MILLIS = 1000;
+
+    private static final int MAGIC = 0x544D5250; // "TMRP"
+    private static final int VERSION = 2;
+    private static final int MAX_DELTA_SIZE = 16 * 1024 * 1024;
+
+    private static final byte ADD_TASK = 1;
+    private static final byte ADD_CLIENT = 2;
+    private static final byte REMOVE_TASK = 3;
+    private static final byte REMOVE_CLIENT = 4;
+    private static final byte TASK_FIELD = 5;
+    private static final byte CLIENT_FIELD = 6;
+
+    private final User user;
+    private final int node;
+    private final InetSocketAddress peer;
+    private final Executor writer;
+    private final Consumer<String> problems;
+    private final ServerSocket server;
+    private final Recorder recorder = new Recorder();
+    // Identifies this run, so that a restarted instance is not taken for the same sender
+    private final long run = ThreadLocalRandom.current().nextLong();
+    private volatile boolean closed;
+
+    // Guarded by the write lock of the user
+    private long clock;
+    private final Map<Long, Long> versions = new HashMap<>();
+    private int pruneVersionsAt = MIN_PRUNED_VERSIONS;
+    private long peerVersion;
+    private final Map<Long, Long> positions = new HashMap<>();
+    private final Set<Integer> removedClients = new LinkedHashSet<>();
+    private final List<byte[]> pending = new ArrayList<>();
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private boolean applying;
+    private Task taskBefore;
+    private Client clientBefore;
+
+    // Deltas to send, guarded by the log itself; the one at index i has sequence number logBase + i
+    private final List<byte[]> log = new ArrayList<>();
+    private long logBase = 1;
+    private long sequence;
+    private long firstRetained = 1;
+    private long acknowledged;
+
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private final List<Thread> threads = new ArrayList<>();
+
+    /**
+     * A batch of deltas to send.
+     *
+     * @param first the sequence number of the first delta
+     * @param deltas the deltas, empty when the connection is only checked
+     */
+    private record Batch(long first, List<byte[]> deltas) {
+    }
+
+    private Replicator(User user, int node, ServerSocket server, InetSocketAddress peer, Executor writer,
+            Consumer<String> problems) {
+        this.user = user;
+        this.node = node;
+        this.server = server;
+        this.peer = peer;
+        this.writer = writer;
+        this.problems = problems;
+    }
+
+    /**
+     * Starts replicating a user with a peer instance. From then on, new IDs of the user are
+     * those of this instance, also after the replicator is closed.
+     *
+     * @param user the user to replicate
+     * @param node the number of this instance, 1 or 2; the peer must have the other one
+     * @param address the address to listen on for the changes of the peer; port 0 picks a free port
+     * @param peer the address the peer listens on
+     * @param writer the executor on which changes received are made, e.g. {@code Platform::runLater},
+     *        or {@code Runnable::run} to make them on the receiving thread
+     * @param problems receives a description of each problem the replicator goes on after;
+     *        called on the replication threads, or on the writer for a change of the peer
+     *        that was skipped, and never under the lock of the user
+     * @return the running replicator
+     * @throws IOException if the address cannot be bound
+     */
+    public static Replicator start(User user, int node, InetSocketAddress address, InetSocketAddress peer,
+            Executor writer, Consumer<String> problems) throws IOException {
+        if (node < 1 || node > NODES) {
+            throw new IllegalArgumentException("Instance number must be 1 or 2: " + node);
+        }
+        Replicator replicator = new Replicator(user, node, new ServerSocket(address.getPort(), 50, address.getAddress()),
+                peer, writer, problems);
+        boolean locked = user.lockForWriting();
+        try {
+            user.partitionIds(NODES, node % NODES);
+            user.addListener(replicator.recorder);
+            user.addRecorder(replicator.recorder);
+        } finally {
+            user.unlockForWriting(locked);
+        }
+        replicator.startThread("replication-accept", replicator::accept);
+        replicator.startThread("replication-send", replicator::send);
+        return replicator;
+    }
+
+    /**
+     * Returns the port this instance listens on for the changes of the peer.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Returns the sequence number of the last delta recorded for the changes made to the user
+     * here; it is also the number of such deltas since the replicator started.
+     *
+     * @return the last sequence number, 0 if nothing changed yet
+     */
+    public long getSequence() {
+        synchronized (log) {
+            return sequence;
+        }
+    }
+
+    /**
+     * Returns the sequence number up to which the peer has applied the deltas of this instance.
+     *
+     * @return the last acknowledged sequence number
+     */
+    public long getAcknowledged() {
+        synchronized (log) {
+            return acknowledged;
+        }
+    }
+
+    /**
+     * Stops replicating: closes the connections and stops recording the changes of the user.
+     * Deltas not acknowledged yet are lost.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        boolean locked = user.lockForWriting();
+        try {
+            user.removeListener(recorder);
+            user.removeRecorder(recorder);
+        } finally {
+            user.unlockForWriting(locked);
+        }
+        closeQuietly(server);
+        sockets.forEach(Replicator::closeQuietly);
+        synchronized (threads) {
+            threads.forEach(Thread::interrupt);
+        }
+        synchronized (log) {
+            log.notifyAll();
+        }
+    }
+
+    // ---- Sending ----
+
+    /**
+     * Connects to the peer and sends it the deltas it has not applied yet, then new deltas
+     * as they are recorded, reconnecting whenever the connection is lost.
+     */
+    private void send() {
+        while (!closed) {
+            try (Socket socket = new Socket()) {
+                sockets.add(socket);
+                socket.connect(peer, RETRY_MILLIS);
+                socket.setTcpNoDelay(true);
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+                DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeInt(node);
+                output.writeLong(run);
+                output.flush();
+                if (input.readInt() != MAGIC) {
+                    throw new IOException("Not a replicating instance: " + peer);
+                }
+                long sent = resume(input.readLong());
+                Thread acknowledgments = startThread("replication-acknowledge", () -> readAcknowledgments(input, socket));
+                try {
+                    Batch batch;
+                    while ((batch = nextBatch(sent)) != null) {
+                        output.writeInt(batch.deltas().size());
+                        long seq = batch.first();
+                        for (byte[] delta : batch.deltas()) {
+                            output.writeLong(seq++);
+                            output.writeInt(delta.length);
+                            output.write(delta);
+                        }
+                        output.flush();
+                        sent = seq - 1;
+                    }
+                } finally {
+                    acknowledgments.interrupt();
+                }
+            } catch (IOException e) {
+                // The peer is not running yet or the connection was lost: try again
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                sockets.removeIf(Socket::isClosed);
+            }
+            try {
+                Thread.sleep(RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Takes the position the peer has reached as acknowledged and returns the sequence
+     * number after which to send.
+     *
+     * @param position the last sequence number the peer applied, 0 if it does not know
+     */
+    private long resume(long position) {
+        synchronized (log) {
+            acknowledge(position);
+            if (position != 0 && position < firstRetained - 1) {
+                problems.accept((firstRetained - 1 - position)
+                        + " changes were dropped before the peer caught up; give it a fresh copy of the data");
+            }
+            // A peer that does not know its position is sent everything kept and skips what it has
+            return Math.max(position, firstRetained - 1);
+        }
+    }
+
+    /**
+     * Waits for deltas after the given sequence number, at most {@value #HEARTBEAT_MILLIS} ms.
+     *
+     * @return the next deltas, an empty batch if none came in time, {@code null} once closed
+     */
+    private Batch nextBatch(long sent) throws InterruptedException {
+        synchronized (log) {
+            long deadline = System.currentTimeMillis() + HEARTBEAT_MILLIS;
+            while (!closed && sequence <= sent) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return new Batch(sent + 1, List.of());
+                }
+                log.wait(remaining);
+            }
+            if (closed) {
+                return null;
+            }
+            long first = Math.max(sent + 1, firstRetained);
+            long last = Math.min(sequence, first + MAX_BATCH - 1);
+            int from = (int) (first - logBase);
+            return new Batch(first, List.copyOf(log.subList(from, from + (int) (last - first) + 1)));
+        }
+    }
+
+    /**
+     * Reads the acknowledgments of the peer until the connection is closed.
+     */
+    private void readAcknowledgments(DataInputStream input, Socket socket) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long position = input.readLong();
+                synchronized (log) {
+                    acknowledge(position);
+                }
+            }
+        } catch (IOException e) {
+            // Closing the socket makes the sender reconnect
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * Drops the deltas up to an acknowledged position. Called with the log locked.
+     */
+    private void acknowledge(long position) {
+        if (position <= acknowledged) {
+            return;
+        }
+        acknowledged = Math.min(position, sequence);
+        firstRetained = Math.max(firstRetained, acknowledged + 1);
+        compact();
+    }
+
+    /**
+     * Appends the deltas of a change to the log, dropping the oldest beyond the backlog limit.
+     */
+    private void append(List<byte[]> deltas) {
+        synchronized (log) {
+            log.addAll(deltas);
+            sequence += deltas.size();
+            if (sequence - firstRetained + 1 > MAX_BACKLOG) {
+                firstRetained = sequence - MAX_BACKLOG + 1;
+                compact();
+            }
+            log.notifyAll();
+        }
+    }
+
+    /**
+     * Removes the deltas no longer retained once they make up half of the log, so that each
+     * delta is moved a bounded number of times.
+     */
+    private void compact() {
+        int dropped = (int) (firstRetained - logBase);
+        if (dropped > 0 && dropped >= log.size() / 2) {
+            log.subList(0, dropped).clear();
+            logBase = firstRetained;
+        }
+    }
+
+    // ---- Receiving ----
+
+    /**
+     * Accepts the connections of the peer until closed.
+     */
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                sockets.add(socket);
+                startThread("replication-receive", () -> receive(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    problems.accept("Cannot accept connections of the peer: " + e.getMessage());
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Receives the batches of one connection of the peer, applies them and acknowledges them.
+     */
+    private void receive(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return;
+            }
+            int peerNode = input.readInt();
+            long peerRun = input.readLong();
+            if (peerNode == node) {
+                problems.accept("The peer is also instance " + node + "; ignoring it");
+                return;
+            }
+            output.writeInt(MAGIC);
+            output.writeLong(position(peerRun));
+            output.flush();
+            while (!closed) {
+                int count = input.readInt();
+                if (count < 0 || count > MAX_BATCH) {
+                    throw new IOException("Invalid batch size: " + count);
+                }
+                if (count == 0) {
+                    continue;
+                }
+                long[] seqs = new long[count];
+                byte[][] deltas = new byte[count][];
+                for (int i = 0; i < count; i++) {
+                    seqs[i] = input.readLong();
+                    int length = input.readInt();
+                    if (length < 1 || length > MAX_DELTA_SIZE) {
+                        throw new IOException("Invalid delta size: " + length);
+                    }
+                    deltas[i] = new byte[length];
+                    input.readFully(deltas[i]);
+                }
+                output.writeLong(applyOnWriter(peerRun, seqs, deltas));
+                output.flush();
+            }
+        } catch (IOException e) {
+            // The connection was lost; the peer reconnects and resumes from its acknowledged position
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sockets.remove(socket);
+        }
+    }
+
+    /**
+     * Returns the last sequence number applied from a run of the peer.
+     */
+    private long position(long peerRun) {
+        boolean locked = user.lockForWriting();
+        try {
+            return positions.getOrDefault(peerRun, 0L);
+        } finally {
+            user.unlockForWriting(locked);
+        }
+    }
+
+    /**
+     * Applies a batch on the writing executor and waits for it.
+     *
+     * @return the last sequence number applied from the run of the peer
+     */
+    private long applyOnWriter(long peerRun, long[] seqs, byte[][] deltas) throws IOException, InterruptedException {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        writer.execute(() -> {
+            try {
+                result.complete(apply(peerRun, seqs, deltas));
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Cannot apply the changes of the peer", e.getCause());
+        }
+    }
+
+    /**
+     * Applies the deltas of a batch not applied yet, as one change of the user.
+     */
+    private long apply(long peerRun, long[] seqs, byte[][] deltas) throws IOException {
+        long start = Metrics.start();
+        List<String> skipped = new ArrayList<>();
+        boolean locked = user.lockForWriting();
+        applying = true;
+        try {
+            long position = positions.getOrDefault(peerRun, 0L);
+            for (int i = 0; i < seqs.length; i++) {
+                if (seqs[i] > position) {
+                    try {
+                        apply(new DataInputStream(new ByteArrayInputStream(deltas[i])));
+                    } catch (IOException e) {
+                        skipped.add("Skipped change " + seqs[i] + " of the peer: " + e.getMessage());
+                    }
+                    position = seqs[i];
+                }
+            }
+            positions.put(peerRun, position);
+            pruneVersions();
+            return position;
+        } finally {
+            applying = false;
+            user.unlockForWriting(locked);
+            Operation.REPLICATION_APPLY.record(start);
+            skipped.forEach(problems); // Reported once the peer's changes no longer hold up the user
+        }
+    }
+
+    /**
+     * Applies one delta of the peer, reading all of it before changing the user. Called with
+     * the write lock held.
+     *
+     * @throws IOException if the delta is malformed or cannot be applied; the user is unchanged
+     */
+    private void apply(DataInputStream in) throws IOException {
+        long version = in.readLong();
+        clock = Math.max(clock, version / NODES);
+        peerVersion = Math.max(peerVersion, version);
+        byte type = in.readByte();
+        try {
+            switch (type) {
+                case ADD_TASK -> {
+                    Task task = Journal.readTask(in);
+                    checkDue(task.dueMinutes());
+                    checkRecurrence(task.recurrence());
+                    if (!hasTask(task.getTaskId()) && !removedClients.contains(task.getClientId())) {
+                        user.restoreTask(task);
+                    }
+                }
+                case ADD_CLIENT -> {
+                    Client client = Journal.readClient(in);
+                    if (!hasClient(client.getClientId())) {
+                        user.restoreClient(client);
+                    }
+                }
+                case REMOVE_TASK -> {
+                    int taskId = in.readInt();
+                    if (hasTask(taskId)) {
+                        user.removeTask(taskId);
+                    }
+                }
+                case REMOVE_CLIENT -> {
+                    int clientId = in.readInt();
+                    if (hasClient(clientId)) {
+                        user.removeClient(clientId);
+                    }
+                }
+                case TASK_FIELD -> applyTaskField(in, version);
+                case CLIENT_FIELD -> applyClientField(in, version);
+                default -> throw new IOException("Unknown replicated change: " + type);
+            }
+        } catch (ValidationException e) {
+            throw new IOException("Cannot apply a replicated change: " + e.getMessage(), e);
+        }
+    }
+
+    private void applyTaskField(DataInputStream in, long version) throws IOException, ValidationException {
+        int taskId = in.readInt();
+        TaskField field = readField(in, TaskField.values());
+        Object value = switch (field) {
+            case SUBJECT, DESCRIPTION -> readString(in);
+            case CLIENT_ID -> in.readInt();
+            case RECURRENCE -> checkRecurrence(in.readInt());
+            case DUE -> checkDue(in.readLong());
+        };
+        if (!hasTask(taskId) || !newer(taskKey(taskId, field), version)) {
+            return; // Removed meanwhile, or edited later here
+        }
+        if (field == TaskField.CLIENT_ID && removedClients.contains((Integer) value)) {
+            user.removeTask(taskId); // Moved to a client removed meanwhile
+            return;
+        }
+        Task task = user.getTaskById(taskId);
+        Task target = field.with(task, value);
+        user.updateTask(task, () -> task.copyFrom(target));
+    }
+
+    private void applyClientField(DataInputStream in, long version) throws IOException, ValidationException {
+        int clientId = in.readInt();
+        ClientField field = readField(in, ClientField.values());
+        String value = readString(in);
+        if (!hasClient(clientId) || !newer(clientKey(clientId, field), version)) {
+            return;
+        }
+        Client client = user.getClientById(clientId);
+        Client target = field.with(client, value);
+        user.updateClient(client, () -> client.copyFrom(target));
+    }
+
+    /**
+     * Reads the ordinal of a field, checking that it names one of the given fields.
+     */
+    private static <F extends Enum<F>> F readField(DataInput in, F[] fields) throws IOException {
+        int ordinal = in.readByte();
+        if (ordinal < 0 || ordinal >= fields.length) {
+            throw new IOException("Unknown field " + ordinal + " of " + fields[0].getDeclaringClass().getSimpleName());
+        }
+        return fields[ordinal];
+    }
+
+    /**
+     * Reads a string of a delta, checking its length against the bytes left in the delta.
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        in.mark(Integer.BYTES);
+        int length = in.readInt();
+        if (length > in.available()) {
+            throw new IOException("Invalid string length: " + length);
+        }
+        in.reset();
+        return Journal.readString(in);
+    }
+
+    /**
+     * Checks that a due date-time in epoch minutes is within the supported dates.
+     */
+    private static long checkDue(long dueMinutes) throws IOException {
+        try {
+            LocalDate.ofEpochDay(Math.floorDiv(dueMinutes, Task.MINUTES_PER_DAY));
+        } catch (DateTimeException e) {
+            throw new IOException("Invalid due date-time: " + dueMinutes, e);
+        }
+        return dueMinutes;
+    }
+
+    /**
+     * Checks that a packed recurrence rule is one that {@link Recurrence#pack()} makes.
+     */
+    private static int checkRecurrence(int recurrence) throws IOException {
+        Recurrence rule;
+        try {
+            rule = Recurrence.unpack(recurrence);
+        } catch (DateTimeException | IllegalArgumentException e) {
+            throw new IOException("Invalid recurrence rule: " + e.getMessage(), e);
+        }
+        if (rule != null && rule.pack() != recurrence) {
+            throw new IOException("Invalid recurrence rule: " + Integer.toHexString(recurrence));
+        }
+        return recurrence;
+    }
+
+    /**
+     * Drops the timestamps of the field edits not later than the last change received from
+     * the peer. The peer sends its changes in the order of their timestamps, so every change
+     * still to come from it is later and would win anyway. Runs once the timestamps have
+     * doubled since the last pruning, so that each is visited a bounded number of times.
+     */
+    private void pruneVersions() {
+        if (versions.size() >= pruneVersionsAt) {
+            versions.values().removeIf(version -> version <= peerVersion);
+            pruneVersionsAt = Math.max(MIN_PRUNED_VERSIONS, versions.size() * 2);
+        }
+    }
+
+    /**
+     * Returns whether an edit of a field is later than the last one applied, and if so
+     * remembers it as the last one.
+     */
+    private boolean newer(long key, long version) {
+        Long last = versions.get(key);
+        if (last != null && last > version) {
+            return false;
+        }
+        versions.put(key, version);
+        return true;
+    }
+
+    private boolean hasTask(int taskId) {
+        try {
+            user.getTaskById(taskId);
+            return true;
+        } catch (ValidationException e) {
+            return false;
+        }
+    }
+
+    private boolean hasClient(int clientId) {
+        try {
+            user.getClientById(clientId);
+            return true;
+        } catch (ValidationException e) {
+            return false;
+        }
+    }
+
+    private static long taskKey(int taskId, TaskField field) {
+        return (long) taskId << 4 | field.ordinal();
+    }
+
+    private static long clientKey(int clientId, ClientField field) {
+        return (long) clientId << 4 | 8 | field.ordinal();
+    }
+
+    // ---- Recording ----
+
+    /**
+     * Returns the timestamp of a change made here: later than every change seen so far and,
+     * clocks permitting, than the current time, with the instance number in its lowest digit.
+     */
+    private long tick() {
+        clock = Math.max(clock + 1, System.currentTimeMillis());
+        return clock * NODES + node - 1;
+    }
+
+    /**
+     * Listener turning the changes made here into deltas, and the deltas of each change into
+     * entries of the log. Changes applied from the peer are not recorded.
+     */
+    private final class Recorder implements UserListener, ChangeRecorder {
+
+        @Override
+        public void beforeUpdate(Task task) {
+            if (!applying) {
+                taskBefore = task.copyFields();
+            }
+        }
+
+        @Override
+        public void beforeUpdate(Client client) {
+            if (!applying) {
+                clientBefore = new Client(client.getStudentName(), client.getParentName(),
+                        client.getPhoneNumber(), client.getDescription());
+                clientBefore.setClientId(client.getClientId());
+            }
+        }
+
+        @Override
+        public void changeEnded() {
+            taskBefore = null;
+            clientBefore = null;
+            if (!pending.isEmpty()) {
+                append(pending);
+                pending.clear();
+            }
+        }
+
+        @Override
+        public void taskAdded(Task task) {
+            if (!applying) {
+                record(ADD_TASK, out -> Journal.writeTask(out, task));
+            }
+        }
+
+        @Override
+        public void clientAdded(Client client) {
+            removedClients.remove(client.getClientId()); // Restored by an undo
+            if (!applying) {
+                record(ADD_CLIENT, out -> Journal.writeClient(out, client));
+            }
+        }
+
+        @Override
+        public void taskRemoved(Task task) {
+            forget(task);
+            if (!applying) {
+                record(REMOVE_TASK, out -> out.writeInt(task.getTaskId()));
+            }
+        }
+
+        @Override
+        public void clientRemoved(Client client) {
+            for (ClientField field : ClientField.values()) {
+                versions.remove(clientKey(client.getClientId(), field));
+            }
+            user.removedClientTasks().forEach(this::forget);
+            removedClients.add(client.getClientId());
+            if (removedClients.size() > MAX_REMOVED_CLIENTS) {
+                Iterator<Integer> eldest = removedClients.iterator();
+                eldest.next();
+                eldest.remove();
+            }
+            if (!applying) {
+                record(REMOVE_CLIENT, out -> out.writeInt(client.getClientId()));
+            }
+        }
+
+        @Override
+        public void taskUpdated(Task task) {
+            Task before = taskBefore;
+            if (applying || before == null || before.getTaskId() != task.getTaskId()) {
+                return;
+            }
+            for (TaskField field : TaskField.values()) {
+                Object value = field.get(task);
+                if (!Objects.equals(value, field.get(before))) {
+                    versions.put(taskKey(task.getTaskId(), field), record(TASK_FIELD, out -> {
+                        out.writeInt(task.getTaskId());
+                        out.writeByte(field.ordinal());
+                        switch (field) {
+                            case SUBJECT, DESCRIPTION -> Journal.writeString(out, (String) value);
+                            case CLIENT_ID, RECURRENCE -> out.writeInt((Integer) value);
+                            case DUE -> out.writeLong((Long) value);
+                        }
+                    }));
+                }
+            }
+        }
+
+        @Override
+        public void clientUpdated(Client client) {
+            Client before = clientBefore;
+            if (applying || before == null || before.getClientId() != client.getClientId()) {
+                return;
+            }
+            for (ClientField field : ClientField.values()) {
+                String value = field.get(client);
+                if (!Objects.equals(value, field.get(before))) {
+                    versions.put(clientKey(client.getClientId(), field), record(CLIENT_FIELD, out -> {
+                        out.writeInt(client.getClientId());
+                        out.writeByte(field.ordinal());
+                        Journal.writeString(out, value);
+                    }));
+                }
+            }
+        }
+
+        private void forget(Task task) {
+            for (TaskField field : TaskField.values()) {
+                versions.remove(taskKey(task.getTaskId(), field));
+            }
+        }
+
+        /**
+         * Adds a delta to the change in progress.
+         *
+         * @return the timestamp of the delta
+         */
+        private long record(byte type, Journal.PayloadWriter payload) {
+            long version = tick();
+            try {
+                bytes.reset();
+                out.writeLong(version);
+                out.writeByte(type);
+                payload.write(out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            pending.add(bytes.toByteArray());
+            return version;
+        }
+    }
+
+    private Thread startThread(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        synchronized (threads) {
+            threads.removeIf(finished -> !finished.isAlive());
+            threads.add(thread);
+        }
+        thread.start();
+        return thread;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+}
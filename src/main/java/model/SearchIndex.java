@@ -0,0 +1,276 @@
+package model;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Incrementally maintained inverted index from words to the IDs of the entities containing them.
+ *
+ * <p>Text is split into words at every character that is not a letter or digit. Words are
+ * lower-cased and folded to ASCII, so "Łódź" is indexed and found as "lodz". Each word maps
+ * to a sorted array of entity IDs. Words are kept in a sorted map, so a query word matches
+ * every indexed word it is a prefix of. The same postings are also kept in a hash map, so
+ * adding and removing an entity looks its words up without walking the sorted map.</p>
+ *
+ * <p>An entity is added with {@link #add(int, String...)} and removed with
+ * {@link #remove(int, String...)} using the same texts it was added with; {@link User}
+ * does this around every change of an indexed field.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.1
+ */
+final class SearchIndex {
+
+    private final NavigableMap<String, Postings> words = new TreeMap<>();
+    private final Map<String, Postings> postingsByWord = new HashMap<>();
+
+    /**
+     * Indexes the words of the given texts under an entity ID.
+     *
+     * @param id the entity ID
+     * @param texts the texts of the entity; {@code null} texts are skipped
+     */
+    void add(int id, String... texts) {
+        for (String text : texts) {
+            for (String word : words(text)) {
+                Postings postings = postingsByWord.get(word);
+                if (postings == null) {
+                    postings = new Postings();
+                    postingsByWord.put(word, postings);
+                    words.put(word, postings);
+                }
+                postings.add(id);
+            }
+        }
+    }
+
+    /**
+     * Removes an entity ID from the words of the given texts.
+     *
+     * @param id the entity ID
+     * @param texts the texts the entity was indexed with
+     */
+    void remove(int id, String... texts) {
+        for (String text : texts) {
+            for (String word : words(text)) {
+                Postings postings = postingsByWord.get(word);
+                if (postings != null) {
+                    postings.remove(id);
+                    if (postings.size == 0) {
+                        postingsByWord.remove(word);
+                        words.remove(word);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the entities that contain, for every word of the query, a word starting with it.
+     *
+     * @param query the words to search for
+     * @return the IDs of the matching entities in increasing order; empty if the query has no words
+     */
+    int[] search(String query) {
+        List<String> queryWords = words(query);
+        if (queryWords.isEmpty()) {
+            return new int[0];
+        }
+        int[] result = null;
+        for (String prefix : queryWords) {
+            int[] matches = prefixMatches(prefix);
+            result = result == null ? matches : intersect(result, matches);
+            if (result.length == 0) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Tells whether texts contain, for every word of the query, a word starting with it,
+     * which is the condition {@link #search(String)} applies to indexed entities.
+     *
+     * @param query the words to search for
+     * @param texts the texts of a single entity; {@code null} texts are skipped
+     * @return {@code true} if the texts match the query; {@code false} if the query has no words
+     */
+    static boolean matches(String query, String... texts) {
+        List<String> queryWords = words(query);
+        if (queryWords.isEmpty()) {
+            return false;
+        }
+        List<String> textWords = new ArrayList<>();
+        for (String text : texts) {
+            textWords.addAll(words(text));
+        }
+        for (String prefix : queryWords) {
+            boolean found = false;
+            for (String word : textWords) {
+                if (word.startsWith(prefix)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the sorted, distinct IDs of all entities having a word starting with the prefix.
+     */
+    private int[] prefixMatches(String prefix) {
+        Map<String, Postings> matching = words.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (matching.size() == 1) {
+            Postings postings = matching.values().iterator().next();
+            return Arrays.copyOf(postings.ids, postings.size);
+        }
+        int total = 0;
+        for (Postings postings : matching.values()) {
+            total += postings.size;
+        }
+        int[] ids = new int[total];
+        int length = 0;
+        for (Postings postings : matching.values()) {
+            System.arraycopy(postings.ids, 0, ids, length, postings.size);
+            length += postings.size;
+        }
+        Arrays.sort(ids);
+        int distinct = 0;
+        for (int i = 0; i < length; i++) {
+            if (distinct == 0 || ids[distinct - 1] != ids[i]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, distinct);
+    }
+
+    /**
+     * Intersects two sorted arrays of distinct IDs.
+     */
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int length = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[length++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    /**
+     * Splits a text into folded, lower-case words.
+     *
+     * @param text the text to split, may be {@code null}
+     * @return the words of the text
+     */
+    static List<String> words(String text) {
+        List<String> result = new ArrayList<>();
+        if (text == null) {
+            return result;
+        }
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                result.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Lower-cases a text and removes diacritics, mapping the Polish letters
+     * ą, ć, ę, ł, ń, ó, ś, ź and ż to their base letters.
+     *
+     * @param text the text to fold
+     * @return the folded text
+     */
+    static String fold(String text) {
+        StringBuilder folded = new StringBuilder(text.length());
+        boolean otherMarks = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            switch (c) {
+                case 'ą' -> c = 'a';
+                case 'ć' -> c = 'c';
+                case 'ę' -> c = 'e';
+                case 'ł' -> c = 'l';
+                case 'ń' -> c = 'n';
+                case 'ó' -> c = 'o';
+                case 'ś' -> c = 's';
+                case 'ź', 'ż' -> c = 'z';
+                default -> otherMarks |= c > 0x7F;
+            }
+            folded.append(c);
+        }
+        if (!otherMarks) {
+            return folded.toString();
+        }
+        return Normalizer.normalize(folded, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+    }
+
+    /**
+     * Sorted array of the IDs of the entities containing a word.
+     */
+    private static final class Postings {
+
+        private int[] ids = new int[2];
+        private int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] < id) {
+                append(id); // IDs are allocated in increasing order, so this is the common case
+                return;
+            }
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        void remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                size--;
+            }
+        }
+
+        private void append(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+}
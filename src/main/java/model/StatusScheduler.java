@@ -0,0 +1,205 @@
+package model;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the {@link TaskStatus} of the tasks of a {@link User} up to date as days pass.
+ *
+ * <p>A task's status only changes on two days: when it comes within a week of its due
+ * date and when it comes within three days of it. The scheduler keeps the next such
+ * boundary of every task in a priority queue ordered by date. Each {@link #tick()}
+ * processes only the tasks whose boundary has been reached, so the work done at
+ * midnight is proportional to the number of tasks changing status.</p>
+ *
+ * <p>A repeating task takes the status of its next occurrence, so it also changes status
+ * on the day after each occurrence is due, when the following occurrence becomes the next
+ * one. Only that one boundary is queued per task, whatever the number of occurrences.</p>
+ *
+ * <p>The current date comes from the user's clock (see {@link User#setClock}), which lets
+ * tests move time forward and call {@link #tick()} directly. {@link #start(Executor)} runs
+ * the ticks automatically shortly after every midnight.</p>
+ *
+ * <p>The scheduler's state is guarded by the write lock of the user, which also serializes
+ * the listener calls, so ticks may run on any thread.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.2
+ */
+public final class StatusScheduler implements UserListener {
+
+    /**
+     * A pending status boundary of a task.
+     *
+     * @param day the epoch day on which the task's status changes
+     * @param taskId the ID of the task
+     * @param dueDay the epoch day of the task's due date when the entry was created
+     * @param recurrence the packed recurrence of the task when the entry was created
+     */
+    private record Boundary(long day, int taskId, long dueDay, int recurrence) {
+    }
+
+    private final User user;
+    private final PriorityQueue<Boundary> queue =
+            new PriorityQueue<>((a, b) -> Long.compare(a.day(), b.day()));
+    // Boundary each task was last scheduled for; other queue entries of the task are stale
+    private final Map<Integer, Boundary> scheduled = new HashMap<>();
+    private ScheduledExecutorService timer;
+
+    /**
+     * Creates a scheduler for the tasks of a user and registers it as a listener of the user,
+     * so that added and rescheduled tasks are tracked.
+     *
+     * @param user the user whose tasks are kept up to date
+     */
+    public StatusScheduler(User user) {
+        this.user = user;
+        boolean locked = user.lockForWriting();
+        try {
+            for (Task task : user.getTaskList()) {
+                schedule(task);
+            }
+            user.addListener(this);
+        } finally {
+            user.unlockForWriting(locked);
+        }
+    }
+
+    /**
+     * Updates the status of every task whose status boundary has been reached
+     * according to the user's clock.
+     *
+     * @return the number of tasks whose status changed
+     */
+    public int tick() {
+        boolean locked = user.lockForWriting();
+        try {
+            long today = user.today().toEpochDay();
+            int changed = 0;
+            while (!queue.isEmpty() && queue.peek().day() <= today) {
+                Boundary boundary = queue.poll();
+                if (!boundary.equals(scheduled.get(boundary.taskId()))) {
+                    continue; // The task was removed or its date or recurrence changed since
+                }
+                Task task;
+                try {
+                    task = user.getTaskById(boundary.taskId());
+                } catch (ValidationException e) {
+                    scheduled.remove(boundary.taskId()); // Removed together with its client
+                    continue;
+                }
+                TaskStatus before = task.getStatus();
+                user.updateTask(task, task::refreshStatus);
+                if (task.getStatus() != before) {
+                    changed++;
+                }
+                schedule(task);
+            }
+            return changed;
+        } finally {
+            user.unlockForWriting(locked);
+        }
+    }
+
+    /**
+     * Runs {@link #tick()} on the given executor shortly after every midnight, and once
+     * immediately. Use {@code Platform::runLater} to update JavaFX-bound tasks.
+     *
+     * @param executor the executor running the ticks
+     */
+    public synchronized void start(Executor executor) {
+        if (timer != null) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "status-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(this::tick);
+        scheduleNextMidnight(executor);
+    }
+
+    /**
+     * Stops the automatic ticks started by {@link #start(Executor)}.
+     */
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+    }
+
+    /**
+     * Returns the number of pending status boundaries, including stale ones.
+     *
+     * @return the queue size
+     */
+    int pending() {
+        return queue.size();
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        schedule(task);
+    }
+
+    @Override
+    public void taskUpdated(Task task) {
+        Boundary boundary = scheduled.get(task.getTaskId());
+        if (boundary == null || boundary.dueDay() != task.dueDay() || boundary.recurrence() != task.recurrence()) {
+            schedule(task);
+        }
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        scheduled.remove(task.getTaskId());
+    }
+
+    /**
+     * Queues the next status boundary of a task, if its status will still change.
+     */
+    private void schedule(Task task) {
+        long today = user.today().toEpochDay();
+        long statusDay = task.statusDay(today);
+        long daysUntilDue = statusDay - today;
+        long day;
+        if (daysUntilDue > Task.DUE_THIS_WEEK_DAYS) {
+            day = statusDay - Task.DUE_THIS_WEEK_DAYS;
+        } else if (daysUntilDue > Task.DUE_SOON_DAYS) {
+            day = statusDay - Task.DUE_SOON_DAYS;
+        } else if (task.statusDay(statusDay + 1) != statusDay) {
+            day = statusDay + 1; // The next occurrence takes over once this one is past
+        } else {
+            scheduled.remove(task.getTaskId()); // Due soon until it is removed
+            return;
+        }
+        Boundary boundary = new Boundary(day, task.getTaskId(), task.dueDay(), task.recurrence());
+        scheduled.put(task.getTaskId(), boundary);
+        queue.add(boundary);
+    }
+
+    /**
+     * Schedules a tick one second after the next midnight of the user's clock.
+     */
+    private synchronized void scheduleNextMidnight(Executor executor) {
+        if (timer == null) {
+            return;
+        }
+        LocalDate tomorrow = LocalDate.now(user.getClock()).plusDays(1);
+        long midnight = tomorrow.atStartOfDay(user.getClock().getZone()).toInstant().toEpochMilli();
+        long delay = midnight - user.getClock().millis() + Duration.ofSeconds(1).toMillis();
+        timer.schedule(() -> {
+            executor.execute(this::tick);
+            scheduleNextMidnight(executor);
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,139 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Off-heap storage of strings, encoded as UTF-8 one after another in a direct buffer.
+ *
+ * <p>A stored string is referred to by a handle holding its offset and length, or
+ * {@link #NULL} for {@code null}. Freed strings leave garbage behind, which is removed by
+ * copying the live strings into a new arena with {@link #copy(StringArena, long)}.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+final class StringArena {
+
+    /** Handle of the {@code null} string. */
+    static final long NULL = -1;
+
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private ByteBuffer bytes;
+    private int end;
+    private long garbage;
+
+    /**
+     * Creates an empty arena.
+     *
+     * @param capacity the initial capacity in bytes
+     */
+    StringArena(int capacity) {
+        this.bytes = ByteBuffer.allocateDirect(Math.max(capacity, INITIAL_CAPACITY));
+    }
+
+    /**
+     * Stores a string.
+     *
+     * @param value the string, may be {@code null}
+     * @return the handle of the stored string
+     */
+    long put(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(encoded.length);
+        bytes.put(end, encoded);
+        long handle = (long) end << 32 | encoded.length;
+        end += encoded.length;
+        return handle;
+    }
+
+    /**
+     * Reads a stored string.
+     *
+     * @param handle the handle returned when the string was stored
+     * @return the string, or {@code null} for {@link #NULL}
+     */
+    String get(long handle) {
+        if (handle == NULL) {
+            return null;
+        }
+        int offset = (int) (handle >>> 32);
+        int length = (int) handle;
+        if (length < 0 || (long) offset + length > end) {
+            // A handle read while its record was changing, see User#getTaskById
+            throw new IndexOutOfBoundsException("Invalid string handle: " + handle);
+        }
+        byte[] encoded = new byte[length];
+        bytes.get(offset, encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Marks a stored string as no longer used.
+     *
+     * @param handle the handle of the string
+     */
+    void free(long handle) {
+        if (handle != NULL) {
+            garbage += (int) handle;
+        }
+    }
+
+    /**
+     * Copies a string of another arena into this one, without decoding it.
+     *
+     * @param source the arena holding the string
+     * @param handle the handle of the string in the source arena
+     * @return the handle of the copy
+     */
+    long copy(StringArena source, long handle) {
+        if (handle == NULL) {
+            return NULL;
+        }
+        int length = (int) handle;
+        ensureCapacity(length);
+        bytes.put(end, source.bytes, (int) (handle >>> 32), length);
+        long copied = (long) end << 32 | length;
+        end += length;
+        return copied;
+    }
+
+    /**
+     * Returns the number of bytes taken by live strings.
+     *
+     * @return the live bytes
+     */
+    long liveBytes() {
+        return end - garbage;
+    }
+
+    /**
+     * Tells whether freed strings take more space than live ones, so copying the live
+     * strings into a new arena would be worthwhile.
+     *
+     * @return {@code true} if the arena should be compacted
+     */
+    boolean isSparse() {
+        return garbage > INITIAL_CAPACITY && garbage > end / 2;
+    }
+
+    private void ensureCapacity(int length) {
+        if ((long) end + length <= bytes.capacity()) {
+            return;
+        }
+        long capacity = Math.max((long) end + length, (long) bytes.capacity() * 2);
+        if (capacity > Integer.MAX_VALUE) {
+            if ((long) end + length > Integer.MAX_VALUE) {
+                throw new IllegalStateException("String arena is full");
+            }
+            capacity = Integer.MAX_VALUE;
+        }
+        ByteBuffer grown = ByteBuffer.allocateDirect((int) capacity);
+        grown.put(0, bytes, 0, end);
+        bytes = grown;
+    }
+}
@@ -4,9 +4,15 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.ToString;
 
 /**
@@ -19,8 +25,19 @@ import lombok.ToString;
  * 
  * <p>Attributes are provided to identify the task by a unique task ID.</p>
  * 
+ * <p>A task is kept compact because a user may hold millions of them: the due date and
+ * time are packed into a single count of minutes since 1970-01-01T00:00 and the status into
+ * a byte. The {@link LocalDate}, {@link LocalTime} and display string views of the due
+ * date-time are created when they are asked for. The due time has a precision of minutes.</p>
+ * 
+ * <p>A task may repeat by a {@link Recurrence} rule. Its date and time are then those of the
+ * first occurrence, and the following occurrences are not stored: {@link #occurrences}
+ * creates them for a window of days as they are iterated, as detached tasks that share the
+ * ID and fields of the repeating task. The status of a repeating task is the status of its
+ * next occurrence, so a weekly lesson stays in the filter of the week it is next due in.</p>
+ * 
  * @author Błażej Sztefka
- * @version 1.1
+ * @version 1.4
  */
 @Data
 @EqualsAndHashCode
@@ -31,14 +48,44 @@ public class Task {
     private String subject;     // Subject of the task
     private String description; // Description of the task
     private int clientId;       // Client associated with the task
-    private LocalDate date;     // Date associated with the task
-    private String dateS;       // String representation of the date
-    private LocalTime time;     // Time associated with the task
-    private String timeS;       // String representation of the time
-    private TaskStatus status;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private long dueMinutes;    // Due date-time in minutes since 1970-01-01T00:00
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private byte status;        // Ordinal of the TaskStatus derived from the date, see calculateStatus()
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private int recurrence;     // Packed Recurrence of the task, or 0 if it does not repeat
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean occurrence; // Whether this is a detached occurrence created by occurrences()
+
+    // User this task belongs to, notified about every setter commit
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.PACKAGE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private User owner;
+
+    // Number of days before the due date at which a task becomes due soon / due this week
+    static final int DUE_SOON_DAYS = 3;
+    static final int DUE_THIS_WEEK_DAYS = 7;
+
+    static final long MINUTES_PER_DAY = 24 * 60;
+
+    // Returned by nextDueMinutes() when no occurrence is left
+    static final long NO_OCCURRENCE = Long.MAX_VALUE;
 
-    DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
-    DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    // Shared by all tasks; DateTimeFormatter is immutable and building one per task dominated loading
+    static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+    static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
 
     /**
      * Constructs a new Task with the specified subject, description, client, 
@@ -54,41 +101,404 @@ public class Task {
      * @param minute     The minute of the task's due time.
      */
     public Task(String subject, String description, int client, int year, int month, int day, int hour, int minute) {
+        this(subject, description, client, LocalDate.of(year, month, day), LocalTime.of(hour, minute, 0));
+    }
+
+    /**
+     * Constructs a task from its stored fields, without calculating its status.
+     * The status is calculated when the task is added to a user.
+     * 
+     * @param taskId      The ID of the task.
+     * @param subject     The subject of the task.
+     * @param description The description of the task.
+     * @param client      The client ID associated with the task.
+     * @param dueMinutes  The due date-time in minutes since 1970-01-01T00:00.
+     */
+    Task(int taskId, String subject, String description, int client, long dueMinutes) {
+        this.taskId = taskId;
         this.subject = subject;
         this.description = description;
         this.clientId = client;
-        this.date = LocalDate.of(year, month, day);
-        this.time = LocalTime.of(hour, minute, 0);
-        this.dateS = date.format(DATE_FORMATTER);
-        this.timeS = time.format(TIME_FORMATTER);
-        this.status = calculateStatus();
+        this.dueMinutes = dueMinutes;
+    }
+
+    /**
+     * Constructs a task from its stored fields, including its status.
+     * Used by task stores to build a view of a stored task.
+     * 
+     * @param taskId      The ID of the task.
+     * @param subject     The subject of the task.
+     * @param description The description of the task.
+     * @param client      The client ID associated with the task.
+     * @param dueMinutes  The due date-time in minutes since 1970-01-01T00:00.
+     * @param status      The ordinal of the status of the task.
+     */
+    Task(int taskId, String subject, String description, int client, long dueMinutes, byte status) {
+        this(taskId, subject, description, client, dueMinutes);
+        this.status = status;
     }
     
     public void setSubject(String newSubject) throws ValidationException {
         if(newSubject == null || newSubject.trim().isEmpty()){
             throw new ValidationException("invalid subject");
         }else{
-            subject = newSubject;
+            update(() -> subject = newSubject);
         }
     }
+
+    /**
+     * Sets the description of the task.
+     * 
+     * @param description The new description of the task.
+     */
+    public void setDescription(String description) {
+        update(() -> this.description = description);
+    }
+
+    /**
+     * Sets the ID of the client associated with the task.
+     * 
+     * @param clientId The ID of the new client.
+     */
+    public void setClientId(int clientId) {
+        update(() -> this.clientId = clientId);
+    }
     
     /**
     * Calculates the task's status based on days until the due date.
+    * The current date is taken from the owning user's clock, or from the
+    * system clock if the task does not belong to a user.
     * 
     * @return the {@link TaskStatus} indicating the task's due status.
     */
     private TaskStatus calculateStatus() {
-        long daysUntilDue = ChronoUnit.DAYS.between(LocalDate.now(), date);
+        long today = today();
+        return calculateStatus(statusDay(today), today);
+    }
+
+    /**
+     * Returns the current date of the owning user, or of the system clock.
+     */
+    private long today() {
+        return (owner != null ? owner.today() : LocalDate.now()).toEpochDay();
+    }
+
+    /**
+    * Calculates the status of a task due on the given date.
+    * 
+    * @param date  the due date of the task
+    * @param today the current date
+    * @return the {@link TaskStatus} indicating the task's due status.
+    */
+    static TaskStatus calculateStatus(LocalDate date, LocalDate today) {
+        return calculateStatus(date.toEpochDay(), today.toEpochDay());
+    }
+
+    /**
+    * Calculates the status of a task due on the given day.
+    * 
+    * @param dueDay the due date of the task in days since 1970-01-01
+    * @param today  the current date in days since 1970-01-01
+    * @return the {@link TaskStatus} indicating the task's due status.
+    */
+    static TaskStatus calculateStatus(long dueDay, long today) {
+        long daysUntilDue = dueDay - today;
 
-        if (daysUntilDue <= 3) {
+        if (daysUntilDue <= DUE_SOON_DAYS) {
             return TaskStatus.DUE_SOON;
-        } else if (daysUntilDue <= 7) {
+        } else if (daysUntilDue <= DUE_THIS_WEEK_DAYS) {
             return TaskStatus.DUE_THIS_WEEK;
         } else {
             return TaskStatus.LONG_TERM;
         }
     }
 
+    /**
+     * Returns the due date and time of the task as minutes since 1970-01-01T00:00.
+     * 
+     * @return the due date-time in epoch minutes
+     */
+    long dueMinutes() {
+        return dueMinutes;
+    }
+
+    /**
+     * Returns the due date of the task as days since 1970-01-01.
+     * 
+     * @return the due date in epoch days
+     */
+    long dueDay() {
+        return Math.floorDiv(dueMinutes, MINUTES_PER_DAY);
+    }
+
+    /**
+     * Returns the due date the status of the task is derived from on a day: the due date of
+     * the first occurrence due on or after that day, or of the last one if all are earlier.
+     * For a task that does not repeat, this is its due date.
+     * 
+     * @param today the day in epoch days
+     * @return the due date of that occurrence in epoch days
+     */
+    long statusDay(long today) {
+        long dueDay = dueDay();
+        if (recurrence == 0 || dueDay >= today) {
+            return dueDay;
+        }
+        int step = Recurrence.stepDays(recurrence);
+        long index = Math.min(-Math.floorDiv(dueDay - today, step), Recurrence.lastIndex(recurrence, dueDay));
+        return dueDay + index * step;
+    }
+
+    /**
+     * Returns the due date-time of the first occurrence due after a minute.
+     * 
+     * @param afterMinutes the minute in epoch minutes, exclusive
+     * @return the due date-time in epoch minutes, or {@link #NO_OCCURRENCE} if none is left
+     */
+    long nextDueMinutes(long afterMinutes) {
+        if (dueMinutes > afterMinutes) {
+            return dueMinutes;
+        }
+        if (recurrence == 0) {
+            return NO_OCCURRENCE;
+        }
+        long step = Recurrence.stepDays(recurrence) * MINUTES_PER_DAY;
+        long index = Math.floorDiv(afterMinutes - dueMinutes, step) + 1;
+        return index <= Recurrence.lastIndex(recurrence, dueDay()) ? dueMinutes + index * step : NO_OCCURRENCE;
+    }
+
+    /**
+     * Returns the status of the task, derived from its due date.
+     * 
+     * @return the status of the task
+     */
+    @ToString.Include(name = "status")
+    public TaskStatus getStatus() {
+        return STATUSES[status];
+    }
+
+    /**
+     * Returns the due date of the task.
+     * 
+     * @return the due date
+     */
+    public LocalDate getDate() {
+        return LocalDate.ofEpochDay(dueDay());
+    }
+
+    /**
+     * Returns the due time of the task.
+     * 
+     * @return the due time, with a precision of minutes
+     */
+    public LocalTime getTime() {
+        return LocalTime.ofSecondOfDay(Math.floorMod(dueMinutes, MINUTES_PER_DAY) * 60);
+    }
+
+    /**
+     * Returns the due date formatted as yyyy-MM-dd.
+     * 
+     * @return the date string
+     */
+    @ToString.Include(name = "dateS")
+    public String getDateS() {
+        return getDate().format(DATE_FORMATTER);
+    }
+
+    /**
+     * Returns the due time formatted as HH:mm.
+     * 
+     * @return the time string
+     */
+    @ToString.Include(name = "timeS")
+    public String getTimeS() {
+        return getTime().format(TIME_FORMATTER);
+    }
+
+    /**
+     * Returns the rule by which the task repeats.
+     * 
+     * @return the rule, or {@code null} if the task does not repeat
+     */
+    @ToString.Include(name = "recurrence")
+    public Recurrence getRecurrence() {
+        return Recurrence.unpack(recurrence);
+    }
+
+    /**
+     * Sets the rule by which the task repeats, and updates its status.
+     * 
+     * @param recurrence the rule, or {@code null} if the task does not repeat
+     */
+    public void setRecurrence(Recurrence recurrence) {
+        int packed = recurrence != null ? recurrence.pack() : 0;
+        update(() -> {
+            this.recurrence = packed;
+            refreshStatus();
+        });
+    }
+
+    /**
+     * Tells whether the task repeats.
+     * 
+     * @return {@code true} if the task has a recurrence rule
+     */
+    public boolean isRecurring() {
+        return recurrence != 0;
+    }
+
+    /**
+     * Tells whether this is an occurrence created by {@link #occurrences} rather than a task
+     * of a user. Occurrences do not belong to the user: changes have to be made to the
+     * repeating task, which has the same ID.
+     * 
+     * @return {@code true} for an occurrence of a repeating task
+     */
+    public boolean isOccurrence() {
+        return occurrence;
+    }
+
+    /**
+     * Returns the packed recurrence rule of the task.
+     * 
+     * @return the packed rule, 0 if the task does not repeat
+     */
+    int recurrence() {
+        return recurrence;
+    }
+
+    /**
+     * Sets the packed recurrence rule without updating the status. Used when tasks are built
+     * from stored fields.
+     * 
+     * @param recurrence the packed rule, 0 if the task does not repeat
+     * @return this task
+     */
+    Task withRecurrence(int recurrence) {
+        this.recurrence = recurrence;
+        return this;
+    }
+
+    /**
+     * Returns the occurrences of the task due on the days from {@code from} to {@code to},
+     * both inclusive, in order. Occurrences are created as the iterator reaches them, so a
+     * window of any length takes the same memory.
+     * 
+     * <p>A task that does not repeat is returned itself if it is due in the window. The
+     * occurrences of a repeating task are detached copies with their own due date-time and
+     * status (see {@link #isOccurrence()}).</p>
+     * 
+     * @param from the first day of the window
+     * @param to the last day of the window
+     * @return the occurrences due in the window
+     */
+    public Iterator<Task> occurrences(LocalDate from, LocalDate to) {
+        return occurrences(toEpochMinutes(from, LocalTime.MIDNIGHT), toEpochMinutes(to.plusDays(1), LocalTime.MIDNIGHT));
+    }
+
+    /**
+     * Returns the occurrences of the task due in a range, in order.
+     * 
+     * @param fromMinutes the start of the range in epoch minutes, inclusive
+     * @param toMinutes the end of the range in epoch minutes, exclusive
+     * @return the occurrences due in the range
+     * @see #occurrences(LocalDate, LocalDate)
+     */
+    Iterator<Task> occurrences(long fromMinutes, long toMinutes) {
+        if (recurrence == 0) {
+            return dueMinutes >= fromMinutes && dueMinutes < toMinutes
+                    ? List.of(this).iterator() : Collections.emptyIterator();
+        }
+        long step = Recurrence.stepDays(recurrence) * MINUTES_PER_DAY;
+        long last = Recurrence.lastIndex(recurrence, dueDay());
+        long first = fromMinutes <= dueMinutes ? 0 : -Math.floorDiv(dueMinutes - fromMinutes, step);
+        long today = today();
+        return new Iterator<>() {
+            private long index = first;
+
+            @Override
+            public boolean hasNext() {
+                return index <= last && dueMinutes + index * step < toMinutes;
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return occurrence(dueMinutes + index++ * step, today);
+            }
+        };
+    }
+
+    /**
+     * Returns the occurrence of the task due at a date-time.
+     * 
+     * @param due the due date-time of the occurrence in epoch minutes
+     * @return a detached occurrence, or this task if it does not repeat
+     */
+    Task occurrenceAt(long due) {
+        return recurrence == 0 ? this : occurrence(due, today());
+    }
+
+    /**
+     * Returns the occurrence the status of the task is derived from (see {@link #statusDay}),
+     * which is the task itself unless it repeats.
+     * 
+     * @param today the current date in epoch days
+     * @return the occurrence, or this task if it does not repeat
+     */
+    Task upcomingOccurrence(long today) {
+        if (recurrence == 0) {
+            return this;
+        }
+        return occurrence((statusDay(today) - dueDay()) * MINUTES_PER_DAY + dueMinutes, today);
+    }
+
+    /**
+     * Creates a detached occurrence of this task due at a date-time, whether or not the task
+     * repeats.
+     * 
+     * @param due the due date-time of the occurrence in epoch minutes
+     * @param today the current date in epoch days, which its status is derived from
+     * @return the occurrence
+     */
+    Task occurrence(long due, long today) {
+        Task copy = new Task(taskId, subject, description, clientId, due,
+                (byte) calculateStatus(Math.floorDiv(due, MINUTES_PER_DAY), today).ordinal());
+        copy.recurrence = recurrence;
+        copy.occurrence = true;
+        return copy;
+    }
+
+    /**
+     * Returns a detached copy of the fields of this task, without its status.
+     * 
+     * @return the copy
+     */
+    Task copyFields() {
+        return new Task(taskId, subject, description, clientId, dueMinutes).withRecurrence(recurrence);
+    }
+
+    /**
+     * Converts a date and time to minutes since 1970-01-01T00:00.
+     * 
+     * @param date the date
+     * @param time the time; seconds are ignored
+     * @return the date-time in epoch minutes
+     */
+    static long toEpochMinutes(LocalDate date, LocalTime time) {
+        return date.toEpochDay() * MINUTES_PER_DAY + time.getHour() * 60L + time.getMinute();
+    }
+
+    /**
+     * Recalculates the status of the task for the current date. Callers changing a task
+     * that belongs to a user must do so through {@link User#updateTask}.
+     */
+    void refreshStatus() {
+        this.status = (byte) calculateStatus().ordinal();
+    }
+
     /**
      * Constructs a new Task with the specified subject, description, client, 
      * date, and time.
@@ -100,35 +510,30 @@ public class Task {
      * @param time       The time of the task.
      */
     public Task(String subject, String description, int client, LocalDate date, LocalTime time) {
-        this.subject = subject;
-        this.description = description;
-        this.clientId = client;
-        this.date = date;
-        this.time = time;
-        this.dateS = date.format(DATE_FORMATTER);
-        this.timeS = time.format(TIME_FORMATTER);
+        this(0, subject, description, client, toEpochMinutes(date, time));
+        refreshStatus();
     }
 
 
     /**
-     * Sets the date of the task and updates the date string representation.
+     * Sets the date of the task, keeping its time, and updates its status.
      * 
      * @param date The new date for the task.
      */
     public void setDate(LocalDate date) {
-        this.date = date;
-        this.dateS = date.format(DATE_FORMATTER);
-        this.status = calculateStatus();
+        update(() -> {
+            this.dueMinutes = date.toEpochDay() * MINUTES_PER_DAY + Math.floorMod(dueMinutes, MINUTES_PER_DAY);
+            refreshStatus();
+        });
     }
 
     /**
-     * Sets the time of the task and updates the time string representation.
+     * Sets the time of the task, keeping its date. Seconds are ignored.
      * 
      * @param time The new time for the task.
      */
     public void setTime(LocalTime time) {
-        this.time = time;
-        this.timeS = time.format(TIME_FORMATTER);
+        update(() -> this.dueMinutes = dueDay() * MINUTES_PER_DAY + time.getHour() * 60L + time.getMinute());
     }
 
     /**
@@ -138,13 +543,13 @@ public class Task {
      * @throws IllegalArgumentException if the date format is invalid.
      */
     public void setDateS(String dateS) throws IllegalArgumentException {
+        LocalDate parsed;
         try {
-            this.date = LocalDate.parse(dateS, DATE_FORMATTER);
-            this.dateS = dateS;
-            this.status = calculateStatus();
+            parsed = LocalDate.parse(dateS, DATE_FORMATTER);
         } catch (DateTimeParseException e) {
             throw new IllegalArgumentException("Invalid date format: " + dateS);
         }
+        setDate(parsed);
     }
 
     /**
@@ -154,11 +559,61 @@ public class Task {
      * @throws IllegalArgumentException if the time format is invalid.
      */
     public void setTimeS(String timeS) throws IllegalArgumentException {
+        LocalTime parsed;
         try {
-            this.timeS = timeS;
-            this.time = LocalTime.parse(this.timeS, TIME_FORMATTER);
+            parsed = LocalTime.parse(timeS, TIME_FORMATTER);
         } catch (DateTimeParseException e) {
             throw new IllegalArgumentException("Invalid time format: " + timeS);
         }
+        setTime(parsed);
+    }
+
+    /**
+     * Changes several fields of this task as a single change. The edit calls the setters of
+     * a detached copy of this task; once it completes, the fields of the copy are set on this
+     * task together, so that a user records them as one change, undone in one step.
+     * 
+     * @param edit The setters to call on the copy.
+     * @throws ValidationException if a setter rejects its value; this task is then unchanged.
+     */
+    public void edit(Edit<Task> edit) throws ValidationException {
+        if (owner != null) {
+            owner.editTask(this, edit);
+        } else {
+            Task copy = copyFields();
+            edit.apply(copy);
+            copyFrom(copy);
+        }
+    }
+
+    /**
+     * Copies the editable fields of another task into this one and recalculates its status.
+     * Callers changing a task that belongs to a user must do so through {@link User#updateTask}.
+     * Used when changes are replayed from storage.
+     * 
+     * @param other The task to copy the fields from.
+     */
+    void copyFrom(Task other) {
+        this.subject = other.subject;
+        this.description = other.description;
+        this.clientId = other.clientId;
+        this.dueMinutes = other.dueMinutes;
+        this.recurrence = other.recurrence;
+        refreshStatus();
+    }
+
+    /**
+     * Applies a change to the fields of this task. If the task belongs to a user,
+     * the change is made through {@link User#updateTask}, which keeps the user's
+     * indexes in sync and notifies its listeners.
+     * 
+     * @param change The assignments to perform.
+     */
+    private void update(Runnable change) {
+        if (owner != null) {
+            owner.updateTask(this, change);
+        } else {
+            change.run();
+        }
     }
 }
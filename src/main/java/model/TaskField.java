@@ -0,0 +1,45 @@
+package model;
+
+/**
+ * The editable fields of a {@link Task}, each of which is undone and replicated on its own.
+ *
+ * @author Błażej Sztefka
+ * @version 1.1
+ */
+enum TaskField {
+    SUBJECT, DESCRIPTION, CLIENT_ID, DUE, RECURRENCE;
+
+    /**
+     * Returns the value of this field of a task: a {@link String}, the client ID as an
+     * {@link Integer}, the due date-time in epoch minutes as a {@link Long} or the packed
+     * {@link Recurrence} as an {@link Integer}.
+     *
+     * @param task the task to read
+     * @return the value of this field
+     */
+    Object get(Task task) {
+        return switch (this) {
+            case SUBJECT -> task.getSubject();
+            case DESCRIPTION -> task.getDescription();
+            case CLIENT_ID -> task.getClientId();
+            case DUE -> task.dueMinutes();
+            case RECURRENCE -> task.recurrence();
+        };
+    }
+
+    /**
+     * Returns a detached copy of the fields of a task with this field set to a value.
+     *
+     * @param task the task to copy
+     * @param value the new value, of the type returned by {@link #get(Task)}
+     * @return the copy, to be applied with {@link Task#copyFrom(Task)}
+     */
+    Task with(Task task, Object value) {
+        return new Task(task.getTaskId(),
+                this == SUBJECT ? (String) value : task.getSubject(),
+                this == DESCRIPTION ? (String) value : task.getDescription(),
+                this == CLIENT_ID ? (Integer) value : task.getClientId(),
+                this == DUE ? (Long) value : task.dueMinutes())
+                .withRecurrence(this == RECURRENCE ? (Integer) value : task.recurrence());
+    }
+}
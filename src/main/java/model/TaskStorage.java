@@ -0,0 +1,89 @@
+package model;
+
+import java.util.Locale;
+
+/**
+ * The ways a {@link User} can store its tasks and clients. Every way offers the same
+ * {@link User} API; they differ in memory use and in the cost of the lookups.
+ *
+ * <p>The storage of users created without an explicit choice is taken from the
+ * {@code taskmanager.storage} system property, {@code objects}, {@code columns} or
+ * {@code off_heap}, and defaults to {@link #OBJECTS}.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+public enum TaskStorage {
+
+    /**
+     * Tasks are kept as objects, with hash and tree indexes for the lookups by client,
+     * status and due date. Lookups only visit the tasks they return.
+     */
+    OBJECTS {
+        @Override
+        TaskStore create(User owner) {
+            return new ObjectTaskStore();
+        }
+    },
+
+    /**
+     * Tasks are kept in a columnar table of primitive arrays and {@link Task} objects are
+     * built when they are asked for. Takes a fraction of the memory of {@link #OBJECTS};
+     * lookups scan a whole column.
+     */
+    COLUMNS {
+        @Override
+        TaskStore create(User owner) {
+            return new TaskTable(owner);
+        }
+    },
+
+    /**
+     * Tasks and clients are kept in fixed-width records in off-heap memory, with their
+     * strings in an off-heap arena, and objects are built when they are asked for.
+     * The heap only holds the ID index, the search index and the objects in use, so the
+     * heap size and garbage collection pauses do not grow with the records. Lookups scan
+     * the records. The off-heap memory is limited by {@code -XX:MaxDirectMemorySize},
+     * which defaults to the maximum heap size.
+     */
+    OFF_HEAP {
+        @Override
+        TaskStore create(User owner) {
+            return new OffHeapTaskTable(owner);
+        }
+
+        @Override
+        ClientStore createClients(User owner) {
+            return new OffHeapClientTable(owner);
+        }
+    };
+
+    /**
+     * Creates an empty task store of this kind.
+     *
+     * @param owner the user the stored tasks belong to
+     * @return the new store
+     */
+    abstract TaskStore create(User owner);
+
+    /**
+     * Creates an empty client store of this kind. Clients are kept as objects unless
+     * the storage keeps them off the heap.
+     *
+     * @param owner the user the stored clients belong to
+     * @return the new store
+     */
+    ClientStore createClients(User owner) {
+        return new ObjectClientStore();
+    }
+
+    /**
+     * Returns the storage selected by the {@code taskmanager.storage} system property.
+     *
+     * @return the configured storage, {@link #OBJECTS} if the property is not set
+     * @throws IllegalArgumentException if the property names no storage
+     */
+    public static TaskStorage configured() {
+        return valueOf(System.getProperty("taskmanager.storage", "objects").toUpperCase(Locale.ROOT));
+    }
+}
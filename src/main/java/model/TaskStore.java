@@ -0,0 +1,131 @@
+package model;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Storage of the tasks of a {@link User}, including the lookups by client, status and due
+ * date that the user offers.
+ *
+ * <p>A store either keeps the task objects themselves ({@link ObjectTaskStore}) or keeps the
+ * fields of the tasks in its own representation and returns views of them
+ * ({@link TaskTable}). A view is a {@link Task} built on demand from the stored fields;
+ * two views of the same task are equal but not identical, so tasks are told apart by ID.
+ * Changes made through a view are written back by {@link #afterUpdate(Task)}.</p>
+ *
+ * <p>The store is chosen with {@link TaskStorage} when the user is created.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.1
+ */
+interface TaskStore {
+
+    /**
+     * Returns the number of stored tasks.
+     *
+     * @return the task count
+     */
+    int size();
+
+    /**
+     * Tells whether a task with the given ID is stored.
+     *
+     * @param taskId the task ID
+     * @return {@code true} if the task is stored
+     */
+    boolean contains(int taskId);
+
+    /**
+     * Returns a stored task.
+     *
+     * @param taskId the task ID
+     * @return the task, or {@code null} if no task has the ID
+     */
+    Task get(int taskId);
+
+    /**
+     * Stores a task whose ID and status are already set.
+     *
+     * @param task the task to store
+     */
+    void add(Task task);
+
+    /**
+     * Removes a task.
+     *
+     * @param taskId the task ID
+     * @return the removed task, or {@code null} if no task has the ID
+     */
+    Task remove(int taskId);
+
+    /**
+     * Removes all tasks of a client.
+     *
+     * @param clientId the client ID
+     * @return the removed tasks
+     */
+    List<Task> removeClientTasks(int clientId);
+
+    /**
+     * Makes room for a number of tasks in total, so that adding that many tasks, as loading
+     * a snapshot does, does not grow the store step by step.
+     *
+     * @param count the number of tasks the store is about to hold
+     */
+    void ensureCapacity(int count);
+
+    /**
+     * Prepares a stored task for a change of its fields. The task is brought up to date
+     * with the stored fields and taken out of the lookups that depend on them.
+     *
+     * @param task the task about to change
+     */
+    void beforeUpdate(Task task);
+
+    /**
+     * Stores the changed fields of a task and puts it back into the lookups.
+     *
+     * @param task the changed task
+     */
+    void afterUpdate(Task task);
+
+    /**
+     * Returns the IDs of the stored tasks in the order they were added.
+     *
+     * @return the task IDs
+     */
+    int[] ids();
+
+    /**
+     * Returns the stored tasks in the order they were added.
+     *
+     * @return a new list of the tasks
+     */
+    List<Task> list();
+
+    /**
+     * Returns the tasks of a client in the order they were added.
+     *
+     * @param clientId the client ID
+     * @return a new list of the tasks
+     */
+    List<Task> byClient(int clientId);
+
+    /**
+     * Returns a read-only view of the tasks with a status, in the order they were added.
+     * The view reflects later changes.
+     *
+     * @param status the status
+     * @return the tasks with the status
+     */
+    Collection<Task> byStatus(TaskStatus status);
+
+    /**
+     * Returns the tasks due in a range, ordered by due date-time and then by ID.
+     *
+     * @param fromMinutes the start of the range in epoch minutes, inclusive
+     * @param toMinutes the end of the range in epoch minutes, exclusive
+     * @return a new list of the tasks
+     */
+    List<Task> between(long fromMinutes, long toMinutes);
+}
@@ -0,0 +1,315 @@
+package model;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Columnar task store: the fields of the tasks are kept in parallel arrays, one row per task,
+ * with the IDs, client IDs, due date-times, statuses and recurrence rules in primitive arrays.
+ *
+ * <p>No {@link Task} object is kept. {@link #get(int)} and the lookups build views of the
+ * rows on demand, which the user then owns, so setters on a view change the stored row.
+ * The lookups by client, status and due date are scans over a single primitive array,
+ * which visit every row but touch only contiguous memory.</p>
+ *
+ * <p>Rows are kept in insertion order. A removed row is marked as deleted and the arrays are
+ * compacted once half of the rows are deleted. A table with {@code n} tasks takes about
+ * {@code 33 * n} bytes plus the subject and description strings.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.1
+ */
+final class TaskTable implements TaskStore {
+
+    // Status of a deleted row
+    private static final byte DELETED = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final Comparator<Task> DUE_ORDER =
+            Comparator.comparingLong(Task::dueMinutes).thenComparingInt(Task::getTaskId);
+
+    private final User owner;
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] clientIds = new int[INITIAL_CAPACITY];
+    private long[] dueMinutes = new long[INITIAL_CAPACITY];
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+    private int[] recurrences = new int[INITIAL_CAPACITY];
+    private String[] subjects = new String[INITIAL_CAPACITY];
+    private String[] descriptions = new String[INITIAL_CAPACITY];
+
+    // Row of each task ID plus one, or 0 if no task has the ID
+    private int[] rowOfId = new int[INITIAL_CAPACITY];
+
+    // Number of used rows, including deleted ones, and of live tasks
+    private int rows;
+    private int size;
+    private final int[] statusCounts = new int[STATUSES.length];
+
+    /**
+     * Creates an empty table whose views are owned by the given user.
+     *
+     * @param owner the user the tasks belong to
+     */
+    TaskTable(User owner) {
+        this.owner = owner;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(int taskId) {
+        return rowOf(taskId) >= 0;
+    }
+
+    @Override
+    public Task get(int taskId) {
+        int row = rowOf(taskId);
+        return row < 0 ? null : view(row);
+    }
+
+    @Override
+    public void add(Task task) {
+        if (rows == ids.length) {
+            grow();
+        }
+        int row = rows++;
+        ids[row] = task.getTaskId();
+        statuses[row] = DELETED;
+        write(row, task);
+        setRow(task.getTaskId(), row);
+        size++;
+    }
+
+    @Override
+    public Task remove(int taskId) {
+        int row = rowOf(taskId);
+        if (row < 0) {
+            return null;
+        }
+        Task removed = view(row);
+        delete(row);
+        compactIfSparse();
+        return removed;
+    }
+
+    @Override
+    public List<Task> removeClientTasks(int clientId) {
+        List<Task> removed = new ArrayList<>();
+        for (int row = 0; row < rows; row++) {
+            if (clientIds[row] == clientId && statuses[row] != DELETED) {
+                removed.add(view(row));
+                delete(row);
+            }
+        }
+        compactIfSparse();
+        return removed;
+    }
+
+    @Override
+    public void ensureCapacity(int count) {
+        if (count > ids.length) {
+            resize(count);
+        }
+    }
+
+    @Override
+    public void beforeUpdate(Task task) {
+        int row = rowOf(task.getTaskId());
+        task.copyFrom(view(row)); // The view may have been built before another change of the row
+    }
+
+    @Override
+    public void afterUpdate(Task task) {
+        write(rowOf(task.getTaskId()), task);
+    }
+
+    @Override
+    public int[] ids() {
+        int[] result = new int[size];
+        int length = 0;
+        for (int row = 0; row < rows; row++) {
+            if (statuses[row] != DELETED) {
+                result[length++] = ids[row];
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> list() {
+        List<Task> result = new ArrayList<>(size);
+        for (int row = 0; row < rows; row++) {
+            if (statuses[row] != DELETED) {
+                result.add(view(row));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> byClient(int clientId) {
+        List<Task> result = new ArrayList<>();
+        for (int row = 0; row < rows; row++) {
+            if (clientIds[row] == clientId && statuses[row] != DELETED) {
+                result.add(view(row));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<Task> byStatus(TaskStatus status) {
+        byte ordinal = (byte) status.ordinal();
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Task> iterator() {
+                return new Iterator<>() {
+                    private int row = next(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return row < rows;
+                    }
+
+                    @Override
+                    public Task next() {
+                        if (row >= rows) {
+                            throw new NoSuchElementException();
+                        }
+                        Task task = view(row);
+                        row = next(row + 1);
+                        return task;
+                    }
+
+                    private int next(int from) {
+                        int found = from;
+                        while (found < rows && statuses[found] != ordinal) {
+                            found++;
+                        }
+                        return found;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return statusCounts[ordinal];
+            }
+        };
+    }
+
+    @Override
+    public List<Task> between(long fromMinutes, long toMinutes) {
+        List<Task> result = new ArrayList<>();
+        for (int row = 0; row < rows; row++) {
+            long due = dueMinutes[row];
+            if (due >= fromMinutes && due < toMinutes && statuses[row] != DELETED) {
+                result.add(view(row));
+            }
+        }
+        result.sort(DUE_ORDER);
+        return result;
+    }
+
+    /**
+     * Builds a view of a row, owned by the user of this table.
+     */
+    private Task view(int row) {
+        Task task = new Task(ids[row], subjects[row], descriptions[row], clientIds[row],
+                dueMinutes[row], statuses[row]).withRecurrence(recurrences[row]);
+        task.setOwner(owner);
+        return task;
+    }
+
+    /**
+     * Stores the fields of a task in a row, keeping the status counts in sync.
+     */
+    private void write(int row, Task task) {
+        if (statuses[row] != DELETED) {
+            statusCounts[statuses[row]]--;
+        }
+        byte status = (byte) task.getStatus().ordinal();
+        statusCounts[status]++;
+        statuses[row] = status;
+        clientIds[row] = task.getClientId();
+        dueMinutes[row] = task.dueMinutes();
+        recurrences[row] = task.recurrence();
+        subjects[row] = task.getSubject();
+        descriptions[row] = task.getDescription();
+    }
+
+    /**
+     * Marks a row as deleted and releases its strings.
+     */
+    private void delete(int row) {
+        statusCounts[statuses[row]]--;
+        statuses[row] = DELETED;
+        subjects[row] = null;
+        descriptions[row] = null;
+        rowOfId[ids[row]] = 0;
+        size--;
+    }
+
+    private int rowOf(int taskId) {
+        return taskId >= 0 && taskId < rowOfId.length ? rowOfId[taskId] - 1 : -1;
+    }
+
+    private void setRow(int taskId, int row) {
+        if (taskId >= rowOfId.length) {
+            rowOfId = Arrays.copyOf(rowOfId, Math.max(taskId + 1, rowOfId.length * 2));
+        }
+        rowOfId[taskId] = row + 1;
+    }
+
+    private void grow() {
+        resize(ids.length + (ids.length >> 1));
+    }
+
+    private void resize(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        clientIds = Arrays.copyOf(clientIds, capacity);
+        dueMinutes = Arrays.copyOf(dueMinutes, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        recurrences = Arrays.copyOf(recurrences, capacity);
+        subjects = Arrays.copyOf(subjects, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+    }
+
+    /**
+     * Moves the live rows over the deleted ones once at least half of the rows are deleted.
+     */
+    private void compactIfSparse() {
+        if (rows < INITIAL_CAPACITY || size > rows / 2) {
+            return;
+        }
+        int kept = 0;
+        for (int row = 0; row < rows; row++) {
+            if (statuses[row] == DELETED) {
+                continue;
+            }
+            ids[kept] = ids[row];
+            clientIds[kept] = clientIds[row];
+            dueMinutes[kept] = dueMinutes[row];
+            statuses[kept] = statuses[row];
+            recurrences[kept] = recurrences[row];
+            subjects[kept] = subjects[row];
+            descriptions[kept] = descriptions[row];
+            rowOfId[ids[kept]] = kept + 1;
+            kept++;
+        }
+        Arrays.fill(subjects, kept, rows, null);
+        Arrays.fill(descriptions, kept, rows, null);
+        rows = kept;
+    }
+}
@@ -0,0 +1,229 @@
+package model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * A hierarchical timing wheel of deadlines in whole minutes, each identified by an ID.
+ *
+ * <p>The wheel has {@value #LEVELS} levels of {@value #SLOTS} slots. A slot of level 0 holds
+ * the deadlines of one minute, a slot of level 1 those of {@value #SLOTS} minutes, and so on,
+ * so the levels together cover about 32 years ahead; later deadlines wait in an overflow
+ * list. A deadline is put in the lowest level whose range reaches it, in a doubly linked
+ * list, so scheduling and cancelling take constant time whatever the number of deadlines.
+ * As the time advances, the slot of a higher level is emptied into the lower levels when
+ * its period begins, and the deadlines of each minute are found in its level-0 slot without
+ * looking at the others.</p>
+ *
+ * <p>The wheel is not thread-safe; its owner guards it.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+final class TimingWheel {
+
+    static final int LEVELS = 4;
+    static final int SLOTS = 64;
+
+    private static final int SLOT_BITS = 6;
+    private static final int MASK = SLOTS - 1;
+    // Lists that are not slots: deadlines already reached, and those beyond the top level
+    private static final int DUE = -1;
+    private static final int OVERFLOW = LEVELS;
+
+    /**
+     * A scheduled deadline, linked into the list of its slot.
+     */
+    private static final class Entry {
+        final int id;
+        final long deadline;
+        int level;
+        int slot;
+        Entry previous;
+        Entry next;
+
+        Entry(int id, long deadline) {
+            this.id = id;
+            this.deadline = deadline;
+        }
+    }
+
+    private final Entry[][] slots = new Entry[LEVELS][SLOTS];
+    private Entry due;
+    private Entry overflow;
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private long now;
+
+    /**
+     * Creates an empty wheel.
+     *
+     * @param now the current minute
+     */
+    TimingWheel(long now) {
+        this.now = now;
+    }
+
+    /**
+     * Returns the minute the wheel has advanced to.
+     *
+     * @return the current minute
+     */
+    long now() {
+        return now;
+    }
+
+    /**
+     * Returns the number of scheduled deadlines.
+     *
+     * @return the count
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Schedules a deadline, replacing the one of the same ID. A deadline that has already
+     * been reached expires on the next {@link #advance}.
+     *
+     * @param id the ID of the deadline
+     * @param deadline the minute at which it expires
+     */
+    void schedule(int id, long deadline) {
+        cancel(id);
+        Entry entry = new Entry(id, deadline);
+        entries.put(id, entry);
+        place(entry);
+    }
+
+    /**
+     * Cancels a deadline.
+     *
+     * @param id the ID of the deadline
+     * @return {@code false} if none was scheduled
+     */
+    boolean cancel(int id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        unlink(entry);
+        return true;
+    }
+
+    /**
+     * Advances the time minute by minute to the given minute and expires the deadlines
+     * reached, minute after minute. Going back in time only expires the deadlines already
+     * reached. The wheel must not be changed while the IDs are received.
+     *
+     * @param to the minute to advance to
+     * @param expired receives the IDs of the expired deadlines
+     */
+    void advance(long to, IntConsumer expired) {
+        expire(expired);
+        while (now < to) {
+            if (entries.isEmpty()) {
+                now = to;
+                return;
+            }
+            now++;
+            // Empty the slots whose period begins now, the highest level first
+            int level = 0;
+            while (level < LEVELS - 1 && (now & ((1L << (SLOT_BITS * (level + 1))) - 1)) == 0) {
+                level++;
+            }
+            if (level == LEVELS - 1) {
+                cascade(overflow);
+                overflow = null;
+            }
+            for (; level > 0; level--) {
+                int slot = (int) (now >>> (SLOT_BITS * level)) & MASK;
+                Entry first = slots[level][slot];
+                slots[level][slot] = null;
+                cascade(first);
+            }
+            int slot = (int) now & MASK;
+            Entry first = slots[0][slot];
+            slots[0][slot] = null;
+            cascade(first);
+            expire(expired);
+        }
+    }
+
+    /**
+     * Places the entries of an emptied list again, relative to the current time.
+     */
+    private void cascade(Entry first) {
+        for (Entry entry = first; entry != null; ) {
+            Entry next = entry.next;
+            place(entry);
+            entry = next;
+        }
+    }
+
+    /**
+     * Expires the deadlines already reached.
+     */
+    private void expire(IntConsumer expired) {
+        Entry entry = due;
+        due = null;
+        for (; entry != null; entry = entry.next) {
+            entries.remove(entry.id);
+            expired.accept(entry.id);
+        }
+    }
+
+    /**
+     * Links an entry into the lowest level whose range reaches its deadline.
+     */
+    private void place(Entry entry) {
+        long delta = entry.deadline - now;
+        if (delta <= 0) {
+            link(entry, DUE, 0);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (SLOT_BITS * (level + 1))) {
+                link(entry, level, (int) (entry.deadline >>> (SLOT_BITS * level)) & MASK);
+                return;
+            }
+        }
+        link(entry, OVERFLOW, 0);
+    }
+
+    private void link(Entry entry, int level, int slot) {
+        entry.level = level;
+        entry.slot = slot;
+        entry.previous = null;
+        entry.next = head(level, slot);
+        if (entry.next != null) {
+            entry.next.previous = entry;
+        }
+        setHead(level, slot, entry);
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.previous != null) {
+            entry.previous.next = entry.next;
+        } else {
+            setHead(entry.level, entry.slot, entry.next);
+        }
+        if (entry.next != null) {
+            entry.next.previous = entry.previous;
+        }
+    }
+
+    private Entry head(int level, int slot) {
+        return level == DUE ? due : level == OVERFLOW ? overflow : slots[level][slot];
+    }
+
+    private void setHead(int level, int slot, Entry entry) {
+        if (level == DUE) {
+            due = entry;
+        } else if (level == OVERFLOW) {
+            overflow = entry;
+        } else {
+            slots[level][slot] = entry;
+        }
+    }
+}
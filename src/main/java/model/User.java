@@ -1,37 +1,130 @@
 package model;
 
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
-import lombok.Data;
-import lombok.EqualsAndHashCode;
-import lombok.Getter;
-import lombok.ToString;
+import java.util.Iterator;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+import metrics.Metrics;
+import metrics.Operation;
+import metrics.UserChangeEvent;
 
 /**
  * The User class represents a user in the system who manages a list of tasks and clients.
  * This class provides methods to add, remove, and retrieve tasks and clients.
  * It also automatically assigns unique IDs to each task and client upon addition.
  * 
- * <p>Note: The {@code removeClient} and {@code removeTask} methods update 
- * the IDs of remaining clients and tasks to ensure continuity after removal.</p>
+ * <p>IDs are allocated in increasing order and never change, so they can be kept as
+ * references to a task or client. Tasks and clients are indexed by their ID, which
+ * makes lookups and removals independent of the number of entities.</p>
+ * 
+ * <p>Tasks and clients are kept in a {@link TaskStore} and a {@link ClientStore} chosen with
+ * {@link TaskStorage}. With the columnar and off-heap storages, the entities returned by this
+ * class are views built on demand: the same task may be returned as different but equal
+ * objects, and changes made through any of them are stored.</p>
+ * 
+ * <p>Every change to the user, including setter commits on its tasks and clients,
+ * is reported to the registered {@link UserListener}s. The {@link LiveList}s returned
+ * by the {@code getLive...} and {@code searchLive...} methods follow these changes and
+ * can be shown by JavaFX tables directly.</p>
+ * 
+ * <p>A user can be read and changed from any thread. Changes are serialized by a write lock,
+ * and lookups run under a read lock. The lock is fair: a change waits only for the lookups
+ * that started before it, and lookups starting later wait for the change. Listeners are
+ * called on the changing thread, in the order of the changes, while the write lock is
+ * held; they may read the user but should return quickly.
+ * The task and client objects returned are not locked: with {@link TaskStorage#OBJECTS}
+ * they may change while another thread reads them.</p>
+ * 
+ * <p>Publishing changes to JavaFX: a live list, like any JavaFX observable list, must only
+ * change on the JavaFX application thread, so a user with live lists in use must only
+ * be changed on that thread. Background work, such as imports or reports, reads the
+ * user directly and hands its changes to the JavaFX thread with
+ * {@code Platform.runLater}, in batches rather than one change at a time. Users without
+ * live lists, for example in tests or servers, can be changed from any thread.</p>
+ * 
+ * <p>Changes, filters and searches are timed as {@link Operation}s, including the time
+ * spent waiting for the lock. Tasks and clients added and removed are also recorded as
+ * Flight Recorder {@link UserChangeEvent}s.</p>
+ * 
+ * <p>Changes can be undone and redone through the {@link History} of the user.</p>
  * 
  * @see Task
  * @see Client
  * @see ValidationException
  * 
- * @version 1.1
+ * @version 1.8
  * @author Błażej Sztefka
  */
-@Data
-@EqualsAndHashCode
-@ToString
 public class User {
 
-    // List of tasks associated with the user
-    private List<Task> taskList = new ArrayList<>();
+    private static final Comparator<Task> DUE_ORDER =
+            Comparator.comparingLong(Task::dueMinutes).thenComparingInt(Task::getTaskId);
+
+    // Tasks associated with the user, with their lookups by client, status and due date
+    private final TaskStore tasks;
     
-    // List of clients associated with the user
-    private List<Client> clientList = new ArrayList<>();
+    // Clients associated with the user
+    private final ClientStore clients;
+
+    // IDs of the tasks that repeat, whose occurrences the date lookups add
+    private final BitSet recurringTasks = new BitSet();
+
+    // Words of task subjects and descriptions, and of client names and descriptions
+    private final SearchIndex taskWords = new SearchIndex();
+    private final SearchIndex clientWords = new SearchIndex();
+
+    // Whether the task words are left to be indexed by the first search, after a bulk restore
+    private volatile boolean taskWordsDeferred;
+
+    // Lowest IDs the next added task and client may get
+    private int nextTaskId = 1;
+    private int nextClientId = 1;
+
+    // New IDs are those equal to idOffset modulo idStride, so that replicas never share one
+    private int idStride = 1;
+    private int idOffset;
+
+    // Serializes changes; lookups take its read lock. Fair, so busy readers cannot starve a change
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+
+    // Clock defining the current date for task statuses, and the cached current date
+    private volatile Clock clock = Clock.systemDefaultZone();
+    private volatile Today today;
+
+    /**
+     * The current date and the interval of time during which it is current.
+     */
+    private record Today(LocalDate date, long startMillis, long endMillis) {
+    }
+
+    // Listeners notified about every change of the tasks and clients
+    private final List<UserListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Live lists of all tasks and all clients, created on first use
+    private LiveList<Task> liveTasks;
+    private LiveList<Client> liveClients;
+
+    // Tasks removed together with the client being removed, while its removal is reported
+    private List<Task> removedClientTasks = List.of();
+
+    // Undo history, created on first use
+    private History history;
+
+    // Recorders told about every change besides the listeners, such as the history
+    private final List<ChangeRecorder> recorders = new CopyOnWriteArrayList<>();
 
     /**
      * Constructs a new {@code User} instance with default clients and tasks.
@@ -39,6 +132,31 @@ public class User {
      * and a single sample task for demonstration purposes.
      */
     public User() {
+        this(true, TaskStorage.configured());
+    }
+
+    /**
+     * Constructs a new {@code User} instance with the default sample data, storing its
+     * tasks in the given way.
+     * 
+     * @param storage the way the tasks are stored
+     */
+    public User(TaskStorage storage) {
+        this(true, storage);
+    }
+
+    /**
+     * Constructs a new {@code User} instance, optionally filled with sample data.
+     * 
+     * @param withDemoData {@code true} to add the sample clients and tasks
+     * @param storage the way the tasks are stored
+     */
+    User(boolean withDemoData, TaskStorage storage) {
+        this.tasks = storage.create(this);
+        this.clients = storage.createClients(this);
+        if (!withDemoData) {
+            return;
+        }
         Client c1 = new Client("Pati", "Monika", "432789234", "2class");
         Client c2 = new Client("Bartek", "Klaudia", "506923876", "Good");
         Client c3 = new Client("Michal", "Krzysztof", "123456780", "Bad");
@@ -63,136 +181,1172 @@ public class User {
 
     /**
     * Adds one or more tasks to the user's task list and assigns unique task IDs.
-    * The ID is based on the current size of the task list.
+    * IDs are allocated from a counter that only grows, so an ID is never reused.
     * 
     * @param tasks One or more tasks to be added to the user's task list.
     */
    public void addTask(Task... tasks) {
-       for (Task task : tasks) {
-           taskList.add(task);
-           task.setTaskId(this.taskList.size()); // Assign task ID based on list size
+       long start = Metrics.start();
+       UserChangeEvent event = new UserChangeEvent();
+       event.begin();
+       boolean locked = lockForWriting();
+       try {
+           for (Task task : tasks) {
+               int taskId = allocateId(nextTaskId);
+               task.setTaskId(taskId);
+               nextTaskId = taskId + 1;
+               attachTask(task);
+           }
+           event.commit(Operation.TASK_ADD, tasks.length, 0);
+       } finally {
+           unlockForWriting(locked);
+           Operation.TASK_ADD.record(start);
        }
    }
 
    /**
     * Adds one or more clients to the user's client list and assigns unique client IDs.
-    * The ID is based on the current size of the client list.
+    * IDs are allocated from a counter that only grows, so an ID is never reused.
     * 
     * @param clients One or more clients to be added to the user's client list.
     */
    public void addClient(Client... clients) {
-       for (Client newClient : clients) {
-           clientList.add(newClient);
-           newClient.setClientId(this.clientList.size()); // Assign client ID based on list size
+       long start = Metrics.start();
+       UserChangeEvent event = new UserChangeEvent();
+       event.begin();
+       boolean locked = lockForWriting();
+       try {
+           for (Client newClient : clients) {
+               int clientId = allocateId(nextClientId);
+               newClient.setClientId(clientId);
+               nextClientId = clientId + 1;
+               attachClient(newClient);
+           }
+           event.commit(Operation.CLIENT_ADD, 0, clients.length);
+       } finally {
+           unlockForWriting(locked);
+           Operation.CLIENT_ADD.record(start);
        }
    }
 
+   /**
+    * Adds a task that already carries its ID, for example one loaded from storage.
+    * The ID counter is moved past the task's ID.
+    * 
+    * @param task The task to add.
+    * @throws ValidationException if a task with the same ID already exists.
+    */
+   void restoreTask(Task task) throws ValidationException {
+       boolean locked = lockForWriting();
+       try {
+           if (tasks.contains(task.getTaskId())) {
+               throw new ValidationException("Task with ID " + task.getTaskId() + " already exists.");
+           }
+           nextTaskId = Math.max(nextTaskId, task.getTaskId() + 1);
+           attachTask(task);
+       } finally {
+           unlockForWriting(locked);
+       }
+   }
 
-    /**
-     * Updates the IDs of clients in the list after a client is removed.
-     * Adjusts IDs to ensure continuity and avoid gaps.
-     * 
-     * @param clientId The ID of the client that was removed.
-     */
-    private void updateClientIds(int clientId) {
-        for (int i = clientId + 1; i < clientList.size(); i++) {
-            clientList.get(i).setClientId(i);
-        }
-    }
+   /**
+    * Makes room for a number of tasks in total before they are restored, so that the task
+    * store does not grow step by step while they are added.
+    * 
+    * @param count The number of tasks about to be held.
+    */
+   void ensureTaskCapacity(int count) {
+       boolean locked = lockForWriting();
+       try {
+           tasks.ensureCapacity(count);
+       } finally {
+           unlockForWriting(locked);
+       }
+   }
 
-    /**
-     * Updates the IDs of tasks in the list after a task is removed.
-     * Adjusts IDs to ensure continuity and avoid gaps.
-     * 
-     * @param taskId The ID of the task that was removed.
-     */
-    private void updateTaskIds(int taskId) {
-        for (int i = taskId + 1; i < taskList.size(); i++) {
-            taskList.get(i).setTaskId(i); 
-        }
-    }
+   /**
+    * Adds tasks that already carry their IDs, such as those of a snapshot, as
+    * {@link #restoreTask(Task)} does but under a single lock. Indexing the words of the
+    * tasks is left to the first search, so loading many tasks does not wait for it.
+    * 
+    * @param batch The tasks to add.
+    * @throws ValidationException if a task with the same ID already exists; the tasks
+    *         before it are added.
+    */
+   void restoreTasks(List<Task> batch) throws ValidationException {
+       boolean locked = lockForWriting();
+       try {
+           taskWordsDeferred = true;
+           for (Task task : batch) {
+               if (tasks.contains(task.getTaskId())) {
+                   throw new ValidationException("Task with ID " + task.getTaskId() + " already exists.");
+               }
+               nextTaskId = Math.max(nextTaskId, task.getTaskId() + 1);
+               attachTask(task);
+           }
+       } finally {
+           unlockForWriting(locked);
+       }
+   }
 
-    /**
-    * Removes a client from the user's client list by ID.
-    * Updates client IDs to maintain order and throws an exception if the ID is invalid.
-    * Also removes all tasks associated with the removed client from the task list.
+   /**
+    * Adds a client that already carries its ID, for example one loaded from storage.
+    * The ID counter is moved past the client's ID.
     * 
-    * @param clientId The ID of the client to be removed.
-    * @throws ValidationException if the client ID is out of range.
+    * @param client The client to add.
+    * @throws ValidationException if a client with the same ID already exists.
     */
-   public void removeClient(int clientId) throws ValidationException {
-       if (clientId < 1 || clientId > clientList.size()) {
-           throw ValidationException.clientNotFound(clientId);
+   void restoreClient(Client client) throws ValidationException {
+       boolean locked = lockForWriting();
+       try {
+           if (clients.contains(client.getClientId())) {
+               throw new ValidationException("Client with ID " + client.getClientId() + " already exists.");
+           }
+           nextClientId = Math.max(nextClientId, client.getClientId() + 1);
+           attachClient(client);
+       } finally {
+           unlockForWriting(locked);
        }
+   }
 
-       // Remove all tasks associated with this client
-       taskList.removeIf(task -> task.getClientId() == clientId);
-       
-       refreshTaskClientIds(clientId);
+   private void attachTask(Task task) {
+       task.setOwner(this);
+       task.refreshStatus(); // The status may have been computed with another clock
+       tasks.add(task);
+       recurringTasks.set(task.getTaskId(), task.isRecurring());
+       indexWords(task);
+       listeners.forEach(listener -> listener.taskAdded(task));
+   }
 
-       // Remove the client from the list
-       this.updateClientIds(clientId - 1);
-       this.clientList.remove(clientId - 1);
+   private void attachClient(Client client) {
+       clients.add(client);
+       indexClient(client);
+       client.setOwner(this);
+       listeners.forEach(listener -> listener.clientAdded(client));
    }
-   
-   /**
-    * Updates the client IDs in tasks after a client is removed.
-    * Decreases client ID by 1 for all tasks where the client ID is greater than the removed client ID.
+
+    /**
+    * Removes a client from the user's client list by ID.
+    * Throws an exception if no client has this ID.
+    * Also removes all tasks associated with the removed client from the task list;
+    * only the tasks of this client are visited.
     * 
-    * @param removedClientId The ID of the client that was removed.
+    * @param clientId The ID of the client to be removed.
+    * @throws ValidationException if no client has the given ID.
     */
-   private void refreshTaskClientIds(int removedClientId) {
-       for (Task task : taskList) {
-           if (task.getClientId() > removedClientId) {
-               task.setClientId(task.getClientId() - 1);
+   public void removeClient(int clientId) throws ValidationException {
+       long start = Metrics.start();
+       UserChangeEvent event = new UserChangeEvent();
+       event.begin();
+       boolean locked = lockForWriting();
+       try {
+           Client removed = clients.remove(clientId);
+           if (removed == null) {
+               throw ValidationException.clientNotFound(clientId);
+           }
+
+           // Remove all tasks associated with this client
+           List<Task> clientTasks = tasks.removeClientTasks(clientId);
+           for (Task task : clientTasks) {
+               recurringTasks.clear(task.getTaskId());
+               unindexWords(task);
+               task.setOwner(null);
            }
+
+           unindexClient(removed);
+           removed.setOwner(null);
+           removedClientTasks = clientTasks;
+           try {
+               listeners.forEach(listener -> listener.clientRemoved(removed));
+           } finally {
+               removedClientTasks = List.of();
+           }
+           event.commit(Operation.CLIENT_REMOVE, clientTasks.size(), 1);
+       } finally {
+           unlockForWriting(locked);
+           Operation.CLIENT_REMOVE.record(start);
        }
    }
 
     /**
      * Removes a task from the user's task list by ID.
-     * Updates task IDs to maintain order and throws an exception if the ID is invalid.
+     * Throws an exception if no task has this ID.
      * 
      * @param taskId The ID of the task to be removed.
-     * @throws ValidationException if the task ID is out of range.
+     * @throws ValidationException if no task has the given ID.
      */
     public void removeTask(int taskId) throws ValidationException {
-        if (taskId < 1 || taskId > taskList.size()) {
-            throw ValidationException.taskNotFound(taskId);
+        long start = Metrics.start();
+        UserChangeEvent event = new UserChangeEvent();
+        event.begin();
+        boolean locked = lockForWriting();
+        try {
+            Task removed = tasks.remove(taskId);
+            if (removed == null) {
+                throw ValidationException.taskNotFound(taskId);
+            }
+            recurringTasks.clear(taskId);
+            unindexWords(removed);
+            removed.setOwner(null);
+            listeners.forEach(listener -> listener.taskRemoved(removed));
+            event.commit(Operation.TASK_REMOVE, 1, 0);
+        } finally {
+            unlockForWriting(locked);
+            Operation.TASK_REMOVE.record(start);
         }
-        this.updateTaskIds(taskId - 1);
-        this.taskList.remove(taskId - 1);
     }
 
-//    /**
-//     * Sets the user's task list.
-//     * 
-//     * @param taskList The new list of tasks for the user.
-//     */
-//    public void setTaskList(List<Task> taskList) {
-//        this.taskList = taskList;
-//    }
+    /**
+     * Returns the tasks of the user in the order they were added.
+     * The returned list is a copy; changes to the user are not reflected in it.
+     * 
+     * @return The tasks of the user.
+     */
+    public List<Task> getTaskList() {
+        boolean locked = lockForReading();
+        try {
+            return tasks.list();
+        } finally {
+            unlockForReading(locked);
+        }
+    }
 
-//    /**
-//     * Sets the user's client list.
-//     * 
-//     * @param clientList The new list of clients for the user.
-//     */
-//    public void setClientList(List<Client> clientList) {
-//        this.clientList = clientList;
-//    }
+    /**
+     * Returns the IDs of the tasks of the user in the order the tasks were added.
+     * Unlike {@link #getTaskList()}, this takes memory for the IDs only, so the tasks
+     * can be visited one at a time with {@link #getTaskById(int)}.
+     * 
+     * @return A new array of the task IDs.
+     */
+    public int[] getTaskIds() {
+        boolean locked = lockForReading();
+        try {
+            return tasks.ids();
+        } finally {
+            unlockForReading(locked);
+        }
+    }
+
+    /**
+     * Returns the clients of the user in the order they were added.
+     * The returned list is a copy; changes to the user are not reflected in it.
+     * 
+     * @return The clients of the user.
+     */
+    public List<Client> getClientList() {
+        boolean locked = lockForReading();
+        try {
+            return clients.list();
+        } finally {
+            unlockForReading(locked);
+        }
+    }
+
+    /**
+     * Returns the number of tasks of the user.
+     * 
+     * @return The task count.
+     */
+    public int getTaskCount() {
+        boolean locked = lockForReading();
+        try {
+            return tasks.size();
+        } finally {
+            unlockForReading(locked);
+        }
+    }
+
+    /**
+     * Returns the number of clients of the user.
+     * 
+     * @return The client count.
+     */
+    public int getClientCount() {
+        boolean locked = lockForReading();
+        try {
+            return clients.size();
+        } finally {
+            unlockForReading(locked);
+        }
+    }
+
+    /**
+     * Returns the tasks associated with a client, in the order they were added.
+     * Only the tasks of this client are visited.
+     * 
+     * @param clientId The ID of the client.
+     * @return The client's tasks; empty if the client has none.
+     */
+    public List<Task> getTasksForClient(int clientId) {
+        boolean locked = lockForReading();
+        try {
+            return tasks.byClient(clientId);
+        } finally {
+            unlockForReading(locked);
+        }
+    }
+
+    /**
+     * Returns the tasks with the given status, in the order they were added.
+     * The result is a read-only view, obtained in constant time, and reflects later
+     * changes of the user. Each iteration goes over the tasks having the status
+     * when the iteration starts. A repeating task is returned as the occurrence its
+     * status is derived from, its next one.
+     * 
+     * @param status The status of the tasks to return.
+     * @return The tasks with the given status.
+     */
+    public Collection<Task> getTasksByStatus(TaskStatus status) {
+        Collection<Task> withStatus = tasks.byStatus(status);
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Task> iterator() {
+                long start = Metrics.start();
+                boolean locked = lockForReading();
+                try {
+                    List<Task> copy = List.copyOf(withStatus);
+                    return recurringTasks.isEmpty() ? copy.iterator() : copy.stream().map(upcoming()).iterator();
+                } finally {
+                    unlockForReading(locked);
+                    Operation.FILTER_BY_STATUS.record(start);
+                }
+            }
+
+            @Override
+            public int size() {
+                boolean locked = lockForReading();
+                try {
+                    return withStatus.size();
+                } finally {
+                    unlockForReading(locked);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the tasks due within a date-time range, ordered by due date and time.
+     * Repeating tasks are returned as their occurrences due within the range, which are
+     * created for the range only (see {@link Task#occurrences}).
+     * 
+     * @param from The start of the range, inclusive.
+     * @param to The end of the range, exclusive.
+     * @return The tasks and occurrences due at or after {@code from} and before {@code to}.
+     */
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        long start = Metrics.start();
+        long fromMinutes = Task.toEpochMinutes(from.toLocalDate(), from.toLocalTime());
+        long toMinutes = Task.toEpochMinutes(to.toLocalDate(), to.toLocalTime());
+        if (fromMinutes >= toMinutes) {
+            return new ArrayList<>();
+        }
+        boolean locked = lockForReading();
+        try {
+            List<Task> between = tasks.between(fromMinutes, toMinutes);
+            if (!recurringTasks.isEmpty()) {
+                between.removeIf(Task::isRecurring);
+                for (Task task : recurringTaskList()) {
+                    task.occurrences(fromMinutes, toMinutes).forEachRemaining(between::add);
+                }
+                between.sort(DUE_ORDER);
+            }
+            return between;
+        } finally {
+            unlockForReading(locked);
+            Operation.FILTER_BY_DATE.record(start);
+        }
+    }
+
+    /**
+     * Returns the tasks due on the days from {@code from} to {@code to}, both inclusive,
+     * ordered by due date and time.
+     * 
+     * @param from The first day of the range.
+     * @param to The last day of the range.
+     * @return The tasks due on the days of the range.
+     */
+    public List<Task> getTasksBetween(LocalDate from, LocalDate to) {
+        return getTasksBetween(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Finds the tasks whose subject or description contains, for every word of the query,
+     * a word starting with it. Case and Polish diacritics are ignored, so "lodz" finds "Łódź".
+     * 
+     * @param query The words to search for.
+     * @return The matching tasks ordered by ID; empty if the query has no words.
+     */
+    public List<Task> searchTasks(String query) {
+        long start = Metrics.start();
+        boolean locked = lockForReading();
+        try {
+            int[] ids = taskWords().search(query);
+            List<Task> result = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                result.add(tasks.get(id));
+            }
+            return result;
+        } finally {
+            unlockForReading(locked);
+            Operation.SEARCH_TASKS.record(start);
+        }
+    }
+
+    /**
+     * Finds the clients whose student name, parent name or description contains, for every
+     * word of the query, a word starting with it. Case and Polish diacritics are ignored.
+     * 
+     * @param query The words to search for.
+     * @return The matching clients ordered by ID; empty if the query has no words.
+     */
+    public List<Client> searchClients(String query) {
+        long start = Metrics.start();
+        boolean locked = lockForReading();
+        try {
+            int[] ids = clientWords.search(query);
+            List<Client> result = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                result.add(clients.get(id));
+            }
+            return result;
+        } finally {
+            unlockForReading(locked);
+            Operation.SEARCH_CLIENTS.record(start);
+        }
+    }
+
+    /**
+     * Returns the live list of all tasks, ordered by ID. The list is shared and
+     * follows the user for as long as it exists.
+     * 
+     * @return The live list of all tasks.
+     */
+    public LiveList<Task> getLiveTasks() {
+        boolean locked = lockForWriting();
+        try {
+            if (liveTasks == null) {
+                liveTasks = liveTasks(tasks.ids(), null, null);
+                liveTasks.setDisposer(null); // Shared, never disposed
+            }
+            return liveTasks;
+        } finally {
+            unlockForWriting(locked);
+        }
+    }
+
+    /**
+     * Returns a live list of the tasks with the given status, ordered by ID.
+     * Tasks enter and leave the list as their status changes. A repeating task is
+     * shown as its next occurrence.
+     * 
+     * @param status The status of the tasks.
+     * @return A new live list, to be disposed when no longer needed.
+     */
+    public LiveList<Task> getLiveTasksByStatus(TaskStatus status) {
+        long start = Metrics.start();
+        boolean locked = lockForReading();
+        try {
+            return liveTasks(ids(tasks.byStatus(status), Task::getTaskId), task -> task.getStatus() == status, null,
+                    id -> {
+                        Task task = tasks.get(id);
+                        return task == null ? null : upcoming().apply(task);
+                    });
+        } finally {
+            unlockForReading(locked);
+            Operation.FILTER_BY_STATUS.record(start);
+        }
+    }
+
+    /**
+     * Returns a live list of the tasks due on the days from {@code from} to {@code to},
+     * both inclusive, ordered by due date and time. A repeating task has a row for each
+     * of its occurrences due on these days; the occurrences are created when their rows
+     * are asked for (see {@link Task#isOccurrence()}).
+     * 
+     * @param from The first day of the range.
+     * @param to The last day of the range.
+     * @return A new live list, to be disposed when no longer needed.
+     * @see #getTasksBetween(LocalDate, LocalDate)
+     */
+    public LiveList<Task> getLiveTasksBetween(LocalDate from, LocalDate to) {
+        long start = Metrics.start();
+        long fromMinutes = Task.toEpochMinutes(from, LocalTime.MIDNIGHT);
+        long toMinutes = Task.toEpochMinutes(to.plusDays(1), LocalTime.MIDNIGHT);
+        boolean locked = lockForReading();
+        try {
+            List<Task> candidates = fromMinutes < toMinutes ? tasks.between(fromMinutes, toMinutes) : new ArrayList<>();
+            if (fromMinutes < toMinutes && !recurringTasks.isEmpty()) {
+                candidates.removeIf(Task::isRecurring);
+                candidates.addAll(recurringTaskList());
+            }
+            OccurrenceRows rows = new OccurrenceRows(this, tasks::get, candidates, fromMinutes, toMinutes);
+            listeners.add(rows);
+            rows.list().setDisposer(() -> listeners.remove(rows));
+            return rows.list();
+        } finally {
+            unlockForReading(locked);
+            Operation.FILTER_BY_DATE.record(start);
+        }
+    }
+
+    /**
+     * Returns a live list of the tasks matching a search query, ordered by ID.
+     * 
+     * @param query The words to search for.
+     * @return A new live list, to be disposed when no longer needed.
+     * @see #searchTasks(String)
+     */
+    public LiveList<Task> searchLiveTasks(String query) {
+        long start = Metrics.start();
+        boolean locked = lockForReading();
+        try {
+            return liveTasks(taskWords().search(query),
+                    task -> SearchIndex.matches(query, task.getSubject(), task.getDescription()), null);
+        } finally {
+            unlockForReading(locked);
+            Operation.SEARCH_TASKS.record(start);
+        }
+    }
+
+    /**
+     * Returns the live list of all clients, ordered by ID. The list is shared and
+     * follows the user for as long as it exists.
+     * 
+     * @return The live list of all clients.
+     */
+    public LiveList<Client> getLiveClients() {
+        boolean locked = lockForWriting();
+        try {
+            if (liveClients == null) {
+                liveClients = liveClients(clients.ids(), null);
+                liveClients.setDisposer(null); // Shared, never disposed
+            }
+            return liveClients;
+        } finally {
+            unlockForWriting(locked);
+        }
+    }
+
+    /**
+     * Returns a live list of the clients matching a search query, ordered by ID.
+     * 
+     * @param query The words to search for.
+     * @return A new live list, to be disposed when no longer needed.
+     * @see #searchClients(String)
+     */
+    public LiveList<Client> searchLiveClients(String query) {
+        long start = Metrics.start();
+        boolean locked = lockForReading();
+        try {
+            return liveClients(clientWords.search(query), client -> SearchIndex.matches(query,
+                    client.getStudentName(), client.getParentName(), client.getDescription()));
+        } finally {
+            unlockForReading(locked);
+            Operation.SEARCH_CLIENTS.record(start);
+        }
+    }
+
+    /**
+     * Creates a live list of tasks and registers it as a listener of this user.
+     * 
+     * @param initial the IDs of the tasks accepted by the filter, sorted by {@code order}
+     * @param order the order of the tasks, or {@code null} to order them by ID
+     */
+    private LiveList<Task> liveTasks(int[] initial, Predicate<Task> filter, Comparator<Task> order) {
+        return liveTasks(initial, filter, order, tasks::get);
+    }
+
+    /**
+     * Creates a live list of tasks showing each task as returned by a lookup, and registers
+     * it as a listener of this user.
+     * 
+     * @param lookup the task shown for an ID, or {@code null} if the user has none
+     */
+    private LiveList<Task> liveTasks(int[] initial, Predicate<Task> filter, Comparator<Task> order,
+            IntFunction<Task> lookup) {
+        LiveList<Task> list = new LiveList<>(initial, filter, order, Task::getTaskId, lookup);
+        UserListener listener = new UserListener() {
+            @Override
+            public void taskAdded(Task task) {
+                list.added(task);
+            }
+
+            @Override
+            public void taskRemoved(Task task) {
+                list.removed(task);
+            }
+
+            @Override
+            public void taskUpdated(Task task) {
+                list.updated(task);
+            }
+
+            @Override
+            public void clientRemoved(Client client) {
+                list.removedAll(removedClientTasks);
+            }
+        };
+        listeners.add(listener);
+        list.setDisposer(() -> listeners.remove(listener));
+        return list;
+    }
+
+    /**
+     * Creates a live list of clients and registers it as a listener of this user.
+     */
+    private LiveList<Client> liveClients(int[] initial, Predicate<Client> filter) {
+        LiveList<Client> list = new LiveList<>(initial, filter, null, Client::getClientId, clients::get);
+        UserListener listener = new UserListener() {
+            @Override
+            public void clientAdded(Client client) {
+                list.added(client);
+            }
+
+            @Override
+            public void clientRemoved(Client client) {
+                list.removed(client);
+            }
+
+            @Override
+            public void clientUpdated(Client client) {
+                list.updated(client);
+            }
+        };
+        listeners.add(listener);
+        list.setDisposer(() -> listeners.remove(listener));
+        return list;
+    }
 
     /**
      * Retrieves a client from the client's list by their unique ID.
      * 
      * @param client_id The unique identifier of the client to retrieve.
      * @return The client associated with the specified ID.
-     * @throws ValidationException if the client ID is out of range.
+     * @throws ValidationException if no client has the given ID.
      */
     public Client getClientById(int client_id) throws ValidationException {
-        if (client_id < 0 || client_id >= clientList.size()) {
+        Client client;
+        boolean locked = lockForReading();
+        try {
+            client = clients.get(client_id);
+        } finally {
+            unlockForReading(locked);
+        }
+        if (client == null) {
             throw ValidationException.clientNotFound(client_id);
         }
-        return this.clientList.get(client_id);
+        return client;
+    }
+
+    /**
+     * Retrieves a task by its unique ID.
+     * 
+     * @param taskId The unique identifier of the task to retrieve.
+     * @return The task associated with the specified ID.
+     * @throws ValidationException if no task has the given ID.
+     */
+    public Task getTaskById(int taskId) throws ValidationException {
+        Task task;
+        boolean locked = lockForReading();
+        try {
+            task = tasks.get(taskId);
+        } finally {
+            unlockForReading(locked);
+        }
+        if (task == null) {
+            throw ValidationException.taskNotFound(taskId);
+        }
+        return task;
+    }
+
+    /**
+     * Returns the IDs of the clients of the user in the order the clients were added.
+     * 
+     * @return A new array of the client IDs.
+     */
+    int[] getClientIds() {
+        boolean locked = lockForReading();
+        try {
+            return clients.ids();
+        } finally {
+            unlockForReading(locked);
+        }
+    }
+
+    /**
+     * Returns a detached copy of the fields of a task, taken under the read lock so that
+     * no change is seen half done.
+     * 
+     * @param taskId The ID of the task.
+     * @return The copy, or {@code null} if no task has the ID.
+     */
+    Task copyOfTask(int taskId) {
+        boolean locked = lockForReading();
+        try {
+            Task task = tasks.get(taskId);
+            return task == null ? null : task.copyFields();
+        } finally {
+            unlockForReading(locked);
+        }
+    }
+
+    /**
+     * Returns a detached copy of the fields of a client, taken under the read lock so that
+     * no change is seen half done.
+     * 
+     * @param clientId The ID of the client.
+     * @return The copy, or {@code null} if no client has the ID.
+     */
+    Client copyOfClient(int clientId) {
+        boolean locked = lockForReading();
+        try {
+            Client client = clients.get(clientId);
+            return client == null ? null : client.copyFields();
+        } finally {
+            unlockForReading(locked);
+        }
+    }
+
+    /**
+     * Returns the ID that will be assigned to the next added task.
+     * 
+     * @return The next task ID.
+     */
+    int getNextTaskId() {
+        boolean locked = lockForReading();
+        try {
+            return nextTaskId;
+        } finally {
+            unlockForReading(locked);
+        }
+    }
+
+    /**
+     * Returns the ID that will be assigned to the next added client.
+     * 
+     * @return The next client ID.
+     */
+    int getNextClientId() {
+        boolean locked = lockForReading();
+        try {
+            return nextClientId;
+        } finally {
+            unlockForReading(locked);
+        }
+    }
+
+    /**
+     * Moves the ID counters forward, so that IDs of removed entities are not reused.
+     * 
+     * @param taskId The lowest ID the next added task may get.
+     * @param clientId The lowest ID the next added client may get.
+     */
+    void reserveIds(int taskId, int clientId) {
+        boolean locked = lockForWriting();
+        try {
+            nextTaskId = Math.max(nextTaskId, taskId);
+            nextClientId = Math.max(nextClientId, clientId);
+        } finally {
+            unlockForWriting(locked);
+        }
+    }
+
+    /**
+     * Makes new IDs of tasks and clients those equal to {@code offset} modulo {@code stride},
+     * so that instances replicating each other with different offsets never assign the same
+     * ID. IDs assigned before, and those of restored entities, are kept.
+     * 
+     * @param stride the number of instances sharing the IDs, 1 for all IDs
+     * @param offset the offset of this instance, from 0 to {@code stride - 1}
+     */
+    void partitionIds(int stride, int offset) {
+        if (stride < 1 || offset < 0 || offset >= stride) {
+            throw new IllegalArgumentException("Invalid ID partition " + offset + " of " + stride);
+        }
+        boolean locked = lockForWriting();
+        try {
+            idStride = stride;
+            idOffset = offset;
+        } finally {
+            unlockForWriting(locked);
+        }
+    }
+
+    /**
+     * Returns the lowest ID of this instance's partition not lower than {@code lowest}.
+     */
+    private int allocateId(int lowest) {
+        return lowest + Math.floorMod(idOffset - lowest, idStride);
+    }
+
+    /**
+     * Returns the clock defining the current date for task statuses.
+     * 
+     * @return the clock
+     */
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Sets the clock defining the current date for task statuses and recalculates
+     * the status of every task. Intended for tests and simulations.
+     * 
+     * @param clock the new clock
+     */
+    public void setClock(Clock clock) {
+        boolean locked = lockForWriting();
+        try {
+            this.clock = clock;
+            this.today = null;
+            for (Task task : tasks.list()) {
+                updateTask(task, task::refreshStatus);
+            }
+        } finally {
+            unlockForWriting(locked);
+        }
+    }
+
+    /**
+     * Returns the current date according to the clock of this user.
+     * The date is cached for as long as the clock stays within that day.
+     * 
+     * @return the current date
+     */
+    LocalDate today() {
+        Clock current = clock;
+        Today cached = today;
+        long now = current.millis();
+        if (cached == null || now >= cached.endMillis() || now < cached.startMillis()) {
+            LocalDate date = LocalDate.now(current);
+            cached = new Today(date, date.atStartOfDay(current.getZone()).toInstant().toEpochMilli(),
+                    date.plusDays(1).atStartOfDay(current.getZone()).toInstant().toEpochMilli());
+            today = cached;
+        }
+        return cached.date();
+    }
+
+    /**
+     * Returns the undo history of this user, which records the changes made from the first
+     * call on.
+     * 
+     * @return the history of this user
+     */
+    public History getHistory() {
+        boolean locked = lockForWriting();
+        try {
+            if (history == null) {
+                history = new History(this);
+            }
+            return history;
+        } finally {
+            unlockForWriting(locked);
+        }
+    }
+
+    /**
+     * Returns the tasks removed together with the client whose removal is being reported.
+     * 
+     * @return the removed tasks, empty outside {@link UserListener#clientRemoved(Client)}
+     */
+    List<Task> removedClientTasks() {
+        return removedClientTasks;
+    }
+
+    /**
+     * Registers a recorder told about every change of this user, besides its listeners.
+     * 
+     * @param recorder the recorder to add
+     */
+    void addRecorder(ChangeRecorder recorder) {
+        recorders.add(recorder);
+    }
+
+    /**
+     * Unregisters a recorder added with {@link #addRecorder(ChangeRecorder)}.
+     * 
+     * @param recorder the recorder to remove
+     */
+    void removeRecorder(ChangeRecorder recorder) {
+        recorders.remove(recorder);
+    }
+
+    /**
+     * Registers a listener that is notified about every change of this user.
+     * 
+     * @param listener the listener to add
+     */
+    public void addListener(UserListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a previously added listener.
+     * 
+     * @param listener the listener to remove
+     */
+    public void removeListener(UserListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Applies an edit of several fields of one of this user's tasks as a single change.
+     * The copy is taken under the write lock, so no other change is lost.
+     * 
+     * @param task the task to change
+     * @param edit the setters to call on a copy of the task
+     * @throws ValidationException if a setter rejects its value
+     */
+    void editTask(Task task, Edit<Task> edit) throws ValidationException {
+        boolean locked = lockForWriting();
+        try {
+            Task current = tasks.get(task.getTaskId()); // The view may be out of date
+            Task copy = (current != null ? current : task).copyFields();
+            edit.apply(copy);
+            updateTask(task, () -> task.copyFrom(copy));
+        } finally {
+            unlockForWriting(locked);
+        }
+    }
+
+    /**
+     * Applies an edit of several fields of one of this user's clients as a single change.
+     * 
+     * @param client the client to change
+     * @param edit the setters to call on a copy of the client
+     * @throws ValidationException if a setter rejects its value
+     */
+    void editClient(Client client, Edit<Client> edit) throws ValidationException {
+        boolean locked = lockForWriting();
+        try {
+            Client current = clients.get(client.getClientId()); // The view may be out of date
+            Client copy = (current != null ? current : client).copyFields();
+            edit.apply(copy);
+            updateClient(client, () -> client.copyFrom(copy));
+        } finally {
+            unlockForWriting(locked);
+        }
+    }
+
+    /**
+     * Applies a change to one of this user's tasks. The task is taken out of the
+     * indexes before the change and put back afterwards, so the indexes follow
+     * changes of indexed fields such as the client ID, and the store keeps the
+     * changed fields. Listeners are notified if the change completes. A task
+     * that has been removed meanwhile is changed without touching the user.
+     * 
+     * @param task the task to change
+     * @param change the assignments to perform on the task
+     */
+    void updateTask(Task task, Runnable change) {
+        long start = Metrics.start();
+        boolean locked = lockForWriting();
+        try {
+            if (!tasks.contains(task.getTaskId())) {
+                change.run(); // A view of a removed task
+                return;
+            }
+            tasks.beforeUpdate(task); // Refreshes a view built before another change of the task
+            recorders.forEach(recorder -> recorder.beforeUpdate(task));
+            unindexWords(task);
+            try {
+                change.run();
+            } finally {
+                tasks.afterUpdate(task);
+                recurringTasks.set(task.getTaskId(), task.isRecurring());
+                indexWords(task);
+            }
+            listeners.forEach(listener -> listener.taskUpdated(task));
+        } finally {
+            unlockForWriting(locked);
+            Operation.TASK_UPDATE.record(start);
+        }
+    }
+
+    /**
+     * Applies a change to one of this user's clients, keeping the store and the search
+     * index in sync, and notifies the listeners if the change completes. A client that
+     * has been removed meanwhile is changed without touching the user.
+     * 
+     * @param client the client to change
+     * @param change the assignments to perform on the client
+     */
+    void updateClient(Client client, Runnable change) {
+        long start = Metrics.start();
+        boolean locked = lockForWriting();
+        try {
+            if (!clients.contains(client.getClientId())) {
+                change.run(); // A view of a removed client
+                return;
+            }
+            clients.beforeUpdate(client);
+            recorders.forEach(recorder -> recorder.beforeUpdate(client));
+            unindexClient(client);
+            try {
+                change.run();
+            } finally {
+                clients.afterUpdate(client);
+                indexClient(client);
+            }
+            listeners.forEach(listener -> listener.clientUpdated(client));
+        } finally {
+            unlockForWriting(locked);
+            Operation.CLIENT_UPDATE.record(start);
+        }
+    }
+
+    /**
+     * Acquires the read lock, unless the current thread holds the write lock. A thread
+     * waits while a change is made or waiting; it does not spin.
+     * 
+     * @return whether the lock was acquired, to pass to {@link #unlockForReading(boolean)}
+     */
+    private boolean lockForReading() {
+        if (lock.isWriteLockedByCurrentThread()) {
+            return false;
+        }
+        lock.readLock().lock();
+        return true;
+    }
+
+    /**
+     * Releases a read lock acquired with {@link #lockForReading()}.
+     * 
+     * @param locked whether the lock was acquired, as returned when locking
+     */
+    private void unlockForReading(boolean locked) {
+        if (locked) {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Acquires the write lock, unless the current thread already holds it. Code keeping
+     * its own state in step with the user, like a listener, takes it to see no change
+     * of the user while it works; the thread holding it may read and change the user.
+     * 
+     * @return whether the lock was acquired, to pass to {@link #unlockForWriting(boolean)};
+     *         false if the current thread already held it
+     */
+    boolean lockForWriting() {
+        if (lock.isWriteLockedByCurrentThread()) {
+            return false;
+        }
+        lock.writeLock().lock();
+        return true;
+    }
+
+    /**
+     * Releases a write lock acquired with {@link #lockForWriting()}.
+     * 
+     * @param locked whether the lock was acquired, as returned when locking
+     */
+    void unlockForWriting(boolean locked) {
+        if (locked) {
+            try {
+                // The outermost lock spans one change
+                recorders.forEach(ChangeRecorder::changeEnded);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Removes a task from the search index, using its current field values.
+     * 
+     * @param task the task to remove from the index
+     */
+    private void unindexWords(Task task) {
+        if (!taskWordsDeferred) {
+            taskWords.remove(task.getTaskId(), task.getSubject(), task.getDescription());
+        }
+    }
+
+    /**
+     * Adds a task to the search index, unless indexing is deferred to the first search.
+     * 
+     * @param task the task to index
+     */
+    private void indexWords(Task task) {
+        if (!taskWordsDeferred) {
+            taskWords.add(task.getTaskId(), task.getSubject(), task.getDescription());
+        }
+    }
+
+    /**
+     * Returns the search index of the tasks, first indexing all tasks if a bulk restore
+     * deferred it. Called under the read lock, so changes are excluded while the index is
+     * built, and searches build it one at a time.
+     * 
+     * @return the index of the task words
+     */
+    private SearchIndex taskWords() {
+        if (taskWordsDeferred) {
+            synchronized (taskWords) {
+                if (taskWordsDeferred) {
+                    for (Task task : tasks.list()) {
+                        taskWords.add(task.getTaskId(), task.getSubject(), task.getDescription());
+                    }
+                    taskWordsDeferred = false;
+                }
+            }
+        }
+        return taskWords;
+    }
+
+    /**
+     * Returns the tasks that repeat, in the order of their IDs.
+     * 
+     * @return a new list of the repeating tasks
+     */
+    private List<Task> recurringTaskList() {
+        List<Task> recurring = new ArrayList<>(recurringTasks.cardinality());
+        for (int id = recurringTasks.nextSetBit(0); id >= 0; id = recurringTasks.nextSetBit(id + 1)) {
+            recurring.add(tasks.get(id));
+        }
+        return recurring;
+    }
+
+    /**
+     * Returns the function showing a task as the occurrence its status is derived from today.
+     * 
+     * @return the function, returning tasks that do not repeat themselves
+     */
+    private UnaryOperator<Task> upcoming() {
+        long day = today().toEpochDay();
+        return task -> task.upcomingOccurrence(day);
+    }
+
+    /**
+     * Returns the IDs of tasks or clients in the order of the collection.
+     */
+    private static <T> int[] ids(Collection<T> items, ToIntFunction<? super T> idOf) {
+        int[] ids = new int[items.size()];
+        int i = 0;
+        for (T item : items) {
+            ids[i++] = idOf.applyAsInt(item);
+        }
+        return ids;
+    }
+
+    /**
+     * Adds a client to the search index.
+     * 
+     * @param client the client to index
+     */
+    private void indexClient(Client client) {
+        clientWords.add(client.getClientId(), client.getStudentName(), client.getParentName(),
+                client.getDescription());
+    }
+
+    /**
+     * Removes a client from the search index, using its current field values.
+     * 
+     * @param client the client to remove from the index
+     */
+    private void unindexClient(Client client) {
+        clientWords.remove(client.getClientId(), client.getStudentName(), client.getParentName(),
+                client.getDescription());
     }
 }
@@ -0,0 +1,66 @@
+package model;
+
+/**
+ * Receives notifications about changes made to the tasks and clients of a {@link User}.
+ *
+ * <p>Events are delivered after the change has been applied to the model. Setter
+ * commits on a {@link Task} or {@link Client} that belongs to a user are reported
+ * through {@link #taskUpdated(Task)} and {@link #clientUpdated(Client)}.</p>
+ *
+ * <p>Removing a client also removes all of its tasks; this is reported as a single
+ * {@link #clientRemoved(Client)} event.</p>
+ *
+ * @see User#addListener(UserListener)
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+public interface UserListener {
+
+    /**
+     * Called after a task was added to the user.
+     *
+     * @param task the added task, with its ID already assigned
+     */
+    default void taskAdded(Task task) {
+    }
+
+    /**
+     * Called after a task was removed from the user.
+     *
+     * @param task the removed task; its ID is the one it had when it was removed
+     */
+    default void taskRemoved(Task task) {
+    }
+
+    /**
+     * Called after a field of a task was changed.
+     *
+     * @param task the changed task
+     */
+    default void taskUpdated(Task task) {
+    }
+
+    /**
+     * Called after a client was added to the user.
+     *
+     * @param client the added client, with its ID already assigned
+     */
+    default void clientAdded(Client client) {
+    }
+
+    /**
+     * Called after a client and all of its tasks were removed from the user.
+     *
+     * @param client the removed client; its ID is the one it had when it was removed
+     */
+    default void clientRemoved(Client client) {
+    }
+
+    /**
+     * Called after a field of a client was changed.
+     *
+     * @param client the changed client
+     */
+    default void clientUpdated(Client client) {
+    }
+}
@@ -0,0 +1,548 @@
+package model;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Durable storage for a {@link User}, made of a compacted snapshot and an append-only journal.
+ *
+ * <p>Every change of the user (adding and removing tasks and clients, and every setter commit)
+ * is appended to the journal as soon as it happens. Once the journal holds
+ * {@link #DEFAULT_COMPACT_THRESHOLD} records, the whole user is written to a new snapshot, so
+ * opening the store only reads the snapshot and replays the short tail of changes made after
+ * it. A change survives the application stopping once the change is made; it reaches the
+ * storage device when the journal is rotated or the store is closed (see {@link Journal}).</p>
+ *
+ * <p>Compaction does not hold up the thread making changes. The change reaching the threshold
+ * only moves the journal aside, starts a new one and takes the IDs of the tasks and clients;
+ * a background thread then writes the snapshot of the user as it was at that change. Changes
+ * made meanwhile go on to the new journal, and the first change of each task or client keeps
+ * a copy of its fields from before, which the snapshot writes instead. The old journal is
+ * deleted once the snapshot is in place; until then, opening the store replays it too.</p>
+ *
+ * <p>Journal records carry increasing sequence numbers and the snapshot stores the sequence
+ * number of the last change it contains, so records that were already compacted are skipped
+ * if the application stopped between writing the snapshot and deleting the journal.</p>
+ *
+ * <p>A change is never rejected because it could not be stored: it was already made to the
+ * user when it is recorded. A failure to append to the journal or to compact it is kept as
+ * {@link #getFailure()} and passed to the failure handler instead. After a failed append the
+ * journal is no longer appended to, and the changes are kept only in memory until the next
+ * {@link #snapshot()} or {@link #close()} writes the whole user and starts a new journal.</p>
+ *
+ * <pre>
+ * UserStore store = UserStore.open(Path.of("data"));
+ * User user = store.getUser();
+ * ...
+ * store.close();
+ * </pre>
+ *
+ * @see Journal
+ * @author Błażej Sztefka
+ * @version 1.3
+ */
+public final class UserStore implements Closeable {
+
+    /** Number of journal records after which the journal is compacted into a new snapshot. */
+    public static final int DEFAULT_COMPACT_THRESHOLD = 100_000;
+
+    static final String SNAPSHOT_FILE = "snapshot.bin";
+    static final String JOURNAL_FILE = "journal.bin";
+    static final String OLD_JOURNAL_FILE = "journal.old.bin";
+
+    private static final int SNAPSHOT_MAGIC = 0x544D534E; // "TMSN"
+    private static final int SNAPSHOT_VERSION = 3;
+    // Tasks of a snapshot restored under one lock of the user
+    private static final int RESTORE_BATCH = 4096;
+
+    private final Path directory;
+    private final User user;
+    private final int compactThreshold;
+    private final Recorder recorder = new Recorder();
+    private final ExecutorService snapshotWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by the write lock of the user
+    private Journal journal;
+    private long sequence;
+    private Future<?> pendingSnapshot;
+    private boolean journalFailed;
+
+    // The user as of the compaction being written in the background, or null
+    private volatile Capture capture;
+    // The first failure since the last snapshot, or null
+    private volatile IOException failure;
+    private volatile Consumer<? super IOException> failureHandler = e -> {
+    };
+
+    /**
+     * The state of the user at the change that started a compaction: its IDs, and the fields
+     * of the tasks and clients changed or removed since, as they were before.
+     */
+    private static final class Capture {
+
+        final long sequence;
+        final int nextTaskId;
+        final int nextClientId;
+        final int[] clientIds;
+        final int[] taskIds;
+        final Map<Integer, Client> clientsBefore = new ConcurrentHashMap<>();
+        final Map<Integer, Task> tasksBefore = new ConcurrentHashMap<>();
+
+        Capture(long sequence, int nextTaskId, int nextClientId, int[] clientIds, int[] taskIds) {
+            this.sequence = sequence;
+            this.nextTaskId = nextTaskId;
+            this.nextClientId = nextClientId;
+            this.clientIds = clientIds;
+            this.taskIds = taskIds;
+        }
+    }
+
+    private UserStore(Path directory, User user, Journal journal, long sequence, int compactThreshold) {
+        this.directory = directory;
+        this.user = user;
+        this.journal = journal;
+        this.sequence = sequence;
+        this.compactThreshold = compactThreshold;
+    }
+
+    /**
+     * Opens the store in the given directory using the default compaction threshold.
+     *
+     * @param directory the directory holding the snapshot and journal files
+     * @return the opened store
+     * @throws IOException if the files cannot be read or written
+     * @see #open(Path, int)
+     */
+    public static UserStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_COMPACT_THRESHOLD);
+    }
+
+    /**
+     * Opens the store in the given directory, loading the snapshot and replaying the journal.
+     * If the directory holds no data yet, the store starts with the sample data of {@link User#User()}.
+     *
+     * @param directory the directory holding the snapshot and journal files
+     * @param compactThreshold the number of journal records after which a snapshot is written
+     * @return the opened store
+     * @throws IOException if the files cannot be read or written, or if they are corrupted
+     */
+    public static UserStore open(Path directory, int compactThreshold) throws IOException {
+        Files.createDirectories(directory);
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        Path journalFile = directory.resolve(JOURNAL_FILE);
+        boolean fresh = !Files.exists(snapshot) && !Files.exists(journalFile);
+
+        Path oldJournalFile = directory.resolve(OLD_JOURNAL_FILE);
+        boolean compacting = Files.exists(oldJournalFile);
+
+        User user = new User(fresh, TaskStorage.configured());
+        long snapshotSequence = fresh ? 0 : readSnapshot(snapshot, user);
+        long[] last = {snapshotSequence};
+        Journal.RecordHandler handler = (type, seq, in) -> {
+            if (seq > snapshotSequence) {
+                apply(user, type, in);
+                last[0] = seq;
+            }
+        };
+        Journal journal;
+        try {
+            if (compacting) {
+                Journal.replay(oldJournalFile, handler).close(); // The application stopped while compacting
+            }
+            journal = Journal.replay(journalFile, handler);
+        } catch (ValidationException e) {
+            throw new IOException("Journal does not match the snapshot: " + e.getMessage(), e);
+        }
+
+        UserStore store = new UserStore(directory, user, journal, last[0], compactThreshold);
+        if (fresh || compacting) {
+            store.snapshot();
+        }
+        user.addListener(store.recorder);
+        user.addRecorder(store.recorder);
+        return store;
+    }
+
+    /**
+     * Returns the user kept in this store.
+     *
+     * @return the user
+     */
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * Returns the first failure to store a change of the user since the last snapshot was
+     * written, if any. The failure is cleared by the next successful {@link #snapshot()}.
+     *
+     * @return the failure, or {@code null} if every change since the last snapshot was stored
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Sets the handler receiving the failures to store changes of the user, which would
+     * otherwise only be kept as {@link #getFailure()}. Only the first failure since the last
+     * snapshot is passed. The handler is called on the background thread writing snapshots,
+     * never under the lock of the user, and should return quickly.
+     *
+     * @param handler the handler receiving each failure
+     */
+    public void setFailureHandler(Consumer<? super IOException> handler) {
+        failureHandler = handler;
+    }
+
+    /**
+     * Writes the current state of the user to a new snapshot and clears the journal.
+     * A compaction running in the background is waited for first. Changes of the user wait
+     * until the snapshot is written, so that the snapshot and the journal agree.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void snapshot() throws IOException {
+        while (true) {
+            awaitCompaction();
+            boolean locked = user.lockForWriting();
+            try {
+                if (capture != null) {
+                    continue; // Another compaction started meanwhile
+                }
+                writeSnapshot(new Capture(sequence, user.getNextTaskId(), user.getNextClientId(),
+                        user.getClientIds(), user.getTaskIds()));
+                Files.deleteIfExists(directory.resolve(OLD_JOURNAL_FILE));
+                if (journalFailed) {
+                    journal.abandon();
+                    journal = Journal.create(directory.resolve(JOURNAL_FILE));
+                    journalFailed = false;
+                } else {
+                    journal.reset();
+                }
+                failure = null;
+                return;
+            } finally {
+                user.unlockForWriting(locked);
+            }
+        }
+    }
+
+    /**
+     * Waits until the compaction running in the background, if any, has ended.
+     */
+    private void awaitCompaction() throws IOException {
+        Future<?> pending;
+        boolean locked = user.lockForWriting();
+        try {
+            pending = pendingSnapshot;
+        } finally {
+            user.unlockForWriting(locked);
+        }
+        if (pending == null) {
+            return;
+        }
+        try {
+            pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the snapshot", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Snapshot failed", e.getCause());
+        }
+    }
+
+    /**
+     * Moves the journal aside and starts writing the snapshot of the user in the background.
+     * Called at the end of the change reaching the compaction threshold, under the write lock.
+     */
+    private void startCompaction() throws IOException {
+        Path journalFile = directory.resolve(JOURNAL_FILE);
+        Path oldJournalFile = directory.resolve(OLD_JOURNAL_FILE);
+        if (Files.exists(oldJournalFile)) {
+            return; // A failed compaction left it; the next snapshot() or close() folds it in
+        }
+        journalFailed = true; // Until the new journal is in place
+        journal.close();
+        Files.move(journalFile, oldJournalFile, StandardCopyOption.ATOMIC_MOVE);
+        journal = Journal.create(journalFile);
+        journalFailed = false;
+        Capture started = new Capture(sequence, user.getNextTaskId(), user.getNextClientId(),
+                user.getClientIds(), user.getTaskIds());
+        capture = started;
+        pendingSnapshot = snapshotWriter.submit(() -> {
+            try {
+                writeSnapshot(started);
+                Files.delete(oldJournalFile);
+            } catch (IOException | RuntimeException e) {
+                report(e instanceof IOException io ? io : new IOException(e));
+            } finally {
+                capture = null;
+            }
+        });
+    }
+
+    /**
+     * Writes a snapshot of the user as captured. The tasks and clients are read one at a time,
+     * each under the read lock of the user, so the writing may run beside changes of the user.
+     */
+    private void writeSnapshot(Capture state) throws IOException {
+        Path target = directory.resolve(SNAPSHOT_FILE);
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(state.sequence);
+            out.writeInt(state.nextTaskId);
+            out.writeInt(state.nextClientId);
+            out.writeInt(state.clientIds.length);
+            for (int clientId : state.clientIds) {
+                Client current = user.copyOfClient(clientId);
+                Client before = state.clientsBefore.get(clientId); // Looked up after reading the current fields
+                Journal.writeClient(out, before != null ? before : current);
+            }
+            out.writeInt(state.taskIds.length);
+            for (int taskId : state.taskIds) {
+                Task current = user.copyOfTask(taskId);
+                Task before = state.tasksBefore.get(taskId);
+                Journal.writeTask(out, before != null ? before : current);
+            }
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes a final snapshot and closes the journal. Changes made to the user
+     * afterwards are no longer recorded.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        user.removeListener(recorder);
+        user.removeRecorder(recorder);
+        try {
+            snapshot();
+        } finally {
+            snapshotWriter.shutdown();
+            if (journalFailed) {
+                journal.abandon();
+            } else {
+                journal.close();
+            }
+        }
+    }
+
+    /**
+     * Reads a snapshot into an empty user. The file is read once, and its checksum is computed
+     * while it is parsed; a user read from a damaged file is thrown away with the exception.
+     *
+     * @return the sequence number of the last change contained in the snapshot
+     */
+    private static long readSnapshot(Path file, User user) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size() - Integer.BYTES;
+            if (length < 0) {
+                throw new IOException("Snapshot checksum mismatch: " + file);
+            }
+            ChannelInput in = new ChannelInput(channel, 1 << 16, length);
+            int magic = in.readInt();
+            int version = in.readInt();
+            if (magic != SNAPSHOT_MAGIC || version < 1 || version > SNAPSHOT_VERSION) {
+                throw new IOException("Unsupported snapshot file: " + file);
+            }
+            long sequence = in.readLong();
+            if (version >= 2) {
+                user.reserveIds(in.readInt(), in.readInt());
+            }
+            int clients = in.readInt();
+            for (int i = 0; i < clients; i++) {
+                user.restoreClient(Journal.readClient(in));
+            }
+            int tasks = in.readInt();
+            user.ensureTaskCapacity(tasks);
+            List<Task> batch = new ArrayList<>(RESTORE_BATCH);
+            for (int i = 0; i < tasks; i++) {
+                batch.add(Journal.readTask(in, version >= 3));
+                if (batch.size() == RESTORE_BATCH || i == tasks - 1) {
+                    user.restoreTasks(batch);
+                    batch.clear();
+                }
+            }
+            if (in.position() != length || in.readInt() != (int) in.checksum()) {
+                throw new IOException("Snapshot checksum mismatch: " + file);
+            }
+            return sequence;
+        } catch (ValidationException | RuntimeException e) {
+            throw new IOException("Corrupted snapshot file: " + file, e);
+        }
+    }
+
+    /**
+     * Applies a single journal record to the user.
+     */
+    private static void apply(User user, byte type, DataInput in) throws IOException, ValidationException {
+        switch (type) {
+            case Journal.ADD_TASK -> user.restoreTask(Journal.readTask(in));
+            case Journal.ADD_TASK_WITHOUT_RECURRENCE -> user.restoreTask(Journal.readTask(in, false));
+            case Journal.ADD_CLIENT -> user.restoreClient(Journal.readClient(in));
+            case Journal.REMOVE_TASK -> user.removeTask(in.readInt());
+            case Journal.REMOVE_CLIENT -> user.removeClient(in.readInt());
+            case Journal.UPDATE_TASK, Journal.UPDATE_TASK_WITHOUT_RECURRENCE -> {
+                Task changed = Journal.readTask(in, type == Journal.UPDATE_TASK);
+                Task task = user.getTaskById(changed.getTaskId());
+                user.updateTask(task, () -> task.copyFrom(changed));
+            }
+            case Journal.UPDATE_CLIENT -> {
+                Client changed = Journal.readClient(in);
+                Client client = user.getClientById(changed.getClientId());
+                user.updateClient(client, () -> client.copyFrom(changed));
+            }
+            default -> throw new IOException("Unknown journal record type: " + type);
+        }
+    }
+
+    /**
+     * Appends a record for a change, unless an earlier append failed.
+     */
+    private void record(byte type, Journal.PayloadWriter payload) {
+        if (journalFailed) {
+            return; // The record could follow a torn one, which would hide it on replay
+        }
+        try {
+            journal.append(type, ++sequence, payload);
+        } catch (IOException e) {
+            journalFailed = true;
+            report(new IOException("Journal failed; changes are kept in memory until the next snapshot", e));
+        }
+    }
+
+    /**
+     * Keeps a failure unless an earlier one is still kept, and passes it to the handler on the
+     * snapshot writer, away from the lock of the user held by a change being recorded.
+     */
+    private void report(IOException e) {
+        synchronized (this) {
+            if (failure != null) {
+                return;
+            }
+            failure = e;
+        }
+        Consumer<? super IOException> handler = failureHandler;
+        try {
+            snapshotWriter.execute(() -> handler.accept(e));
+        } catch (RejectedExecutionException closed) {
+            // The store is closed; the failure stays kept
+        }
+    }
+
+    /**
+     * Listener translating the changes of the user into journal records, and keeping the
+     * fields of changed tasks and clients from before the change while a compaction runs.
+     */
+    private final class Recorder implements UserListener, ChangeRecorder {
+
+        @Override
+        public void beforeUpdate(Task task) {
+            Capture state = capture;
+            if (state != null) {
+                state.tasksBefore.computeIfAbsent(task.getTaskId(), id -> task.copyFields());
+            }
+        }
+
+        @Override
+        public void beforeUpdate(Client client) {
+            Capture state = capture;
+            if (state != null) {
+                state.clientsBefore.computeIfAbsent(client.getClientId(), id -> client.copyFields());
+            }
+        }
+
+        @Override
+        public void changeEnded() {
+            // Compactions start between changes, so that every record before is in the snapshot
+            if (journal.size() >= compactThreshold && capture == null && !journalFailed) {
+                try {
+                    startCompaction();
+                } catch (IOException e) {
+                    report(e);
+                }
+            }
+        }
+
+        @Override
+        public void taskAdded(Task task) {
+            record(Journal.ADD_TASK, out -> Journal.writeTask(out, task));
+        }
+
+        @Override
+        public void taskRemoved(Task task) {
+            Capture state = capture;
+            if (state != null) {
+                state.tasksBefore.computeIfAbsent(task.getTaskId(), id -> task.copyFields());
+            }
+            record(Journal.REMOVE_TASK, out -> out.writeInt(task.getTaskId()));
+        }
+
+        @Override
+        public void taskUpdated(Task task) {
+            record(Journal.UPDATE_TASK, out -> Journal.writeTask(out, task));
+        }
+
+        @Override
+        public void clientAdded(Client client) {
+            record(Journal.ADD_CLIENT, out -> Journal.writeClient(out, client));
+        }
+
+        @Override
+        public void clientRemoved(Client client) {
+            Capture state = capture;
+            if (state != null) {
+                state.clientsBefore.computeIfAbsent(client.getClientId(), id -> client.copyFields());
+                for (Task task : user.removedClientTasks()) {
+                    state.tasksBefore.computeIfAbsent(task.getTaskId(), id -> task.copyFields());
+                }
+            }
+            record(Journal.REMOVE_CLIENT, out -> out.writeInt(client.getClientId()));
+        }
+
+        @Override
+        public void clientUpdated(Client client) {
+            record(Journal.UPDATE_CLIENT, out -> Journal.writeClient(out, client));
+        }
+    }
+}
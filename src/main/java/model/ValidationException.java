@@ -1,12 +1,17 @@
 package model;
 
+import metrics.ValidationFailure;
+
 /**
  * Custom exception class for validation-related errors in the application.
  * It extends the Exception class and provides specific static methods 
  * to throw meaningful validation exceptions in various contexts.
  * 
+ * <p>Every exception created is counted by its kind in {@link ValidationFailure}, so the
+ * rates of the failures can be followed in a running application.</p>
+ * 
  * @author Błażej Sztefka
- * @version 1.1
+ * @version 1.2
  */
 public class ValidationException extends Exception {
 
@@ -16,7 +21,18 @@ public class ValidationException extends Exception {
      * @param message The detail message of the exception.
      */
     public ValidationException(String message) {
+        this(message, ValidationFailure.OTHER);
+    }
+
+    /**
+     * Constructs a new ValidationException with the specified detail message and counts it.
+     * 
+     * @param message The detail message of the exception.
+     * @param failure The kind of failure to count the exception as.
+     */
+    private ValidationException(String message, ValidationFailure failure) {
         super(message);
+        failure.increment();
     }
 
     /**
@@ -26,7 +42,8 @@ public class ValidationException extends Exception {
      * @return A ValidationException indicating the client was not found.
      */
     public static ValidationException clientNotFound(int clientId) {
-        return new ValidationException("Client with ID " + clientId + " does not exist.");
+        return new ValidationException("Client with ID " + clientId + " does not exist.",
+                ValidationFailure.CLIENT_NOT_FOUND);
     }
 
     /**
@@ -36,7 +53,8 @@ public class ValidationException extends Exception {
      * @return A ValidationException indicating the task was not found.
      */
     public static ValidationException taskNotFound(int taskId) {
-        return new ValidationException("Task with ID " + taskId + " does not exist.");
+        return new ValidationException("Task with ID " + taskId + " does not exist.",
+                ValidationFailure.TASK_NOT_FOUND);
     }
 
     /**
@@ -47,6 +65,7 @@ public class ValidationException extends Exception {
      * @return A ValidationException indicating the phone number is invalid.
      */
     public static ValidationException invalidPhoneNumber(String phoneNumber) {
-        return new ValidationException("Phone number " + phoneNumber + " is invalid. It should contain exactly 9 digits.");
+        return new ValidationException("Phone number " + phoneNumber + " is invalid. It should contain exactly 9 digits.",
+                ValidationFailure.INVALID_PHONE_NUMBER);
     }
 }
@@ -0,0 +1,81 @@
+package model;
+
+import java.io.IOException;
+
+/**
+ * A named {@link User} loaded from its own {@link UserStore}, together with the
+ * {@link StatusScheduler} keeping the statuses of its tasks up to date and the
+ * {@link ReminderScheduler} reminding of them before they are due.
+ *
+ * <p>Workspaces are opened and closed by {@link Workspaces}; a workspace that was evicted
+ * is closed and its user no longer saved, so it should not be kept after being evicted.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.1
+ */
+public final class Workspace {
+
+    private final String name;
+    private final UserStore store;
+    private final StatusScheduler statusScheduler;
+    private final ReminderScheduler reminderScheduler;
+
+    Workspace(String name, UserStore store) {
+        this.name = name;
+        this.store = store;
+        this.statusScheduler = new StatusScheduler(store.getUser());
+        this.reminderScheduler = new ReminderScheduler(store.getUser(), ReminderScheduler.configuredLead());
+    }
+
+    /**
+     * Returns the name of this workspace.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the user of this workspace.
+     *
+     * @return the user
+     */
+    public User getUser() {
+        return store.getUser();
+    }
+
+    /**
+     * Returns the scheduler refreshing the task statuses of the user of this workspace.
+     *
+     * @return the scheduler
+     */
+    public StatusScheduler getStatusScheduler() {
+        return statusScheduler;
+    }
+
+    /**
+     * Returns the scheduler reminding of the tasks of the user of this workspace.
+     *
+     * @return the scheduler
+     */
+    public ReminderScheduler getReminderScheduler() {
+        return reminderScheduler;
+    }
+
+    /**
+     * Stops the schedulers and closes the store, writing a final snapshot.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    void close() throws IOException {
+        statusScheduler.stop();
+        reminderScheduler.stop();
+        store.close();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
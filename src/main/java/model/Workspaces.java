@@ -0,0 +1,277 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Named {@link Workspace}s, each with its own {@link User} kept in its own {@link UserStore},
+ * of which only the most recently used are kept in memory.
+ *
+ * <p>A workspace is loaded from its store the first time it is asked for with
+ * {@link #get(String)}. At most a given number of workspaces stay resident; when another one
+ * is loaded, the least recently used one is evicted: its eviction listeners are called, so
+ * that views showing its user can be dropped, and it is closed, which writes a final snapshot
+ * of its user. Asking for a resident workspace only moves it to the front of the order, so the
+ * memory used depends on the number of resident workspaces, not on the number of
+ * workspaces stored.</p>
+ *
+ * <p>The {@value #DEFAULT} workspace is stored in the root directory itself, where a single
+ * {@link UserStore} was kept before there were workspaces; the others are stored in the
+ * {@code workspaces} directory under it, one directory per workspace.</p>
+ *
+ * <pre>
+ * Workspaces workspaces = new Workspaces(Path.of("data"), 4, null);
+ * User user = workspaces.get("Anna").getUser();
+ * ...
+ * workspaces.close();
+ * </pre>
+ *
+ * <p>The methods are synchronized, so the workspaces may be used from any thread. Eviction
+ * listeners are called on the thread loading the workspace that caused the eviction. Failure
+ * listeners are called on the background thread of the store that failed (see
+ * {@link UserStore#setFailureHandler(Consumer)}).</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.1
+ */
+public final class Workspaces implements Closeable {
+
+    /** The name of the workspace stored in the root directory. */
+    public static final String DEFAULT = "default";
+
+    /** The number of resident workspaces used when none is configured. */
+    public static final int DEFAULT_RESIDENT = 4;
+
+    static final String WORKSPACES_DIRECTORY = "workspaces";
+
+    // Letters, digits, spaces, '-' and '_', starting with a letter or digit, so names are safe file names
+    private static final Pattern NAME = Pattern.compile("[\\p{L}\\p{N}][\\p{L}\\p{N} _-]{0,39}");
+
+    private final Path root;
+    private final int resident;
+    private final Executor statusExecutor;
+    // Resident workspaces by name, the least recently used first
+    private final LinkedHashMap<String, Workspace> loaded = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<Consumer<Workspace>> evictionListeners = new CopyOnWriteArrayList<>();
+    private final List<BiConsumer<Workspace, IOException>> failureListeners = new CopyOnWriteArrayList<>();
+    private boolean closed;
+
+    /**
+     * Creates the workspaces stored under a root directory. No workspace is loaded yet.
+     *
+     * @param root the directory holding the default workspace and the {@code workspaces} directory
+     * @param resident the maximum number of workspaces kept in memory, at least 1
+     * @param statusExecutor the executor running the status ticks of each loaded workspace
+     *        (see {@link StatusScheduler#start(Executor)}), or {@code null} to not start them
+     */
+    public Workspaces(Path root, int resident, Executor statusExecutor) {
+        if (resident < 1) {
+            throw new IllegalArgumentException("At least one workspace must be resident: " + resident);
+        }
+        this.root = root;
+        this.resident = resident;
+        this.statusExecutor = statusExecutor;
+    }
+
+    /**
+     * Returns the names of the stored workspaces: the default workspace first, then the
+     * others in alphabetical order. No workspace is loaded.
+     *
+     * @return the names of the workspaces
+     * @throws IOException if the workspaces directory cannot be listed
+     */
+    public List<String> names() throws IOException {
+        List<String> names = new ArrayList<>();
+        Path directory = root.resolve(WORKSPACES_DIRECTORY);
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, Files::isDirectory)) {
+                for (Path entry : entries) {
+                    String name = entry.getFileName().toString();
+                    if (NAME.matcher(name).matches() && !name.equalsIgnoreCase(DEFAULT)) {
+                        names.add(name);
+                    }
+                }
+            }
+        }
+        names.sort(String.CASE_INSENSITIVE_ORDER);
+        names.add(0, DEFAULT);
+        return names;
+    }
+
+    /**
+     * Returns a workspace, loading it from its store if it is not resident, and makes it the
+     * most recently used one. A workspace that does not exist yet is created with the sample
+     * data of {@link User#User()}. Loading a workspace may evict the least recently used one.
+     *
+     * <p>Names are matched ignoring case, so that they can be stored on any file system; a
+     * stored workspace keeps the name it was created with.</p>
+     *
+     * @param name the name of the workspace
+     * @return the resident workspace
+     * @throws ValidationException if the name is not a valid workspace name
+     * @throws IOException if the workspace cannot be loaded, or an evicted one cannot be saved;
+     *         in the latter case the workspace was loaded and the next call returns it
+     */
+    public synchronized Workspace get(String name) throws ValidationException, IOException {
+        if (closed) {
+            throw new IllegalStateException("The workspaces are closed");
+        }
+        String stored = storedName(name);
+        Workspace workspace = loaded.get(stored);
+        if (workspace != null) {
+            return workspace;
+        }
+        UserStore store = UserStore.open(directory(stored));
+        Workspace opened = new Workspace(stored, store);
+        store.setFailureHandler(failure -> failureListeners.forEach(listener -> listener.accept(opened, failure)));
+        workspace = opened;
+        loaded.put(stored, workspace);
+        if (statusExecutor != null) {
+            workspace.getStatusScheduler().start(statusExecutor);
+        }
+        evictOverflow();
+        return workspace;
+    }
+
+    /**
+     * Returns whether a workspace is loaded, without changing the order of use.
+     *
+     * @param name the name of the workspace
+     * @return {@code true} if the workspace is resident
+     */
+    public synchronized boolean isResident(String name) {
+        for (String loadedName : loaded.keySet()) {
+            if (loadedName.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the names of the resident workspaces, the least recently used first.
+     *
+     * @return the names of the loaded workspaces
+     */
+    public synchronized List<String> residentNames() {
+        return List.copyOf(loaded.keySet());
+    }
+
+    /**
+     * Registers a listener called with each workspace evicted, before it is closed.
+     *
+     * @param listener the listener to add
+     */
+    public void addEvictionListener(Consumer<Workspace> listener) {
+        evictionListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener registered with {@link #addEvictionListener(Consumer)}.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeEvictionListener(Consumer<Workspace> listener) {
+        evictionListeners.remove(listener);
+    }
+
+    /**
+     * Registers a listener called when a change of the user of a workspace cannot be stored.
+     * The change is kept in memory and stored by the snapshot written when the workspace is
+     * closed.
+     *
+     * @param listener the listener to add, receiving the workspace and the failure
+     */
+    public void addFailureListener(BiConsumer<Workspace, IOException> listener) {
+        failureListeners.add(listener);
+    }
+
+    /**
+     * Closes all resident workspaces, writing a final snapshot of each. Eviction listeners
+     * are not called.
+     *
+     * @throws IOException if a snapshot cannot be written; the other workspaces are still closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        IOException failure = null;
+        for (Workspace workspace : loaded.values()) {
+            failure = close(workspace, failure);
+        }
+        loaded.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Evicts the least recently used workspaces until no more than the resident limit are loaded.
+     */
+    private void evictOverflow() throws IOException {
+        IOException failure = null;
+        Iterator<Workspace> eldest = loaded.values().iterator();
+        while (loaded.size() > resident) {
+            Workspace workspace = eldest.next();
+            eldest.remove();
+            evictionListeners.forEach(listener -> listener.accept(workspace));
+            failure = close(workspace, failure);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static IOException close(Workspace workspace, IOException failure) {
+        try {
+            workspace.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                return e;
+            }
+            failure.addSuppressed(e);
+        }
+        return failure;
+    }
+
+    /**
+     * Validates a workspace name and returns the name of the loaded or stored workspace
+     * matching it ignoring case, or the name itself for a new workspace.
+     */
+    private String storedName(String name) throws ValidationException, IOException {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new ValidationException("Invalid workspace name: " + name
+                    + ". Use up to 40 letters, digits, spaces, '-' and '_', starting with a letter or digit.");
+        }
+        if (name.equalsIgnoreCase(DEFAULT)) {
+            return DEFAULT;
+        }
+        for (String loadedName : loaded.keySet()) {
+            if (loadedName.equalsIgnoreCase(name)) {
+                return loadedName;
+            }
+        }
+        for (String storedName : names()) {
+            if (storedName.equalsIgnoreCase(name)) {
+                return storedName;
+            }
+        }
+        return name;
+    }
+
+    private Path directory(String name) {
+        return name.equals(DEFAULT) ? root : root.resolve(WORKSPACES_DIRECTORY).resolve(name);
+    }
+}
@@ -3,6 +3,9 @@ module com.mycompany.taskmanager_gui {
     requires javafx.fxml;
     requires java.base;
     requires lombok;
+    requires java.management;
+    requires jdk.jfr;
+    requires jdk.httpserver;
 
     opens com.mycompany.taskmanager_gui to javafx.fxml;
     opens controller to javafx.fxml;
@@ -10,4 +13,7 @@ module com.mycompany.taskmanager_gui {
     exports com.mycompany.taskmanager_gui;
     exports controller;
     exports model;
+    exports transfer;
+    exports metrics;
+    exports api;
 }
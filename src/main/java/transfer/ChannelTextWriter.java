@@ -0,0 +1,100 @@
+package transfer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes text to a file in UTF-8 through a {@link FileChannel}, one line at a time.
+ *
+ * <p>A line is built in a reused {@link StringBuilder}, returned by {@link #line()}, and
+ * encoded into a reused buffer by {@link #endLine(String)}. The buffer is written to the
+ * channel whenever it fills up, so the memory taken does not depend on the amount of
+ * text written.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+final class ChannelTextWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final StringBuilder line = new StringBuilder(256);
+
+    /**
+     * Opens a file for writing, replacing its contents.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be opened
+     */
+    ChannelTextWriter(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Returns the line being built, to be appended to.
+     *
+     * @return the line builder
+     */
+    StringBuilder line() {
+        return line;
+    }
+
+    /**
+     * Writes the line built so far followed by a line separator, and starts a new line.
+     *
+     * @param separator the line separator
+     * @throws IOException if writing fails
+     */
+    void endLine(String separator) throws IOException {
+        line.append(separator);
+        CharBuffer chars = CharBuffer.wrap(line);
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                flush();
+            } else if (result.isUnderflow()) {
+                break;
+            } else {
+                throw new CharacterCodingException();
+            }
+        }
+        encoder.reset();
+        line.setLength(0);
+    }
+
+    /**
+     * Writes the buffered text to the file and closes it.
+     *
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try (channel) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,348 @@
+package transfer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import model.Client;
+import model.Task;
+import model.User;
+import model.ValidationException;
+
+/**
+ * Imports clients or tasks from a CSV file into a {@link User}.
+ *
+ * <p>The first line of the file names the columns, in any order and case:</p>
+ * <ul>
+ *   <li>clients: {@code studentName}, {@code parentName}, {@code phoneNumber} and
+ *       {@code description};</li>
+ *   <li>tasks: {@code subject}, {@code description}, {@code clientId}, {@code date}
+ *       ({@code yyyy-MM-dd}) and {@code time} ({@code HH:mm}).</li>
+ * </ul>
+ * <p>The {@code phoneNumber} and {@code description} columns are optional.</p>
+ *
+ * <p>The import runs on the calling thread, which is meant to be a background thread.
+ * Every row is checked with the validation rules of {@link Client} and {@link Task}; rows
+ * failing them are reported in the {@link ImportResult} and skipped. Valid rows are
+ * collected into batches of {@link #BATCH_SIZE}, which are added to the user by tasks run
+ * on the publishing executor, typically {@code Platform::runLater}. Each such task adds
+ * the waiting batches for at most a few milliseconds, so that the JavaFX thread stays
+ * responsive, and only one is scheduled at a time. At most {@link #MAX_PENDING_BATCHES}
+ * batches wait to be added; reading pauses when the publishing thread falls behind.</p>
+ *
+ * <p>An import stops at the next row once cancelled or interrupted. Rows already added
+ * stay in the user, and batches still waiting are dropped.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+public final class CsvImport {
+
+    /** Number of rows added to the user at once. */
+    public static final int BATCH_SIZE = 500;
+
+    /** Number of batches that may wait to be added before reading pauses. */
+    public static final int MAX_PENDING_BATCHES = 8;
+
+    /** Number of rejected rows whose error is kept in the result. */
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    // Time the publishing thread spends adding batches before letting other work run
+    private static final long PUBLISH_NANOS = TimeUnit.MILLISECONDS.toNanos(8);
+
+    /**
+     * Converts the fields of a row into an entity, applying its validation rules.
+     */
+    @FunctionalInterface
+    private interface RowParser<T> {
+        T parse(List<String> row) throws ValidationException;
+    }
+
+    private final User user;
+    private final Executor publisher;
+
+    /**
+     * Creates an import into a user.
+     *
+     * @param user the user receiving the imported rows
+     * @param publisher the executor on which rows are added to the user
+     */
+    public CsvImport(User user, Executor publisher) {
+        this.user = user;
+        this.publisher = publisher;
+    }
+
+    /**
+     * Imports a file of clients or tasks, depending on its columns.
+     *
+     * @param file the CSV file, encoded in UTF-8
+     * @param progress receives the bytes of the file read after every batch
+     * @param cancelled tells whether the import was cancelled
+     * @return the outcome of the import
+     * @throws IOException if the file cannot be read or its columns are not recognized
+     */
+    public ImportResult run(Path file, Progress progress, BooleanSupplier cancelled) throws IOException {
+        long total = Files.size(file);
+        try (CountingInputStream bytes = new CountingInputStream(Files.newInputStream(file));
+                CsvReader reader = new CsvReader(new InputStreamReader(bytes, StandardCharsets.UTF_8))) {
+            List<String> header = reader.next();
+            if (header == null) {
+                return new ImportResult(0, 0, List.of(), false);
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).strip().toLowerCase(Locale.ROOT), i);
+            }
+            if (columns.containsKey("studentname")) {
+                return importRows(reader, clientParser(columns), clients -> user.addClient(clients.toArray(Client[]::new)),
+                        () -> progress.update(bytes.count, total), cancelled);
+            }
+            if (columns.containsKey("subject")) {
+                return importRows(reader, taskParser(columns), tasks -> user.addTask(tasks.toArray(Task[]::new)),
+                        () -> progress.update(bytes.count, total), cancelled);
+            }
+            throw new IOException("Unrecognized CSV columns: " + String.join(", ", header));
+        }
+    }
+
+    /**
+     * Reads, validates and publishes the rows following the header.
+     */
+    private <T> ImportResult importRows(CsvReader reader, RowParser<T> parser, Consumer<List<T>> adder,
+            Runnable progress, BooleanSupplier cancelled) throws IOException {
+        Publication<T> publication = new Publication<>(adder);
+        List<ImportError> errors = new ArrayList<>();
+        int rejected = 0;
+        List<T> batch = new ArrayList<>(BATCH_SIZE);
+        boolean stopped = false;
+        try {
+            List<String> row;
+            while (!(stopped = cancelled.getAsBoolean()) && !publication.failed() && (row = reader.next()) != null) {
+                try {
+                    batch.add(parser.parse(row));
+                } catch (ValidationException | IllegalArgumentException e) {
+                    if (rejected++ < MAX_REPORTED_ERRORS) {
+                        errors.add(new ImportError(reader.line(), e.getMessage()));
+                    }
+                }
+                if (batch.size() == BATCH_SIZE) {
+                    publication.submit(batch);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                    progress.run();
+                }
+            }
+            if (!stopped && !batch.isEmpty()) {
+                publication.submit(batch);
+            }
+            progress.run();
+            publication.await(stopped);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            publication.discard();
+            stopped = true;
+        } catch (IOException e) {
+            publication.discard();
+            if (!cancelled.getAsBoolean()) {
+                throw e;
+            }
+            stopped = true; // Interrupting a cancelled import closes the file
+        }
+        return new ImportResult(publication.published(), rejected, List.copyOf(errors), stopped);
+    }
+
+    /**
+     * Returns the parser of client rows, checking the fields with the client's setters.
+     */
+    private static RowParser<Client> clientParser(Map<String, Integer> columns) throws IOException {
+        int studentName = required(columns, "studentName");
+        int parentName = required(columns, "parentName");
+        int phoneNumber = columns.getOrDefault("phonenumber", -1);
+        int description = columns.getOrDefault("description", -1);
+        return row -> {
+            Client client = new Client(null, null, null, field(row, description));
+            client.setStudentName(field(row, studentName));
+            client.setParentName(field(row, parentName));
+            String phone = field(row, phoneNumber);
+            client.setPhoneNumber(phone == null || phone.isEmpty() ? null : phone);
+            return client;
+        };
+    }
+
+    /**
+     * Returns the parser of task rows, checking the fields with the task's setters and
+     * that the client of the task exists.
+     */
+    private RowParser<Task> taskParser(Map<String, Integer> columns) throws IOException {
+        int subject = required(columns, "subject");
+        int description = columns.getOrDefault("description", -1);
+        int clientId = required(columns, "clientId");
+        int date = required(columns, "date");
+        int time = required(columns, "time");
+        return row -> {
+            String client = field(row, clientId);
+            int id;
+            try {
+                id = Integer.parseInt(client);
+            } catch (NumberFormatException e) {
+                throw new ValidationException("Invalid client ID: " + client);
+            }
+            user.getClientById(id);
+            Task task = new Task(null, field(row, description), id, LocalDate.EPOCH, LocalTime.MIDNIGHT);
+            task.setSubject(field(row, subject));
+            task.setDateS(field(row, date));
+            task.setTimeS(field(row, time));
+            return task;
+        };
+    }
+
+    private static int required(Map<String, Integer> columns, String name) throws IOException {
+        Integer index = columns.get(name.toLowerCase(Locale.ROOT));
+        if (index == null) {
+            throw new IOException("Missing CSV column: " + name);
+        }
+        return index;
+    }
+
+    /**
+     * Returns a field of a row without surrounding white space: empty if the row is too
+     * short, or {@code null} if the file has no such column.
+     */
+    private static String field(List<String> row, int column) {
+        if (column < 0) {
+            return null;
+        }
+        return column < row.size() ? row.get(column).strip() : "";
+    }
+
+    /**
+     * Batches of rows waiting to be added to the user by the publishing executor.
+     */
+    private final class Publication<T> {
+
+        private final Consumer<List<T>> adder;
+        private final ConcurrentLinkedQueue<List<T>> pending = new ConcurrentLinkedQueue<>();
+        private final Semaphore capacity = new Semaphore(MAX_PENDING_BATCHES);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicInteger published = new AtomicInteger();
+        private volatile boolean discarded;
+        private volatile RuntimeException failure;
+
+        Publication(Consumer<List<T>> adder) {
+            this.adder = adder;
+        }
+
+        /**
+         * Queues a batch, waiting while too many batches are queued.
+         */
+        void submit(List<T> batch) throws InterruptedException {
+            capacity.acquire();
+            pending.add(batch);
+            if (scheduled.compareAndSet(false, true)) {
+                publisher.execute(this::publish);
+            }
+        }
+
+        /**
+         * Waits until every queued batch was added or, if the import stopped, dropped.
+         */
+        void await(boolean stopped) throws InterruptedException {
+            if (stopped) {
+                discard();
+            }
+            capacity.acquire(MAX_PENDING_BATCHES);
+            capacity.release(MAX_PENDING_BATCHES);
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        void discard() {
+            discarded = true;
+        }
+
+        boolean failed() {
+            return failure != null;
+        }
+
+        int published() {
+            return published.get();
+        }
+
+        /**
+         * Adds queued batches to the user for a limited time, on the publishing thread.
+         */
+        private void publish() {
+            long deadline = System.nanoTime() + PUBLISH_NANOS;
+            List<T> batch;
+            while ((batch = pending.poll()) != null) {
+                try {
+                    if (!discarded) {
+                        adder.accept(batch);
+                        published.addAndGet(batch.size());
+                    }
+                } catch (RuntimeException e) {
+                    failure = e;
+                    discarded = true;
+                } finally {
+                    capacity.release();
+                }
+                if (System.nanoTime() - deadline >= 0) {
+                    break;
+                }
+            }
+            scheduled.set(false);
+            // A batch queued while the flag was still set would otherwise wait forever
+            if (!pending.isEmpty() && scheduled.compareAndSet(false, true)) {
+                publisher.execute(this::publish);
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes read from a stream, to report the progress of an import.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package transfer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+import model.User;
+
+/**
+ * A JavaFX background task running a {@link CsvImport}, for use with a progress bar.
+ *
+ * <p>Start it on a background thread. The imported rows are added to the user on the
+ * JavaFX application thread, as required for a user shown in live lists, and the progress
+ * follows the bytes of the file read. Cancelling the task stops the import.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+public final class CsvImportTask extends Task<ImportResult> {
+
+    private final CsvImport csvImport;
+    private final Path file;
+
+    /**
+     * Creates a task importing a file into a user.
+     *
+     * @param user the user receiving the imported rows
+     * @param file the CSV file to import
+     */
+    public CsvImportTask(User user, Path file) {
+        this.csvImport = new CsvImport(user, Platform::runLater);
+        this.file = file;
+    }
+
+    @Override
+    protected ImportResult call() throws IOException {
+        updateMessage("Importing " + file.getFileName() + "...");
+        ImportResult result = csvImport.run(file, this::updateProgress, this::isCancelled);
+        updateMessage("Imported " + result.imported() + " rows from " + file.getFileName()
+                + (result.rejected() > 0 ? ", rejected " + result.rejected() : ""));
+        return result;
+    }
+}
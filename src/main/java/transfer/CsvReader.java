@@ -0,0 +1,122 @@
+package transfer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the records of a CSV file, as described by RFC 4180.
+ *
+ * <p>Fields are separated by commas and records by line breaks. A field enclosed in double
+ * quotes may contain commas, line breaks and doubled quotes. Blank lines and a leading
+ * byte order mark are skipped. The reader keeps its own buffer, so it reads large files
+ * without the cost of a call per character.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+final class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder field = new StringBuilder();
+    private int position;
+    private int limit;
+
+    // Line of the next character, and line on which the last record started
+    private long line = 1;
+    private long recordLine;
+
+    /**
+     * Creates a reader of the CSV records of a character stream.
+     *
+     * @param in the stream to read
+     */
+    CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the fields of the record, or {@code null} at the end of the stream
+     * @throws IOException if reading fails or a quoted field is not closed
+     */
+    List<String> next() throws IOException {
+        int c = read();
+        if (recordLine == 0 && c == BYTE_ORDER_MARK) {
+            c = read();
+        }
+        while (c == '\n' || c == '\r') {
+            c = read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        while (true) {
+            field.setLength(0);
+            if (c == '"') {
+                long start = line;
+                while (true) {
+                    c = read();
+                    if (c == -1) {
+                        throw new IOException("Unterminated quoted field starting on line " + start);
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') {
+                            break; // The closing quote
+                        }
+                    }
+                    field.append((char) c);
+                }
+            }
+            while (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                field.append((char) c);
+                c = read();
+            }
+            fields.add(field.toString());
+            if (c != ',') {
+                return fields;
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Returns the line on which the last record read started.
+     *
+     * @return the line number, counted from 1
+     */
+    long line() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        char c = buffer[position++];
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+}
@@ -0,0 +1,17 @@
+package transfer;
+
+/**
+ * A row of an imported file that was rejected.
+ *
+ * @param line the line on which the row starts, counted from 1
+ * @param message the reason the row was rejected
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+public record ImportError(long line, String message) {
+
+    @Override
+    public String toString() {
+        return "Line " + line + ": " + message;
+    }
+}
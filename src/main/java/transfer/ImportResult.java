@@ -0,0 +1,16 @@
+package transfer;
+
+import java.util.List;
+
+/**
+ * The outcome of a {@link CsvImport}.
+ *
+ * @param imported the number of rows added to the user
+ * @param rejected the number of rows that failed validation
+ * @param errors the first {@link CsvImport#MAX_REPORTED_ERRORS} rejected rows
+ * @param cancelled whether the import was cancelled before reaching the end of the file
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+public record ImportResult(int imported, int rejected, List<ImportError> errors, boolean cancelled) {
+}
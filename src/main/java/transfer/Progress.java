@@ -0,0 +1,19 @@
+package transfer;
+
+/**
+ * Receives the progress of a transfer.
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface Progress {
+
+    /**
+     * Reports the progress of a transfer.
+     *
+     * @param done the amount of work done so far
+     * @param total the total amount of work
+     */
+    void update(long done, long total);
+}
@@ -0,0 +1,385 @@
+package transfer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BooleanSupplier;
+import model.Recurrence;
+import model.Task;
+import model.User;
+import model.ValidationException;
+
+/**
+ * Exports tasks to a CSV file or to an iCalendar ({@code .ics}) file for calendar tools.
+ *
+ * <p>The tasks are written one at a time through a {@link ChannelTextWriter}, so an export
+ * takes the same memory whatever the number of tasks. Every field is formatted by the
+ * export itself into one reused line, without the display strings of the tasks.
+ * The file is written next to its final place and moved there once complete, so a failed
+ * or cancelled export leaves no partial file.</p>
+ *
+ * <p>The CSV file has the columns {@code taskId}, {@code subject}, {@code description},
+ * {@code clientId}, {@code date}, {@code time} and {@code status}, and can be read back by
+ * {@link CsvImport}. The iCalendar file has one event per task, starting at the due date
+ * and time in local time. A repeating task is one event with a recurrence rule
+ * ({@code RRULE}); the occurrences returned by the date and status lookups of the user are
+ * events of their own, identified by the task and their due date.</p>
+ *
+ * <p>Exports only read the user, so they can run on any thread.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.1
+ */
+public final class TaskExport {
+
+    /**
+     * The file formats of an export.
+     */
+    public enum Format {
+        CSV("csv"),
+        ICS("ics");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        /**
+         * Returns the usual extension of files in this format.
+         *
+         * @return the extension, without a dot
+         */
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    // Number of tasks written between progress reports
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    // Longest iCalendar line in bytes, without the line break
+    private static final int ICS_LINE_LENGTH = 75;
+
+    private TaskExport() {
+    }
+
+    /**
+     * Returns all tasks of a user as a collection that looks each task up as it is reached,
+     * so that exporting them does not hold them all in memory. Tasks removed in the meantime
+     * are skipped.
+     *
+     * @param user the user whose tasks are returned
+     * @return the tasks in the order they were added
+     */
+    public static Collection<Task> allTasks(User user) {
+        int[] ids = user.getTaskIds();
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Task> iterator() {
+                return new Iterator<>() {
+                    private int index;
+                    private Task next = advance();
+
+                    @Override
+                    public boolean hasNext() {
+                        return next != null;
+                    }
+
+                    @Override
+                    public Task next() {
+                        if (next == null) {
+                            throw new NoSuchElementException();
+                        }
+                        Task task = next;
+                        next = advance();
+                        return task;
+                    }
+
+                    private Task advance() {
+                        while (index < ids.length) {
+                            try {
+                                return user.getTaskById(ids[index++]);
+                            } catch (ValidationException e) {
+                                // Removed since the IDs were taken
+                            }
+                        }
+                        return null;
+                    }
+                };
+            }
+
+            // At most the number of tasks iterated, as removed tasks are skipped
+            @Override
+            public int size() {
+                return ids.length;
+            }
+
+            @Override
+            public Spliterator<Task> spliterator() {
+                return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+            }
+        };
+    }
+
+    /**
+     * Writes tasks to a file.
+     *
+     * @param tasks the tasks to export
+     * @param format the format of the file
+     * @param file the file to write, replaced if it exists
+     * @param progress receives the number of tasks written, at intervals
+     * @param cancelled tells whether the export was cancelled
+     * @return the number of tasks written, or -1 if the export was cancelled
+     * @throws IOException if the file cannot be written
+     */
+    public static int write(Collection<Task> tasks, Format format, Path file, Progress progress,
+            BooleanSupplier cancelled) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        int total = tasks.size();
+        int written = 0;
+        boolean complete = false;
+        try {
+            try (ChannelTextWriter writer = new ChannelTextWriter(temp)) {
+                if (format == Format.CSV) {
+                    writer.line().append("taskId,subject,description,clientId,date,time,status");
+                    writer.endLine("\n");
+                } else {
+                    icsHeader(writer);
+                }
+                String stamp = format == Format.ICS ? icsStamp() : null;
+                for (Task task : tasks) {
+                    if (written % PROGRESS_INTERVAL == 0) {
+                        if (cancelled.getAsBoolean()) {
+                            return -1;
+                        }
+                        progress.update(written, total);
+                    }
+                    if (format == Format.CSV) {
+                        csvRow(writer, task);
+                    } else {
+                        icsEvent(writer, task, stamp);
+                    }
+                    written++;
+                }
+                if (format == Format.ICS) {
+                    writer.line().append("END:VCALENDAR");
+                    writer.endLine("\r\n");
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            complete = true;
+        } finally {
+            if (!complete) {
+                Files.deleteIfExists(temp);
+            }
+        }
+        progress.update(written, written);
+        return written;
+    }
+
+    private static void csvRow(ChannelTextWriter writer, Task task) throws IOException {
+        StringBuilder line = writer.line();
+        line.append(task.getTaskId()).append(',');
+        csvField(line, task.getSubject());
+        line.append(',');
+        csvField(line, task.getDescription());
+        line.append(',').append(task.getClientId()).append(',');
+        appendDate(line, task.getDate(), '-');
+        line.append(',');
+        appendTime(line, task.getTime(), ':');
+        line.append(',').append(task.getStatus().name());
+        writer.endLine("\n");
+    }
+
+    /**
+     * Appends a CSV field, quoted if it contains a separator, a quote or a line break.
+     */
+    private static void csvField(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private static void icsHeader(ChannelTextWriter writer) throws IOException {
+        for (String header : new String[] {"BEGIN:VCALENDAR", "VERSION:2.0",
+                "PRODID:-//TaskManager//Task export//EN", "CALSCALE:GREGORIAN"}) {
+            writer.line().append(header);
+            writer.endLine("\r\n");
+        }
+    }
+
+    /**
+     * Returns the creation time stamped on every event, in UTC.
+     */
+    private static String icsStamp() {
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        StringBuilder stamp = new StringBuilder(16);
+        appendDate(stamp, now.toLocalDate(), (char) 0);
+        stamp.append('T');
+        appendTime(stamp, now.toLocalTime(), (char) 0);
+        appendTwoDigits(stamp, now.getSecond());
+        return stamp.append('Z').toString();
+    }
+
+    private static void icsEvent(ChannelTextWriter writer, Task task, String stamp) throws IOException {
+        icsLine(writer, "BEGIN:VEVENT");
+        StringBuilder uid = writer.line().append("UID:task-").append(task.getTaskId());
+        if (task.isOccurrence()) {
+            uid.append('-');
+            appendDate(uid, task.getDate(), (char) 0);
+        }
+        uid.append("@taskmanager");
+        writer.endLine("\r\n");
+        writer.line().append("DTSTAMP:").append(stamp);
+        writer.endLine("\r\n");
+        StringBuilder line = writer.line().append("DTSTART:");
+        appendDate(line, task.getDate(), (char) 0);
+        line.append('T');
+        appendTime(line, task.getTime(), (char) 0);
+        line.append("00");
+        writer.endLine("\r\n");
+        if (task.isRecurring() && !task.isOccurrence()) {
+            icsRule(writer, task.getRecurrence());
+        }
+        icsText(writer, "SUMMARY:", task.getSubject());
+        icsText(writer, "DESCRIPTION:", task.getDescription());
+        writer.line().append("CATEGORIES:").append(task.getStatus().name());
+        writer.endLine("\r\n");
+        writer.line().append("X-TASKMANAGER-CLIENT-ID:").append(task.getClientId());
+        writer.endLine("\r\n");
+        icsLine(writer, "END:VEVENT");
+    }
+
+    /**
+     * Writes the recurrence rule of a repeating task, ending on the last second of its end date.
+     */
+    private static void icsRule(ChannelTextWriter writer, Recurrence rule) throws IOException {
+        StringBuilder line = writer.line().append("RRULE:FREQ=").append(rule.frequency().name())
+                .append(";INTERVAL=").append(rule.interval());
+        if (rule.until() != null) {
+            line.append(";UNTIL=");
+            appendDate(line, rule.until(), (char) 0);
+            line.append("T235959");
+        } else if (rule.count() > 0) {
+            line.append(";COUNT=").append(rule.count());
+        }
+        writer.endLine("\r\n");
+    }
+
+    private static void icsLine(ChannelTextWriter writer, String content) throws IOException {
+        writer.line().append(content);
+        writer.endLine("\r\n");
+    }
+
+    /**
+     * Writes an iCalendar text property, escaped and folded into lines of at most
+     * {@link #ICS_LINE_LENGTH} bytes.
+     */
+    private static void icsText(ChannelTextWriter writer, String name, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        StringBuilder line = writer.line().append(name);
+        int length = name.length();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String escaped = switch (c) {
+                case '\\' -> "\\\\";
+                case ';' -> "\\;";
+                case ',' -> "\\,";
+                case '\n' -> "\\n";
+                case '\r' -> "";
+                default -> null;
+            };
+            int bytes;
+            if (escaped != null) {
+                bytes = escaped.length();
+            } else if (c < 0x80) {
+                bytes = 1;
+            } else if (c < 0x800) {
+                bytes = 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes = 4; // Kept together with the low surrogate that follows
+            } else if (Character.isLowSurrogate(c)) {
+                bytes = 0;
+            } else {
+                bytes = 3;
+            }
+            if (length + bytes > ICS_LINE_LENGTH) {
+                line.append("\r\n ");
+                length = 1;
+            }
+            if (escaped != null) {
+                line.append(escaped);
+            } else {
+                line.append(c);
+            }
+            length += bytes;
+        }
+        writer.endLine("\r\n");
+    }
+
+    /**
+     * Appends a date as year, month and day, with the given separator unless it is 0.
+     */
+    private static void appendDate(StringBuilder line, LocalDate date, char separator) {
+        int year = date.getYear();
+        if (year >= 0 && year < 1000) {
+            line.append(year < 10 ? "000" : year < 100 ? "00" : "0");
+        }
+        line.append(year);
+        if (separator != 0) {
+            line.append(separator);
+        }
+        appendTwoDigits(line, date.getMonthValue());
+        if (separator != 0) {
+            line.append(separator);
+        }
+        appendTwoDigits(line, date.getDayOfMonth());
+    }
+
+    /**
+     * Appends a time as hours and minutes, with the given separator unless it is 0.
+     */
+    private static void appendTime(StringBuilder line, LocalTime time, char separator) {
+        appendTwoDigits(line, time.getHour());
+        if (separator != 0) {
+            line.append(separator);
+        }
+        appendTwoDigits(line, time.getMinute());
+    }
+
+    private static void appendTwoDigits(StringBuilder line, int value) {
+        line.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+}
@@ -0,0 +1,45 @@
+package transfer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.function.Supplier;
+import javafx.concurrent.Task;
+
+/**
+ * A JavaFX background task running a {@link TaskExport}, for use with a progress bar.
+ *
+ * <p>The tasks to export are selected on the background thread when the task runs, so
+ * that even a large selection does not block the JavaFX application thread. The value of
+ * the task is the number of tasks written.</p>
+ *
+ * @author Błażej Sztefka
+ * @version 1.0
+ */
+public final class TaskExportTask extends Task<Integer> {
+
+    private final Supplier<Collection<model.Task>> tasks;
+    private final TaskExport.Format format;
+    private final Path file;
+
+    /**
+     * Creates a task exporting the selected tasks of a user.
+     *
+     * @param tasks selects the tasks to export, called on the background thread
+     * @param format the format of the file
+     * @param file the file to write
+     */
+    public TaskExportTask(Supplier<Collection<model.Task>> tasks, TaskExport.Format format, Path file) {
+        this.tasks = tasks;
+        this.format = format;
+        this.file = file;
+    }
+
+    @Override
+    protected Integer call() throws IOException {
+        updateMessage("Exporting to " + file.getFileName() + "...");
+        int written = TaskExport.write(tasks.get(), format, file, this::updateProgress, this::isCancelled);
+        updateMessage("Exported " + written + " tasks to " + file.getFileName());
+        return written;
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * The {@code transfer} package moves clients and tasks between a {@code model.User} and files.
+ *
+ * <p>
+ * Transfers read and write files on background threads, so that large files do not block
+ * the user interface, and hand their changes of the user to the JavaFX application thread
+ * in batches.
+ * </p>
+ *
+ * <p>
+ * Key classes in this package include:
+ * </p>
+ * <ul>
+ *   <li>{@link CsvImport} - Imports clients or tasks from a CSV file.</li>
+ *   <li>{@link CsvImportTask} - Runs a CSV import as a JavaFX background task.</li>
+ * </ul>
+ *
+ * @version 1.0
+ * @author Błażej Sztefka
+ */
+package transfer;
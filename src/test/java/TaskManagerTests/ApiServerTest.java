@@ -0,0 +1,337 @@
+package TaskManagerTests;
+
+import api.ApiServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import model.Client;
+import model.History;
+import model.Task;
+import model.TaskStatus;
+import model.User;
+import model.UserListener;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link ApiServer} class.
+ * The tests send requests to a server on a free local port and check the JSON answered
+ * and the changes made to the {@link User}, including concurrent changes made on the
+ * writing thread.
+ *
+ * @author badim
+ */
+public class ApiServerTest {
+
+    private User user;
+    private ExecutorService writer;
+    private ApiServer server;
+
+    /**
+     * Starts a server for a user with the sample data, changing it on a single writing
+     * thread like the JavaFX thread.
+     *
+     * @throws IOException if the server cannot be started
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        user = new User();
+        writer = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "writer"));
+        server = ApiServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), () -> user, writer);
+    }
+
+    /**
+     * Stops the server and the writing thread.
+     */
+    @AfterEach
+    public void tearDown() {
+        server.close();
+        writer.shutdownNow();
+    }
+
+    /**
+     * Tests that lists are answered in pages, with the total number of items.
+     *
+     * @throws Exception if a request fails
+     */
+    @Test
+    void listsTasksInPages() throws Exception {
+        for (int i = 0; i < 250; i++) {
+            user.addTask(new Task("Zadanie " + i, "", 1, 2030, 1, 1 + i % 28, 16, 30));
+        }
+        int[] ids = user.getTaskIds();
+
+        String page = request("GET", "/api/tasks?offset=100&limit=50", null, 200);
+
+        assertEquals(ids.length, number(page, "total"));
+        assertEquals(50, ids(page, "taskId").size());
+        assertEquals(ids[100], ids(page, "taskId").get(0));
+        assertEquals(ApiServer.MAX_LIMIT, number(request("GET", "/api/tasks?limit=5000", null, 200), "limit"));
+        assertEquals(user.getClientCount(), number(request("GET", "/api/clients", null, 200), "total"));
+    }
+
+    /**
+     * Tests that an offset past the end, even the largest one, gives an empty page.
+     *
+     * @throws Exception if a request fails
+     */
+    @Test
+    void offsetPastTheEndGivesEmptyPage() throws Exception {
+        user.addTask(new Task("Chemia", "", 1, 2030, 1, 1, 16, 30));
+        String largest = "offset=" + Integer.MAX_VALUE + "&limit=" + ApiServer.MAX_LIMIT;
+
+        assertEquals(List.of(), ids(request("GET", "/api/tasks?q=chemia&" + largest, null, 200), "taskId"));
+        assertEquals(List.of(), ids(request("GET", "/api/tasks?" + largest, null, 200), "taskId"));
+        assertEquals(List.of(), ids(request("GET", "/api/clients?" + largest, null, 200), "clientId"));
+    }
+
+    /**
+     * Tests the filters of the task list, alone and combined.
+     *
+     * @throws Exception if a request fails
+     */
+    @Test
+    void filtersTasks() throws Exception {
+        Client client = new Client("Zosia", "Ewa", null, "");
+        user.addClient(client);
+        int clientId = client.getClientId();
+        LocalDate soon = LocalDate.now().plusDays(1);
+        LocalDate later = LocalDate.now().plusDays(30);
+        Task soonTask = new Task("Geografia Łódź", "", clientId, soon.getYear(), soon.getMonthValue(), soon.getDayOfMonth(), 10, 0);
+        Task laterTask = new Task("Geografia Kraków", "", clientId, later.getYear(), later.getMonthValue(), later.getDayOfMonth(), 10, 0);
+        user.addTask(soonTask, laterTask);
+
+        assertEquals(List.of(soonTask.getTaskId(), laterTask.getTaskId()),
+                ids(request("GET", "/api/tasks?clientId=" + clientId, null, 200), "taskId"));
+        assertEquals(List.of(soonTask.getTaskId()),
+                ids(request("GET", "/api/tasks?clientId=" + clientId + "&q=lodz", null, 200), "taskId"));
+        assertEquals(List.of(laterTask.getTaskId()),
+                ids(request("GET", "/api/tasks?q=geografia&status=long_term", null, 200), "taskId"));
+        assertEquals(List.of(soonTask.getTaskId()),
+                ids(request("GET", "/api/tasks?clientId=" + clientId + "&from=" + soon + "&to=" + soon, null, 200), "taskId"));
+        request("GET", "/api/tasks?status=SOMEDAY", null, 400);
+        request("GET", "/api/tasks?from=" + soon, null, 400);
+    }
+
+    /**
+     * Tests that a task is added, read, changed and removed.
+     *
+     * @throws Exception if a request fails
+     */
+    @Test
+    void addsUpdatesAndRemovesTask() throws Exception {
+        String added = request("POST", "/api/tasks",
+                "{\"subject\":\"Matematyka\",\"description\":\"Ułamki \\\"zwykłe\\\"\",\"clientId\":1,"
+                + "\"date\":\"2030-03-10\",\"time\":\"16:30\"}", 201);
+        int id = number(added, "taskId");
+        assertEquals("Ułamki \"zwykłe\"", user.getTaskById(id).getDescription());
+        assertTrue(added.contains("\"status\":\"LONG_TERM\""));
+
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        String updated = request("PUT", "/api/tasks/" + id, "{\"subject\":\"Fizyka\",\"date\":\"" + tomorrow + "\"}", 200);
+
+        assertTrue(updated.contains("\"subject\":\"Fizyka\""));
+        assertTrue(updated.contains("\"status\":\"DUE_SOON\""));
+        assertEquals("Fizyka", user.getTaskById(id).getSubject());
+        assertEquals(TaskStatus.DUE_SOON, user.getTaskById(id).getStatus());
+        assertTrue(request("GET", "/api/tasks/" + id, null, 200).contains("\"description\":\"Ułamki \\\"zwykłe\\\"\""));
+
+        request("DELETE", "/api/tasks/" + id, null, 204);
+        request("GET", "/api/tasks/" + id, null, 404);
+        request("DELETE", "/api/tasks/" + id, null, 404);
+    }
+
+    /**
+     * Tests that the fields of a PUT are changed as one change of the user, which is
+     * reported once and undone in a single step.
+     *
+     * @throws Exception if a request fails
+     */
+    @Test
+    void updateIsOneChange() throws Exception {
+        Task task = user.getTaskList().get(0);
+        Client client = user.getClientList().get(0);
+        String subject = task.getSubject();
+        String description = task.getDescription();
+        String studentName = client.getStudentName();
+        String phoneNumber = client.getPhoneNumber();
+        AtomicInteger updates = new AtomicInteger();
+        user.addListener(new UserListener() {
+            @Override
+            public void taskUpdated(Task task) {
+                updates.incrementAndGet();
+            }
+
+            @Override
+            public void clientUpdated(Client client) {
+                updates.incrementAndGet();
+            }
+        });
+        History history = user.getHistory();
+
+        request("PUT", "/api/tasks/" + task.getTaskId(), "{\"subject\":\"Fizyka\",\"description\":\"Nowy opis\"}", 200);
+        request("PUT", "/api/clients/" + client.getClientId(), "{\"studentName\":\"Ola\",\"phoneNumber\":\"987654321\"}", 200);
+        assertEquals(2, updates.get());
+        assertEquals("Nowy opis", user.getTaskById(task.getTaskId()).getDescription());
+
+        assertTrue(history.undo());
+        assertEquals(studentName, user.getClientById(client.getClientId()).getStudentName());
+        assertEquals(phoneNumber, user.getClientById(client.getClientId()).getPhoneNumber());
+        assertTrue(history.undo());
+        assertEquals(subject, user.getTaskById(task.getTaskId()).getSubject());
+        assertEquals(description, user.getTaskById(task.getTaskId()).getDescription());
+        assertFalse(history.canUndo());
+    }
+
+    /**
+     * Tests that removing a client through the API removes its tasks too.
+     *
+     * @throws Exception if a request fails
+     */
+    @Test
+    void removesClientWithItsTasks() throws Exception {
+        int clientId = number(request("POST", "/api/clients",
+                "{\"studentName\":\"Zosia\",\"parentName\":\"Ewa\",\"phoneNumber\":\"123456789\"}", 201), "clientId");
+        request("POST", "/api/tasks", "{\"subject\":\"Chemia\",\"clientId\":" + clientId
+                + ",\"date\":\"2030-03-10\",\"time\":\"16:30\"}", 201);
+        int tasks = user.getTaskCount();
+
+        request("DELETE", "/api/clients/" + clientId, null, 204);
+
+        assertEquals(tasks - 1, user.getTaskCount());
+        request("GET", "/api/clients/" + clientId, null, 404);
+    }
+
+    /**
+     * Tests that invalid requests are rejected without changing the user.
+     *
+     * @throws Exception if a request fails
+     */
+    @Test
+    void rejectsInvalidRequests() throws Exception {
+        Client client = user.getClientList().get(0);
+        String name = client.getStudentName();
+        int tasks = user.getTaskCount();
+
+        assertTrue(request("POST", "/api/tasks", "{\"subject\":\"Chemia\"}", 400).contains("Missing field"));
+        request("POST", "/api/tasks", "{\"subject\":\"Chemia\",\"clientId\":999999,\"date\":\"2030-03-10\",\"time\":\"16:30\"}", 400);
+        request("POST", "/api/tasks", "{\"subject\":\"Chemia\",\"clientId\":1,\"date\":\"10.03.2030\",\"time\":\"16:30\"}", 400);
+        request("POST", "/api/tasks", "{\"subject\":\"Chemia\",", 400);
+        request("PUT", "/api/clients/" + client.getClientId(), "{\"studentName\":\"Ola\",\"phoneNumber\":\"12\"}", 400);
+        request("PUT", "/api/clients/" + client.getClientId(), "{\"clientId\":5}", 400);
+        request("PATCH", "/api/clients/" + client.getClientId(), "{}", 405);
+        request("GET", "/api/lessons", null, 404);
+
+        assertEquals(name, user.getClientById(client.getClientId()).getStudentName());
+        assertEquals(tasks, user.getTaskCount());
+    }
+
+    /**
+     * Tests that concurrent requests are all served and their changes all made, one at a
+     * time, on the writing thread.
+     *
+     * @throws Exception if a request fails
+     */
+    @Test
+    void concurrentChangesAreMadeOnWritingThread() throws Exception {
+        ConcurrentLinkedQueue<String> threads = new ConcurrentLinkedQueue<>();
+        user.addListener(new UserListener() {
+            @Override
+            public void taskAdded(Task task) {
+                threads.add(Thread.currentThread().getName());
+            }
+        });
+        int tasks = user.getTaskCount();
+        List<Future<String>> responses = new ArrayList<>();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 40; i++) {
+                String body = "{\"subject\":\"Zadanie " + i + "\",\"clientId\":1,\"date\":\"2030-03-10\",\"time\":\"16:30\"}";
+                responses.add(clients.submit(() -> request("POST", "/api/tasks", body, 201)));
+                clients.submit(() -> request("GET", "/api/tasks?limit=10", null, 200));
+            }
+        }
+
+        Set<Integer> ids = new HashSet<>();
+        for (Future<String> response : responses) {
+            ids.add(number(response.get(), "taskId"));
+        }
+        assertEquals(40, ids.size());
+        assertEquals(tasks + 40, user.getTaskCount());
+        assertEquals(Set.of("writer"), Set.copyOf(threads));
+    }
+
+    /**
+     * Sends a request and checks the status of the answer.
+     *
+     * @return the body of the answer, empty if it has none
+     */
+    private String request(String method, String path, String body, int expectedStatus) throws IOException {
+        if (method.equals("PATCH")) {
+            return patch(path, expectedStatus);
+        }
+        HttpURLConnection connection = (HttpURLConnection) URI.create("http://localhost:" + server.getPort() + path)
+                .toURL().openConnection();
+        try {
+            connection.setRequestMethod(method);
+            if (body != null) {
+                connection.setDoOutput(true);
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            int status = connection.getResponseCode();
+            InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            String answer = in == null ? "" : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals(expectedStatus, status, answer);
+            return answer;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Sends a PATCH request, which {@link HttpURLConnection} cannot send, over a plain socket.
+     */
+    private String patch(String path, int expectedStatus) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            socket.getOutputStream().write(("PATCH " + path + " HTTP/1.1\r\nHost: localhost\r\n"
+                    + "Content-Length: 2\r\nConnection: close\r\n\r\n{}").getBytes(StandardCharsets.US_ASCII));
+            String answer = new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(answer.startsWith("HTTP/1.1 " + expectedStatus), answer);
+            return answer;
+        }
+    }
+
+    private static int number(String json, String name) {
+        Matcher matcher = Pattern.compile("\"" + name + "\":(\\d+)").matcher(json);
+        assertTrue(matcher.find(), json);
+        return Integer.parseInt(matcher.group(1));
+    }
+
+    private static List<Integer> ids(String json, String name) {
+        List<Integer> ids = new ArrayList<>();
+        Matcher matcher = Pattern.compile("\"" + name + "\":(\\d+)").matcher(json);
+        while (matcher.find()) {
+            ids.add(Integer.parseInt(matcher.group(1)));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,200 @@
+package TaskManagerTests;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.Client;
+import model.Task;
+import model.User;
+import model.UserListener;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import transfer.CsvImport;
+import transfer.ImportError;
+import transfer.ImportResult;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link CsvImport} class.
+ * The tests import CSV files into a {@link User}, checking the parsing of quoted fields,
+ * the rows rejected by validation, the batched publishing and cancellation.
+ *
+ * @author badim
+ */
+public class CsvImportTest {
+
+    @TempDir
+    Path directory;
+
+    private User user;
+
+    /**
+     * Creates a user with the sample data.
+     */
+    @BeforeEach
+    public void setUp() {
+        user = new User();
+    }
+
+    /**
+     * Tests that clients are imported, including quoted fields, and that invalid rows are
+     * reported with their line.
+     *
+     * @throws Exception if the import fails
+     */
+    @Test
+    void importsClientsAndReportsInvalidRows() throws Exception {
+        Path file = write("\uFEFFStudentName,parentName,phoneNumber,description\n"
+                + "Zosia,Anna,123456789,\"Klasa 3, grupa \"\"B\"\"\"\n"
+                + "\n"
+                + "Kuba,Piotr,,\"Dwie\r\nlinie\"\r\n"
+                + "ola,Ewa,,Mała litera\n"
+                + "Ala,Ewa,12345,Zły numer\n");
+        int before = user.getClientCount();
+
+        ImportResult result = new CsvImport(user, Runnable::run).run(file, (done, total) -> { }, () -> false);
+
+        assertEquals(2, result.imported());
+        assertEquals(2, result.rejected());
+        assertFalse(result.cancelled());
+        assertEquals(before + 2, user.getClientCount());
+        List<Client> clients = user.getClientList();
+        Client zosia = clients.get(clients.size() - 2);
+        assertEquals("Zosia", zosia.getStudentName());
+        assertEquals("Klasa 3, grupa \"B\"", zosia.getDescription());
+        Client kuba = clients.get(clients.size() - 1);
+        assertNull(kuba.getPhoneNumber());
+        assertEquals("Dwie\r\nlinie", kuba.getDescription());
+        assertEquals(List.of(6L, 7L), result.errors().stream().map(ImportError::line).toList());
+        assertTrue(result.errors().get(0).message().contains("Student name"));
+    }
+
+    /**
+     * Tests that tasks are imported for existing clients and that rows with an unknown
+     * client, an invalid date or no subject are rejected.
+     *
+     * @throws Exception if the import fails
+     */
+    @Test
+    void importsTasksForExistingClients() throws Exception {
+        Path file = write("subject,clientId,date,time,description\n"
+                + "Matematyka,1,2025-03-10,16:30,Ułamki\n"
+                + "Fizyka,999,2025-03-10,16:30,\n"
+                + "Chemia,1,10.03.2025,16:30,\n"
+                + ",1,2025-03-10,16:30,\n"
+                + "Biologia,x,2025-03-10,16:30,\n");
+        int before = user.getTaskCount();
+
+        ImportResult result = new CsvImport(user, Runnable::run).run(file, (done, total) -> { }, () -> false);
+
+        assertEquals(1, result.imported());
+        assertEquals(4, result.rejected());
+        assertEquals(before + 1, user.getTaskCount());
+        Task task = user.getTaskList().get(user.getTaskCount() - 1);
+        assertEquals("Matematyka", task.getSubject());
+        assertEquals(LocalDate.of(2025, 3, 10), task.getDate());
+        assertEquals(LocalTime.of(16, 30), task.getTime());
+        assertEquals("Ułamki", task.getDescription());
+    }
+
+    /**
+     * Tests that rows are added on the publishing thread, in batches, with the progress
+     * reaching the end of the file.
+     *
+     * @throws Exception if the import fails
+     */
+    @Test
+    void publishesBatchesOnThePublishingThread() throws Exception {
+        int rows = 5 * CsvImport.BATCH_SIZE + 123;
+        Path file = clients(rows);
+        ExecutorService publisher = Executors.newSingleThreadExecutor();
+        Thread[] publishingThread = new Thread[1];
+        publisher.submit(() -> publishingThread[0] = Thread.currentThread()).get();
+        AtomicInteger added = new AtomicInteger();
+        AtomicBoolean elsewhere = new AtomicBoolean();
+        user.addListener(new UserListener() {
+            @Override
+            public void clientAdded(Client client) {
+                added.incrementAndGet();
+                elsewhere.compareAndSet(false, Thread.currentThread() != publishingThread[0]);
+            }
+        });
+        AtomicInteger publishTasks = new AtomicInteger();
+        long[] progress = new long[2];
+
+        ImportResult result;
+        try {
+            result = new CsvImport(user, task -> {
+                publishTasks.incrementAndGet();
+                publisher.execute(task);
+            }).run(file, (done, total) -> {
+                progress[0] = done;
+                progress[1] = total;
+            }, () -> false);
+        } finally {
+            publisher.shutdown();
+        }
+
+        assertEquals(rows, result.imported());
+        assertEquals(rows, added.get());
+        assertFalse(elsewhere.get(), "Rows should only be added on the publishing thread");
+        assertTrue(publishTasks.get() <= 6, "Publishing tasks should not outnumber the batches");
+        assertEquals(Files.size(file), progress[0]);
+        assertEquals(Files.size(file), progress[1]);
+    }
+
+    /**
+     * Tests that a cancelled import stops and keeps only the batches already added.
+     *
+     * @throws Exception if the import fails
+     */
+    @Test
+    void cancelledImportStops() throws Exception {
+        Path file = clients(20 * CsvImport.BATCH_SIZE);
+        int before = user.getClientCount();
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        ImportResult result = new CsvImport(user, Runnable::run)
+                .run(file, (done, total) -> cancelled.set(true), cancelled::get);
+
+        assertTrue(result.cancelled());
+        assertEquals(CsvImport.BATCH_SIZE, result.imported());
+        assertEquals(before + CsvImport.BATCH_SIZE, user.getClientCount());
+    }
+
+    /**
+     * Tests that a file with unknown columns is refused.
+     *
+     * @throws Exception if the file cannot be written
+     */
+    @Test
+    void unknownColumnsAreRefused() throws Exception {
+        Path file = write("name,value\nA,1\n");
+        CsvImport csvImport = new CsvImport(user, Runnable::run);
+        assertThrows(IOException.class, () -> csvImport.run(file, (done, total) -> { }, () -> false));
+        Path missing = write("studentName,description\nZosia,opis\n");
+        assertThrows(IOException.class, () -> csvImport.run(missing, (done, total) -> { }, () -> false));
+    }
+
+    private Path clients(int rows) throws IOException {
+        StringBuilder csv = new StringBuilder("studentName,parentName,phoneNumber,description\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("Uczeń").append(i).append(",Rodzic,123456789,Opis ").append(i).append('\n');
+        }
+        return write(csv.toString());
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = Files.createTempFile(directory, "import", ".csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,105 @@
+package TaskManagerTests;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import metrics.AlertEvent;
+import model.Client;
+import model.Task;
+import model.User;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the Flight Recorder events of the application.
+ * The tests record changes of a {@link User} with the bundled settings and read the
+ * events back from the recording.
+ *
+ * @author badim
+ */
+public class FlightRecorderEventsTest {
+
+    private static final Path SETTINGS = Path.of("src/main/jfr/taskmanager.jfc");
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Tests that additions and removals of tasks and clients are recorded with their counts.
+     *
+     * @throws Exception if the recording fails
+     */
+    @Test
+    void userChangesAreRecordedWithCounts() throws Exception {
+        User user = new User();
+        List<RecordedEvent> events = record(() -> {
+            Client client = new Client("Ola", "Ewa", null, "");
+            user.addClient(client);
+            user.addTask(new Task("Matematyka", "", client.getClientId(), 2025, 3, 10, 16, 30),
+                    new Task("Fizyka", "", client.getClientId(), 2025, 3, 11, 16, 30));
+            user.removeClient(client.getClientId());
+        }, "taskmanager.UserChange", 0);
+
+        assertEquals(List.of("CLIENT_ADD", "TASK_ADD", "CLIENT_REMOVE"),
+                events.stream().map(event -> event.getString("operation")).toList());
+        assertEquals(1, events.get(0).getInt("clients"));
+        assertEquals(2, events.get(1).getInt("tasks"));
+        assertEquals(2, events.get(2).getInt("tasks"));
+        assertEquals(1, events.get(2).getInt("clients"));
+    }
+
+    /**
+     * Tests that the bundled settings keep only alerts that blocked for long.
+     *
+     * @throws Exception if the recording fails
+     */
+    @Test
+    void bundledSettingsKeepLongAlertsOnly() throws Exception {
+        List<RecordedEvent> events = record(() -> {
+            AlertEvent quick = new AlertEvent("Quick", "closed at once");
+            quick.begin();
+            quick.commit();
+            AlertEvent slow = new AlertEvent("Slow", "left open");
+            slow.begin();
+            Thread.sleep(600);
+            slow.commit();
+        }, "taskmanager.Alert", -1);
+
+        assertEquals(List.of("Slow"), events.stream().map(event -> event.getString("title")).toList());
+        assertEquals("left open", events.get(0).getString("message"));
+    }
+
+    /**
+     * A piece of work to record.
+     */
+    private interface Work {
+        void run() throws Exception;
+    }
+
+    /**
+     * Records work with the bundled settings and returns the events of one type.
+     *
+     * @param threshold the threshold in milliseconds to set for the type, or -1 to keep the
+     *        one of the bundled settings
+     */
+    private List<RecordedEvent> record(Work work, String type, int threshold) throws Exception {
+        Path file = directory.resolve("recording.jfr");
+        try (Recording recording = new Recording(Configuration.create(SETTINGS))) {
+            if (threshold >= 0) {
+                recording.enable(type).withThreshold(Duration.ofMillis(threshold));
+            }
+            recording.start();
+            work.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(type))
+                .toList();
+    }
+}
@@ -0,0 +1,250 @@
+package TaskManagerTests;
+
+import java.time.LocalDate;
+import java.util.List;
+import model.Client;
+import model.History;
+import model.Task;
+import model.TaskStatus;
+import model.TaskStorage;
+import model.User;
+import model.ValidationException;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link History} class.
+ * The tests undo and redo additions, removals and edits of tasks and clients with every
+ * {@link TaskStorage}, including the removal of a client with its tasks, and check that the
+ * history stays within its capacity.
+ *
+ * @author badim
+ */
+public class HistoryTest {
+
+    /**
+     * Tests that adding a task is undone and redone with the same ID.
+     *
+     * @param storage the storage of the user
+     * @throws Exception if a task cannot be found
+     */
+    @ParameterizedTest
+    @EnumSource(TaskStorage.class)
+    void undoesAndRedoesAddedTasks(TaskStorage storage) throws Exception {
+        User user = new User(storage);
+        History history = user.getHistory();
+        int before = user.getTaskCount();
+        Task task = new Task("Matematyka", "Ułamki", 1, 2025, 3, 10, 16, 30);
+        user.addTask(task);
+        int id = task.getTaskId();
+
+        assertTrue(history.undo());
+        assertEquals(before, user.getTaskCount());
+        assertThrows(ValidationException.class, () -> user.getTaskById(id));
+        assertTrue(history.canRedo());
+
+        assertTrue(history.redo());
+        assertEquals(before + 1, user.getTaskCount());
+        assertEquals("Matematyka", user.getTaskById(id).getSubject());
+        assertFalse(history.canRedo());
+    }
+
+    /**
+     * Tests that undoing an edit made through one view of a task or client keeps an earlier
+     * edit made through another view, which the first view did not show yet.
+     *
+     * @param storage the storage of the user
+     * @throws Exception if a task or client cannot be found or changed
+     */
+    @ParameterizedTest
+    @EnumSource(TaskStorage.class)
+    void undoKeepsEditsMadeThroughOtherViews(TaskStorage storage) throws Exception {
+        User user = new User(storage);
+        int id = user.getTaskList().get(0).getTaskId();
+        String description = user.getTaskById(id).getDescription();
+        Task first = user.getTaskById(id);
+        Task second = user.getTaskById(id);
+        int clientId = user.getClientList().get(0).getClientId();
+        String studentName = user.getClientById(clientId).getStudentName();
+        Client firstClient = user.getClientById(clientId);
+        Client secondClient = user.getClientById(clientId);
+        History history = user.getHistory();
+
+        first.setSubject("Nowy temat");
+        second.setDescription("Nowy opis");
+        firstClient.setPhoneNumber("987654321");
+        secondClient.setStudentName("Ola");
+
+        assertTrue(history.undo());
+        assertEquals(studentName, user.getClientById(clientId).getStudentName());
+        assertEquals("987654321", user.getClientById(clientId).getPhoneNumber());
+        assertTrue(history.undo());
+        assertTrue(history.undo());
+        assertEquals(description, user.getTaskById(id).getDescription());
+        assertEquals("Nowy temat", user.getTaskById(id).getSubject());
+    }
+
+    /**
+     * Tests that a grouped edit through a view built before another change of the task or
+     * client keeps the fields set by that change.
+     *
+     * @param storage the storage of the user
+     * @throws Exception if a task or client cannot be found or changed
+     */
+    @ParameterizedTest
+    @EnumSource(TaskStorage.class)
+    void groupedEditKeepsEditsMadeThroughOtherViews(TaskStorage storage) throws Exception {
+        User user = new User(storage);
+        int id = user.getTaskList().get(0).getTaskId();
+        Task first = user.getTaskById(id);
+        Task second = user.getTaskById(id);
+        int clientId = user.getClientList().get(0).getClientId();
+        Client firstClient = user.getClientById(clientId);
+        Client secondClient = user.getClientById(clientId);
+
+        first.setSubject("Nowy temat");
+        second.edit(copy -> copy.setDescription("Nowy opis"));
+        firstClient.setPhoneNumber("987654321");
+        secondClient.edit(copy -> copy.setStudentName("Ola"));
+
+        assertEquals("Nowy temat", user.getTaskById(id).getSubject());
+        assertEquals("Nowy opis", user.getTaskById(id).getDescription());
+        assertEquals("987654321", user.getClientById(clientId).getPhoneNumber());
+        assertEquals("Ola", user.getClientById(clientId).getStudentName());
+    }
+
+    /**
+     * Tests that edits of fields are undone one at a time and redone.
+     *
+     * @param storage the storage of the user
+     * @throws Exception if a task or client cannot be found or changed
+     */
+    @ParameterizedTest
+    @EnumSource(TaskStorage.class)
+    void undoesAndRedoesEdits(TaskStorage storage) throws Exception {
+        User user = new User(storage);
+        Task task = user.getTaskList().get(0);
+        int id = task.getTaskId();
+        String subject = task.getSubject();
+        LocalDate date = task.getDate();
+        Client client = user.getClientList().get(0);
+        String phoneNumber = client.getPhoneNumber();
+        History history = user.getHistory();
+
+        user.getTaskById(id).setSubject("Nowy temat");
+        user.getTaskById(id).setDate(LocalDate.now().plusDays(100));
+        user.getClientById(client.getClientId()).setPhoneNumber("987654321");
+
+        history.undo();
+        assertEquals(phoneNumber, user.getClientById(client.getClientId()).getPhoneNumber());
+        history.undo();
+        assertEquals(date, user.getTaskById(id).getDate());
+        assertEquals("Nowy temat", user.getTaskById(id).getSubject());
+        history.undo();
+        assertEquals(subject, user.getTaskById(id).getSubject());
+        assertEquals(List.of(id), user.searchTasks(subject).stream()
+                .map(Task::getTaskId).filter(found -> found == id).toList());
+        assertFalse(history.canUndo());
+
+        history.redo();
+        history.redo();
+        assertEquals("Nowy temat", user.getTaskById(id).getSubject());
+        assertEquals(TaskStatus.LONG_TERM, user.getTaskById(id).getStatus());
+        assertEquals(List.of(id), user.getTasksByStatus(TaskStatus.LONG_TERM).stream()
+                .map(Task::getTaskId).filter(found -> found == id).toList());
+    }
+
+    /**
+     * Tests that undoing the removal of a client brings back the client and all its tasks
+     * with their IDs, and that redoing it removes them again.
+     *
+     * @param storage the storage of the user
+     * @throws Exception if a client cannot be removed or found
+     */
+    @ParameterizedTest
+    @EnumSource(TaskStorage.class)
+    void undoesCascadedClientRemoval(TaskStorage storage) throws Exception {
+        User user = new User(storage);
+        Client client = new Client("Zosia", "Anna", "123456789", "");
+        user.addClient(client);
+        int clientId = client.getClientId();
+        for (int i = 0; i < 50; i++) {
+            user.addTask(new Task("Zadanie " + i, "", clientId, 2025, 3, 1 + i % 28, 16, 30));
+        }
+        List<Task> tasks = user.getTasksForClient(clientId);
+        int taskCount = user.getTaskCount();
+        History history = user.getHistory();
+
+        user.removeClient(clientId);
+        assertEquals(taskCount - 50, user.getTaskCount());
+
+        assertTrue(history.undo());
+        assertEquals(taskCount, user.getTaskCount());
+        assertEquals("Zosia", user.getClientById(clientId).getStudentName());
+        assertEquals(tasks, user.getTasksForClient(clientId));
+
+        assertTrue(history.redo());
+        assertThrows(ValidationException.class, () -> user.getClientById(clientId));
+        assertEquals(taskCount - 50, user.getTaskCount());
+    }
+
+    /**
+     * Tests that tasks added in one call are undone together, and that a new change drops the
+     * changes that could be redone.
+     */
+    @Test
+    void batchIsOneCommandAndNewChangeDropsRedo() {
+        User user = new User();
+        History history = user.getHistory();
+        int before = user.getTaskCount();
+        user.addTask(new Task("A", "", 1, 2025, 3, 10, 16, 30), new Task("B", "", 1, 2025, 3, 11, 16, 30));
+
+        history.undo();
+        assertEquals(before, user.getTaskCount());
+        assertFalse(history.canUndo());
+
+        user.addTask(new Task("C", "", 1, 2025, 3, 12, 16, 30));
+        assertFalse(history.canRedo());
+        assertTrue(history.canUndo());
+    }
+
+    /**
+     * Tests that only the latest changes are kept, up to the capacity of the history.
+     */
+    @Test
+    void keepsLatestChangesUpToCapacity() {
+        User user = new User();
+        History history = user.getHistory();
+        int before = user.getTaskCount();
+        for (int i = 0; i < History.CAPACITY + 20; i++) {
+            user.addTask(new Task("Zadanie " + i, "", 1, 2025, 3, 10, 16, 30));
+        }
+
+        int undone = 0;
+        while (history.undo()) {
+            undone++;
+        }
+
+        assertEquals(History.CAPACITY, undone);
+        assertEquals(before + 20, user.getTaskCount());
+    }
+
+    /**
+     * Tests that history listeners are told about recorded and undone changes.
+     */
+    @Test
+    void notifiesListeners() {
+        User user = new User();
+        History history = user.getHistory();
+        int[] calls = new int[1];
+        history.addListener(() -> calls[0]++);
+
+        user.addTask(new Task("A", "", 1, 2025, 3, 10, 16, 30));
+        history.undo();
+        history.redo();
+
+        assertEquals(3, calls[0]);
+    }
+}
@@ -0,0 +1,182 @@
+package TaskManagerTests;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.ListChangeListener;
+import model.Client;
+import model.LiveList;
+import model.Task;
+import model.TaskStatus;
+import model.User;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link LiveList} class.
+ * These tests verify that the live lists of a {@link User} follow additions, removals and
+ * changes of tasks and clients, and that cell values are invalidated only for changed fields.
+ *
+ * @author badim
+ */
+public class LiveListTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 1);
+
+    private User user;
+    private List<String> changes;
+
+    /**
+     * Creates a user whose clock is fixed at {@link #TODAY}.
+     */
+    @BeforeEach
+    public void setUp() {
+        user = new User();
+        user.setClock(Clock.fixed(TODAY.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC));
+        changes = new ArrayList<>();
+    }
+
+    /**
+     * Tests that added and removed tasks are reported as single additions and removals.
+     *
+     * @throws Exception if the task cannot be removed
+     */
+    @Test
+    void addedAndRemovedTasksAreReported() throws Exception {
+        LiveList<Task> tasks = user.getLiveTasks();
+        record(tasks);
+        Task task = new Task("Chemia", "Opis", 1, TODAY.plusDays(1), LocalTime.NOON);
+
+        user.addTask(task);
+        user.removeTask(task.getTaskId());
+
+        assertEquals(List.of("added " + task.getTaskId(), "removed " + task.getTaskId()), changes);
+        assertEquals(user.getTaskList(), new ArrayList<>(tasks));
+    }
+
+    /**
+     * Tests that removing a client removes all its tasks from the list in one change.
+     *
+     * @throws Exception if the client cannot be removed
+     */
+    @Test
+    void clientRemovalRemovesItsTasks() throws Exception {
+        LiveList<Task> tasks = user.getLiveTasks();
+        record(tasks);
+
+        user.removeClient(2);
+
+        assertEquals(1, changes.size(), "The removed tasks should be reported in one change");
+        assertTrue(tasks.stream().noneMatch(task -> task.getClientId() == 2));
+        assertEquals(user.getTaskCount(), tasks.size());
+    }
+
+    /**
+     * Tests that a task leaves and enters status lists when its date changes.
+     */
+    @Test
+    void statusListFollowsDateChanges() {
+        Task task = new Task("Fizyka", "Opis", 1, TODAY.plusDays(1), LocalTime.NOON);
+        user.addTask(task);
+        LiveList<Task> soon = user.getLiveTasksByStatus(TaskStatus.DUE_SOON);
+        LiveList<Task> longTerm = user.getLiveTasksByStatus(TaskStatus.LONG_TERM);
+        assertTrue(soon.contains(task));
+
+        task.setDate(TODAY.plusDays(30));
+
+        assertFalse(soon.contains(task));
+        assertTrue(longTerm.contains(task));
+        soon.dispose();
+        longTerm.dispose();
+    }
+
+    /**
+     * Tests that a list ordered by due date moves a task whose date changed.
+     */
+    @Test
+    void rangeListIsKeptInDueOrder() {
+        Task first = new Task("A", "Opis", 1, TODAY.plusDays(1), LocalTime.NOON);
+        Task second = new Task("B", "Opis", 1, TODAY.plusDays(2), LocalTime.NOON);
+        user.addTask(first, second);
+        LiveList<Task> range = user.getLiveTasksBetween(TODAY, TODAY.plusDays(5));
+        assertEquals(List.of(first, second), range);
+
+        first.setDate(TODAY.plusDays(3));
+
+        assertEquals(List.of(second, first), range);
+        range.dispose();
+    }
+
+    /**
+     * Tests that a search list picks up a task edited to match the query.
+     *
+     * @throws Exception if the subject is rejected
+     */
+    @Test
+    void searchListFollowsEdits() throws Exception {
+        LiveList<Task> found = user.searchLiveTasks("geografia");
+        assertTrue(found.isEmpty());
+        Task task = user.getTaskList().get(0);
+
+        task.setSubject("Geografia");
+
+        assertEquals(List.of(task), found);
+        found.dispose();
+    }
+
+    /**
+     * Tests that a cell value is invalidated only when its own field changes.
+     *
+     * @throws Exception if the phone number is rejected
+     */
+    @Test
+    void cellValueIsInvalidatedOnlyForItsField() throws Exception {
+        LiveList<Client> clients = user.getLiveClients();
+        Client client = clients.get(0);
+        ObservableValue<String> name = clients.valueOf(client, Client::getStudentName);
+        ObservableValue<String> phone = clients.valueOf(client, Client::getPhoneNumber);
+        int[] invalidations = new int[2];
+        name.addListener(observable -> invalidations[0]++);
+        phone.addListener(observable -> invalidations[1]++);
+
+        client.setPhoneNumber("999888777");
+
+        assertArrayEquals(new int[] {0, 1}, invalidations);
+        assertEquals("999888777", phone.getValue());
+    }
+
+    /**
+     * Tests that a disposed list no longer follows the user.
+     */
+    @Test
+    void disposedListStopsFollowing() {
+        LiveList<Client> found = user.searchLiveClients("Zosia");
+        found.dispose();
+
+        user.addClient(new Client("Zosia", "Anna", "111222333", "new"));
+
+        assertTrue(found.isEmpty());
+    }
+
+    /**
+     * Records the changes of a list as "added ID" and "removed ID" entries.
+     */
+    private void record(LiveList<Task> tasks) {
+        tasks.addListener((ListChangeListener<Task>) change -> {
+            List<String> entries = new ArrayList<>();
+            while (change.next()) {
+                for (Task task : change.getAddedSubList()) {
+                    entries.add("added " + task.getTaskId());
+                }
+                for (Task task : change.getRemoved()) {
+                    entries.add("removed " + task.getTaskId());
+                }
+            }
+            changes.add(String.join(", ", entries));
+        });
+    }
+}
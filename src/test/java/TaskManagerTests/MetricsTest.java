@@ -0,0 +1,124 @@
+package TaskManagerTests;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import metrics.Metrics;
+import metrics.Operation;
+import metrics.OperationStats;
+import metrics.ValidationFailure;
+import model.Client;
+import model.Task;
+import model.TaskStatus;
+import model.User;
+import model.ValidationException;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link Metrics} of the application.
+ * The tests check that changes and lookups of a {@link User} and validation failures are
+ * recorded, and that the measurements can be read over JMX.
+ *
+ * @author badim
+ */
+public class MetricsTest {
+
+    private User user;
+
+    /**
+     * Creates a user with the sample data.
+     */
+    @BeforeEach
+    public void setUp() {
+        user = new User();
+    }
+
+    /**
+     * Tests that changes, filters and searches of a user are timed.
+     *
+     * @throws Exception if a task cannot be removed
+     */
+    @Test
+    void userOperationsAreTimed() throws Exception {
+        Map<Operation, Long> before = counts();
+
+        Task task = new Task("Matematyka", "Ułamki", 1, 2025, 3, 10, 16, 30);
+        user.addTask(task);
+        task.setSubject("Fizyka");
+        user.getLiveTasksByStatus(TaskStatus.DUE_SOON).dispose();
+        user.getTasksByStatus(TaskStatus.LONG_TERM).iterator();
+        user.getTasksBetween(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31));
+        user.searchTasks("fiz");
+        user.searchClients("ola");
+        user.removeTask(task.getTaskId());
+
+        Map<Operation, Long> after = counts();
+        assertEquals(1, after.get(Operation.TASK_ADD) - before.get(Operation.TASK_ADD));
+        assertEquals(1, after.get(Operation.TASK_UPDATE) - before.get(Operation.TASK_UPDATE));
+        assertEquals(1, after.get(Operation.TASK_REMOVE) - before.get(Operation.TASK_REMOVE));
+        assertEquals(2, after.get(Operation.FILTER_BY_STATUS) - before.get(Operation.FILTER_BY_STATUS));
+        assertEquals(1, after.get(Operation.FILTER_BY_DATE) - before.get(Operation.FILTER_BY_DATE));
+        assertEquals(1, after.get(Operation.SEARCH_TASKS) - before.get(Operation.SEARCH_TASKS));
+        assertEquals(1, after.get(Operation.SEARCH_CLIENTS) - before.get(Operation.SEARCH_CLIENTS));
+
+        OperationStats stats = Operation.TASK_ADD.getStats();
+        assertTrue(stats.getMaxMicros() > 0);
+        assertTrue(stats.getP50Micros() <= stats.getP99Micros());
+        assertTrue(stats.getP99Micros() <= stats.getMaxMicros());
+    }
+
+    /**
+     * Tests that validation failures are counted by the factory method creating them.
+     */
+    @Test
+    void validationFailuresAreCountedByKind() {
+        long notFound = ValidationFailure.TASK_NOT_FOUND.getCount();
+        long phone = ValidationFailure.INVALID_PHONE_NUMBER.getCount();
+        long other = ValidationFailure.OTHER.getCount();
+
+        assertThrows(ValidationException.class, () -> user.removeTask(999_999));
+        assertThrows(ValidationException.class, () -> new Client("Ola", "Ewa", null, "").setPhoneNumber("12"));
+        assertThrows(ValidationException.class, () -> new Client("Ola", "Ewa", null, "").setStudentName(""));
+
+        assertEquals(notFound + 1, ValidationFailure.TASK_NOT_FOUND.getCount());
+        assertEquals(phone + 1, ValidationFailure.INVALID_PHONE_NUMBER.getCount());
+        assertEquals(other + 1, ValidationFailure.OTHER.getCount());
+    }
+
+    /**
+     * Tests that the metrics are published as an MXBean readable over JMX.
+     *
+     * @throws Exception if the MXBean cannot be read
+     */
+    @Test
+    void metricsAreReadableOverJmx() throws Exception {
+        Metrics.register();
+        Metrics.register(); // Registering again is harmless
+        user.addClient(new Client("Ola", "Ewa", null, ""));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+
+        assertEquals(true, server.getAttribute(name, "Enabled"));
+        CompositeData[] operations = (CompositeData[]) server.getAttribute(name, "Operations");
+        assertEquals(Operation.values().length, operations.length);
+        CompositeData clientAdd = operations[Operation.CLIENT_ADD.ordinal()];
+        assertEquals("CLIENT_ADD", clientAdd.get("name"));
+        assertTrue((Long) clientAdd.get("count") >= 1);
+        TabularData failures = (TabularData) server.getAttribute(name, "ValidationFailures");
+        assertEquals(ValidationFailure.values().length, failures.size());
+    }
+
+    private static Map<Operation, Long> counts() {
+        Map<Operation, Long> counts = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            counts.put(operation, operation.getCount());
+        }
+        return counts;
+    }
+}
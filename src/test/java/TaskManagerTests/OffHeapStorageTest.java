@@ -0,0 +1,113 @@
+package TaskManagerTests;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import model.Client;
+import model.LiveList;
+import model.Task;
+import model.TaskStatus;
+import model.TaskStorage;
+import model.User;
+import model.ValidationException;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the off-heap storage, {@link TaskStorage#OFF_HEAP}.
+ * The tests compare an off-heap {@link User} with one storing objects, and check that
+ * records and strings survive the compactions following removals and edits.
+ *
+ * @author badim
+ */
+public class OffHeapStorageTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 1);
+
+    private User offHeap;
+    private User objects;
+
+    /**
+     * Creates an off-heap and an object-storing user with the same sample data and clock.
+     */
+    @BeforeEach
+    public void setUp() {
+        offHeap = new User(TaskStorage.OFF_HEAP);
+        objects = new User(TaskStorage.OBJECTS);
+        Clock clock = Clock.fixed(TODAY.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+        offHeap.setClock(clock);
+        objects.setClock(clock);
+    }
+
+    /**
+     * Tests that tasks survive the compaction of the records after most of them are removed.
+     *
+     * @throws Exception if a task cannot be removed
+     */
+    @Test
+    void tasksSurviveCompaction() throws Exception {
+        for (User user : List.of(offHeap, objects)) {
+            for (int i = 0; i < 3000; i++) {
+                user.addTask(new Task("Zajęcia " + i, "Opis ąęł " + i, 1 + i % 3, TODAY.plusDays(i % 30),
+                        LocalTime.of(i % 24, i % 60)));
+            }
+            for (int id = 10; id < 3000; id++) {
+                if (id % 7 != 0) {
+                    user.removeTask(id);
+                }
+            }
+        }
+
+        assertEquals(objects.getTaskList(), offHeap.getTaskList());
+        assertEquals(objects.getTasksForClient(2), offHeap.getTasksForClient(2));
+        assertEquals(objects.getTasksBetween(TODAY, TODAY.plusDays(3)), offHeap.getTasksBetween(TODAY, TODAY.plusDays(3)));
+        for (TaskStatus status : TaskStatus.values()) {
+            assertEquals(objects.getTasksByStatus(status).size(), offHeap.getTasksByStatus(status).size());
+        }
+        Task added = new Task("Nowe", "Po kompakcji", 1, TODAY, LocalTime.NOON);
+        offHeap.addTask(added);
+        assertEquals(added, offHeap.getTaskById(added.getTaskId()));
+    }
+
+    /**
+     * Tests that strings stay readable after repeated edits make the string arena compact.
+     *
+     * @throws Exception if the description is rejected
+     */
+    @Test
+    void stringsSurviveArenaCompaction() throws Exception {
+        String longText = "Łódź ".repeat(2000);
+        for (int i = 0; i < 100; i++) {
+            offHeap.getTaskById(1).setDescription(longText + i);
+        }
+
+        assertEquals(longText + 99, offHeap.getTaskById(1).getDescription());
+        assertEquals("Opis zadania 2", offHeap.getTaskById(2).getDescription());
+        assertEquals(List.of(offHeap.getTaskById(1)), offHeap.searchTasks("lodz"));
+    }
+
+    /**
+     * Tests that clients are stored off the heap and that changes through views are stored.
+     *
+     * @throws Exception if a client change is rejected
+     */
+    @Test
+    void clientChangesAreStored() throws Exception {
+        Client view = offHeap.getClientById(1);
+        LiveList<Client> clients = offHeap.getLiveClients();
+
+        view.setPhoneNumber("999888777");
+        offHeap.addClient(new Client("Zosia", "Anna", null, "nowa"));
+        offHeap.removeClient(2);
+
+        Client stored = offHeap.getClientById(1);
+        assertNotSame(view, stored);
+        assertEquals("999888777", stored.getPhoneNumber());
+        assertNull(offHeap.getClientById(4).getPhoneNumber());
+        assertThrows(ValidationException.class, () -> offHeap.getClientById(2));
+        assertEquals(offHeap.getClientList(), clients);
+        assertTrue(offHeap.getTasksForClient(2).isEmpty());
+    }
+}
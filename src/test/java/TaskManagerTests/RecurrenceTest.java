@@ -0,0 +1,211 @@
+package TaskManagerTests;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import model.LiveList;
+import model.Recurrence;
+import model.Task;
+import model.TaskStatus;
+import model.TaskStorage;
+import model.User;
+import model.ValidationException;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for repeating tasks and their {@link Recurrence} rules.
+ * These tests verify that occurrences are created only for the dates asked for and that the
+ * date and status lookups of the {@link User} show them.
+ *
+ * @author badim
+ */
+public class RecurrenceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2030, 1, 10);
+
+    private User user;
+
+    /**
+     * Creates a user whose clock is fixed at {@link #TODAY}.
+     */
+    @BeforeEach
+    public void setUp() {
+        user = new User();
+        user.setClock(Clock.fixed(TODAY.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC));
+    }
+
+    /**
+     * Tests that rules are read back from the text they are written as, and that invalid
+     * rules are rejected.
+     */
+    @Test
+    void rulesAreReadFromText() {
+        assertEquals(Recurrence.daily(), Recurrence.parse("Daily"));
+        assertEquals(Recurrence.everyWeeks(2).until(LocalDate.of(2030, 6, 30)),
+                Recurrence.parse("every 2 weeks until 2030-06-30"));
+        for (String text : new String[] {"weekly", "every 3 days", "daily, 10 times", "every 2 weeks until 2030-06-30"}) {
+            assertEquals(text, Recurrence.parse(text).toString());
+        }
+        assertThrows(IllegalArgumentException.class, () -> Recurrence.parse("monthly"));
+        assertThrows(IllegalArgumentException.class, () -> Recurrence.parse("every 0 days"));
+        assertThrows(IllegalArgumentException.class, () -> Recurrence.parse("weekly until 2030-13-01"));
+    }
+
+    /**
+     * Tests that the occurrences of a task are those due in the window asked for, even
+     * long after the first one, and that the end of the rule is respected.
+     */
+    @Test
+    void occurrencesAreCreatedForTheWindowOnly() {
+        Task task = addTask("Fizyka", LocalDate.of(2030, 1, 7), Recurrence.weekly());
+
+        assertEquals(List.of(LocalDate.of(2030, 2, 4), LocalDate.of(2030, 2, 11), LocalDate.of(2030, 2, 18),
+                LocalDate.of(2030, 2, 25)), dates(task.occurrences(LocalDate.of(2030, 2, 1), LocalDate.of(2030, 2, 28))));
+        assertEquals(List.of(LocalDate.of(2130, 1, 2)),
+                dates(task.occurrences(LocalDate.of(2130, 1, 1), LocalDate.of(2130, 1, 7))));
+
+        Task occurrence = task.occurrences(LocalDate.of(2030, 1, 8), LocalDate.of(2030, 1, 14)).next();
+        assertTrue(occurrence.isOccurrence());
+        assertEquals("Fizyka", occurrence.getSubject());
+        assertEquals(LocalTime.of(10, 0), occurrence.getTime());
+
+        task.setRecurrence(Recurrence.weekly().until(LocalDate.of(2030, 1, 21)));
+        assertEquals(List.of(LocalDate.of(2030, 1, 7), LocalDate.of(2030, 1, 14), LocalDate.of(2030, 1, 21)),
+                dates(task.occurrences(LocalDate.of(2030, 1, 1), LocalDate.of(2030, 12, 31))));
+        task.setRecurrence(Recurrence.daily().times(2));
+        assertEquals(List.of(LocalDate.of(2030, 1, 7), LocalDate.of(2030, 1, 8)),
+                dates(task.occurrences(LocalDate.of(2030, 1, 1), LocalDate.of(2030, 12, 31))));
+    }
+
+    /**
+     * Tests that the tasks due in a range include the occurrences of repeating tasks,
+     * ordered by due date together with the tasks that do not repeat.
+     */
+    @Test
+    void rangeIncludesOccurrences() {
+        addTask("Fizyka", LocalDate.of(2030, 1, 7), Recurrence.everyWeeks(2));
+        addTask("Chemia", LocalDate.of(2030, 1, 15), null);
+        addTask("Biologia", LocalDate.of(2030, 2, 1), Recurrence.daily());
+
+        List<Task> between = user.getTasksBetween(LocalDate.of(2030, 1, 12), LocalDate.of(2030, 2, 2));
+
+        assertEquals(List.of("Chemia", "Fizyka", "Biologia", "Biologia"),
+                between.stream().map(Task::getSubject).toList());
+        assertEquals(List.of(LocalDate.of(2030, 1, 15), LocalDate.of(2030, 1, 21), LocalDate.of(2030, 2, 1),
+                LocalDate.of(2030, 2, 2)), between.stream().map(Task::getDate).toList());
+        assertFalse(between.get(0).isOccurrence());
+        assertTrue(between.get(1).isOccurrence());
+    }
+
+    /**
+     * Tests that a repeating task takes the status of its next occurrence, and is shown as
+     * that occurrence when filtered by status.
+     */
+    @Test
+    void statusFollowsTheNextOccurrence() {
+        Task task = addTask("Fizyka", LocalDate.of(2029, 12, 18), Recurrence.weekly());
+
+        assertEquals(TaskStatus.DUE_THIS_WEEK, task.getStatus(), "The next occurrence is due on 2030-01-15");
+        List<Task> dueThisWeek = new ArrayList<>(user.getTasksByStatus(TaskStatus.DUE_THIS_WEEK));
+        Task shown = dueThisWeek.stream().filter(t -> t.getTaskId() == task.getTaskId()).findFirst().orElseThrow();
+        assertEquals(LocalDate.of(2030, 1, 15), shown.getDate());
+        assertTrue(shown.isOccurrence());
+
+        task.setRecurrence(Recurrence.weekly().times(2));
+        assertEquals(TaskStatus.DUE_SOON, task.getStatus(), "The last occurrence was due on 2029-12-25");
+    }
+
+    /**
+     * Tests that a live range list has a row for each occurrence and follows changes of the
+     * rule, the date and the fields of the repeating task.
+     *
+     * @throws ValidationException if the task cannot be changed or removed
+     */
+    @Test
+    void liveRangeFollowsTheRule() throws ValidationException {
+        LiveList<Task> live = user.getLiveTasksBetween(LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 31));
+        Task task = addTask("Fizyka", LocalDate.of(2030, 1, 5), Recurrence.weekly());
+        assertEquals(List.of(5, 12, 19, 26), days(live));
+
+        task.setSubject("Chemia");
+        assertEquals("Chemia", live.get(3).getSubject());
+
+        task.setDate(LocalDate.of(2030, 1, 6));
+        assertEquals(List.of(6, 13, 20, 27), days(live));
+
+        task.setRecurrence(Recurrence.everyWeeks(2));
+        assertEquals(List.of(6, 20), days(live));
+
+        user.removeTask(task.getTaskId());
+        assertTrue(live.isEmpty());
+        live.dispose();
+    }
+
+    /**
+     * Tests that a live range list shows the right occurrences after the rows of removed and
+     * changed tasks were handed to other tasks.
+     *
+     * @throws ValidationException if a task cannot be removed
+     */
+    @Test
+    void liveRangeReusesRowsOfRemovedTasks() throws ValidationException {
+        LiveList<Task> live = user.getLiveTasksBetween(LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 31));
+        Task kept = addTask("Historia", LocalDate.of(2030, 1, 2), Recurrence.weekly());
+        for (int i = 0; i < 50; i++) {
+            Task task = addTask("Lekcja " + i, LocalDate.of(2030, 1, 3), Recurrence.everyWeeks(1 + i % 2));
+            user.removeTask(task.getTaskId());
+        }
+        Task added = addTask("Chemia", LocalDate.of(2030, 1, 4), Recurrence.everyWeeks(2));
+        kept.setRecurrence(Recurrence.everyWeeks(2));
+
+        assertEquals(List.of("Historia 2", "Chemia 4", "Historia 16", "Chemia 18", "Historia 30"),
+                live.stream().map(task -> task.getSubject() + " " + task.getDate().getDayOfMonth()).toList());
+        user.removeTask(added.getTaskId());
+        assertEquals(List.of(2, 16, 30), days(live));
+        live.dispose();
+    }
+
+    /**
+     * Tests that every storage keeps the rules of the tasks.
+     *
+     * @throws ValidationException if the task cannot be found
+     */
+    @Test
+    void everyStorageKeepsTheRule() throws ValidationException {
+        Recurrence rule = Recurrence.everyWeeks(3).until(LocalDate.of(2030, 12, 31));
+        for (TaskStorage storage : TaskStorage.values()) {
+            user = new User(storage);
+            user.setClock(Clock.fixed(TODAY.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC));
+            Task task = addTask("Fizyka", LocalDate.of(2030, 1, 7), rule);
+
+            assertEquals(rule, user.getTaskById(task.getTaskId()).getRecurrence(), storage.name());
+            assertEquals(3, user.getTasksBetween(LocalDate.of(2030, 1, 1), LocalDate.of(2030, 2, 18)).size(),
+                    storage.name());
+        }
+    }
+
+    /**
+     * Adds a task due at 10:00 on a day, repeating by a rule.
+     */
+    private Task addTask(String subject, LocalDate date, Recurrence rule) {
+        Task task = new Task(subject, "Opis", 1, date, LocalTime.of(10, 0));
+        task.setRecurrence(rule);
+        user.addTask(task);
+        return task;
+    }
+
+    private static List<LocalDate> dates(Iterator<Task> occurrences) {
+        List<LocalDate> dates = new ArrayList<>();
+        occurrences.forEachRemaining(occurrence -> dates.add(occurrence.getDate()));
+        return dates;
+    }
+
+    private static List<Integer> days(List<Task> tasks) {
+        return tasks.stream().map(task -> task.getDate().getDayOfMonth()).toList();
+    }
+}
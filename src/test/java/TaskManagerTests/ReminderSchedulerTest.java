@@ -0,0 +1,229 @@
+package TaskManagerTests;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import model.Recurrence;
+import model.ReminderScheduler;
+import model.Task;
+import model.User;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link ReminderScheduler} class.
+ * The tests move a fixed clock forward and check which tasks each tick reminds of.
+ *
+ * @author badim
+ */
+public class ReminderSchedulerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 8, 0);
+    private static final Duration LEAD = Duration.ofMinutes(15);
+
+    private MutableClock clock;
+    private User user;
+    private ReminderScheduler scheduler;
+
+    /**
+     * Creates a user whose clock starts at {@link #START} and a scheduler for it.
+     */
+    @BeforeEach
+    public void setUp() {
+        clock = new MutableClock(START.toInstant(ZoneOffset.UTC));
+        user = new User();
+        user.setClock(clock);
+        scheduler = new ReminderScheduler(user, LEAD);
+    }
+
+    /**
+     * Stops the scheduler in case a test started it.
+     */
+    @AfterEach
+    public void tearDown() {
+        scheduler.stop();
+    }
+
+    /**
+     * Tests that a task is reminded of once, at the lead time before it is due.
+     */
+    @Test
+    void remindsAtTheLeadTime() {
+        Task task = addTask("Fizyka", START.plusHours(1));
+
+        advance(Duration.ofMinutes(44));
+        assertTrue(scheduler.tick().isEmpty(), "Nothing should be reminded of before the lead time");
+
+        advance(Duration.ofMinutes(1));
+        assertEquals(List.of(task), scheduler.tick());
+        assertTrue(scheduler.tick().isEmpty(), "A task should be reminded of only once");
+    }
+
+    /**
+     * Tests that a missed minute is caught up by the next tick, and that a task added within
+     * the lead time is reminded of at once but a task already due is not.
+     */
+    @Test
+    void lateRemindersAreCaughtUp() {
+        Task first = addTask("Fizyka", START.plusMinutes(30));
+        Task second = addTask("Chemia", START.plusHours(2));
+        Task soon = addTask("Biologia", START.plusMinutes(5));
+        addTask("Historia", START.minusMinutes(5));
+
+        assertEquals(List.of(soon), scheduler.tick());
+
+        advance(Duration.ofHours(3));
+        assertEquals(List.of(first, second), scheduler.tick());
+    }
+
+    /**
+     * Tests that changing the date or time of a task moves its reminder.
+     */
+    @Test
+    void changedDueTimeMovesTheReminder() {
+        Task task = addTask("Fizyka", START.plusHours(1));
+        task.setTime(LocalTime.of(10, 0));
+
+        advance(Duration.ofMinutes(45));
+        assertTrue(scheduler.tick().isEmpty(), "The reminder should have moved with the time");
+
+        advance(Duration.ofMinutes(60));
+        assertEquals(List.of(task), scheduler.tick());
+
+        task.setDate(START.toLocalDate().plusDays(1));
+        advance(Duration.ofDays(1));
+        assertEquals(List.of(task), scheduler.tick(), "A task moved to another day is reminded of again");
+    }
+
+    /**
+     * Tests that each occurrence of a repeating task is reminded of, and none after the
+     * last one.
+     */
+    @Test
+    void repeatingTaskIsRemindedOfEachOccurrence() {
+        Task task = new Task("Fizyka", "Opis", 1, START.toLocalDate(), START.toLocalTime().plusHours(1));
+        task.setRecurrence(Recurrence.daily().times(2));
+        user.addTask(task);
+
+        advance(Duration.ofMinutes(45));
+        List<Task> first = scheduler.tick();
+        assertEquals(1, first.size());
+        assertEquals(START.toLocalDate(), first.get(0).getDate());
+
+        advance(Duration.ofDays(1));
+        List<Task> second = scheduler.tick();
+        assertEquals(1, second.size());
+        assertEquals(START.toLocalDate().plusDays(1), second.get(0).getDate());
+        assertTrue(second.get(0).isOccurrence());
+
+        advance(Duration.ofDays(1));
+        assertTrue(scheduler.tick().isEmpty(), "The rule ends after two occurrences");
+    }
+
+    /**
+     * Tests that removed tasks, also with their client, are not reminded of.
+     */
+    @Test
+    void removedTasksAreNotRemindedOf() throws Exception {
+        Task removed = addTask("Fizyka", START.plusHours(1));
+        Task kept = addTask("Chemia", START.plusHours(1));
+        Task ofRemovedClient = new Task("Biologia", "", 2, START.toLocalDate(), START.toLocalTime().plusHours(1));
+        user.addTask(ofRemovedClient);
+
+        user.removeTask(removed.getTaskId());
+        user.removeClient(2);
+        advance(Duration.ofHours(1));
+
+        assertEquals(List.of(kept), scheduler.tick());
+    }
+
+    /**
+     * Tests that a hundred thousand tasks due at the same time are all reminded of by one
+     * tick, and that scheduling them does not depend on how many there are.
+     */
+    @Test
+    void manyTasksDueTogether() {
+        int count = 100_000;
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(addTask("Zadanie " + i, START.plusDays(30)));
+        }
+
+        advance(Duration.ofDays(29));
+        assertTrue(scheduler.tick().isEmpty());
+        advance(Duration.ofDays(1).minus(LEAD));
+        List<Task> reminded = scheduler.tick();
+
+        assertEquals(count, reminded.size());
+        assertEquals(new HashSet<>(tasks), new HashSet<>(reminded));
+    }
+
+    /**
+     * Tests that the started scheduler hands the reminders due to the executor in one batch.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Test
+    void startedSchedulerDeliversOneBatch() throws InterruptedException {
+        Task first = addTask("Fizyka", START.plusMinutes(10));
+        Task second = addTask("Chemia", START.plusMinutes(10));
+        List<List<Task>> batches = new CopyOnWriteArrayList<>();
+
+        scheduler.start(Runnable::run, batches::add);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (batches.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(List.of(List.of(first, second)), batches);
+    }
+
+    private Task addTask(String subject, LocalDateTime due) {
+        Task task = new Task(subject, "Opis", 1, due.toLocalDate(), due.toLocalTime());
+        user.addTask(task);
+        return task;
+    }
+
+    private void advance(Duration duration) {
+        clock.advance(duration);
+    }
+
+    /**
+     * A clock that stays at the same instant until moved forward.
+     */
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
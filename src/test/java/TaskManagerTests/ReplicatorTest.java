@@ -0,0 +1,337 @@
+package TaskManagerTests;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import model.Client;
+import model.Recurrence;
+import model.Replicator;
+import model.Task;
+import model.User;
+import model.ValidationException;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link Replicator} class.
+ * The tests replicate two users with the same sample data between two replicators on free
+ * local ports, change them on both sides, and check that both users end up equal.
+ *
+ * @author badim
+ */
+public class ReplicatorTest {
+
+    private static final InetAddress LOOPBACK = InetAddress.getLoopbackAddress();
+
+    private User first;
+    private User second;
+    private int firstPort;
+    private int secondPort;
+    private Replicator firstReplicator;
+    private Replicator secondReplicator;
+    private final ConcurrentLinkedQueue<String> problems = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates two users with the same sample data and picks a free port for each.
+     *
+     * @throws IOException if no free port is found
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        first = new User();
+        second = new User();
+        firstPort = freePort();
+        secondPort = freePort();
+    }
+
+    /**
+     * Stops both replicators.
+     */
+    @AfterEach
+    public void tearDown() {
+        problems.clear();
+        if (firstReplicator != null) {
+            firstReplicator.close();
+        }
+        if (secondReplicator != null) {
+            secondReplicator.close();
+        }
+    }
+
+    /**
+     * Tests that random changes made at the same time on both sides end up on both, and
+     * that the two sides assign different IDs.
+     *
+     * @throws Exception if a change fails
+     */
+    @Test
+    void concurrentChangesConverge() throws Exception {
+        startFirst(Runnable::run);
+        startSecond(Runnable::run);
+
+        try (ExecutorService desks = Executors.newFixedThreadPool(2)) {
+            Future<?> one = desks.submit(() -> randomChanges(first, new Random(1)));
+            Future<?> two = desks.submit(() -> randomChanges(second, new Random(2)));
+            one.get();
+            two.get();
+        }
+        awaitReplicated();
+
+        assertEquals(state(first), state(second));
+        assertTrue(first.getTaskCount() > 9);
+        long firstOdd = first.getTaskList().stream().filter(task -> task.getTaskId() > 9 && task.getTaskId() % 2 == 1).count();
+        long secondEven = first.getTaskList().stream().filter(task -> task.getTaskId() > 9 && task.getTaskId() % 2 == 0).count();
+        assertTrue(firstOdd > 0 && secondEven > 0, "Both sides added tasks with their own IDs");
+    }
+
+    /**
+     * Tests that when both sides change the same field, both keep the same value.
+     *
+     * @throws Exception if a change fails
+     */
+    @Test
+    void sameFieldChangedOnBothSidesConverges() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        startFirst(gated(gate));
+        startSecond(gated(gate));
+
+        // Neither side applies the other's change until both made their own
+        first.getTaskById(1).setSubject("Fizyka");
+        second.getTaskById(1).setSubject("Chemia");
+        second.getTaskById(1).setDescription("Rozdział 3");
+        gate.countDown();
+        awaitReplicated();
+
+        assertEquals(state(first), state(second));
+        assertEquals("Chemia", first.getTaskById(1).getSubject(), "The later change wins");
+        assertEquals("Rozdział 3", first.getTaskById(1).getDescription());
+    }
+
+    /**
+     * Tests that tasks added or moved to a client removed at the same time on the other
+     * side are removed on both sides.
+     *
+     * @throws Exception if a change fails
+     */
+    @Test
+    void removedClientTakesConcurrentTasksAlong() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        startFirst(gated(gate));
+        startSecond(gated(gate));
+        int clientId = first.getClientList().get(0).getClientId();
+        Task moved = second.getTaskList().stream().filter(task -> task.getClientId() != clientId).findFirst().orElseThrow();
+
+        first.removeClient(clientId);
+        Task added = new Task("Biologia", "", clientId, 2030, 5, 12, 15, 0);
+        second.addTask(added);
+        moved.setClientId(clientId);
+        gate.countDown();
+        awaitReplicated();
+
+        assertEquals(state(first), state(second));
+        assertThrows(ValidationException.class, () -> second.getClientById(clientId));
+        assertThrows(ValidationException.class, () -> first.getTaskById(added.getTaskId()));
+        assertThrows(ValidationException.class, () -> first.getTaskById(moved.getTaskId()));
+        assertTrue(second.getTasksForClient(clientId).isEmpty());
+    }
+
+    /**
+     * Tests that a peer that was stopped catches up with the changes made meanwhile, sent
+     * in several batches, once it runs again.
+     *
+     * @throws Exception if a change fails
+     */
+    @Test
+    void stoppedPeerCatchesUp() throws Exception {
+        startFirst(Runnable::run);
+        startSecond(Runnable::run);
+        first.getClientById(1).setDescription("Przed przerwą");
+        awaitReplicated();
+        long acknowledged = firstReplicator.getAcknowledged();
+
+        secondReplicator.close();
+        for (int i = 0; i < 3 * Replicator.MAX_BATCH; i++) {
+            first.addTask(new Task("Zadanie " + i, "", 2, 2030, 1, 1 + i % 28, 16, 30));
+        }
+        first.removeTask(3);
+        first.getClientById(2).setPhoneNumber("111222333");
+        assertEquals(acknowledged, firstReplicator.getAcknowledged());
+
+        startSecond(Runnable::run);
+        awaitReplicated();
+
+        assertEquals(state(first), state(second));
+        assertEquals(9 - 1 + 3 * Replicator.MAX_BATCH, second.getTaskCount());
+        assertEquals("Przed przerwą", second.getClientById(1).getDescription());
+    }
+
+    /**
+     * Tests that a change of the peer naming an unknown field or carrying an invalid rule is
+     * reported and skipped, and the changes after it are still applied.
+     *
+     * @throws Exception if the connection fails
+     */
+    @Test
+    void invalidChangesAreReportedAndSkipped() throws Exception {
+        startFirst(Runnable::run);
+        String subject = first.getTaskById(1).getSubject();
+
+        try (Socket socket = new Socket(LOOPBACK, firstPort)) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            out.writeInt(0x544D5250); // The handshake of instance 2
+            out.writeInt(2);
+            out.writeInt(2);
+            out.writeLong(42);
+            out.flush();
+            assertEquals(0x544D5250, in.readInt());
+            assertEquals(0, in.readLong());
+
+            out.writeInt(3);
+            writeTaskField(out, 1, 1, 99, new byte[0]);
+            writeTaskField(out, 2, 1, 4, new byte[] {0, 0, 0, 3});
+            writeTaskField(out, 3, 1, 0, new byte[] {0, 0, 0, 6, 'F', 'i', 'z', 'y', 'k', 'a'});
+            out.flush();
+            assertEquals(3, in.readLong());
+        }
+
+        assertEquals("Fizyka", first.getTaskById(1).getSubject(), "Changed from " + subject);
+        assertNull(first.getTaskById(1).getRecurrence());
+        assertEquals(2, problems.size());
+        assertTrue(problems.peek().startsWith("Skipped change 1 of the peer"), problems.peek());
+    }
+
+    /**
+     * Writes a replicated edit of one field of a task, in the form the replicator sends it.
+     */
+    private static void writeTaskField(DataOutputStream out, long seq, int taskId, int field, byte[] value)
+            throws IOException {
+        out.writeLong(seq);
+        out.writeInt(8 + 1 + 4 + 1 + value.length);
+        out.writeLong(System.currentTimeMillis() * 2 + 1); // An edit of instance 2, later than the sample data
+        out.writeByte(5);
+        out.writeInt(taskId);
+        out.writeByte(field);
+        out.write(value);
+    }
+
+    private void startFirst(Executor writer) throws IOException {
+        firstReplicator = Replicator.start(first, 1, new InetSocketAddress(LOOPBACK, firstPort),
+                new InetSocketAddress(LOOPBACK, secondPort), writer, problems::add);
+    }
+
+    private void startSecond(Executor writer) throws IOException {
+        secondReplicator = Replicator.start(second, 2, new InetSocketAddress(LOOPBACK, secondPort),
+                new InetSocketAddress(LOOPBACK, firstPort), writer, problems::add);
+    }
+
+    /**
+     * Returns a writer applying the changes of the peer once the gate is open.
+     */
+    private static Executor gated(CountDownLatch gate) {
+        return change -> {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            change.run();
+        };
+    }
+
+    /**
+     * Waits until both sides acknowledged all changes of the other.
+     */
+    private void awaitReplicated() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (firstReplicator.getAcknowledged() < firstReplicator.getSequence()
+                || secondReplicator.getAcknowledged() < secondReplicator.getSequence()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Changes were not replicated in time");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Adds, changes and removes tasks and clients at random.
+     */
+    private static Void randomChanges(User user, Random random) throws ValidationException {
+        for (int i = 0; i < 500; i++) {
+            List<Task> tasks = user.getTaskList();
+            List<Client> clients = user.getClientList();
+            Task task = tasks.isEmpty() ? null : tasks.get(random.nextInt(tasks.size()));
+            Client client = clients.get(random.nextInt(clients.size()));
+            switch (random.nextInt(8)) {
+                case 0, 1 -> user.addTask(new Task("Zadanie " + i, "Opis " + i, client.getClientId(),
+                        LocalDate.of(2030, 1 + random.nextInt(12), 1 + random.nextInt(28)), LocalTime.of(16, 30)));
+                case 2 -> user.addClient(new Client("Uczeń " + i, "Rodzic " + i, "123456789", ""));
+                case 3 -> {
+                    if (task != null) {
+                        task.setSubject("Temat " + random.nextInt(100));
+                    }
+                }
+                case 4 -> {
+                    if (task != null) {
+                        task.setDescription("Opis " + random.nextInt(100));
+                        task.setClientId(client.getClientId());
+                    }
+                }
+                case 5 -> client.setDescription("Notatka " + random.nextInt(100));
+                case 6 -> {
+                    if (task != null) {
+                        try {
+                            user.removeTask(task.getTaskId());
+                        } catch (ValidationException e) {
+                            // Removed by the other side meanwhile
+                        }
+                    }
+                }
+                default -> {
+                    if (task != null && random.nextBoolean()) {
+                        task.setDate(LocalDate.of(2031, 1 + random.nextInt(12), 1 + random.nextInt(28)));
+                    } else if (task != null) {
+                        task.setRecurrence(random.nextBoolean() ? null : Recurrence.everyWeeks(1 + random.nextInt(4)));
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns all fields of all tasks and clients of a user, ordered by ID.
+     */
+    private static String state(User user) {
+        StringBuilder state = new StringBuilder();
+        user.getClientList().stream().sorted(Comparator.comparingInt(Client::getClientId)).forEach(client ->
+                state.append(client.getClientId()).append('|').append(client.getStudentName()).append('|')
+                        .append(client.getParentName()).append('|').append(client.getPhoneNumber()).append('|')
+                        .append(client.getDescription()).append('\n'));
+        user.getTaskList().stream().sorted(Comparator.comparingInt(Task::getTaskId)).forEach(task ->
+                state.append(task.getTaskId()).append('|').append(task.getSubject()).append('|')
+                        .append(task.getDescription()).append('|').append(task.getClientId()).append('|')
+                        .append(task.getDate()).append('|').append(task.getTime()).append('|')
+                        .append(task.getRecurrence()).append('\n'));
+        return state.toString();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, LOOPBACK)) {
+            return socket.getLocalPort();
+        }
+    }
+}
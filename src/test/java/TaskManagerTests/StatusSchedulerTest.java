@@ -0,0 +1,184 @@
+package TaskManagerTests;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import model.Recurrence;
+import model.StatusScheduler;
+import model.Task;
+import model.TaskStatus;
+import model.User;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link StatusScheduler} class.
+ * The tests move a controllable clock forward day by day and check that task statuses
+ * and the status buckets of the {@link User} follow the due dates.
+ *
+ * @author badim
+ */
+public class StatusSchedulerTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 3, 1);
+
+    private MutableClock clock;
+    private User user;
+    private StatusScheduler scheduler;
+
+    /**
+     * Creates a user whose clock starts at {@link #START} and a scheduler for it.
+     */
+    @BeforeEach
+    public void setUp() {
+        clock = new MutableClock(START.atStartOfDay(ZoneOffset.UTC).toInstant());
+        user = new User();
+        user.setClock(clock);
+        scheduler = new StatusScheduler(user);
+    }
+
+    /**
+     * Tests that a long-term task becomes due this week and then due soon as days pass.
+     */
+    @Test
+    void statusFollowsTheClock() {
+        Task task = new Task("Fizyka", "Opis", 1, START.plusDays(10), LocalTime.NOON);
+        user.addTask(task);
+        assertEquals(TaskStatus.LONG_TERM, task.getStatus());
+
+        advanceDays(2);
+        assertEquals(0, scheduler.tick(), "Nothing should change before the boundary");
+        assertEquals(TaskStatus.LONG_TERM, task.getStatus());
+
+        advanceDays(1);
+        scheduler.tick();
+        assertEquals(TaskStatus.DUE_THIS_WEEK, task.getStatus());
+        assertTrue(user.getTasksByStatus(TaskStatus.DUE_THIS_WEEK).contains(task));
+
+        advanceDays(4);
+        scheduler.tick();
+        assertEquals(TaskStatus.DUE_SOON, task.getStatus());
+        assertTrue(user.getTasksByStatus(TaskStatus.DUE_SOON).contains(task));
+        assertFalse(user.getTasksByStatus(TaskStatus.DUE_THIS_WEEK).contains(task));
+    }
+
+    /**
+     * Tests that a missed midnight is caught up by the next tick.
+     */
+    @Test
+    void missedDaysAreCaughtUp() {
+        Task task = new Task("Chemia", "Opis", 1, START.plusDays(20), LocalTime.NOON);
+        user.addTask(task);
+
+        advanceDays(19);
+        scheduler.tick();
+
+        assertEquals(TaskStatus.DUE_SOON, task.getStatus());
+    }
+
+    /**
+     * Tests that a tick only changes the tasks that reached a boundary.
+     */
+    @Test
+    void onlyTasksCrossingABoundaryChange() {
+        for (int i = 0; i < 100; i++) {
+            user.addTask(new Task("Lekcja " + i, "Opis", 1, START.plusDays(8 + i), LocalTime.NOON));
+        }
+
+        advanceDays(1);
+
+        assertEquals(1, scheduler.tick(), "Only the task due in a week should change");
+    }
+
+    /**
+     * Tests that a date change reschedules the task and the old boundary is ignored.
+     */
+    @Test
+    void rescheduledTaskUsesItsNewDate() {
+        Task task = new Task("Biologia", "Opis", 1, START.plusDays(10), LocalTime.NOON);
+        user.addTask(task);
+        task.setDate(START.plusDays(30));
+
+        advanceDays(3);
+        scheduler.tick();
+
+        assertEquals(TaskStatus.LONG_TERM, task.getStatus(), "The old boundary should be ignored");
+
+        advanceDays(20);
+        scheduler.tick();
+        assertEquals(TaskStatus.DUE_THIS_WEEK, task.getStatus());
+    }
+
+    /**
+     * Tests that a repeating task takes the status of its following occurrence on the day
+     * after an occurrence was due, and keeps the status of the last one once the rule ends.
+     */
+    @Test
+    void repeatingTaskFollowsItsNextOccurrence() {
+        Task task = new Task("Fizyka", "Opis", 1, START.plusDays(1), LocalTime.NOON);
+        task.setRecurrence(Recurrence.weekly().times(2));
+        user.addTask(task);
+        assertEquals(TaskStatus.DUE_SOON, task.getStatus());
+
+        advanceDays(2);
+        assertEquals(1, scheduler.tick(), "The occurrence due in a week should be the next one");
+        assertEquals(TaskStatus.DUE_THIS_WEEK, task.getStatus());
+
+        advanceDays(3);
+        scheduler.tick();
+        assertEquals(TaskStatus.DUE_SOON, task.getStatus());
+
+        advanceDays(7);
+        assertEquals(0, scheduler.tick(), "No occurrence is left after the last one");
+        assertEquals(TaskStatus.DUE_SOON, task.getStatus());
+    }
+
+    /**
+     * Tests that the constructor taking a date and a time sets the status.
+     */
+    @Test
+    void dateTimeConstructorSetsStatus() {
+        Task task = new Task("Historia", "Opis", 1, LocalDate.now().plusDays(1), LocalTime.NOON);
+
+        assertEquals(TaskStatus.DUE_SOON, task.getStatus());
+    }
+
+    private void advanceDays(int days) {
+        clock.advance(Duration.ofDays(days));
+    }
+
+    /**
+     * A clock whose time is moved forward by the test.
+     */
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package TaskManagerTests;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import model.Recurrence;
+import model.Task;
+import model.TaskStatus;
+import model.User;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import transfer.CsvImport;
+import transfer.ImportResult;
+import transfer.TaskExport;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link TaskExport} class.
+ * The tests export tasks of a {@link User} to CSV and iCalendar files, checking quoting,
+ * escaping and line folding, exports of subsets, reading the CSV back and cancellation.
+ *
+ * @author badim
+ */
+public class TaskExportTest {
+
+    @TempDir
+    Path directory;
+
+    private User user;
+
+    /**
+     * Creates a user with the sample data.
+     */
+    @BeforeEach
+    public void setUp() {
+        user = new User();
+    }
+
+    /**
+     * Tests that an exported CSV file quotes fields when needed and can be imported back.
+     *
+     * @throws Exception if the export or the import fails
+     */
+    @Test
+    void csvExportCanBeImportedBack() throws Exception {
+        user.addTask(new Task("Matematyka, ułamki", "Zadanie \"5\"\nstrona 12", 1, 2025, 3, 10, 16, 30));
+        Path file = directory.resolve("tasks.csv");
+        int count = user.getTaskCount();
+
+        int written = TaskExport.write(TaskExport.allTasks(user), TaskExport.Format.CSV, file,
+                (done, total) -> { }, () -> false);
+
+        assertEquals(count, written);
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals("taskId,subject,description,clientId,date,time,status", lines.get(0));
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        assertTrue(content.contains(",\"Matematyka, ułamki\",\"Zadanie \"\"5\"\"\nstrona 12\",1,2025-03-10,16:30,"));
+
+        User copy = new User();
+        int before = copy.getTaskCount();
+        ImportResult result = new CsvImport(copy, Runnable::run).run(file, (done, total) -> { }, () -> false);
+        assertEquals(count, result.imported());
+        Task imported = copy.getTaskList().get(before + count - 1);
+        assertEquals("Matematyka, ułamki", imported.getSubject());
+        assertEquals("Zadanie \"5\"\nstrona 12", imported.getDescription());
+        assertEquals("2025-03-10", imported.getDate().toString());
+        assertEquals("16:30", imported.getTime().toString());
+    }
+
+    /**
+     * Tests that an iCalendar export escapes text, folds long lines and ends lines with CRLF.
+     *
+     * @throws Exception if the export fails
+     */
+    @Test
+    void icsExportEscapesAndFoldsLines() throws Exception {
+        Task task = new Task("Fizyka; optyka, soczewki", "ą".repeat(100), 1, 2025, 3, 10, 9, 5);
+        user.addTask(task);
+        Path file = directory.resolve("tasks.ics");
+
+        int written = TaskExport.write(List.of(task), TaskExport.Format.ICS, file, (done, total) -> { }, () -> false);
+
+        assertEquals(1, written);
+        byte[] bytes = Files.readAllBytes(file);
+        String content = new String(bytes, StandardCharsets.UTF_8);
+        assertTrue(content.startsWith("BEGIN:VCALENDAR\r\n"));
+        assertTrue(content.endsWith("END:VEVENT\r\nEND:VCALENDAR\r\n"));
+        assertFalse(content.replace("\r\n", "").contains("\n"), "Every line should end with CRLF");
+        assertTrue(content.contains("UID:task-" + task.getTaskId() + "@taskmanager\r\n"));
+        assertTrue(content.contains("DTSTART:20250310T090500\r\n"));
+        assertTrue(content.contains("SUMMARY:Fizyka\\; optyka\\, soczewki\r\n"));
+        for (String line : content.split("\r\n")) {
+            assertTrue(line.getBytes(StandardCharsets.UTF_8).length <= 75, "Line too long: " + line);
+        }
+        String description = content.substring(content.indexOf("DESCRIPTION:"), content.indexOf("\r\nCATEGORIES"));
+        assertEquals("DESCRIPTION:" + "ą".repeat(100), description.replace("\r\n ", ""));
+    }
+
+    /**
+     * Tests that a repeating task is exported as one event with its rule, and that each of
+     * its occurrences in a range is an event of its own.
+     *
+     * @throws Exception if the export fails
+     */
+    @Test
+    void icsExportWritesRulesAndOccurrences() throws Exception {
+        Task task = new Task("Fizyka", "Opis", 1, 2030, 3, 4, 9, 5);
+        task.setRecurrence(Recurrence.everyWeeks(2).until(LocalDate.of(2030, 6, 30)));
+        user.addTask(task);
+        Path file = directory.resolve("tasks.ics");
+
+        TaskExport.write(List.of(task), TaskExport.Format.ICS, file, (done, total) -> { }, () -> false);
+        assertTrue(Files.readString(file).contains("UID:task-" + task.getTaskId() + "@taskmanager\r\n"
+                + "DTSTAMP:"));
+        assertTrue(Files.readString(file).contains("RRULE:FREQ=WEEKLY;INTERVAL=2;UNTIL=20300630T235959\r\n"));
+
+        List<Task> occurrences = user.getTasksBetween(LocalDate.of(2030, 3, 1), LocalDate.of(2030, 3, 31));
+        int written = TaskExport.write(occurrences, TaskExport.Format.ICS, file, (done, total) -> { }, () -> false);
+        String content = Files.readString(file);
+        assertEquals(2, written);
+        assertTrue(content.contains("UID:task-" + task.getTaskId() + "-20300318@taskmanager\r\n"));
+        assertTrue(content.contains("DTSTART:20300318T090500\r\n"));
+        assertFalse(content.contains("RRULE"), "Occurrences are single events");
+    }
+
+    /**
+     * Tests that exports of one status or one client contain only those tasks.
+     *
+     * @throws Exception if the export fails
+     */
+    @Test
+    void exportsSubsets() throws Exception {
+        Path file = directory.resolve("subset.csv");
+        for (TaskStatus status : TaskStatus.values()) {
+            int written = TaskExport.write(user.getTasksByStatus(status), TaskExport.Format.CSV, file,
+                    (done, total) -> { }, () -> false);
+            List<String> rows = Files.readAllLines(file).subList(1, written + 1);
+            assertEquals(user.getTasksByStatus(status).size(), written);
+            assertTrue(rows.stream().allMatch(row -> row.endsWith("," + status.name())));
+        }
+
+        int clientId = user.getTaskList().get(0).getClientId();
+        List<Task> clientTasks = user.getTasksForClient(clientId);
+        int written = TaskExport.write(clientTasks, TaskExport.Format.CSV, file, (done, total) -> { }, () -> false);
+        assertEquals(clientTasks.size(), written);
+        String ids = Files.readAllLines(file).stream().skip(1)
+                .map(row -> row.substring(0, row.indexOf(','))).collect(Collectors.joining(" "));
+        assertEquals(clientTasks.stream().map(task -> String.valueOf(task.getTaskId()))
+                .collect(Collectors.joining(" ")), ids);
+    }
+
+    /**
+     * Tests that the collection of all tasks skips tasks removed after it was taken.
+     *
+     * @throws Exception if a task cannot be removed
+     */
+    @Test
+    void allTasksSkipsRemovedTasks() throws Exception {
+        var tasks = TaskExport.allTasks(user);
+        Task removed = user.getTaskList().get(0);
+        user.removeTask(removed.getTaskId());
+
+        List<Integer> ids = tasks.stream().map(Task::getTaskId).toList();
+
+        assertEquals(user.getTaskCount(), ids.size());
+        assertFalse(ids.contains(removed.getTaskId()));
+    }
+
+    /**
+     * Tests that a cancelled export leaves neither the file nor its temporary file, and
+     * keeps an existing file unchanged.
+     *
+     * @throws Exception if the export fails
+     */
+    @Test
+    void cancelledExportLeavesNoFile() throws Exception {
+        Path file = directory.resolve("tasks.csv");
+
+        assertEquals(-1, TaskExport.write(TaskExport.allTasks(user), TaskExport.Format.CSV, file,
+                (done, total) -> { }, () -> true));
+        assertFalse(Files.exists(file));
+
+        Files.writeString(file, "old");
+        assertEquals(-1, TaskExport.write(TaskExport.allTasks(user), TaskExport.Format.ICS, file,
+                (done, total) -> { }, () -> true));
+        assertEquals("old", Files.readString(file));
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+}
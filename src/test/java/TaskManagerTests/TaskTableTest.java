@@ -0,0 +1,184 @@
+package TaskManagerTests;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import model.LiveList;
+import model.Task;
+import model.TaskStatus;
+import model.TaskStorage;
+import model.User;
+import model.ValidationException;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the columnar task storage, {@link TaskStorage#COLUMNS}.
+ * The tests check that a {@link User} storing its tasks in columns answers every lookup
+ * like a user storing task objects, and that changes made through task views are stored.
+ *
+ * @author badim
+ */
+public class TaskTableTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 1);
+
+    private User columns;
+    private User objects;
+
+    /**
+     * Creates a columnar and an object-storing user with the same sample data and clock.
+     */
+    @BeforeEach
+    public void setUp() {
+        columns = new User(TaskStorage.COLUMNS);
+        objects = new User(TaskStorage.OBJECTS);
+        Clock clock = Clock.fixed(TODAY.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+        columns.setClock(clock);
+        objects.setClock(clock);
+    }
+
+    /**
+     * Tests that both storages answer the lookups alike after a series of changes,
+     * including enough removals to compact the table.
+     *
+     * @throws Exception if a change is rejected
+     */
+    @Test
+    void lookupsMatchObjectStorage() throws Exception {
+        for (User user : List.of(columns, objects)) {
+            for (int i = 0; i < 60; i++) {
+                user.addTask(new Task("Lekcja " + i, "Opis " + i, 1 + i % 3, TODAY.plusDays(i % 20),
+                        LocalTime.of(8 + i % 10, 0)));
+            }
+            for (int id = 10; id < 60; id += 2) {
+                user.removeTask(id);
+            }
+            user.getTaskById(11).setDate(TODAY.plusDays(2));
+            user.getTaskById(13).setClientId(2);
+            user.removeClient(3);
+        }
+
+        assertEquals(objects.getTaskList(), columns.getTaskList());
+        assertEquals(objects.getTaskCount(), columns.getTaskCount());
+        // A changed task may move within the client and status lookups of the object storage
+        for (int client = 1; client <= 3; client++) {
+            assertEquals(sortedIds(objects.getTasksForClient(client)), sortedIds(columns.getTasksForClient(client)));
+        }
+        for (TaskStatus status : TaskStatus.values()) {
+            assertEquals(sortedIds(objects.getTasksByStatus(status)), sortedIds(columns.getTasksByStatus(status)));
+            assertEquals(objects.getTasksByStatus(status).size(), columns.getTasksByStatus(status).size());
+        }
+        LocalDateTime from = TODAY.atTime(9, 0);
+        assertEquals(objects.getTasksBetween(from, from.plusDays(5)), columns.getTasksBetween(from, from.plusDays(5)));
+        assertEquals(ids(objects.searchTasks("lekcja 1")), ids(columns.searchTasks("lekcja 1")));
+    }
+
+    /**
+     * Tests that a change made through a view is visible in views built afterwards.
+     *
+     * @throws Exception if the subject is rejected
+     */
+    @Test
+    void changesThroughAViewAreStored() throws Exception {
+        Task view = columns.getTaskById(1);
+
+        view.setSubject("Geografia");
+        view.setDate(TODAY.plusDays(1));
+
+        Task stored = columns.getTaskById(1);
+        assertNotSame(view, stored);
+        assertEquals(view, stored);
+        assertEquals("Geografia", stored.getSubject());
+        assertEquals(TaskStatus.DUE_SOON, stored.getStatus());
+        assertEquals(List.of(1), ids(columns.searchTasks("geografia")));
+    }
+
+    /**
+     * Tests that an outdated view does not undo a newer change of another field.
+     *
+     * @throws Exception if the subject is rejected
+     */
+    @Test
+    void outdatedViewKeepsNewerChanges() throws Exception {
+        Task first = columns.getTaskById(2);
+        Task second = columns.getTaskById(2);
+
+        first.setSubject("Nowy temat");
+        second.setDescription("Nowy opis");
+
+        Task stored = columns.getTaskById(2);
+        assertEquals("Nowy temat", stored.getSubject());
+        assertEquals("Nowy opis", stored.getDescription());
+    }
+
+    /**
+     * Tests that a view of a removed task can be changed without affecting the user.
+     *
+     * @throws Exception if the task cannot be removed
+     */
+    @Test
+    void viewOfRemovedTaskIsDetached() throws Exception {
+        Task view = columns.getTaskById(3);
+        int count = columns.getTaskCount();
+        columns.removeTask(3);
+
+        view.setSubject("Usunięte");
+
+        assertEquals(count - 1, columns.getTaskCount());
+        assertThrows(ValidationException.class, () -> columns.getTaskById(3));
+    }
+
+    /**
+     * Tests that live lists follow a columnar user, including the removal of a client.
+     *
+     * @throws Exception if the client cannot be removed
+     */
+    @Test
+    void liveListsFollowColumns() throws Exception {
+        LiveList<Task> all = columns.getLiveTasks();
+        LiveList<Task> soon = columns.getLiveTasksByStatus(TaskStatus.DUE_SOON);
+        Task task = new Task("Fizyka", "Opis", 1, TODAY.plusDays(10), LocalTime.NOON);
+        columns.addTask(task);
+        assertFalse(soon.contains(task));
+
+        columns.getTaskById(task.getTaskId()).setDate(TODAY.plusDays(1));
+        columns.removeClient(2);
+
+        assertEquals(columns.getTaskList(), all);
+        assertEquals(List.copyOf(columns.getTasksByStatus(TaskStatus.DUE_SOON)), soon);
+        assertTrue(soon.stream().anyMatch(t -> t.getTaskId() == task.getTaskId()));
+        soon.dispose();
+    }
+
+    /**
+     * Tests that the storage can be selected with the {@code taskmanager.storage} property.
+     */
+    @Test
+    void storageIsConfiguredByProperty() {
+        String previous = System.getProperty("taskmanager.storage");
+        try {
+            System.setProperty("taskmanager.storage", "columns");
+            assertEquals(TaskStorage.COLUMNS, TaskStorage.configured());
+            System.clearProperty("taskmanager.storage");
+            assertEquals(TaskStorage.OBJECTS, TaskStorage.configured());
+        } finally {
+            if (previous != null) {
+                System.setProperty("taskmanager.storage", previous);
+            }
+        }
+    }
+
+    private static List<Integer> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getTaskId).collect(Collectors.toList());
+    }
+
+    private static List<Integer> sortedIds(Collection<Task> tasks) {
+        return tasks.stream().map(Task::getTaskId).sorted().collect(Collectors.toList());
+    }
+}
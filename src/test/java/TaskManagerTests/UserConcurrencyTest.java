@@ -0,0 +1,222 @@
+package TaskManagerTests;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.Client;
+import model.Task;
+import model.TaskStatus;
+import model.TaskStorage;
+import model.User;
+import model.UserListener;
+import model.ValidationException;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress tests of a {@link User} read and changed by several threads at once.
+ * Writers add, change and remove tasks and clients while readers look them up, and the
+ * tests check that no change is lost and that IDs are assigned once and without gaps.
+ *
+ * @author badim
+ */
+public class UserConcurrencyTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 1);
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int TASKS_PER_WRITER = 1000;
+
+    /**
+     * Tests that tasks added, changed and removed by concurrent writers are all accounted for,
+     * while readers never fail.
+     *
+     * @param storage the storage of the user
+     * @throws Exception if a thread fails
+     */
+    @ParameterizedTest
+    @EnumSource(TaskStorage.class)
+    void concurrentWritersLoseNoUpdates(TaskStorage storage) throws Exception {
+        User user = new User(storage);
+        int initialCount = user.getTaskCount();
+        Task shared = new Task("Wspólne", "Opis", 1, DAY, LocalTime.NOON);
+        user.addTask(shared);
+        int firstId = shared.getTaskId() + 1;
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger updated = new AtomicInteger();
+        user.addListener(new UserListener() {
+            @Override
+            public void taskAdded(Task task) {
+                added.incrementAndGet();
+            }
+
+            @Override
+            public void taskUpdated(Task task) {
+                updated.incrementAndGet();
+            }
+        });
+
+        ConcurrentLinkedQueue<Integer> addedIds = new ConcurrentLinkedQueue<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < TASKS_PER_WRITER; i++) {
+                        Task task = new Task("Zadanie " + writer + " " + i, "Opis", 1 + i % 3,
+                                DAY.plusDays(i % 20), LocalTime.of(i % 24, 0));
+                        user.addTask(task);
+                        addedIds.add(task.getTaskId());
+                        user.getTaskById(task.getTaskId()).setDescription("Zmienione " + writer);
+                        if (i % 2 == 1) {
+                            user.removeTask(task.getTaskId());
+                        }
+                        // Every writer changes its own field of the same task
+                        Task view = user.getTaskById(shared.getTaskId());
+                        switch (writer) {
+                            case 0 -> view.setSubject("Temat " + i);
+                            case 1 -> view.setDescription("Opis " + i);
+                            case 2 -> view.setClientId(100 + i);
+                            default -> view.setDate(DAY.plusDays(i));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < READERS; r++) {
+                readers.add(executor.submit(() -> {
+                    start.await();
+                    while (writing.get()) {
+                        int count = 0;
+                        for (Task task : user.getTaskList()) {
+                            assertNotNull(task.getSubject());
+                            count++;
+                        }
+                        assertTrue(count >= initialCount);
+                        for (TaskStatus status : TaskStatus.values()) {
+                            for (Task task : user.getTasksByStatus(status)) {
+                                assertNotNull(task);
+                            }
+                        }
+                        user.searchTasks("zadanie 1");
+                        user.getTasksBetween(DAY, DAY.plusDays(3));
+                        user.getTasksForClient(2);
+                        int id = firstId + count % (WRITERS * TASKS_PER_WRITER);
+                        try {
+                            assertEquals(id, user.getTaskById(id).getTaskId());
+                        } catch (ValidationException e) {
+                            // Not added yet, or already removed
+                        }
+                        assertEquals(shared.getTaskId(), user.getTaskById(shared.getTaskId()).getTaskId());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int total = WRITERS * TASKS_PER_WRITER;
+        TreeSet<Integer> ids = new TreeSet<>(addedIds);
+        assertEquals(total, addedIds.size());
+        assertEquals(total, ids.size(), "Every task should get its own ID");
+        assertEquals(firstId, ids.first());
+        assertEquals(firstId + total - 1, ids.last(), "IDs should have no gaps");
+        assertEquals(initialCount + 1 + total / 2, user.getTaskCount());
+        assertEquals(initialCount + 1 + total / 2, user.getTaskList().size());
+        assertEquals(total, added.get());
+        assertEquals(total + WRITERS * TASKS_PER_WRITER, updated.get());
+
+        int last = TASKS_PER_WRITER - 1;
+        Task stored = user.getTaskById(shared.getTaskId());
+        assertEquals("Temat " + last, stored.getSubject());
+        assertEquals("Opis " + last, stored.getDescription());
+        assertEquals(100 + last, stored.getClientId());
+        assertEquals(DAY.plusDays(last), stored.getDate());
+        int kept = 0;
+        for (Task task : user.getTaskList()) {
+            if (task.getTaskId() >= firstId) {
+                assertTrue(task.getDescription().startsWith("Zmienione "));
+                kept++;
+            }
+        }
+        assertEquals(total / 2, kept);
+    }
+
+    /**
+     * Tests that clients added and removed concurrently, together with their tasks, leave
+     * the user consistent.
+     *
+     * @param storage the storage of the user
+     * @throws Exception if a thread fails
+     */
+    @ParameterizedTest
+    @EnumSource(TaskStorage.class)
+    void concurrentClientRemovalsKeepTasksConsistent(TaskStorage storage) throws Exception {
+        User user = new User(storage);
+        int initialClients = user.getClientCount();
+        int initialTasks = user.getTaskCount();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 200; i++) {
+                        Client client = new Client("Uczeń " + i, "Rodzic", null, "Opis");
+                        user.addClient(client);
+                        for (int t = 0; t < 5; t++) {
+                            user.addTask(new Task("Lekcja " + t, "Opis", client.getClientId(), DAY, LocalTime.NOON));
+                        }
+                        if (i % 2 == 0) {
+                            user.removeClient(client.getClientId());
+                        } else {
+                            user.getClientById(client.getClientId()).setPhoneNumber("123456789");
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int keptClients = WRITERS * 100;
+        assertEquals(initialClients + keptClients, user.getClientCount());
+        assertEquals(initialTasks + keptClients * 5, user.getTaskCount());
+        for (Client client : user.getClientList()) {
+            if (client.getClientId() > initialClients) {
+                assertEquals("123456789", client.getPhoneNumber());
+                assertEquals(5, user.getTasksForClient(client.getClientId()).size());
+            }
+        }
+    }
+}
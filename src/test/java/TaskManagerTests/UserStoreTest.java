@@ -0,0 +1,275 @@
+package TaskManagerTests;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import model.Client;
+import model.Recurrence;
+import model.Task;
+import model.User;
+import model.UserStore;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link UserStore} class.
+ * These tests verify that changes made to a {@link User} survive closing and reopening
+ * the store, both through the journal and through compacted snapshots.
+ *
+ * @author badim
+ */
+public class UserStoreTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Tests that a fresh store starts with the sample data of a new {@link User}.
+     *
+     * @throws IOException if the store cannot be opened
+     */
+    @Test
+    void freshStoreContainsSampleData() throws IOException {
+        try (UserStore store = UserStore.open(directory)) {
+            User sample = new User();
+            assertEquals(sample.getClientList().size(), store.getUser().getClientList().size());
+            assertEquals(sample.getTaskList().size(), store.getUser().getTaskList().size());
+        }
+    }
+
+    /**
+     * Tests that additions, removals and setter commits are replayed from the journal
+     * when the store is reopened without a final snapshot.
+     *
+     * @throws Exception if the store cannot be opened or a change is rejected
+     */
+    @Test
+    void changesAreReplayedFromJournal() throws Exception {
+        UserStore store = UserStore.open(directory);
+        User user = store.getUser();
+        user.addClient(new Client("Ola", "Anna", "111222333", "new"));
+        user.addTask(new Task("Chemia", "Zadanie", 4, 2030, 1, 15, 16, 45));
+        user.removeTask(1);
+        user.getTaskList().get(0).setSubject("Fizyka");
+        user.getTaskList().get(1).setRecurrence(Recurrence.weekly().times(5));
+        user.getClientList().get(1).setPhoneNumber("999888777");
+        user.removeClient(3);
+        String expected = describe(user);
+        simulateCrash(store);
+
+        try (UserStore reopened = UserStore.open(directory)) {
+            assertEquals(expected, describe(reopened.getUser()));
+        }
+    }
+
+    /**
+     * Tests that a compacted snapshot followed by a journal tail restores the user.
+     *
+     * @throws Exception if the store cannot be opened or a change is rejected
+     */
+    @Test
+    void snapshotAndJournalTailAreCombined() throws Exception {
+        UserStore store = UserStore.open(directory, 5);
+        User user = store.getUser();
+        for (int i = 0; i < 12; i++) {
+            user.addTask(new Task("Lekcja " + i, "Opis", 1, 2030, 2, 1 + i, 10, 0));
+        }
+        user.getTaskList().get(3).setDescription("Zmieniony opis");
+        user.getTaskList().get(4).setRecurrence(Recurrence.daily().until(LocalDate.of(2030, 3, 1)));
+        String expected = describe(user);
+        simulateCrash(store);
+
+        try (UserStore reopened = UserStore.open(directory, 5)) {
+            assertEquals(expected, describe(reopened.getUser()));
+        }
+    }
+
+    /**
+     * Tests that changes made while a compaction is written in the background, including
+     * changes of tasks and clients the compaction is writing, are all kept.
+     *
+     * @throws Exception if the store cannot be opened or a change is rejected
+     */
+    @Test
+    void changesDuringCompactionAreKept() throws Exception {
+        UserStore store = UserStore.open(directory, 3);
+        User user = store.getUser();
+        for (int i = 0; i < 200; i++) {
+            user.addTask(new Task("Lekcja " + i, "Opis", 1 + i % 4, 2030, 2, 1 + i % 28, 10, 0));
+            user.getTaskList().get(i / 2).setDescription("Zmiana " + i);
+            if (i % 10 == 9) {
+                user.removeTask(user.getTaskList().get(i / 3).getTaskId());
+                user.getClientList().get(i % 3).setPhoneNumber("12345678" + i % 10);
+            }
+        }
+        user.removeClient(2);
+        String expected = describe(user);
+        simulateCrash(store);
+
+        try (UserStore reopened = UserStore.open(directory, 3)) {
+            assertEquals(expected, describe(reopened.getUser()));
+        }
+    }
+
+    /**
+     * Tests that a compaction failing in the background is reported to the failure handler
+     * rather than thrown from a later change, and that the changes are still saved once the
+     * snapshot can be written.
+     *
+     * @throws Exception if the store cannot be opened or a change is rejected
+     */
+    @Test
+    void failedCompactionIsReportedWithoutRejectingChanges() throws Exception {
+        UserStore store = UserStore.open(directory, 3);
+        Path blocked = Files.createDirectory(directory.resolve("snapshot.bin.tmp")); // The snapshot cannot be written
+        CompletableFuture<IOException> reported = new CompletableFuture<>();
+        store.setFailureHandler(reported::complete);
+        User user = store.getUser();
+        for (int i = 0; i < 10; i++) {
+            user.getTaskList().get(0).setDescription("Zmiana " + i);
+        }
+
+        IOException failure = reported.get(10, TimeUnit.SECONDS);
+        assertSame(failure, store.getFailure());
+        user.getClientList().get(0).setPhoneNumber("123456789");
+        String expected = describe(user);
+        Files.delete(blocked);
+        store.close();
+        assertNull(store.getFailure());
+
+        try (UserStore reopened = UserStore.open(directory, 3)) {
+            assertEquals(expected, describe(reopened.getUser()));
+        }
+    }
+
+    /**
+     * Tests that a journal moved aside by a compaction that did not finish is replayed
+     * before the new journal.
+     *
+     * @throws Exception if the store cannot be opened or a change is rejected
+     */
+    @Test
+    void unfinishedCompactionIsReplayed() throws Exception {
+        UserStore store = UserStore.open(directory);
+        User user = store.getUser();
+        user.addTask(new Task("Geografia", "Opis", 2, 2030, 4, 4, 8, 0));
+        user.getTaskList().get(0).setSubject("Fizyka");
+        String expected = describe(user);
+        simulateCrash(store);
+        Files.move(directory.resolve("journal.bin"), directory.resolve("journal.old.bin"));
+        Files.createFile(directory.resolve("journal.bin"));
+
+        try (UserStore reopened = UserStore.open(directory)) {
+            assertEquals(expected, describe(reopened.getUser()));
+        }
+        assertFalse(Files.exists(directory.resolve("journal.old.bin")));
+    }
+
+    /**
+     * Tests that a partly written record at the end of the journal is ignored.
+     *
+     * @throws Exception if the store cannot be opened
+     */
+    @Test
+    void tornJournalTailIsDropped() throws Exception {
+        UserStore store = UserStore.open(directory);
+        User user = store.getUser();
+        user.addTask(new Task("Historia", "Opis", 2, 2030, 3, 3, 9, 0));
+        String expected = describe(user);
+        simulateCrash(store);
+
+        try (FileChannel channel = FileChannel.open(directory.resolve("journal.bin"), StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 40, 5, 0, 0}));
+        }
+
+        try (UserStore reopened = UserStore.open(directory)) {
+            assertEquals(expected, describe(reopened.getUser()));
+        }
+    }
+
+    /**
+     * Tests that tasks loaded from a snapshot, whose words are indexed by the first search,
+     * are found by searches, including after a change made before that search.
+     *
+     * @throws Exception if the store cannot be opened or a change is rejected
+     */
+    @Test
+    void tasksLoadedFromSnapshotAreSearchable() throws Exception {
+        try (UserStore store = UserStore.open(directory)) {
+            store.getUser().addTask(new Task("Geografia", "Mapa Łodzi", 1, 2030, 4, 4, 12, 0));
+        }
+
+        try (UserStore reopened = UserStore.open(directory)) {
+            User user = reopened.getUser();
+            Task task = user.searchTasks("geografia").get(0);
+            user.getTaskList().get(0).setDescription("Mapa Krakowa");
+            assertEquals(List.of(task), user.searchTasks("lodz"));
+            assertEquals(1, user.searchTasks("krakow").size());
+            assertTrue(user.searchTasks("zadania 1").isEmpty());
+        }
+    }
+
+    /**
+     * Tests that a snapshot whose bytes were damaged is rejected rather than loaded.
+     *
+     * @throws Exception if the store cannot be opened or the snapshot cannot be changed
+     */
+    @Test
+    void damagedSnapshotIsRejected() throws Exception {
+        UserStore.open(directory).close();
+        try (FileChannel channel = FileChannel.open(directory.resolve("snapshot.bin"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), channel.size() / 2);
+        }
+
+        assertThrows(IOException.class, () -> UserStore.open(directory));
+    }
+
+    /**
+     * Stops recording without writing the final snapshot, as if the application was killed.
+     * A compaction may be running meanwhile, so the journal moved aside by it is copied first.
+     */
+    private void simulateCrash(UserStore store) throws IOException {
+        Path copy = Files.createTempDirectory("journal");
+        for (String file : new String[] {"journal.old.bin", "journal.bin", "snapshot.bin"}) {
+            try {
+                Files.copy(directory.resolve(file), copy.resolve(file));
+            } catch (NoSuchFileException e) {
+                // No compaction was running
+            }
+        }
+        store.close();
+        for (String file : new String[] {"journal.old.bin", "journal.bin", "snapshot.bin"}) {
+            if (Files.exists(copy.resolve(file))) {
+                Files.copy(copy.resolve(file), directory.resolve(file), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    /**
+     * Builds a textual description of all tasks and clients of a user for comparison.
+     */
+    private static String describe(User user) {
+        StringBuilder text = new StringBuilder();
+        for (Client client : user.getClientList()) {
+            text.append(client.getClientId()).append(' ').append(client.getStudentName()).append(' ')
+                    .append(client.getPhoneNumber()).append('\n');
+        }
+        for (Task task : user.getTaskList()) {
+            text.append(task.getTaskId()).append(' ').append(task.getSubject()).append(' ')
+                    .append(task.getDescription()).append(' ').append(task.getClientId()).append(' ')
+                    .append(task.getDateS()).append(' ').append(task.getTimeS()).append(' ')
+                    .append(task.getRecurrence()).append('\n');
+        }
+        return text.toString();
+    }
+}
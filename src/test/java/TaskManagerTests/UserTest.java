@@ -4,8 +4,12 @@
  */
 package TaskManagerTests;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
 import model.Client;
 import model.Task;
+import model.TaskStatus;
 import model.User;
 import model.ValidationException;
 import org.junit.jupiter.api.*;
@@ -107,4 +111,169 @@ public class UserTest {
             assertEquals(initialSize, user.getClientList().size(), "Client list size should remain unchanged");
         }
     }
+
+    /**
+     * Tests that removing a task leaves the IDs of the remaining tasks unchanged
+     * and that the removed ID is not assigned again.
+     * 
+     * @param taskId the ID of the task to remove
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 8})
+    void testRemoveTaskKeepsIds(int taskId) {
+        try {
+            Task last = user.getTaskList().get(user.getTaskCount() - 1);
+            int lastId = last.getTaskId();
+
+            user.removeTask(taskId);
+
+            assertSame(last, user.getTaskById(lastId), "Remaining task IDs should not change");
+            assertThrows(ValidationException.class, () -> user.getTaskById(taskId));
+
+            Task added = new Task("Nowy", "123", 1, 2024, 11, 3, 11, 30);
+            user.addTask(added);
+            assertEquals(lastId + 1, added.getTaskId(), "Removed IDs should not be reused");
+        } catch (ValidationException e) {
+            fail("ValidationException should not be thrown for an existing task");
+        }
+    }
+
+    /**
+     * Tests that clients can be found by their ID after another client was removed.
+     */
+    @Test
+    void testGetClientByIdAfterRemoval() {
+        try {
+            user.removeClient(1);
+
+            assertEquals(2, user.getClientById(2).getClientId(), "Client IDs should not change");
+            assertThrows(ValidationException.class, () -> user.getClientById(1));
+        } catch (ValidationException e) {
+            fail("ValidationException should not be thrown for an existing client");
+        }
+    }
+
+    /**
+     * Tests that removing a client removes exactly the tasks of that client.
+     * 
+     * @param clientId the ID of the client to remove
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3})
+    void testRemoveClientRemovesOnlyItsTasks(int clientId) {
+        try {
+            int clientTasks = user.getTasksForClient(clientId).size();
+            int initialSize = user.getTaskCount();
+
+            user.removeClient(clientId);
+
+            assertEquals(initialSize - clientTasks, user.getTaskCount(), "Only the client's tasks should be removed");
+            assertTrue(user.getTasksForClient(clientId).isEmpty(), "Removed client should have no tasks");
+            assertTrue(user.getTaskList().stream().noneMatch(task -> task.getClientId() == clientId));
+        } catch (ValidationException e) {
+            fail("ValidationException should not be thrown for an existing client");
+        }
+    }
+
+    /**
+     * Tests that changing the client of a task moves it to the new client's tasks.
+     */
+    @Test
+    void testSetClientIdUpdatesClientTasks() {
+        Task task = user.getTasksForClient(1).get(0);
+
+        task.setClientId(2);
+
+        assertFalse(user.getTasksForClient(1).contains(task), "Task should leave the old client's tasks");
+        assertTrue(user.getTasksForClient(2).contains(task), "Task should join the new client's tasks");
+        try {
+            user.removeClient(2);
+            assertThrows(ValidationException.class, () -> user.getTaskById(task.getTaskId()));
+        } catch (ValidationException e) {
+            fail("ValidationException should not be thrown for an existing client");
+        }
+    }
+
+    /**
+     * Tests that changing the date of a task moves it to the bucket of its new status.
+     */
+    @Test
+    void testSetDateUpdatesStatusBuckets() {
+        Task task = new Task("Geografia", "123", 1, LocalDate.now().plusDays(30), LocalTime.NOON);
+        user.addTask(task);
+        assertTrue(user.getTasksByStatus(TaskStatus.LONG_TERM).contains(task), "Task should start as long term");
+
+        task.setDate(LocalDate.now().plusDays(1));
+
+        assertEquals(TaskStatus.DUE_SOON, task.getStatus());
+        assertFalse(user.getTasksByStatus(TaskStatus.LONG_TERM).contains(task), "Task should leave the old bucket");
+        assertTrue(user.getTasksByStatus(TaskStatus.DUE_SOON).contains(task), "Task should join the new bucket");
+    }
+
+    /**
+     * Tests that a range query returns exactly the tasks due within the range, in due order,
+     * and follows changes of the due time.
+     */
+    @Test
+    void testGetTasksBetween() {
+        // Sample tasks are due on 2024-11-19..2024-12-10; 19, 20, 21, 22 and 23 November fall in the range
+        List<Task> week = user.getTasksBetween(LocalDate.of(2024, 11, 19), LocalDate.of(2024, 11, 23));
+
+        assertEquals(5, week.size());
+        for (int i = 1; i < week.size(); i++) {
+            assertTrue(week.get(i - 1).getDate().compareTo(week.get(i).getDate()) <= 0, "Tasks should be ordered by date");
+        }
+
+        Task first = week.get(0);
+        first.setTimeS("23:59");
+        assertTrue(user.getTasksBetween(first.getDate().atTime(12, 0), first.getDate().atTime(23, 59)).isEmpty(),
+                "The end of the range should be exclusive");
+        first.setDateS("2030-01-01");
+        assertEquals(4, user.getTasksBetween(LocalDate.of(2024, 11, 19), LocalDate.of(2024, 11, 23)).size());
+    }
+
+    /**
+     * Tests that task search matches word prefixes, ignores case and Polish diacritics,
+     * and follows changes of the subject.
+     * 
+     * @param query a query that should find the added task
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"łódź", "LODZ", "lod wyc", "Wycieczka", "szkol"})
+    void testSearchTasks(String query) {
+        Task task = new Task("Wycieczka do Łodzi", "Zbiórka przed szkołą, Łódź Kaliska", 1, 2024, 11, 3, 11, 30);
+        user.addTask(task);
+
+        assertEquals(List.of(task), user.searchTasks(query));
+
+        try {
+            task.setSubject("Matematyka");
+            task.setDescription("Równania");
+        } catch (ValidationException e) {
+            fail("ValidationException should not be thrown for a valid subject");
+        }
+        assertTrue(user.searchTasks(query).isEmpty(), "Old words should no longer match");
+        assertEquals(List.of(task), user.searchTasks("rown"));
+    }
+
+    /**
+     * Tests that client search covers the student name, parent name and description,
+     * and that removed clients are no longer found.
+     */
+    @Test
+    void testSearchClients() {
+        Client client = new Client("Łucja", "Żaneta", "123456789", "Gra na skrzypcach");
+        user.addClient(client);
+
+        assertEquals(List.of(client), user.searchClients("lucja"));
+        assertEquals(List.of(client), user.searchClients("zan skrzyp"));
+        assertTrue(user.searchClients("lucja pati").isEmpty(), "All query words should match");
+
+        try {
+            user.removeClient(client.getClientId());
+        } catch (ValidationException e) {
+            fail("ValidationException should not be thrown for an existing client");
+        }
+        assertTrue(user.searchClients("lucja").isEmpty(), "Removed clients should not be found");
+    }
 }
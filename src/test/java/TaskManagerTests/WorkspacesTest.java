@@ -0,0 +1,119 @@
+package TaskManagerTests;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import model.Client;
+import model.User;
+import model.UserStore;
+import model.ValidationException;
+import model.Workspace;
+import model.Workspaces;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link Workspaces} class.
+ * The tests check that workspaces are loaded on first use, that only the most recently used
+ * stay resident, and that evicted workspaces are saved and load again with their changes.
+ *
+ * @author badim
+ */
+public class WorkspacesTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Tests that workspaces are loaded only when asked for, and that a resident workspace
+     * is returned as it is.
+     *
+     * @throws Exception if a workspace cannot be loaded
+     */
+    @Test
+    void loadsWorkspacesOnFirstUse() throws Exception {
+        try (Workspaces workspaces = new Workspaces(directory, 2, null)) {
+            assertEquals(List.of(Workspaces.DEFAULT), workspaces.names());
+            assertFalse(workspaces.isResident("Anna"));
+
+            Workspace anna = workspaces.get("Anna");
+            workspaces.get("Bartek");
+
+            assertTrue(workspaces.isResident("anna"));
+            assertSame(anna, workspaces.get("anna"));
+            assertEquals(List.of(Workspaces.DEFAULT, "Anna", "Bartek"), workspaces.names());
+            assertEquals(List.of("Bartek", "Anna"), workspaces.residentNames());
+        }
+    }
+
+    /**
+     * Tests that the least recently used workspace is evicted and saved, and that it loads
+     * again with its changes.
+     *
+     * @throws Exception if a workspace cannot be loaded or changed
+     */
+    @Test
+    void evictsLeastRecentlyUsedWorkspace() throws Exception {
+        try (Workspaces workspaces = new Workspaces(directory, 2, null)) {
+            List<String> evicted = new ArrayList<>();
+            workspaces.addEvictionListener(workspace -> evicted.add(workspace.getName()));
+            User anna = workspaces.get("Anna").getUser();
+            anna.addClient(new Client("Zosia", "Ewa", "123456789", ""));
+            int clients = anna.getClientList().size();
+            workspaces.get("Bartek");
+            workspaces.get("Anna"); // Bartek is now the least recently used
+
+            workspaces.get("Celina");
+
+            assertEquals(List.of("Bartek"), evicted);
+            assertEquals(List.of("Anna", "Celina"), workspaces.residentNames());
+
+            workspaces.get("Celina");
+            workspaces.get("Bartek");
+
+            assertEquals(List.of("Bartek", "Anna"), evicted);
+            User reloaded = workspaces.get("Anna").getUser();
+            assertNotSame(anna, reloaded);
+            assertEquals(clients, reloaded.getClientList().size());
+            assertEquals("Zosia", reloaded.searchClients("Zosia").get(0).getStudentName());
+        }
+    }
+
+    /**
+     * Tests that the default workspace is the store kept directly in the root directory.
+     *
+     * @throws Exception if a store cannot be opened or changed
+     */
+    @Test
+    void defaultWorkspaceIsStoredInRootDirectory() throws Exception {
+        try (UserStore store = UserStore.open(directory)) {
+            store.getUser().addClient(new Client("Zosia", "Ewa", "123456789", ""));
+        }
+
+        try (Workspaces workspaces = new Workspaces(directory, 1, null)) {
+            User user = workspaces.get(Workspaces.DEFAULT).getUser();
+            assertEquals(1, user.searchClients("Zosia").size());
+            workspaces.get("Anna");
+        }
+
+        assertTrue(Files.isDirectory(directory.resolve("workspaces").resolve("Anna")));
+    }
+
+    /**
+     * Tests that names that are not safe file names are rejected.
+     *
+     * @throws Exception if the workspaces cannot be closed
+     */
+    @Test
+    void rejectsInvalidNames() throws Exception {
+        try (Workspaces workspaces = new Workspaces(directory, 2, null)) {
+            assertThrows(ValidationException.class, () -> workspaces.get("../Anna"));
+            assertThrows(ValidationException.class, () -> workspaces.get(""));
+            assertThrows(ValidationException.class, () -> workspaces.get(" Anna"));
+            assertThrows(ValidationException.class, () -> workspaces.get("a".repeat(41)));
+            assertTrue(workspaces.residentNames().isEmpty());
+        }
+    }
+}